@@ -0,0 +1,477 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Kommandozeilenschnittstelle der Benchmarks
+ *
+ * Jeder Benchmark durchlaeuft einige Aufwaermrunden,
+ * deren Ergebnisse verworfen werden, und danach die Messrunden.
+ * Ermittelt wird der Durchsatz (Mittelwert der Messrunden)
+ * und der Fehler als halbe Breite des 99,9%-Konfidenzintervalls
+ * nach der Student-t-Verteilung.
+ *
+ * Die Optionen und das JSON-Ausgabeformat entsprechen denen von JMH,
+ * sodass vorhandene Auswertungswerkzeuge die Ergebnisse lesen koennen.
+ */
+
+package jkcemu.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import jkcemu.base.EmuUtil;
+
+
+public class BenchMain
+{
+  private static final String[] usageLines = {
+	"",
+	"Aufruf:",
+	"  java -cp <Klassenpfad> jkcemu.bench.BenchMain [Optionen]"
+							+ " [<Regex>...]",
+	"",
+	"Optionen:",
+	"  -h              diese Hilfe anzeigen",
+	"  -l              Benchmarks auflisten",
+	"  -i <Anzahl>     Anzahl der Messrunden (Standard: 5)",
+	"  -r <ms>         Dauer einer Messrunde (Standard: 1000)",
+	"  -wi <Anzahl>    Anzahl der Aufw\u00E4rmrunden (Standard: 3)",
+	"  -w <ms>         Dauer einer Aufw\u00E4rmrunde (Standard: 1000)",
+	"  -rf <Format>    Ausgabeformat: json, csv oder text"
+						+ " (Standard: text)",
+	"  -rff <Datei>    Ausgabedatei (Standard: Standardausgabe)",
+	"",
+	"Es werden die Benchmarks ausgef\u00FChrt, deren Name einen der"
+						+ " angegebenen",
+	"regul\u00E4ren Ausdr\u00FCcke enth\u00E4lt,"
+				+ " ohne Angabe alle Benchmarks.",
+	"" };
+
+  /*
+   * Quantile der Student-t-Verteilung fuer das zweiseitige
+   * 99,9%-Konfidenzintervall mit 1 bis 30 Freiheitsgraden,
+   * fuer mehr Freiheitsgrade wird das Quantil
+   * der Normalverteilung verwendet
+   */
+  private static final double[] T_999 = {
+	636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041,
+	4.781, 4.587, 4.437, 4.318, 4.221, 4.140, 4.073, 4.015,
+	3.965, 3.922, 3.883, 3.850, 3.819, 3.792, 3.768, 3.745,
+	3.725, 3.707, 3.690, 3.674, 3.659, 3.646 };
+
+  private static final double Z_999 = 3.291;
+
+
+  private static class Result
+  {
+    private Benchmark benchmark;
+    private double[]  scores;
+    private double    score;
+    private double    scoreError;
+
+    private Result( Benchmark benchmark, double[] scores )
+    {
+      this.benchmark  = benchmark;
+      this.scores     = scores;
+      this.score      = 0.0;
+      this.scoreError = Double.NaN;
+
+      int n = scores.length;
+      if( n > 0 ) {
+	double sum = 0.0;
+	for( double v : scores ) {
+	  sum += v;
+	}
+	this.score = sum / n;
+	if( n > 1 ) {
+	  double sqSum = 0.0;
+	  for( double v : scores ) {
+	    double d = v - this.score;
+	    sqSum += (d * d);
+	  }
+	  double t = (n - 1) <= T_999.length ? T_999[ n - 2 ] : Z_999;
+	  this.scoreError = t * Math.sqrt( sqSum / (n - 1) ) / Math.sqrt( n );
+	}
+      }
+    }
+  }
+
+
+  private int           measurementIterations;
+  private int           measurementMillis;
+  private int           warmupIterations;
+  private int           warmupMillis;
+  private String        resultFormat;
+  private String        resultFileName;
+  private List<Pattern> patterns;
+
+
+  public static void main( String[] args )
+  {
+    boolean status = false;
+    try {
+      BenchMain instance = new BenchMain();
+      status             = instance.execute( args );
+    }
+    catch( IOException ex ) {
+      EmuUtil.printlnErr();
+      EmuUtil.printlnErr( ex.getMessage() );
+    }
+    System.exit( status ? 0 : 1 );
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static List<Benchmark> createBenchmarks()
+  {
+    List<Benchmark> benchmarks = new ArrayList<>();
+    Z80Benchmarks.addBenchmarksTo( benchmarks );
+    SysMemBenchmarks.addBenchmarksTo( benchmarks );
+    return benchmarks;
+  }
+
+
+  private boolean execute( String[] args ) throws IOException
+  {
+    boolean status   = true;
+    boolean helpFlag = false;
+    boolean listFlag = false;
+    int     argIdx   = 0;
+    while( argIdx < args.length ) {
+      String arg = args[ argIdx++ ];
+      switch( arg ) {
+	case "-h":
+	case "-?":
+	case "--help":
+	  helpFlag = true;
+	  break;
+	case "-l":
+	  listFlag = true;
+	  break;
+	case "-i":
+	  this.measurementIterations = parseInt( args, argIdx++, 1 );
+	  break;
+	case "-r":
+	  this.measurementMillis = parseInt( args, argIdx++, 1 );
+	  break;
+	case "-wi":
+	  this.warmupIterations = parseInt( args, argIdx++, 0 );
+	  break;
+	case "-w":
+	  this.warmupMillis = parseInt( args, argIdx++, 1 );
+	  break;
+	case "-rf":
+	  this.resultFormat = getArg( args, argIdx++ ).toLowerCase();
+	  if( !this.resultFormat.equals( "json" )
+	      && !this.resultFormat.equals( "csv" )
+	      && !this.resultFormat.equals( "text" ) )
+	  {
+	    throw new IOException( "Unbekanntes Ausgabeformat: "
+							+ this.resultFormat );
+	  }
+	  break;
+	case "-rff":
+	  this.resultFileName = getArg( args, argIdx++ );
+	  break;
+	default:
+	  if( arg.startsWith( "-" ) ) {
+	    throw new IOException( "Unbekannte Option: " + arg );
+	  }
+	  try {
+	    this.patterns.add( Pattern.compile( arg ) );
+	  }
+	  catch( PatternSyntaxException ex ) {
+	    throw new IOException( "Ung\u00FCltiger regul\u00E4rer Ausdruck: "
+								+ arg );
+	  }
+      }
+    }
+    if( helpFlag ) {
+      EmuUtil.printlnOut();
+      EmuUtil.printlnOut( "JKCEMU Benchmarks" );
+      for( String s : usageLines ) {
+	EmuUtil.printlnOut( s );
+      }
+    } else {
+      List<Benchmark> benchmarks = new ArrayList<>();
+      for( Benchmark benchmark : createBenchmarks() ) {
+	if( matches( benchmark.getName() ) ) {
+	  benchmarks.add( benchmark );
+	}
+      }
+      if( listFlag ) {
+	for( Benchmark benchmark : benchmarks ) {
+	  EmuUtil.printlnOut( benchmark.getName() );
+	}
+      } else {
+	List<Result> results = new ArrayList<>();
+	for( Benchmark benchmark : benchmarks ) {
+	  Result result = runBenchmark( benchmark );
+	  if( result != null ) {
+	    results.add( result );
+	  } else {
+	    status = false;
+	  }
+	}
+	writeResults( results );
+      }
+    }
+    return status;
+  }
+
+
+  private static String getArg( String[] args, int idx ) throws IOException
+  {
+    if( idx >= args.length ) {
+      throw new IOException( "Fehlendes Argument nach Option "
+							+ args[ idx - 1 ] );
+    }
+    return args[ idx ];
+  }
+
+
+  private boolean matches( String name )
+  {
+    boolean rv = this.patterns.isEmpty();
+    for( Pattern pattern : this.patterns ) {
+      if( pattern.matcher( name ).find() ) {
+	rv = true;
+	break;
+      }
+    }
+    return rv;
+  }
+
+
+  private static int parseInt(
+			String[] args,
+			int      idx,
+			int      minValue ) throws IOException
+  {
+    String text = getArg( args, idx );
+    int    rv   = -1;
+    try {
+      rv = Integer.parseInt( text );
+    }
+    catch( NumberFormatException ex ) {}
+    if( rv < minValue ) {
+      throw new IOException( "Ung\u00FCltiger Wert f\u00FCr Option "
+					+ args[ idx - 1 ] + ": " + text );
+    }
+    return rv;
+  }
+
+
+  /*
+   * Ausfuehren einer Aufwaerm- oder Messrunde
+   *
+   * Rueckgabewert: Durchsatz in Operationen pro Sekunde
+   */
+  private static double runIteration( Benchmark benchmark, int millis )
+  {
+    long ops     = 0;
+    long begTime = System.nanoTime();
+    long endTime = begTime + (millis * 1000000L);
+    long curTime = begTime;
+    do {
+      ops += benchmark.run();
+      curTime = System.nanoTime();
+    } while( curTime < endTime );
+    return (double) ops * 1E9 / (double) (curTime - begTime);
+  }
+
+
+  private Result runBenchmark( Benchmark benchmark )
+  {
+    Result rv = null;
+    EmuUtil.printlnErr( "# Benchmark: " + benchmark.getName() );
+    try {
+      benchmark.setUp();
+      try {
+	for( int i = 0; i < this.warmupIterations; i++ ) {
+	  double score = runIteration( benchmark, this.warmupMillis );
+	  EmuUtil.printlnErr( String.format(
+				Locale.ENGLISH,
+				"# Aufw\u00E4rmrunde %d: %.3f %s",
+				i + 1,
+				score,
+				benchmark.getUnit() ) );
+	}
+	double[] scores = new double[ this.measurementIterations ];
+	for( int i = 0; i < scores.length; i++ ) {
+	  scores[ i ] = runIteration( benchmark, this.measurementMillis );
+	  EmuUtil.printlnErr( String.format(
+				Locale.ENGLISH,
+				"Messrunde %d: %.3f %s",
+				i + 1,
+				scores[ i ],
+				benchmark.getUnit() ) );
+	}
+	rv = new Result( benchmark, scores );
+      }
+      finally {
+	benchmark.tearDown();
+      }
+    }
+    catch( Exception ex ) {
+      EmuUtil.printlnErr( benchmark.getName() + ": " + ex.toString() );
+    }
+    return rv;
+  }
+
+
+  private static String toJSONNumber( double value )
+  {
+    return Double.isNaN( value ) || Double.isInfinite( value ) ?
+			"\"NaN\""
+			: String.format( Locale.ENGLISH, "%.6f", value );
+  }
+
+
+  private void writeResults( List<Result> results ) throws IOException
+  {
+    PrintWriter out = null;
+    try {
+      if( this.resultFileName != null ) {
+	out = new PrintWriter(
+		new OutputStreamWriter(
+			new FileOutputStream( new File( this.resultFileName ) ),
+			"UTF-8" ) );
+      } else {
+	out = new PrintWriter( System.out );
+      }
+      switch( this.resultFormat ) {
+	case "json":
+	  writeResultsAsJSON( out, results );
+	  break;
+	case "csv":
+	  writeResultsAsCSV( out, results );
+	  break;
+	default:
+	  writeResultsAsText( out, results );
+      }
+      out.flush();
+      if( out.checkError() ) {
+	throw new IOException( "Fehler beim Schreiben der Ergebnisse" );
+      }
+    }
+    finally {
+      if( this.resultFileName != null ) {
+	EmuUtil.closeSilent( out );
+      }
+    }
+  }
+
+
+  private void writeResultsAsCSV( PrintWriter out, List<Result> results )
+  {
+    out.println( "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\","
+			+ "\"Score\",\"Score Error (99.9%)\",\"Unit\"" );
+    for( Result result : results ) {
+      out.println( String.format(
+			Locale.ENGLISH,
+			"\"%s\",\"thrpt\",1,%d,%.6f,%.6f,\"%s\"",
+			result.benchmark.getName(),
+			result.scores.length,
+			result.score,
+			result.scoreError,
+			result.benchmark.getUnit() ) );
+    }
+  }
+
+
+  private void writeResultsAsJSON( PrintWriter out, List<Result> results )
+  {
+    out.println( "[" );
+    for( int i = 0; i < results.size(); i++ ) {
+      Result result = results.get( i );
+      out.println( "  {" );
+      out.println( "    \"benchmark\" : \""
+				+ result.benchmark.getName() + "\"," );
+      out.println( "    \"mode\" : \"thrpt\"," );
+      out.println( "    \"threads\" : 1," );
+      out.println( "    \"forks\" : 0," );
+      out.println( "    \"warmupIterations\" : "
+				+ this.warmupIterations + "," );
+      out.println( "    \"warmupTime\" : \""
+				+ this.warmupMillis + " ms\"," );
+      out.println( "    \"measurementIterations\" : "
+				+ this.measurementIterations + "," );
+      out.println( "    \"measurementTime\" : \""
+				+ this.measurementMillis + " ms\"," );
+      out.println( "    \"primaryMetric\" : {" );
+      out.println( "      \"score\" : "
+				+ toJSONNumber( result.score ) + "," );
+      out.println( "      \"scoreError\" : "
+				+ toJSONNumber( result.scoreError ) + "," );
+      out.println( "      \"scoreConfidence\" : [ "
+		+ toJSONNumber( result.score - result.scoreError ) + ", "
+		+ toJSONNumber( result.score + result.scoreError ) + " ]," );
+      out.println( "      \"scoreUnit\" : \""
+				+ result.benchmark.getUnit() + "\"," );
+      out.print( "      \"rawData\" : [ [ " );
+      for( int k = 0; k < result.scores.length; k++ ) {
+	if( k > 0 ) {
+	  out.print( ", " );
+	}
+	out.print( toJSONNumber( result.scores[ k ] ) );
+      }
+      out.println( " ] ]" );
+      out.println( "    }" );
+      out.println( (i + 1) < results.size() ? "  }," : "  }" );
+    }
+    out.println( "]" );
+  }
+
+
+  private void writeResultsAsText( PrintWriter out, List<Result> results )
+  {
+    int nameLen = "Benchmark".length();
+    for( Result result : results ) {
+      nameLen = Math.max( nameLen, result.benchmark.getName().length() );
+    }
+    String fmt = "%-" + nameLen + "s  %5s  %18s  %16s  %s";
+    out.println( String.format(
+			Locale.ENGLISH,
+			fmt,
+			"Benchmark",
+			"Cnt",
+			"Score",
+			"Error",
+			"Units" ) );
+    for( Result result : results ) {
+      out.println( String.format(
+			Locale.ENGLISH,
+			"%-" + nameLen + "s  %5d  %18.3f  %16.3f  %s",
+			result.benchmark.getName(),
+			result.scores.length,
+			result.score,
+			result.scoreError,
+			result.benchmark.getUnit() ) );
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private BenchMain()
+  {
+    this.measurementIterations = 5;
+    this.measurementMillis     = 1000;
+    this.warmupIterations      = 3;
+    this.warmupMillis          = 1000;
+    this.resultFormat          = "text";
+    this.resultFileName        = null;
+    this.patterns              = new ArrayList<>();
+  }
+}
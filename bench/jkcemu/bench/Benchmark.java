@@ -0,0 +1,78 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Basisklasse fuer einen Benchmark
+ *
+ * Ein Benchmark fuehrt mit run() einen Durchlauf aus
+ * und liefert die Anzahl der dabei ausgefuehrten Operationen
+ * (z.B. emulierte Taktzyklen oder Speicherzugriffe) zurueck.
+ * BenchMain ruft run() so oft auf, bis die Zeit
+ * einer Messung abgelaufen ist, und ermittelt daraus
+ * den Durchsatz in Operationen pro Sekunde.
+ */
+
+package jkcemu.bench;
+
+import java.lang.*;
+
+
+public abstract class Benchmark
+{
+  private String name;
+  private String unit;
+
+
+  protected Benchmark( String name, String unit )
+  {
+    this.name = name;
+    this.unit = unit;
+  }
+
+
+  public String getName()
+  {
+    return this.name;
+  }
+
+
+  /*
+   * Rueckgabewert:
+   *   Einheit des Durchsatzes, z.B. "T-states/s"
+   */
+  public String getUnit()
+  {
+    return this.unit;
+  }
+
+
+  /*
+   * Vorbereiten vor der ersten Aufwaermrunde
+   */
+  public void setUp() throws Exception
+  {
+    // leer
+  }
+
+
+  /*
+   * Aufraeumen nach der letzten Messung
+   */
+  public void tearDown()
+  {
+    // leer
+  }
+
+
+  /*
+   * Ausfuehren eines Durchlaufs
+   *
+   * Ein Durchlauf sollte deutlich kuerzer als eine Millisekunde sein,
+   * damit die Zeitmessung nur wenig ins Gewicht faellt.
+   *
+   * Rueckgabewert:
+   *   Anzahl der ausgefuehrten Operationen
+   */
+  public abstract long run();
+}
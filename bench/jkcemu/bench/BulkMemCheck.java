@@ -0,0 +1,405 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Pruefung der am Stueck ausgefuehrten Blockbefehle LDIR und LDDR
+ *
+ * Jeder Testfall wird zweimal ausgefuehrt:
+ * einmal mit einem Arbeitsspeicher, der Z80BulkMemory ueber
+ * MemoryMap.copyMemBytes(...) implementiert, und einmal mit
+ * dem gleichen Speicher ohne dieses Interface,
+ * d.h. mit einzeln ausgefuehrten Durchlaeufen.
+ * Taktzyklen, Register, Speicherinhalt sowie die Anzahl
+ * der Zugriffe auf Handler und Listener muessen uebereinstimmen.
+ *
+ * Ein Teil der Testfaelle laeuft mit einem Taktzyklen-Listener,
+ * der regelmaessig ein Ereignis hat. Die Zeitpunkte, zu denen
+ * er seine Ereignisse feststellt, muessen ebenfalls uebereinstimmen.
+ *
+ * Speicheraufteilung:
+ *   0000h-BFFFh: direkt abgebildet
+ *   8000h-83FFh: direkt abgebildet mit Listener
+ *   C000h-FFFFh: Handler
+ */
+
+package jkcemu.bench;
+
+import java.lang.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jkcemu.base.EmuUtil;
+import jkcemu.base.MemoryMap;
+import z80emu.Z80BulkMemory;
+import z80emu.Z80CPU;
+import z80emu.Z80Memory;
+import z80emu.Z80RunResult;
+import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesListenerAdapter;
+import z80emu.Z80TStatesSkipListener;
+
+
+public class BulkMemCheck
+{
+  private static final int  PRG_ADDR    = 0x0100;
+  private static final long MAX_TSTATES = 10000000L;
+
+  private static final int OP_LDIR = 0xB0;
+  private static final int OP_LDDR = 0xB8;
+
+  private static final int LISTENER_PERIOD = 1000;
+
+  private enum ListenerMode { NONE, PLAIN, SKIP, ADAPTER };
+
+
+  /*
+   * Listener mit einem Ereignis alle LISTENER_PERIOD Taktzyklen
+   */
+  private static class CheckListener implements Z80TStatesListener
+  {
+    protected int        remainTStates;
+    private   long       tStates;
+    private   List<Long> events;
+
+    private CheckListener()
+    {
+      this.remainTStates = LISTENER_PERIOD;
+      this.tStates       = 0L;
+      this.events        = new ArrayList<>();
+    }
+
+    @Override
+    public void z80TStatesProcessed( Z80CPU cpu, int tStates )
+    {
+      this.tStates       += tStates;
+      this.remainTStates -= tStates;
+      while( this.remainTStates <= 0 ) {
+	this.events.add( this.tStates );
+	this.remainTStates += LISTENER_PERIOD;
+      }
+    }
+  }
+
+
+  private static class SkipCheckListener
+			extends CheckListener
+			implements Z80TStatesSkipListener
+  {
+    @Override
+    public int getTStatesToNextEvent()
+    {
+      return Math.max( this.remainTStates, 1 );
+    }
+  }
+
+
+  private static class CheckMemory implements
+					MemoryMap.Handler,
+					MemoryMap.WriteListener,
+					Z80Memory
+  {
+    protected MemoryMap memMap;
+    protected byte[]    mem;
+    protected int       handlerReads;
+    protected int       handlerWrites;
+    protected int       listenerWrites;
+
+    private CheckMemory()
+    {
+      this.mem = new byte[ 0x10000 ];
+      for( int i = 0; i < this.mem.length; i++ ) {
+	this.mem[ i ] = (byte) ((i * 7) + (i >> 8));
+      }
+      this.memMap = new MemoryMap( this );
+      this.memMap.map( 0x0000, 0xC000, this.mem, 0, true );
+      this.memMap.setWriteListener( 0x8000, 0x0400, this );
+      this.handlerReads   = 0;
+      this.handlerWrites  = 0;
+      this.listenerWrites = 0;
+    }
+
+    @Override
+    public int getMemByte( int addr, boolean m1 )
+    {
+      return (int) this.mem[ addr & 0xFFFF ] & 0xFF;
+    }
+
+    @Override
+    public int getMemWord( int addr )
+    {
+      return (getMemByte( addr + 1, false ) << 8)
+				| getMemByte( addr, false );
+    }
+
+    @Override
+    public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+    {
+      this.handlerReads++;
+      return getMemByte( addr, m1 );
+    }
+
+    @Override
+    public void memMapWrite( MemoryMap memMap, int addr, int value )
+    {
+      this.handlerWrites++;
+      this.mem[ addr & 0xFFFF ] = (byte) value;
+    }
+
+    @Override
+    public void memMapWritten( MemoryMap memMap, int addr, int value )
+    {
+      this.listenerWrites++;
+    }
+
+    @Override
+    public int readMemByte( int addr, boolean m1 )
+    {
+      return this.memMap.read( addr & 0xFFFF, m1 );
+    }
+
+    @Override
+    public boolean setMemByte( int addr, int value )
+    {
+      this.mem[ addr & 0xFFFF ] = (byte) value;
+      return true;
+    }
+
+    @Override
+    public void writeMemByte( int addr, int value )
+    {
+      this.memMap.write( addr & 0xFFFF, value );
+    }
+  }
+
+
+  private static class BulkCheckMemory
+			extends CheckMemory
+			implements Z80BulkMemory
+  {
+    private int bulkCopies;
+
+    private BulkCheckMemory()
+    {
+      this.bulkCopies = 0;
+    }
+
+    @Override
+    public int copyMemBytes(
+			int srcAddr,
+			int dstAddr,
+			int len,
+			int addValue )
+    {
+      int rv = this.memMap.copyMemBytes( srcAddr, dstAddr, len, addValue );
+      if( rv >= 0 ) {
+	this.bulkCopies++;
+      }
+      return rv;
+    }
+  }
+
+
+  public static void main( String[] args )
+  {
+    boolean status = true;
+
+    // direkt abgebildete Seiten, am Stueck kopiert
+    status &= check( "ldir.ram",  OP_LDIR, 0x1000, 0x3000, 0x0800, true );
+    status &= check( "ldir.fill", OP_LDIR, 0x1000, 0x1001, 0x1000, true );
+    status &= check( "ldir.page", OP_LDIR, 0x13FE, 0x1FFF, 0x0004, true );
+    status &= check( "lddr.ram",  OP_LDDR, 0x2FFF, 0x4FFF, 0x0900, true );
+    status &= check( "lddr.fill", OP_LDDR, 0x2FFF, 0x2FFE, 0x0400, true );
+
+    // Blockbefehl liegt im Zielbereich
+    status &= check( "ldir.self", OP_LDIR, 0x0100, 0x0100, 0x0400, true );
+
+    // Listener bzw. Handler im Zielbereich, einzeln ausgefuehrt
+    status &= check( "ldir.listener", OP_LDIR, 0x1000, 0x7F00, 0x0200, false );
+    status &= check( "ldir.handler",  OP_LDIR, 0x1000, 0xBF00, 0x0200, false );
+
+    // Handler im Quellbereich, erst danach am Stueck kopiert
+    status &= check( "lddr.handler",  OP_LDDR, 0xC0FF, 0x20FF, 0x0200, true );
+
+    // Taktzyklen-Listener, am Stueck nur bis vor das naechste Ereignis
+    status &= check(
+		"ldir.tstates.plain",
+		OP_LDIR, 0x1000, 0x3000, 0x0800, false,
+		ListenerMode.PLAIN );
+    status &= check(
+		"ldir.tstates.skip",
+		OP_LDIR, 0x1000, 0x3000, 0x0800, true,
+		ListenerMode.SKIP );
+    status &= check(
+		"lddr.tstates.adapter",
+		OP_LDDR, 0x2FFF, 0x4FFF, 0x0900, true,
+		ListenerMode.ADAPTER );
+
+    EmuUtil.printlnOut( status ? "OK" : "FEHLER" );
+    System.exit( status ? 0 : 1 );
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static boolean check(
+			String  name,
+			int     opCode,
+			int     srcAddr,
+			int     dstAddr,
+			int     len,
+			boolean bulkExpected )
+  {
+    return check(
+		name,
+		opCode,
+		srcAddr,
+		dstAddr,
+		len,
+		bulkExpected,
+		ListenerMode.NONE );
+  }
+
+
+  private static boolean check(
+			String       name,
+			int          opCode,
+			int          srcAddr,
+			int          dstAddr,
+			int          len,
+			boolean      bulkExpected,
+			ListenerMode listenerMode )
+  {
+    CheckMemory     stepMem      = new CheckMemory();
+    BulkCheckMemory bulkMem      = new BulkCheckMemory();
+    CheckListener   stepListener = createListener( listenerMode );
+    CheckListener   bulkListener = createListener( listenerMode );
+    Z80CPU          stepCPU      = run(
+					stepMem,
+					stepListener,
+					listenerMode,
+					opCode,
+					srcAddr,
+					dstAddr,
+					len );
+    Z80CPU          bulkCPU      = run(
+					bulkMem,
+					bulkListener,
+					listenerMode,
+					opCode,
+					srcAddr,
+					dstAddr,
+					len );
+
+    String msg = null;
+    if( stepCPU == null ) {
+      msg = "HALT nicht erreicht";
+    }
+    else if( bulkCPU == null ) {
+      msg = "HALT mit Z80BulkMemory nicht erreicht";
+    }
+    else if( bulkCPU.getProcessedTStates()
+				!= stepCPU.getProcessedTStates() )
+    {
+      msg = String.format(
+		"Taktzyklen: %d statt %d",
+		bulkCPU.getProcessedTStates(),
+		stepCPU.getProcessedTStates() );
+    }
+    else if( (bulkCPU.getRegAF() != stepCPU.getRegAF())
+	     || (bulkCPU.getRegBC() != stepCPU.getRegBC())
+	     || (bulkCPU.getRegDE() != stepCPU.getRegDE())
+	     || (bulkCPU.getRegHL() != stepCPU.getRegHL())
+	     || (bulkCPU.getRegPC() != stepCPU.getRegPC())
+	     || (bulkCPU.getRegR() != stepCPU.getRegR()) )
+    {
+      msg = "Register unterschiedlich";
+    }
+    else if( !Arrays.equals( bulkMem.mem, stepMem.mem ) ) {
+      msg = "Speicherinhalt unterschiedlich";
+    }
+    else if( (bulkMem.handlerReads != stepMem.handlerReads)
+	     || (bulkMem.handlerWrites != stepMem.handlerWrites)
+	     || (bulkMem.listenerWrites != stepMem.listenerWrites) )
+    {
+      msg = "Zugriffe auf Handler bzw. Listener unterschiedlich";
+    }
+    else if( (stepListener != null)
+	     && ((bulkListener.tStates != stepListener.tStates)
+		 || !bulkListener.events.equals( stepListener.events )) )
+    {
+      msg = "Ereignisse des Taktzyklen-Listeners unterschiedlich";
+    }
+    else if( bulkExpected != (bulkMem.bulkCopies > 0) ) {
+      msg = bulkExpected ?
+		"nicht am St\u00FCck kopiert"
+		: "trotz Handler bzw. Listener am St\u00FCck kopiert";
+    }
+    if( msg != null ) {
+      EmuUtil.printlnErr( "FEHLER " + name + ": " + msg );
+    } else {
+      EmuUtil.printlnOut( String.format(
+				"OK %s: %d Taktzyklen",
+				name,
+				stepCPU.getProcessedTStates() ) );
+    }
+    return msg == null;
+  }
+
+
+  private static CheckListener createListener( ListenerMode listenerMode )
+  {
+    CheckListener rv = null;
+    switch( listenerMode ) {
+      case PLAIN:
+	rv = new CheckListener();
+	break;
+      case SKIP:
+      case ADAPTER:
+	rv = new SkipCheckListener();
+	break;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Programm:
+   *   LD HL,srcAddr / LD DE,dstAddr / LD BC,len / LDIR bzw. LDDR / HALT
+   *
+   * Rueckgabewert:
+   *   CPU nach Erreichen von HALT oder null
+   */
+  private static Z80CPU run(
+			Z80Memory     memory,
+			CheckListener listener,
+			ListenerMode  listenerMode,
+			int           opCode,
+			int           srcAddr,
+			int           dstAddr,
+			int           len )
+  {
+    int[] prg = {
+	0x21, srcAddr & 0xFF, srcAddr >> 8,
+	0x11, dstAddr & 0xFF, dstAddr >> 8,
+	0x01, len & 0xFF, len >> 8,
+	0xED, opCode,
+	0x76 };
+    for( int i = 0; i < prg.length; i++ ) {
+      memory.setMemByte( PRG_ADDR + i, prg[ i ] );
+    }
+    Z80CPU cpu = new Z80CPU( memory, null );
+    cpu.resetCPU( true );
+    cpu.setRegPC( PRG_ADDR );
+    if( listenerMode == ListenerMode.ADAPTER ) {
+      new Z80TStatesListenerAdapter( listener, LISTENER_PERIOD ).install( cpu );
+    } else if( listener != null ) {
+      cpu.addTStatesListener( listener );
+    }
+    Z80RunResult result = cpu.runUntilHalt( MAX_TSTATES );
+    cpu.flushTStatesListeners();
+    return result.getStopReason() == Z80RunResult.StopReason.HALT_REACHED ?
+								cpu
+								: null;
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Vergleich der verzoegert ausgewerteten Z80 CTC
+ * mit der nach jedem Befehl weitergezaehlten Referenz
+ *
+ * Beide CTCs erhalten die gleiche, zufaellig erzeugte Folge
+ * von Befehlen, Ein-/Ausgaben und externen Impulsen.
+ * Gelesene Zaehlerwerte, angenommene Interrupt-Vektoren
+ * sowie der mit saveState(...) geschriebene Zustand
+ * muessen uebereinstimmen.
+ */
+
+package jkcemu.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.*;
+import java.util.Arrays;
+import java.util.Random;
+import jkcemu.base.EmuUtil;
+import z80emu.Z80CTC;
+
+
+public class CTCCheck
+{
+  private static final int SEEDS = 500;
+  private static final int STEPS = 3000;
+
+  private Z80CTC       ctc;
+  private CTCReference ref;
+  private String       msg;
+
+
+  public static void main( String[] args )
+  {
+    boolean status = checkCascadeTrigger();
+    int     errors = 0;
+    for( int seed = 0; seed < SEEDS; seed++ ) {
+      if( !checkRandom( seed ) ) {
+	errors++;
+      }
+    }
+    if( errors > 0 ) {
+      EmuUtil.printlnErr( String.format(
+			"FEHLER random: %d von %d Folgen unterschiedlich",
+			errors,
+			SEEDS ) );
+      status = false;
+    } else {
+      EmuUtil.printlnOut( String.format(
+			"OK random: %d Folgen mit je %d Schritten",
+			SEEDS,
+			STEPS ) );
+    }
+    EmuUtil.printlnOut( status ? "OK" : "FEHLER" );
+    System.exit( status ? 0 : 1 );
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private CTCCheck()
+  {
+    this.ctc = new Z80CTC( "CTC" );
+    this.ref = new CTCReference();
+    this.msg = null;
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Kanal 0 wartet mit einer neuen Zeitkonstante auf den Trigger,
+   * Kanal 1 zaehlt die Nulldurchgaenge von Kanal 0.
+   */
+  private static boolean checkCascadeTrigger()
+  {
+    CTCCheck check = new CTCCheck();
+    check.setTimerConnection( 0, 1 );
+    check.write( 0, 0x0D, 11 );
+    check.write( 0, 0x02, 11 );
+    check.tStates( 4 );
+    check.write( 0, 0x0D, 11 );
+    check.write( 0, 0xE2, 11 );
+    check.write( 1, 0xF7, 11 );
+    check.write( 1, 0x5D, 11 );
+    check.tStates( 11 );
+    check.read( 1, 11 );
+    check.compareState();
+    return check.printResult( "cascade.trigger" );
+  }
+
+
+  private static boolean checkRandom( int seed )
+  {
+    Random   rand  = new Random( seed );
+    CTCCheck check = new CTCCheck();
+    for( int i = 0; i < 3; i++ ) {
+      if( rand.nextBoolean() ) {
+	check.setTimerConnection( i, i + 1 );
+      }
+    }
+    for( int i = 0; (i < STEPS) && (check.msg == null); i++ ) {
+      int timerNum = rand.nextInt( 4 );
+      int action   = rand.nextInt( 100 );
+      if( action < 60 ) {
+	check.tStates( 4 + rand.nextInt( 20 ) );
+      } else if( action < 70 ) {
+	// Steuerwort, meist mit folgender Zeitkonstante
+	int value = rand.nextInt( 0x100 ) | 0x01;
+	if( rand.nextInt( 4 ) > 0 ) {
+	  value |= 0x04;
+	}
+	check.write( timerNum, value, 11 );
+      } else if( action < 78 ) {
+	// kleine Zeitkonstanten, damit es oft Nulldurchgaenge gibt
+	check.write( timerNum, 1 + rand.nextInt( 8 ), 11 );
+      } else if( action < 80 ) {
+	check.write( timerNum, rand.nextInt( 0x100 ) & 0xFE, 11 );
+      } else if( action < 88 ) {
+	check.read( timerNum, 11 );
+      } else if( action < 92 ) {
+	check.externalUpdate( timerNum, 1 + rand.nextInt( 3 ) );
+      } else if( action < 95 ) {
+	check.interruptAccept();
+      } else if( action < 98 ) {
+	check.interruptFinish();
+      } else {
+	check.compareState();
+      }
+    }
+    check.compareState();
+    if( check.msg != null ) {
+      check.printResult( "seed " + seed );
+    }
+    return check.msg == null;
+  }
+
+
+  private void compareState()
+  {
+    if( this.msg == null ) {
+      try {
+	ByteArrayOutputStream ctcBuf = new ByteArrayOutputStream();
+	ByteArrayOutputStream refBuf = new ByteArrayOutputStream();
+	this.ctc.saveState( new DataOutputStream( ctcBuf ) );
+	this.ref.saveState( new DataOutputStream( refBuf ) );
+	if( !Arrays.equals( ctcBuf.toByteArray(), refBuf.toByteArray() ) ) {
+	  this.msg = "Zustand unterschiedlich";
+	}
+      }
+      catch( IOException ex ) {
+	this.msg = ex.getMessage();
+      }
+    }
+  }
+
+
+  private void compareValue( String name, int ctcValue, int refValue )
+  {
+    if( (this.msg == null) && (ctcValue != refValue) ) {
+      this.msg = String.format(
+			"%s: %02Xh statt %02Xh",
+			name,
+			ctcValue,
+			refValue );
+    }
+  }
+
+
+  private void externalUpdate( int timerNum, int pulses )
+  {
+    compareValue(
+		"externalUpdate",
+		this.ctc.externalUpdate( timerNum, pulses ),
+		this.ref.externalUpdate( timerNum, pulses ) );
+  }
+
+
+  private void interruptAccept()
+  {
+    compareValue(
+		"interruptAccept",
+		this.ctc.interruptAccept(),
+		this.ref.interruptAccept() );
+  }
+
+
+  private void interruptFinish()
+  {
+    this.ctc.interruptFinish();
+    this.ref.interruptFinish();
+  }
+
+
+  private boolean printResult( String name )
+  {
+    if( this.msg != null ) {
+      EmuUtil.printlnErr( "FEHLER " + name + ": " + this.msg );
+    } else {
+      EmuUtil.printlnOut( "OK " + name );
+    }
+    return this.msg == null;
+  }
+
+
+  private void read( int timerNum, int tStates )
+  {
+    compareValue(
+		"read",
+		this.ctc.read( timerNum, tStates ),
+		this.ref.read( timerNum, tStates ) );
+    tStates( tStates );
+  }
+
+
+  private void setTimerConnection( int fromTimerNum, int toTimerNum )
+  {
+    this.ctc.setTimerConnection( fromTimerNum, toTimerNum );
+    this.ref.setTimerConnection( fromTimerNum, toTimerNum );
+  }
+
+
+  private void tStates( int tStates )
+  {
+    this.ctc.z80TStatesProcessed( null, tStates );
+    this.ref.z80TStatesProcessed( tStates );
+  }
+
+
+  /*
+   * Der IO-Befehl meldet seine Taktzyklen anschliessend
+   * wie jeder andere Befehl.
+   */
+  private void write( int timerNum, int value, int tStates )
+  {
+    this.ctc.write( timerNum, value, tStates );
+    this.ref.write( timerNum, value, tStates );
+    tStates( tStates );
+  }
+}
@@ -0,0 +1,418 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Referenz fuer CTCCheck:
+ * Kanaele der Z80 CTC wie vor der verzoegerten Auswertung,
+ * d.h. nach jedem Befehl mit dessen Taktzyklen weitergezaehlt
+ *
+ * Es ist nur der Teil enthalten, der den gespeicherten Zustand
+ * beeinflusst. Interrupt-Leitung und CTC-Listener entfallen.
+ */
+
+package jkcemu.bench;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.*;
+
+
+public class CTCReference
+{
+  // Version des mit saveState(...) geschriebenen Zustands
+  private static final int STATE_VERSION = 1;
+
+  private int     interruptVector;
+  private int     tStatesToIgnore;
+  private Timer[] timer;
+
+
+  public CTCReference()
+  {
+    this.interruptVector = 0;
+    this.tStatesToIgnore = 0;
+    this.timer           = new Timer[ 4 ];
+    for( int i = 0; i < this.timer.length; i++ ) {
+      this.timer[ i ] = new Timer( i );
+    }
+  }
+
+
+  public synchronized int externalUpdate( int timerNum, boolean state )
+  {
+    return (timerNum >= 0) && (timerNum < this.timer.length) ?
+			this.timer[ timerNum ].externalUpdate( state ) : 0;
+  }
+
+
+  public synchronized int externalUpdate( int timerNum, int pulses )
+  {
+    return (timerNum >= 0) && (timerNum < this.timer.length) ?
+			this.timer[ timerNum ].externalUpdate( pulses ) : 0;
+  }
+
+
+  public synchronized int read( int timerNum, int tStates )
+  {
+    // zuerst Taktzyklen des IO-Befehls verarbeiten
+    processTStates( tStates );
+    this.tStatesToIgnore += tStates;
+
+    return (timerNum >= 0) && (timerNum < this.timer.length) ?
+			this.timer[ timerNum ].read() : 0xFF;
+  }
+
+
+  public synchronized void saveState( DataOutput out ) throws IOException
+  {
+    out.writeByte( STATE_VERSION );
+    out.writeByte( this.interruptVector );
+    out.writeInt( this.tStatesToIgnore );
+    for( int i = 0; i < this.timer.length; i++ ) {
+      this.timer[ i ].saveState( out );
+    }
+  }
+
+
+  /*
+   * Diese Methode stellt eine Verbindung
+   * vom Ausgang fromTimerNum zum Eingang toTimerNum her.
+   */
+  public void setTimerConnection( int fromTimerNum, int toTimerNum )
+  {
+    if( (fromTimerNum >= 0) && (fromTimerNum < this.timer.length) ) {
+      this.timer[ fromTimerNum ].toTimer    = this.timer[ toTimerNum ];
+      this.timer[ toTimerNum ].fromTimerNum = fromTimerNum;
+    }
+  }
+
+
+  public synchronized void write( int timerNum, int value, int tStates )
+  {
+    // zuerst Taktzyklen des IO-Befehls verarbeiten
+    processTStates( tStates );
+    this.tStatesToIgnore += tStates;
+
+    boolean done = false;
+    if( (timerNum >= 0) && (timerNum < this.timer.length) ) {
+      if( this.timer[ timerNum ].expectsCounterInit() ) {
+	this.timer[ timerNum ].writeCounterInit( value );
+	done = true;
+      }
+    }
+    if( !done ) {
+      if( (value & 0x01) == 0 ) {
+	this.interruptVector = value & 0xF8;
+      } else {
+	if( (timerNum >= 0) && (timerNum < this.timer.length) ) {
+	  this.timer[ timerNum ].writeControl( value );
+	}
+      }
+    }
+  }
+
+
+  public synchronized int interruptAccept()
+  {
+    int rv = 0;
+    for( int i = 0; i < this.timer.length; i++ ) {
+      if( !this.timer[ i ].interruptAccepted
+	  && this.timer[ i ].interruptRequested )
+      {
+	this.timer[ i ].interruptAccepted  = true;
+	this.timer[ i ].interruptRequested = false;
+	rv = this.interruptVector + (i * 2);
+	break;
+      }
+    }
+    return rv;
+  }
+
+
+  public synchronized void interruptFinish()
+  {
+    for( int i = 0; i < this.timer.length; i++ ) {
+      if( this.timer[ i ].interruptAccepted ) {
+	this.timer[ i ].interruptAccepted = false;
+	break;
+      }
+    }
+  }
+
+
+  public synchronized void reset( boolean powerOn )
+  {
+    if( powerOn ) {
+      this.interruptVector = 0;
+    }
+    for( int i = 0; i < this.timer.length; i++ ) {
+      this.timer[ i ].reset();
+    }
+    this.tStatesToIgnore = 0;
+  }
+
+
+  public synchronized void z80TStatesProcessed( int tStates )
+  {
+    if( tStates < this.tStatesToIgnore ) {
+      this.tStatesToIgnore -= tStates;
+    } else {
+      tStates -= this.tStatesToIgnore;
+      this.tStatesToIgnore = 0;
+      if( tStates > 0 ) {
+	processTStates( tStates );
+      }
+    }
+  }
+
+
+	/* --- private Klasse --- */
+
+  private class Timer
+  {
+    private int              timerNum;
+    private int              fromTimerNum;
+    private Timer            toTimer;
+    private Integer          counterLoadValue;
+    private volatile Integer counterInit;
+    private volatile int     counter;
+    private volatile int     preCounter;
+    private boolean          pre256;
+    private boolean          extMode;
+    private boolean          slope;
+    private boolean          waitForTrigger;
+    private boolean          interruptEnabled;
+    private boolean          interruptAccepted;
+    private boolean          interruptRequested;
+    private boolean          nextIsCounterInit;
+    private boolean          running;
+    private Boolean          lastInSlope;
+
+
+    private Timer( int timerNum )
+    {
+      this.timerNum     = timerNum;
+      this.fromTimerNum = -1;
+      this.toTimer      = null;
+      reset();
+    }
+
+
+    private boolean expectsCounterInit()
+    {
+      return this.nextIsCounterInit;
+    }
+
+
+    private int externalUpdate( boolean slope )
+    {
+      int rv = 0;
+      if( slope == this.slope ) {
+        Boolean lastInSlope = this.lastInSlope;
+        if( lastInSlope != null ) {
+	  if( slope != lastInSlope.booleanValue() ) {
+	    rv = externalUpdateIntern( 1 );
+	  }
+	}
+      }
+      this.lastInSlope = slope ? Boolean.TRUE : Boolean.FALSE;
+      return rv;
+    }
+
+
+    private int externalUpdate( int pulses )
+    {
+      this.lastInSlope = null;
+      return externalUpdateIntern( pulses );
+    }
+
+
+    private int externalUpdateIntern( int pulses )
+    {
+      int rv = 0;
+      if( pulses > 0 ) {
+	if( this.extMode ) {
+	  rv = updCounter( pulses );
+	} else {
+	  if( this.waitForTrigger && (this.counterLoadValue == null) ) {
+	    if( start() ) {
+	      this.waitForTrigger = false;
+	    }
+	  }
+	}
+      }
+      return rv;
+    }
+
+
+    private void processTStates( int pulses )
+    {
+      // Ein neuer Zaehlerwert wird erst nach einem Taktzyklus uebernommen.
+      if( (pulses > 0) && (this.counterLoadValue != null) ) {
+	if( !this.extMode ) {
+	  updCounter( updPreCounter( 1 ) );
+	}
+	--pulses;
+	this.counterInit      = this.counterLoadValue;
+	this.counterLoadValue = null;
+	if( this.extMode || !this.waitForTrigger ) {
+	  start();
+	}
+      }
+      if( !this.extMode && (pulses > 0) ) {
+	updCounter( updPreCounter( pulses ) );
+      }
+    }
+
+
+    private int read()
+    {
+      return this.counter & 0xFF;
+    }
+
+
+    private void reset()
+    {
+      this.counterLoadValue   = null;
+      this.counterInit        = null;
+      this.counter            = 0x100;
+      this.preCounter         = 0;
+      this.pre256             = false;
+      this.extMode            = false;
+      this.slope              = false;
+      this.waitForTrigger     = false;
+      this.interruptEnabled   = false;
+      this.interruptAccepted  = false;
+      this.interruptRequested = false;
+      this.nextIsCounterInit  = false;
+      this.running            = false;
+      this.lastInSlope        = null;
+    }
+
+
+    private void saveState( DataOutput out ) throws IOException
+    {
+      writeOptInt( out, this.counterLoadValue );
+      writeOptInt( out, this.counterInit );
+      out.writeShort( this.counter );
+      out.writeShort( this.preCounter );
+      out.writeBoolean( this.pre256 );
+      out.writeBoolean( this.extMode );
+      out.writeBoolean( this.slope );
+      out.writeBoolean( this.waitForTrigger );
+      out.writeBoolean( this.interruptEnabled );
+      out.writeBoolean( this.interruptAccepted );
+      out.writeBoolean( this.interruptRequested );
+      out.writeBoolean( this.nextIsCounterInit );
+      out.writeBoolean( this.running );
+      Boolean lastInSlope = this.lastInSlope;
+      out.writeByte( lastInSlope != null ?
+				(lastInSlope.booleanValue() ? 1 : 0)
+				: -1 );
+    }
+
+
+    private boolean start()
+    {
+      boolean rv          = false;
+      Integer counterInit = this.counterInit;
+      if( (counterInit != null) && !this.running ) {
+	this.preCounter = 0;
+	this.counter    = counterInit.intValue();
+	this.running    = true;
+	rv              = true;
+      }
+      return rv;
+    }
+
+
+    private void writeControl( int value )
+    {
+      this.interruptAccepted  = false;
+      this.interruptRequested = false;
+      this.interruptEnabled   = ((value & 0x80) != 0);
+      this.extMode            = ((value & 0x40) != 0);
+      this.pre256             = ((value & 0x20) != 0);
+      this.slope              = ((value & 0x10) != 0);
+      this.waitForTrigger     = ((value & 0x08) != 0);
+      this.nextIsCounterInit  = ((value & 0x04) != 0);
+      if( (value & 0x02) != 0 ) {
+	this.running = false;
+      }
+      this.lastInSlope = null;
+    }
+
+
+    private void writeCounterInit( int value )
+    {
+      value &= 0xFF;
+      this.counterLoadValue  = (value > 0 ? value : 0x100);
+      this.nextIsCounterInit = false;
+    }
+
+
+    private int updCounter( int pulses )
+    {
+      int rv = 0;
+      Integer counterInit = this.counterInit;
+      if( counterInit != null ) {
+	while( this.running && (pulses > 0) ) {
+	  if( pulses < this.counter ) {
+	    this.counter -= pulses;
+	    pulses = 0;
+	  } else {
+	    pulses -= this.counter;
+	    this.counter = counterInit.intValue();
+	    rv++;
+	    if( this.interruptEnabled && !this.interruptRequested ) {
+	      this.interruptRequested = true;
+	    }
+	    if( this.toTimer != null ) {
+	      this.toTimer.externalUpdate( 1 );
+	    }
+	  }
+	}
+      }
+      return rv;
+    }
+
+
+    private int updPreCounter( int pulses )
+    {
+      int rv = 0;
+      while( this.running && (pulses > 0) ) {
+	if( this.preCounter == 0 ) {
+	  this.preCounter = this.pre256 ? 256 : 16;
+	}
+	if( pulses < this.preCounter ) {
+	  this.preCounter -= pulses;
+	  pulses = 0;
+	} else {
+	  pulses -= this.preCounter;
+	  this.preCounter = 0;
+	  rv++;
+	}
+      }
+      return rv;
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private void processTStates( int tStates )
+  {
+    for( int i = 0; i < this.timer.length; i++ ) {
+      this.timer[ i ].processTStates( tStates );
+    }
+  }
+
+
+  private static void writeOptInt(
+				DataOutput out,
+				Integer    value ) throws IOException
+  {
+    out.writeInt( value != null ? value.intValue() : -1 );
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Benchmarks fuer die Speicherzugriffe emulierter Systeme
+ *
+ * Gemessen werden readMemByte(...) und writeMemByte(...)
+ * des jeweiligen EmuSys einschliesslich der Speicherumschaltung.
+ * Gelesen wird der gesamte Adressraum (RAM, ROM und Bildwiederholspeicher),
+ * geschrieben wird nur in den Arbeitsspeicher ab Adresse 0000h,
+ * da Schreibzugriffe auf den Bildwiederholspeicher
+ * ein Bildschirmfenster voraussetzen.
+ * Das System wird ohne Bildschirmfenster angelegt und nicht gestartet.
+ */
+
+package jkcemu.bench;
+
+import java.lang.*;
+import java.util.List;
+import java.util.Properties;
+import jkcemu.base.EmuSys;
+import jkcemu.base.EmuThread;
+import jkcemu.emusys.KC85;
+import jkcemu.emusys.Z1013;
+import jkcemu.emusys.Z9001;
+
+
+public class SysMemBenchmarks
+{
+  private static final String UNIT_ACCESSES = "accesses/s";
+
+  private static final int WRITE_END_ADDR = 0x4000;
+
+
+  private static class SysMemBenchmark extends Benchmark
+  {
+    private String  sysName;
+    private boolean write;
+    private EmuSys  emuSys;
+    private int     value;
+
+    private SysMemBenchmark( String sysName, boolean write )
+    {
+      super(
+	String.format(
+		"sysmem.%s.%s",
+		sysName.toLowerCase(),
+		write ? "write" : "read" ),
+	UNIT_ACCESSES );
+      this.sysName = sysName;
+      this.write   = write;
+      this.emuSys  = null;
+      this.value   = 0;
+    }
+
+    @Override
+    public void setUp()
+    {
+      Properties props = new Properties();
+      props.setProperty( EmuThread.PROP_SYSNAME, this.sysName );
+      props.setProperty(
+		Z9001.PROP_PREFIX_KC87 + EmuSys.PROP_COLOR,
+		Boolean.FALSE.toString() );
+      EmuThread emuThread = new EmuThread( null, props );
+      this.emuSys         = emuThread.getEmuSys();
+      emuThread.getZ80CPU().resetCPU( true );
+      this.emuSys.reset( EmuThread.ResetLevel.POWER_ON, props );
+    }
+
+    @Override
+    public void tearDown()
+    {
+      if( this.emuSys != null ) {
+	this.emuSys.die();
+	this.emuSys = null;
+      }
+    }
+
+    @Override
+    public long run()
+    {
+      long   rv     = 0;
+      EmuSys emuSys = this.emuSys;
+      if( this.write ) {
+	int value = this.value;
+	for( int addr = 0; addr < WRITE_END_ADDR; addr++ ) {
+	  emuSys.writeMemByte( addr, value++ );
+	}
+	this.value = value;
+	rv         = WRITE_END_ADDR;
+      } else {
+	int sum = this.value;
+	for( int addr = 0; addr < 0x10000; addr++ ) {
+	  sum += emuSys.readMemByte( addr, (addr & 0x03) == 0 );
+	}
+	this.value = sum;	// Wegoptimieren verhindern
+	rv         = 0x10000;
+      }
+      return rv;
+    }
+  }
+
+
+  public static void addBenchmarksTo( List<Benchmark> benchmarks )
+  {
+    String[] sysNames = {
+		KC85.SYSNAME_KC85_4,
+		Z9001.SYSNAME_KC87,
+		Z1013.SYSNAME_Z1013_64 };
+    for( String sysName : sysNames ) {
+      benchmarks.add( new SysMemBenchmark( sysName, false ) );
+      benchmarks.add( new SysMemBenchmark( sysName, true ) );
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private SysMemBenchmarks()
+  {
+    // nicht instanziierbar
+  }
+}
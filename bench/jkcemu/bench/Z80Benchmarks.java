@@ -0,0 +1,299 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Benchmarks fuer die Z80-CPU und den Z80-CTC
+ *
+ * Die CPU arbeitet auf einem linearen 64K-RAM ohne Speicherumschaltung,
+ * sodass ausschliesslich die Befehlsausfuehrung gemessen wird.
+ * Die Programme sind Endlosschleifen mit einem jeweils
+ * typischen Befehlsmix.
+ * Gezaehlt werden die emulierten Taktzyklen.
+ */
+
+package jkcemu.bench;
+
+import java.lang.*;
+import java.util.List;
+import z80emu.Z80CPU;
+import z80emu.Z80CTC;
+import z80emu.Z80IOSystem;
+import z80emu.Z80Memory;
+
+
+public class Z80Benchmarks
+{
+  private static final String UNIT_TSTATES = "T-states/s";
+
+  /*
+   * Taktzyklen je Durchlauf,
+   * entspricht bei 4 MHz etwa 16 Millisekunden emulierter Zeit
+   */
+  private static final int TSTATES_PER_RUN = 0x10000;
+
+  /*
+   * arithmetische und logische Befehle mit 8 Bit
+   *
+   *   LD A,55h / LD B,12h / LD C,34h
+   *   loop: ADD A,B / ADC A,C / SUB 11h / SBC A,B / AND 0F7h
+   *         XOR C / OR B / CP 40h / INC A / DEC B / RLCA / DAA
+   *         INC C / JP loop
+   */
+  private static final int[] PRG_ALU = {
+	0x3E, 0x55, 0x06, 0x12, 0x0E, 0x34,
+	0x80, 0x89, 0xD6, 0x11, 0x98, 0xE6, 0xF7, 0xA9,
+	0xB0, 0xFE, 0x40, 0x3C, 0x05, 0x07, 0x27, 0x0C,
+	0xC3, 0x06, 0x00 };
+
+  /*
+   * Blockbefehle
+   *
+   *   loop: LD HL,4000h / LD DE,6000h / LD BC,0400h / LDIR
+   *         LD HL,4000h / LD BC,0400h / LD A,0FFh / CPIR
+   *         LD HL,43FFh / LD DE,63FFh / LD BC,0400h / LDDR
+   *         JP loop
+   */
+  private static final int[] PRG_BLOCK = {
+	0x21, 0x00, 0x40, 0x11, 0x00, 0x60, 0x01, 0x00, 0x04, 0xED, 0xB0,
+	0x21, 0x00, 0x40, 0x01, 0x00, 0x04, 0x3E, 0xFF, 0xED, 0xB1,
+	0x21, 0xFF, 0x43, 0x11, 0xFF, 0x63, 0x01, 0x00, 0x04, 0xED, 0xB8,
+	0xC3, 0x00, 0x00 };
+
+  /*
+   * Befehle mit IX- und IY-Vorbyte
+   *
+   *   LD SP,0FF00h
+   *   loop: LD IX,4000h / LD IY,5000h
+   *         LD A,(IX+5) / ADD A,(IY+3) / LD (IX+6),A / INC (IY+2)
+   *         SET 0,(IX+1) / BIT 0,(IY+4) / INC IX / DEC IY
+   *         PUSH IX / PUSH IY / POP IX / POP IY / ADD IX,BC
+   *         JP loop
+   */
+  private static final int[] PRG_INDEX = {
+	0x31, 0x00, 0xFF,
+	0xDD, 0x21, 0x00, 0x40, 0xFD, 0x21, 0x00, 0x50,
+	0xDD, 0x7E, 0x05, 0xFD, 0x86, 0x03, 0xDD, 0x77, 0x06,
+	0xFD, 0x34, 0x02, 0xDD, 0xCB, 0x01, 0xC6, 0xFD, 0xCB, 0x04, 0x46,
+	0xDD, 0x23, 0xFD, 0x2B, 0xDD, 0xE5, 0xFD, 0xE5, 0xDD, 0xE1,
+	0xFD, 0xE1, 0xDD, 0x09,
+	0xC3, 0x03, 0x00 };
+
+  /*
+   * Interrupt-lastige Schleife:
+   * CTC-Kanal 0 loest im Interrupt-Modus 2 alle 64 Taktzyklen
+   * einen Interrupt aus.
+   *
+   *   LD SP,0FF00h / LD A,02h / LD I,A / IM 2
+   *   LD A,00h / OUT (00h),A		; Interrupt-Vektor
+   *   LD A,85h / OUT (00h),A		; Zeitgeber mit Interrupt
+   *   LD A,04h / OUT (00h),A		; Zeitkonstante
+   *   EI
+   *   loop: INC HL / LD A,(HL) / ADD A,B / JR loop
+   *
+   * Vektortabelle ab 0200h, Interrupt-Routine ab 0300h:
+   *   PUSH AF / INC B / POP AF / EI / RETI
+   */
+  private static final int[] PRG_INTERRUPT = {
+	0x31, 0x00, 0xFF, 0x3E, 0x02, 0xED, 0x47, 0xED, 0x5E,
+	0x3E, 0x00, 0xD3, 0x00, 0x3E, 0x85, 0xD3, 0x00,
+	0x3E, 0x04, 0xD3, 0x00, 0xFB,
+	0x23, 0x7E, 0x80, 0x18, 0xFB };
+
+  private static final int[] VEC_INTERRUPT = { 0x00, 0x03 };
+
+  private static final int[] ISR_INTERRUPT = {
+	0xF5, 0x04, 0xF1, 0xFB, 0xED, 0x4D };
+
+
+  /*
+   * Lineares 64K-RAM mit optionalem CTC auf den E/A-Adressen 00h-03h
+   */
+  private static class FlatSystem implements Z80IOSystem, Z80Memory
+  {
+    private byte[] mem;
+    private Z80CPU cpu;
+    private Z80CTC ctc;
+
+    private FlatSystem( boolean withCTC )
+    {
+      this.mem = new byte[ 0x10000 ];
+      this.cpu = new Z80CPU( this, this );
+      this.ctc = null;
+      if( withCTC ) {
+	this.ctc = new Z80CTC( "CTC" );
+	this.cpu.setInterruptSources( this.ctc );
+	this.cpu.addTStatesListener( this.ctc );
+      }
+    }
+
+    private void load( int addr, int[] bytes )
+    {
+      for( int b : bytes ) {
+	this.mem[ addr++ ] = (byte) b;
+      }
+    }
+
+    @Override
+    public int getMemByte( int addr, boolean m1 )
+    {
+      return (int) this.mem[ addr & 0xFFFF ] & 0xFF;
+    }
+
+    @Override
+    public int getMemWord( int addr )
+    {
+      return (getMemByte( addr + 1, false ) << 8)
+			| getMemByte( addr, false );
+    }
+
+    @Override
+    public int readMemByte( int addr, boolean m1 )
+    {
+      return (int) this.mem[ addr & 0xFFFF ] & 0xFF;
+    }
+
+    @Override
+    public boolean setMemByte( int addr, int value )
+    {
+      this.mem[ addr & 0xFFFF ] = (byte) value;
+      return true;
+    }
+
+    @Override
+    public void writeMemByte( int addr, int value )
+    {
+      this.mem[ addr & 0xFFFF ] = (byte) value;
+    }
+
+    @Override
+    public int readIOByte( int port, int tStates )
+    {
+      int rv = 0xFF;
+      if( (this.ctc != null) && ((port & 0xFC) == 0) ) {
+	rv = this.ctc.read( port & 0x03, tStates );
+      }
+      return rv;
+    }
+
+    @Override
+    public void writeIOByte( int port, int value, int tStates )
+    {
+      if( (this.ctc != null) && ((port & 0xFC) == 0) ) {
+	this.ctc.write( port & 0x03, value, tStates );
+      }
+    }
+  }
+
+
+  /*
+   * Ausfuehren eines Programms mit Z80CPU.runFor(...)
+   */
+  private static class CPUBenchmark extends Benchmark
+  {
+    private int[]      prg;
+    private boolean    withInterrupts;
+    private FlatSystem sys;
+
+    private CPUBenchmark( String name, int[] prg, boolean withInterrupts )
+    {
+      super( name, UNIT_TSTATES );
+      this.prg            = prg;
+      this.withInterrupts = withInterrupts;
+      this.sys            = null;
+    }
+
+    @Override
+    public void setUp()
+    {
+      this.sys = new FlatSystem( this.withInterrupts );
+      this.sys.load( 0x0000, this.prg );
+      if( this.withInterrupts ) {
+	this.sys.load( 0x0200, VEC_INTERRUPT );
+	this.sys.load( 0x0300, ISR_INTERRUPT );
+      }
+      this.sys.cpu.resetCPU( true );
+      this.sys.cpu.setRegPC( 0x0000 );
+    }
+
+    @Override
+    public long run()
+    {
+      return this.sys.cpu.runFor( TSTATES_PER_RUN ).getUsedTStates();
+    }
+  }
+
+
+  /*
+   * Fortschalten eines CTC ohne CPU-Emulation:
+   * Kanal 0 und 1 als Zeitgeber mit Interrupt,
+   * Kanal 2 als von Kanal 1 getriebener Zaehler,
+   * Kanal 3 als Zaehler an einem externen Takt
+   */
+  private static class CTCBenchmark extends Benchmark
+  {
+    private Z80CPU cpu;
+    private Z80CTC ctc;
+
+    private CTCBenchmark()
+    {
+      super( "z80ctc.step", UNIT_TSTATES );
+      this.cpu = null;
+      this.ctc = null;
+    }
+
+    @Override
+    public void setUp()
+    {
+      this.cpu = (new FlatSystem( false )).cpu;
+      this.ctc = new Z80CTC( "CTC" );
+      this.ctc.setTimerConnection( 1, 2 );
+      this.ctc.write( 0, 0x00, 0 );		// Interrupt-Vektor
+      this.ctc.write( 0, 0x85, 0 );		// Zeitgeber, Vorteiler 16
+      this.ctc.write( 0, 0x10, 0 );
+      this.ctc.write( 1, 0xA5, 0 );		// Zeitgeber, Vorteiler 256
+      this.ctc.write( 1, 0x02, 0 );
+      this.ctc.write( 2, 0xC5, 0 );		// Zaehler
+      this.ctc.write( 2, 0x08, 0 );
+      this.ctc.write( 3, 0xC5, 0 );		// Zaehler
+      this.ctc.write( 3, 0x20, 0 );
+    }
+
+    @Override
+    public long run()
+    {
+      long tStates = 0;
+      for( int i = 0; i < 0x1000; i++ ) {
+	this.ctc.z80TStatesProcessed( this.cpu, 4 );
+	if( (i & 0x0F) == 0 ) {
+	  this.ctc.externalUpdate( 3, 1 );
+	}
+	if( this.ctc.isInterruptRequested() ) {
+	  this.ctc.interruptAccept();
+	  this.ctc.interruptFinish();
+	}
+	tStates += 4;
+      }
+      return tStates;
+    }
+  }
+
+
+  public static void addBenchmarksTo( List<Benchmark> benchmarks )
+  {
+    benchmarks.add( new CPUBenchmark( "z80cpu.alu", PRG_ALU, false ) );
+    benchmarks.add( new CPUBenchmark( "z80cpu.block", PRG_BLOCK, false ) );
+    benchmarks.add( new CPUBenchmark( "z80cpu.index", PRG_INDEX, false ) );
+    benchmarks.add(
+		new CPUBenchmark( "z80cpu.interrupt", PRG_INTERRUPT, true ) );
+    benchmarks.add( new CTCBenchmark() );
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private Z80Benchmarks()
+  {
+    // nicht instanziierbar
+  }
+}
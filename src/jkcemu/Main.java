@@ -37,6 +37,8 @@ import javax.swing.UIManager;
 import jkcemu.audio.AudioRecorderFrm;
 import jkcemu.base.BaseDlg;
 import jkcemu.base.BaseFrm;
+import jkcemu.base.CmdLineEmulator;
+import jkcemu.base.EmuFarm;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.ScreenFrm;
@@ -51,6 +53,7 @@ import jkcemu.programming.basic.CmdLineBasicCompiler;
 import jkcemu.text.TextEditFrm;
 import jkcemu.text.TextUtil;
 import jkcemu.tools.calculator.CalculatorFrm;
+import jkcemu.tools.debugger.TraceViewFrm;
 import jkcemu.tools.fileconverter.FileConvertFrm;
 import jkcemu.tools.hexdiff.HexDiffFrm;
 import jkcemu.tools.hexedit.HexEditFrm;
@@ -79,6 +82,7 @@ public class Main
   public static final String FILE_GROUP_ROM      = "rom";
   public static final String FILE_GROUP_SCREEN   = "screen";
   public static final String FILE_GROUP_SECTOR   = "sector";
+  public static final String FILE_GROUP_SNAPSHOT = "snapshot";
   public static final String FILE_GROUP_SOFTWARE = "software";
   public static final String FILE_GROUP_TEXT     = "text";
   public static final String FILE_GROUP_USB      = "usb";
@@ -122,13 +126,23 @@ public class Main
 	"  --dc oder --diskcreator      Diskettenabbilddatei erstellen",
 	"  --dv oder --diskviewer       Diskettenabbilddatei-Inspector"
 								+ " starten",
+	"  --farm <Auftragsdatei>       Emulatorl\u00E4ufe ohne"
+						+ " Bildschirmfenster",
+	"                               parallel ausf\u00FChren",
+	"  --farm -h                    Hilfe zur parallelen Ausf\u00FChrung",
 	"  --fb oder --filebrowser      Datei-Browser starten",
 	"  --fc oder --fileconverter    Dateikonverter starten",
 	"  --ff oder --findfiles        Dateisuche starten",
 	"  --hd oder --hexdiff          Hex-Dateivergeicher starten",
 	"  --he oder --hexeditor        Hex-Editor starten",
+	"  --headless                   Emulator ohne Bildschirmfenster"
+						+ " ausf\u00FChren",
+	"  --headless -h                Hilfe zum Emulator ohne"
+						+ " Bildschirmfenster",
 	"  --iv oder --imageviewer      Bildbetrachter starten",
 	"  --te oder --texteditor       Texteditor starten",
+	"  --tv oder --traceviewer      Bin\u00E4re Befehlsaufzeichnung"
+								+ " anzeigen",
 	"" };
 
   private static Map<String,Image> images   = new HashMap<>();
@@ -299,6 +313,14 @@ public class Main
 		} );
 	done = true;
       }
+      else if( arg.equalsIgnoreCase( "--farm" ) ) {
+	System.setProperty( "java.awt.headless", "true" );
+	if( EmuFarm.execute( args, argIdx ) ) {
+	  exitSuccess();
+	} else {
+	  exitFailure();
+	}
+      }
       else if( arg.equalsIgnoreCase( "--fb" )
 	       || arg.equalsIgnoreCase( "--filebrowser" ) )
       {
@@ -387,6 +409,14 @@ public class Main
 		} );
 	done = true;
       }
+      else if( arg.equalsIgnoreCase( "--headless" ) ) {
+	System.setProperty( "java.awt.headless", "true" );
+	if( CmdLineEmulator.execute( args, argIdx ) ) {
+	  exitSuccess();
+	} else {
+	  exitFailure();
+	}
+      }
       else if( arg.equalsIgnoreCase( "--iv" )
 	       || arg.equalsIgnoreCase( "--imageviewer" ) )
       {
@@ -416,6 +446,21 @@ public class Main
 		  }
 		} );
 	done = true;
+      }
+      else if( arg.equalsIgnoreCase( "--tv" )
+	       || arg.equalsIgnoreCase( "--traceviewer" ) )
+      {
+	properties      = loadProfileAndSetLAF( prfName );
+	final File file = getArgFile( args, argIdx );
+	EventQueue.invokeLater(
+		new Runnable()
+		{
+		  public void run()
+		  {
+		    TraceViewFrm.open( file );
+		  }
+		} );
+	done = true;
       } else {
 	if( arg.startsWith( "-" ) ) {
 	  EmuUtil.printlnErr();
@@ -562,6 +607,16 @@ public class Main
   }
 
 
+  public static File buildProfileFile( String prfName )
+  {
+    File file = null;
+    if( configDir != null ) {
+      file = new File( configDir, "prf_" + prfName + ".xml" );
+    }
+    return file;
+  }
+
+
   public static boolean checkQuit( Frame frm )
   {
     boolean rv = false;
@@ -922,16 +977,6 @@ public class Main
 
 	/* --- private Methoden --- */
 
-  private static File buildProfileFile( String prfName )
-  {
-    File file = null;
-    if( configDir != null ) {
-      file = new File( configDir, "prf_" + prfName + ".xml" );
-    }
-    return file;
-  }
-
-
   private static File getArgFile( String[] args, int pos )
   {
     File file = null;
@@ -43,6 +43,8 @@ public class AutoInputWorker extends Thread
   {
     EmuSys emuSys = this.emuThread.getEmuSys();
     if( emuSys != null ) {
+      WarpMngr warpMngr = this.emuThread.getWarpMngr();
+      warpMngr.autoInputStarted();
       try {
 	for( AutoInputEntry entry : this.entries ) {
 
@@ -60,6 +62,9 @@ public class AutoInputWorker extends Thread
 	}
       }
       catch( InterruptedException ex ) {}
+      finally {
+	warpMngr.autoInputFinished();
+      }
     }
   }
 
@@ -46,6 +46,8 @@ public class AutoLoader extends Thread
 
   public void run()
   {
+    WarpMngr warpMngr = this.emuThread.getWarpMngr();
+    warpMngr.autoInputStarted();
     try {
       for( AutoLoadEntry entry : this.entries ) {
 	String fileName = entry.getFileName();
@@ -131,6 +133,9 @@ public class AutoLoader extends Thread
       }
     }
     catch( InterruptedException ex ) {}
+    finally {
+      warpMngr.autoInputFinished();
+    }
   }
 
 
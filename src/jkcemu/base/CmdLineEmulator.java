@@ -0,0 +1,782 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Kommandozeilenschnittstelle des Emulators ohne Bildschirmfenster
+ *
+ * Das emulierte System wird ohne grafische Oberflaeche
+ * im aktuellen Thread und mit unbegrenzter Geschwindigkeit ausgefuehrt.
+ * Die Zeitangaben beziehen sich auf die emulierte Zeit,
+ * d.h. auf die Taktfrequenz des emulierten Systems.
+ * Vor den Tastatureingaben wird ohne Option -w mindestens
+ * 2 Sekunden gewartet, bei Systemen mit laengerer Zeit
+ * bis zur Eingabebereitschaft entsprechend laenger.
+ *
+ * Aufbau einer Skriptdatei (eine Anweisung je Zeile):
+ *   # Kommentar
+ *   wait <Sekunden>	emuliertes System weiterlaufen lassen
+ *   type <Text>	Text eingeben (\n: Enter, \\: Backslash)
+ *   key <Taste>	Taste druecken, z.B. ENTER, F1, CTRL+C
+ *   load <Datei>	Datei in den Arbeitsspeicher laden
+ *   run <Datei>	Datei laden und starten
+ */
+
+package jkcemu.base;
+
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.*;
+import java.util.ArrayList;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+import jkcemu.Main;
+import jkcemu.programming.CmdLineArgIterator;
+import z80emu.Z80CPU;
+
+
+public class CmdLineEmulator
+{
+  private static final String[] usageLines = {
+	"",
+	"Aufruf:",
+	"  java -jar jkcemu.jar --headless [Optionen]",
+	"",
+	"Optionen:",
+	"  -h                    diese Hilfe anzeigen",
+	"  -p <Profil>           Profil (Name oder Datei) laden",
+	"  -s <System>           emuliertes System festlegen"
+						+ " (Wert von jkcemu.system)",
+	"  -D <Name=Wert>        Einstellung setzen",
+	"  -l <Datei>            Datei nach dem Einschalten laden",
+	"  -r <Datei>            Datei nach dem Einschalten laden"
+						+ " und starten",
+	"  -w <Sekunden>         Wartezeit nach dem Einschalten vor dem"
+						+ " Laden und",
+	"                        vor den Tastatureingaben"
+						+ " (Standard: 2 oder die",
+	"                        systemabh\u00E4ngige Zeit bis zur"
+						+ " Eingabebereitschaft)",
+	"  -k <Datei>            Tastatureingaben aus Skriptdatei lesen",
+	"  -t <Sekunden>         emulierte Laufzeit (Standard: 10)",
+	"  -o <Datei>            Bildschirmtext in Datei schreiben"
+						+ " (-: Standardausgabe)",
+	"  -m <Anfang>-<Ende>    Speicherbereich hexadezimal ausgeben",
+	"  -m <Anfang>-<Ende>=<Datei>",
+	"                        Speicherbereich in Datei schreiben",
+	"  -i <Datei>            Bildschirmabbild als PNG-Datei speichern",
+	"",
+	"Die Laufzeit und die Wartezeiten beziehen sich auf die emulierte"
+						+ " Zeit.",
+	"Ist keine Ausgabe angegeben, wird der Bildschirmtext"
+						+ " ausgegeben.",
+	"",
+	"Anweisungen in der Skriptdatei:",
+	"  wait <Sekunden>       emuliertes System weiterlaufen lassen",
+	"  type <Text>           Text eingeben (\\n: Enter,"
+						+ " \\\\: Backslash)",
+	"  key <Taste>           Taste dr\u00FCcken (z.B. ENTER, F1,"
+						+ " CTRL+C, SHIFT+UP)",
+	"  load <Datei>          Datei laden",
+	"  run <Datei>           Datei laden und starten",
+	"" };
+
+  private static final int  DEFAULT_BOOT_MILLIS          = 2000;
+  private static final int  DEFAULT_RUN_MILLIS           = 10000;
+  private static final long MIN_HOLD_MILLIS              = 100;
+  private static final long MIN_DELAY_MILLIS_AFTER_CHAR  = 150;
+  private static final long MIN_DELAY_MILLIS_AFTER_ENTER = 250;
+  private static final long PASTE_STEP_MILLIS            = 10;
+  private static final char DUMP_FILE_SEPARATOR          = '=';
+
+  private Properties  props;
+  private PrintWriter out;
+  private PrintWriter err;
+  private PasteClock  pasteClock;
+  private EmuThread   emuThread;
+  private EmuSys      emuSys;
+  private Z80CPU      cpu;
+  private long        tStatesPerMilli;
+  private long        tStates;
+
+
+  public static boolean execute( String[] args, int argIdx )
+  {
+    PrintWriter out = Main.consoleWriter;
+    PrintWriter err = Main.consoleWriter;
+    if( out == null ) {
+      out = new PrintWriter( System.out );
+      err = new PrintWriter( System.err );
+    }
+    boolean status = execute(
+		CmdLineArgIterator.createFromStringArray( args, argIdx ),
+		out,
+		err );
+    out.flush();
+    err.flush();
+    return status;
+  }
+
+
+  /*
+   * Ausfuehren eines Emulatorlaufs mit den Optionen aus dem Iterator
+   *
+   * Alle Ausgaben erfolgen ueber die uebergebenen Writer,
+   * sodass mehrere Laeufe gleichzeitig stattfinden koennen
+   * (siehe EmuFarm).
+   * Das emulierte System erhaelt eigene Einstellungen,
+   * die globalen Einstellungen (Main.getProperties()) bleiben unberuehrt.
+   */
+  static boolean execute(
+			CmdLineArgIterator iter,
+			PrintWriter        out,
+			PrintWriter        err )
+  {
+    java.util.List<String> scriptLines = new ArrayList<>();
+    java.util.List<String> memDumps    = new ArrayList<>();
+
+    boolean status       = false;
+    boolean helpFlag     = false;
+    boolean cmdLineOK    = false;
+    long    bootMillis   = -1;
+    long    runMillis    = DEFAULT_RUN_MILLIS;
+    String  prfName      = null;
+    String  sysName      = null;
+    String  scriptName   = null;
+    String  textFileName = null;
+    String  pngFileName  = null;
+
+    Properties userProps = new Properties();
+    try {
+      String arg = iter.next();
+      while( arg != null ) {
+	if( !arg.isEmpty() ) {
+	  if( (arg.length() != 2) || (arg.charAt( 0 ) != '-') ) {
+	    throwWrongCmdLine();
+	  }
+	  char ch = arg.charAt( 1 );
+	  if( (ch == 'h') || (ch == 'H') ) {
+	    helpFlag = true;
+	  } else {
+	    String value = iter.next();
+	    if( value == null ) {
+	      throwWrongCmdLine();
+	    }
+	    switch( ch ) {
+	      case 'p':
+		prfName = value;
+		break;
+	      case 's':
+		sysName = value;
+		break;
+	      case 'D':
+		{
+		  int pos = value.indexOf( '=' );
+		  if( pos < 1 ) {
+		    throw new IOException(
+				"Ung\u00FCltige Einstellung: " + value );
+		  }
+		  userProps.setProperty(
+				value.substring( 0, pos ),
+				value.substring( pos + 1 ) );
+		}
+		break;
+	      case 'l':
+		scriptLines.add( "load " + value );
+		break;
+	      case 'r':
+		scriptLines.add( "run " + value );
+		break;
+	      case 'w':
+		bootMillis = parseMillis( value );
+		break;
+	      case 'k':
+		scriptName = value;
+		break;
+	      case 't':
+		runMillis = parseMillis( value );
+		break;
+	      case 'o':
+		textFileName = value;
+		break;
+	      case 'm':
+		memDumps.add( value );
+		break;
+	      case 'i':
+		pngFileName = value;
+		break;
+	      default:
+		throw new IOException(
+			String.format( "Unbekannte Option \'%c\'", ch ) );
+	    }
+	  }
+	}
+	arg = iter.next();
+      }
+      cmdLineOK = true;
+      if( helpFlag ) {
+	out.println();
+	out.println( Main.APPINFO + " Headless" );
+	for( String s : usageLines ) {
+	  out.println( s );
+	}
+	status = true;
+      } else {
+
+	// Profil und Einstellungen
+	Properties props = new Properties();
+	File       file  = null;
+	if( prfName != null ) {
+	  file = new File( prfName );
+	  if( !file.isFile() ) {
+	    file = Main.buildProfileFile( prfName );
+	  }
+	  Properties prfProps = null;
+	  if( file != null ) {
+	    if( file.isFile() ) {
+	      prfProps = Main.loadProperties( file );
+	    }
+	  }
+	  if( prfProps == null ) {
+	    throw new IOException(
+			"Profil \'" + prfName + "\' nicht gefunden" );
+	  }
+	  props.putAll( prfProps );
+	}
+	if( sysName != null ) {
+	  props.setProperty( EmuThread.PROP_SYSNAME, sysName );
+	}
+	props.putAll( userProps );
+
+	/*
+	 * Skript zusammenstellen,
+	 * Eingaben erst nach dem Hochfahren des Betriebssystems
+	 */
+	if( scriptName != null ) {
+	  readScript( scriptLines, scriptName );
+	}
+
+	// Emulation
+	CmdLineEmulator emulator = new CmdLineEmulator( props, out, err );
+	try {
+	  /*
+	   * Ohne Option -w so lange warten,
+	   * bis das System nach dem Einschalten Eingaben annimmt
+	   */
+	  if( bootMillis < 0 ) {
+	    bootMillis = Math.max(
+		DEFAULT_BOOT_MILLIS,
+		emulator.emuSys.getDefaultPromptAfterResetMillisMax() );
+	  }
+	  if( !scriptLines.isEmpty() && (bootMillis > 0) ) {
+	    scriptLines.add(
+			0,
+			"wait " + Long.toString( bootMillis ) + "ms" );
+	  }
+	  emulator.powerOn();
+	  for( String line : scriptLines ) {
+	    emulator.execScriptLine( line );
+	  }
+	  emulator.runUntil( runMillis );
+
+	  // Ausgaben
+	  for( String memDump : memDumps ) {
+	    emulator.dumpMemory( memDump );
+	  }
+	  if( pngFileName != null ) {
+	    emulator.writeScreenImage( pngFileName );
+	  }
+	  if( (textFileName != null)
+	      || (memDumps.isEmpty() && (pngFileName == null)) )
+	  {
+	    emulator.writeScreenText( textFileName );
+	  }
+	}
+	finally {
+	  emulator.die();
+	}
+	status = true;
+      }
+    }
+    catch( IOException ex ) {
+      err.println();
+      err.println( Main.APPINFO + " Headless:" );
+      String msg = ex.getMessage();
+      if( msg != null ) {
+	if( !msg.isEmpty() ) {
+	  err.println( msg );
+	}
+      }
+      if( !cmdLineOK ) {
+	for( String s : usageLines ) {
+	  err.println( s );
+	}
+      }
+      status = false;
+    }
+    catch( RuntimeException ex ) {
+      err.println();
+      err.println( Main.APPINFO + " Headless:" );
+      ex.printStackTrace( err );
+      status = false;
+    }
+    finally {
+      EmuUtil.closeSilent( iter );
+    }
+    return status;
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private CmdLineEmulator(
+			Properties  props,
+			PrintWriter out,
+			PrintWriter err ) throws IOException
+  {
+    this.props      = props;
+    this.out        = out;
+    this.err        = err;
+    this.pasteClock = new PasteClock();
+    this.emuThread  = new EmuThread( null, props );
+    this.emuSys     = this.emuThread.getEmuSys();
+    this.cpu        = this.emuThread.getZ80CPU();
+    this.tStates    = 0L;
+    if( this.emuSys == null ) {
+      throw new IOException( "Emuliertes System nicht verf\u00FCgbar" );
+    }
+    this.emuSys.setPasteClock( this.pasteClock );
+
+    /*
+     * Die emulierte Zeit richtet sich nach der eingestellten
+     * bzw. der fuer das System ueblichen Taktfrequenz,
+     * auch wenn die Geschwindigkeit nicht begrenzt ist.
+     */
+    this.tStatesPerMilli = this.cpu.getMaxSpeedKHz();
+    if( this.tStatesPerMilli <= 0 ) {
+      this.tStatesPerMilli = EmuThread.getDefaultSpeedKHz( props );
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private void die()
+  {
+    this.emuSys.die();
+    this.emuThread.stopEmulator();
+  }
+
+
+  private void dumpMemory( String memDump ) throws IOException
+  {
+    String fileName = null;
+    int    pos      = memDump.indexOf( DUMP_FILE_SEPARATOR );
+    if( pos >= 0 ) {
+      fileName = memDump.substring( pos + 1 );
+      memDump  = memDump.substring( 0, pos );
+    }
+    pos = memDump.indexOf( '-' );
+    if( pos < 1 ) {
+      throw new IOException( "Ung\u00FCltiger Speicherbereich: " + memDump );
+    }
+    int begAddr = parseHex4( memDump.substring( 0, pos ) );
+    int endAddr = parseHex4( memDump.substring( pos + 1 ) );
+    if( endAddr < begAddr ) {
+      throw new IOException(
+		"Endadresse kleiner als Anfangsadresse: " + memDump );
+    }
+    if( fileName != null ) {
+      OutputStream out = null;
+      try {
+	out = new FileOutputStream( fileName );
+	for( int addr = begAddr; addr <= endAddr; addr++ ) {
+	  out.write( this.emuSys.getMemByte( addr, false ) );
+	}
+	out.close();
+	out = null;
+      }
+      finally {
+	EmuUtil.closeSilent( out );
+      }
+    } else {
+      StringBuilder buf  = new StringBuilder( 80 );
+      int           addr = begAddr;
+      while( addr <= endAddr ) {
+	buf.setLength( 0 );
+	buf.append( String.format( "%04X ", addr ) );
+	int n = Math.min( endAddr - addr + 1, 16 );
+	for( int i = 0; i < 16; i++ ) {
+	  if( i < n ) {
+	    buf.append( String.format(
+				" %02X",
+				this.emuSys.getMemByte( addr + i, false ) ) );
+	  } else {
+	    buf.append( "   " );
+	  }
+	}
+	buf.append( "  " );
+	for( int i = 0; i < n; i++ ) {
+	  int b = this.emuSys.getMemByte( addr + i, false );
+	  buf.append( (b >= 0x20) && (b < 0x7F) ? (char) b : '.' );
+	}
+	this.out.println( buf.toString() );
+	addr += n;
+      }
+    }
+  }
+
+
+  private void execScriptLine( String line ) throws IOException
+  {
+    line = line.trim();
+    if( !line.isEmpty() && !line.startsWith( "#" ) ) {
+      String cmd = line;
+      String arg = "";
+      int    pos = 0;
+      while( (pos < line.length())
+	     && !Character.isWhitespace( line.charAt( pos ) ) )
+      {
+	pos++;
+      }
+      if( pos < line.length() ) {
+	cmd = line.substring( 0, pos );
+	arg = line.substring( pos + 1 ).trim();
+      }
+      switch( cmd.toLowerCase() ) {
+	case "wait":
+	  runMillis( parseMillis( arg ) );
+	  break;
+	case "type":
+	  typeText( arg );
+	  break;
+	case "key":
+	  pressKey( arg );
+	  break;
+	case "load":
+	  loadFile( arg, false );
+	  break;
+	case "run":
+	  loadFile( arg, true );
+	  break;
+	default:
+	  throw new IOException( "Unbekannte Anweisung: " + line );
+      }
+    }
+  }
+
+
+  /*
+   * Die Methode haelt die gedrueckte Taste, laesst sie los
+   * und wartet bis zur naechsten Eingabe.
+   * Manche Systeme geben beim Einfuegen von Text keine Haltezeiten vor,
+   * weil dort die Zeichen direkt in den Tastaturpuffer geschrieben werden.
+   * Hier wird dagegen immer ueber die emulierte Tastatur eingegeben,
+   * weshalb Mindestzeiten gelten.
+   */
+  private void holdAndReleaseKey( boolean enter )
+  {
+    runMillis( Math.max(
+		this.emuSys.getHoldMillisPasteChar(),
+		MIN_HOLD_MILLIS ) );
+    this.emuSys.keyReleased();
+    if( enter ) {
+      runMillis( Math.max(
+		this.emuSys.getDelayMillisAfterPasteEnter(),
+		MIN_DELAY_MILLIS_AFTER_ENTER ) );
+    } else {
+      runMillis( Math.max(
+		this.emuSys.getDelayMillisAfterPasteChar(),
+		MIN_DELAY_MILLIS_AFTER_CHAR ) );
+    }
+  }
+
+
+  private void loadFile( String fileName, boolean start ) throws IOException
+  {
+    if( fileName.isEmpty() ) {
+      throw new IOException( "Datei nicht angegeben" );
+    }
+    File   file    = new File( fileName );
+    byte[] fileBuf = EmuUtil.readFile( file, true, 0x10000 );
+    if( fileBuf == null ) {
+      throw new IOException( fileName + ": Datei ist leer" );
+    }
+    FileInfo fileInfo = FileInfo.analyzeFile( fileBuf, file );
+    if( fileInfo == null ) {
+      throw new IOException( fileName + ": Dateiformat unbekannt" );
+    }
+    if( fileInfo.isTapeFile() ) {
+      throw new IOException( fileName
+		+ ": Tape-Datei im Headless-Betrieb nicht unterst\u00FCtzt" );
+    }
+    LoadData loadData = fileInfo.createLoadData( fileBuf );
+    if( loadData == null ) {
+      throw new IOException( fileName + ": Kann nicht geladen werden" );
+    }
+    if( loadData.getBegAddr() < 0 ) {
+      Integer loadAddr = this.emuSys.getLoadAddr();
+      if( loadAddr == null ) {
+	throw new IOException( fileName
+		+ ": Ladeadresse in der Datei nicht enthalten" );
+      }
+      loadData.setBegAddr( loadAddr.intValue() );
+    }
+    String msg = loadData.getInfoMsg();
+    if( msg != null ) {
+      if( !msg.isEmpty() ) {
+	this.err.println( fileName + ": " + msg );
+      }
+    }
+    loadData.loadIntoMemory( this.emuThread );
+    if( start ) {
+      int startAddr = loadData.getStartAddr();
+      if( startAddr < 0 ) {
+	throw new IOException( fileName
+		+ ": Startadresse in der Datei nicht enthalten" );
+      }
+      this.cpu.setRegPC( startAddr );
+      int spInitValue = this.emuSys.getAppStartStackInitValue();
+      if( spInitValue > 0 ) {
+	this.cpu.setRegSP( spInitValue );
+      }
+    }
+  }
+
+
+  private static int parseHex4( String text ) throws IOException
+  {
+    int rv = -1;
+    try {
+      rv = Integer.parseInt( text.trim(), 16 );
+    }
+    catch( NumberFormatException ex ) {
+      rv = -1;
+    }
+    if( (rv < 0) || (rv > 0xFFFF) ) {
+      throw new IOException( "Ung\u00FCltige Adresse: " + text );
+    }
+    return rv;
+  }
+
+
+  private static long parseMillis( String text ) throws IOException
+  {
+    long rv = 0;
+    try {
+      if( text.endsWith( "ms" ) ) {
+	rv = Long.parseLong( text.substring( 0, text.length() - 2 ) );
+      } else {
+	rv = Math.round( Double.parseDouble( text ) * 1000.0 );
+      }
+    }
+    catch( NumberFormatException ex ) {
+      rv = -1;
+    }
+    if( rv < 0 ) {
+      throw new IOException( "Ung\u00FCltige Zeitangabe: " + text );
+    }
+    return rv;
+  }
+
+
+  private void powerOn()
+  {
+    this.cpu.resetCPU( true );
+    this.emuSys.reset( EmuThread.ResetLevel.POWER_ON, this.props );
+    this.cpu.setRegPC(
+	this.emuSys.getResetStartAddress( EmuThread.ResetLevel.POWER_ON ) );
+  }
+
+
+  private void pressKey( String keyText ) throws IOException
+  {
+    boolean ctrlDown  = false;
+    boolean shiftDown = false;
+    String  keyName   = keyText.toUpperCase();
+    for(;;) {
+      if( keyName.startsWith( "CTRL+" ) ) {
+	ctrlDown = true;
+	keyName  = keyName.substring( 5 );
+      } else if( keyName.startsWith( "SHIFT+" ) ) {
+	shiftDown = true;
+	keyName   = keyName.substring( 6 );
+      } else {
+	break;
+      }
+    }
+    boolean done = false;
+    if( keyName.length() == 1 ) {
+      char ch = keyName.charAt( 0 );
+      if( ctrlDown && (ch >= '@') && (ch <= '_') ) {
+	ch = (char) (ch & 0x1F);
+      } else if( !shiftDown ) {
+	ch = Character.toLowerCase( ch );
+      }
+      if( this.emuSys.keyTyped( ch ) ) {
+	holdAndReleaseKey( false );
+	done = true;
+      }
+    } else {
+      int keyCode = -1;
+      try {
+	keyCode = KeyEvent.class.getField( "VK_" + keyName ).getInt( null );
+      }
+      catch( Exception ex ) {
+	throw new IOException( "Unbekannte Taste: " + keyText );
+      }
+      if( this.emuSys.keyPressed( keyCode, ctrlDown, shiftDown ) ) {
+	holdAndReleaseKey( keyCode == KeyEvent.VK_ENTER );
+	done = true;
+      }
+    }
+    if( !done ) {
+      throw new IOException(
+		"Taste wird vom emulierten System nicht unterst\u00FCtzt: "
+			+ keyText );
+    }
+  }
+
+
+  private static void readScript(
+			java.util.List<String> scriptLines,
+			String                 fileName ) throws IOException
+  {
+    BufferedReader in = null;
+    try {
+      in          = new BufferedReader( new FileReader( fileName ) );
+      String line = in.readLine();
+      while( line != null ) {
+	scriptLines.add( line );
+	line = in.readLine();
+      }
+    }
+    finally {
+      EmuUtil.closeSilent( in );
+    }
+  }
+
+
+  private void runMillis( long millis )
+  {
+    runTStates( millis * this.tStatesPerMilli );
+  }
+
+
+  private void runTStates( long tStates )
+  {
+    long endTStates = this.tStates + tStates;
+    while( this.tStates < endTStates ) {
+      long usedTStates = this.cpu.runFor(
+				endTStates - this.tStates ).getUsedTStates();
+      if( usedTStates <= 0 ) {
+	break;
+      }
+      this.tStates += usedTStates;
+    }
+  }
+
+
+  /*
+   * Die Methode laesst das emulierte System laufen,
+   * bis seit dem Einschalten die angegebene Zeit vergangen ist.
+   */
+  private void runUntil( long millis )
+  {
+    long tStates = millis * this.tStatesPerMilli;
+    if( tStates > this.tStates ) {
+      runTStates( tStates - this.tStates );
+    }
+  }
+
+
+  private static void throwWrongCmdLine() throws IOException
+  {
+    throw new IOException( "Kommandozeile fehlerhaft" );
+  }
+
+
+  /*
+   * Der Text wird wie beim Einfuegen ueber die Zwischenablage
+   * eingegeben, die Wartezeiten zwischen den Zeichen
+   * laufen aber in emulierter Zeit ab.
+   * Systeme, die den Text innerhalb der Emulation einfuegen,
+   * laufen dabei in kleinen Schritten weiter.
+   */
+  private void typeText( String text )
+  {
+    StringBuilder buf = new StringBuilder( text.length() );
+    int           len = text.length();
+    int           pos = 0;
+    while( pos < len ) {
+      char ch = text.charAt( pos++ );
+      if( (ch == '\\') && (pos < len) ) {
+	ch = text.charAt( pos++ );
+	if( ch == 'n' ) {
+	  ch = '\n';
+	}
+      }
+      buf.append( ch );
+    }
+    this.emuSys.startPastingText( buf.toString() );
+    while( this.emuSys.isPastingText() ) {
+      long millis = this.pasteClock.awaitSleep();
+      if( millis >= 0 ) {
+	runMillis( millis );
+	this.pasteClock.sleepElapsed();
+      } else {
+	runMillis( PASTE_STEP_MILLIS );
+      }
+    }
+  }
+
+
+  private void writeScreenImage( String fileName ) throws IOException
+  {
+    ScreenFld screenFld = new ScreenFld( null );
+    screenFld.setMargin( 0 );
+    screenFld.setScreenDevice( this.emuSys );
+    screenFld.setSize( screenFld.getPreferredSize() );
+    BufferedImage img = screenFld.createBufferedImage();
+    if( img == null ) {
+      throw new IOException( "Bildschirmabbild nicht verf\u00FCgbar" );
+    }
+    if( !ImageIO.write( img, "png", new File( fileName ) ) ) {
+      throw new IOException( "PNG-Format nicht unterst\u00FCtzt" );
+    }
+  }
+
+
+  private void writeScreenText( String fileName ) throws IOException
+  {
+    String text = this.emuSys.getScreenText();
+    if( text == null ) {
+      throw new IOException(
+		"Das emulierte System bietet keinen Bildschirmtext an." );
+    }
+    if( (fileName == null) || fileName.equals( "-" ) ) {
+      this.out.print( text );
+      if( !text.endsWith( "\n" ) ) {
+	this.out.println();
+      }
+    } else {
+      OutputStream out = null;
+      try {
+	out = new FileOutputStream( fileName );
+	out.write( text.getBytes( "ISO-8859-1" ) );
+	out.close();
+	out = null;
+      }
+      finally {
+	EmuUtil.closeSilent( out );
+      }
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Paralleles Ausfuehren vieler Emulatorlaeufe ohne Bildschirmfenster
+ *
+ * Jede Zeile der Auftragsdatei enthaelt die Optionen eines Laufs
+ * wie beim Aufruf mit --headless.
+ * Die Laeufe sind voneinander unabhaengig, d.h., jeder hat
+ * seine eigenen Einstellungen, seinen eigenen Arbeitsspeicher
+ * und seine eigenen emulierten Geraete.
+ * Nur die ROM-Inhalte aus den Ressourcen werden gemeinsam genutzt
+ * (siehe EmuUtil.readSharedResource(...)).
+ * Die Laeufe werden auf einen Pool von Arbeits-Threads verteilt,
+ * der standardmaessig so gross ist wie die Anzahl der Prozessorkerne.
+ * Die Ausgaben eines Laufs werden gepuffert und in der Reihenfolge
+ * der Auftragsdatei ausgegeben.
+ */
+
+package jkcemu.base;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.*;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jkcemu.Main;
+import jkcemu.programming.CmdLineArgIterator;
+
+
+public class EmuFarm
+{
+  private static final String[] usageLines = {
+	"",
+	"Aufruf:",
+	"  java -jar jkcemu.jar --farm [Optionen] <Auftragsdatei>",
+	"",
+	"Optionen:",
+	"  -h                    diese Hilfe anzeigen",
+	"  -j <Anzahl>           Anzahl der gleichzeitigen Emulatorl\u00E4ufe"
+						+ " (Standard:",
+	"                        Anzahl der Prozessorkerne)",
+	"",
+	"Jede Zeile der Auftragsdatei enth\u00E4lt die Optionen eines"
+						+ " Emulatorlaufs",
+	"wie beim Aufruf mit --headless (siehe --headless -h).",
+	"Leere Zeilen und Zeilen, die mit # beginnen, werden ignoriert.",
+	"Ist die Auftragsdatei -, wird von der Standardeingabe gelesen.",
+	"" };
+
+
+  private static class Job implements Callable<Boolean>
+  {
+    private int          lineNum;
+    private String       line;
+    private StringWriter buf;
+
+    private Job( int lineNum, String line )
+    {
+      this.lineNum = lineNum;
+      this.line    = line;
+      this.buf     = new StringWriter( 0x0800 );
+    }
+
+    @Override
+    public Boolean call()
+    {
+      PrintWriter out    = new PrintWriter( this.buf );
+      boolean     status = CmdLineEmulator.execute(
+				CmdLineArgIterator.createFromReader(
+					new StringReader( this.line ) ),
+				out,
+				out );
+      out.flush();
+      return status;
+    }
+  }
+
+
+  public static boolean execute( String[] args, int argIdx )
+  {
+    boolean status    = false;
+    boolean helpFlag  = false;
+    boolean cmdLineOK = false;
+    int     nThreads  = Runtime.getRuntime().availableProcessors();
+    String  jobFile   = null;
+
+    PrintWriter out = Main.consoleWriter;
+    PrintWriter err = Main.consoleWriter;
+    if( out == null ) {
+      out = new PrintWriter( System.out );
+      err = new PrintWriter( System.err );
+    }
+    try {
+      while( argIdx < args.length ) {
+	String arg = args[ argIdx++ ];
+	if( arg.equalsIgnoreCase( "-h" ) ) {
+	  helpFlag = true;
+	} else if( arg.equals( "-j" ) ) {
+	  if( argIdx >= args.length ) {
+	    throwWrongCmdLine();
+	  }
+	  nThreads = parseThreadCount( args[ argIdx++ ] );
+	} else if( (jobFile == null)
+		   && (arg.equals( "-" ) || !arg.startsWith( "-" )) )
+	{
+	  jobFile = arg;
+	} else {
+	  throwWrongCmdLine();
+	}
+      }
+      if( !helpFlag && (jobFile == null) ) {
+	throwWrongCmdLine();
+      }
+      cmdLineOK = true;
+      if( helpFlag ) {
+	out.println();
+	out.println( Main.APPINFO + " Farm" );
+	for( String s : usageLines ) {
+	  out.println( s );
+	}
+	status = true;
+      } else {
+	status = runJobs( readJobs( jobFile ), nThreads, out, err );
+      }
+    }
+    catch( IOException ex ) {
+      err.println();
+      err.println( Main.APPINFO + " Farm:" );
+      String msg = ex.getMessage();
+      if( msg != null ) {
+	if( !msg.isEmpty() ) {
+	  err.println( msg );
+	}
+      }
+      if( !cmdLineOK ) {
+	for( String s : usageLines ) {
+	  err.println( s );
+	}
+      }
+      status = false;
+    }
+    finally {
+      out.flush();
+      err.flush();
+    }
+    return status;
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private EmuFarm()
+  {
+    // nicht instanziierbar
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static int parseThreadCount( String text ) throws IOException
+  {
+    int rv = 0;
+    try {
+      rv = Integer.parseInt( text.trim() );
+    }
+    catch( NumberFormatException ex ) {
+      rv = 0;
+    }
+    if( rv < 1 ) {
+      throw new IOException( "Ung\u00FCltige Anzahl: " + text );
+    }
+    return rv;
+  }
+
+
+  private static java.util.List<Job> readJobs( String fileName )
+							throws IOException
+  {
+    java.util.List<Job> jobs = new ArrayList<>();
+    BufferedReader      in   = null;
+    try {
+      if( fileName.equals( "-" ) ) {
+	in = new BufferedReader( new InputStreamReader( System.in ) );
+      } else {
+	in = new BufferedReader( new FileReader( fileName ) );
+      }
+      int    lineNum = 1;
+      String line    = in.readLine();
+      while( line != null ) {
+	line = line.trim();
+	if( !line.isEmpty() && !line.startsWith( "#" ) ) {
+	  jobs.add( new Job( lineNum, line ) );
+	}
+	lineNum++;
+	line = in.readLine();
+      }
+    }
+    finally {
+      if( !fileName.equals( "-" ) ) {
+	EmuUtil.closeSilent( in );
+      }
+    }
+    return jobs;
+  }
+
+
+  /*
+   * Die Laeufe werden alle sofort an den Pool uebergeben.
+   * Die Ausgaben werden in der Reihenfolge der Auftragsdatei
+   * geschrieben, sobald der jeweilige Lauf beendet ist.
+   */
+  private static boolean runJobs(
+			java.util.List<Job> jobs,
+			int                 nThreads,
+			PrintWriter         out,
+			PrintWriter         err ) throws IOException
+  {
+    int             nFailed  = 0;
+    ExecutorService executor = Executors.newFixedThreadPool(
+			Math.min( nThreads, Math.max( jobs.size(), 1 ) ) );
+    try {
+      java.util.List<Future<Boolean>> futures = new ArrayList<>(
+								jobs.size() );
+      for( Job job : jobs ) {
+	futures.add( executor.submit( job ) );
+      }
+      for( int i = 0; i < jobs.size(); i++ ) {
+	Job     job    = jobs.get( i );
+	boolean status = false;
+	try {
+	  status = futures.get( i ).get().booleanValue();
+	}
+	catch( ExecutionException ex ) {
+	  Throwable t = ex.getCause();
+	  job.buf.write( String.format( "%s%n", t != null ? t : ex ) );
+	  status = false;
+	}
+	catch( InterruptedException ex ) {
+	  throw new IOException( "Abgebrochen" );
+	}
+	out.println( String.format(
+			"=== %d: %s ===",
+			job.lineNum,
+			job.line ) );
+	out.print( job.buf.toString() );
+	if( !status ) {
+	  out.println( String.format(
+			"=== %d: fehlgeschlagen ===",
+			job.lineNum ) );
+	  nFailed++;
+	}
+	out.flush();
+	job.buf = null;
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    err.println( String.format(
+		"%d Emulatorl\u00E4ufe, davon %d fehlgeschlagen",
+		jobs.size(),
+		nFailed ) );
+    return nFailed == 0;
+  }
+
+
+  private static void throwWrongCmdLine() throws IOException
+  {
+    throw new IOException( "Kommandozeile fehlerhaft" );
+  }
+}
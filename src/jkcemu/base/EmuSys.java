@@ -15,7 +15,10 @@ import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.event.KeyEvent;
 import java.awt.image.ImageObserver;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
+import java.io.IOException;
 import java.lang.*;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
@@ -25,9 +28,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JOptionPane;
 import jkcemu.Main;
 import jkcemu.base.ScreenFrm;
+import jkcemu.disk.FDC8272;
 import jkcemu.disk.FloppyDiskDrive;
 import jkcemu.disk.FloppyDiskFormat;
 import jkcemu.disk.FloppyDiskInfo;
+import jkcemu.disk.GIDE;
 import jkcemu.etc.Plotter;
 import jkcemu.etc.VDIP;
 import jkcemu.text.TextUtil;
@@ -72,6 +77,11 @@ public abstract class EmuSys
   public static final String VALUE_NONE        = "none";
   public static final String VALUE_PREFIX_FILE = "file:";
 
+  static final String TEXT_SNAPSHOT_NOT_SUPPORTED =
+			"Das Sichern und Laden des Emulatorzustands"
+				+ " wird f\u00FCr das gerade emulierte System\n"
+				+ "nicht unterst\u00FCtzt.";
+
   public static final int     DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX = 500;
   public static final boolean DEFAULT_SWAP_KEY_CHAR_CASE            = false;
 
@@ -104,6 +114,8 @@ public abstract class EmuSys
   private volatile int soundOutFrameRate;
   private volatile int tapeOutFrameRate;
 
+  private volatile PasteClock pasteClock;
+
   private static final int CHESSBOARD_SQUARE_WIDTH = 48;
 
 
@@ -117,6 +129,7 @@ public abstract class EmuSys
     this.screenFrm          = emuThread.getScreenFrm();
     this.pasteThread        = null;
     this.pasteIter          = null;
+    this.pasteClock         = null;
     this.propPrefix         = propPrefix;
     this.curSoundOutTStates = 0;
     this.soundOutTStates    = 0;
@@ -169,6 +182,18 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Die folgenden Methoden leiten an das Bildschirmfenster weiter.
+   * Ohne Bildschirmfenster (Headless-Betrieb) sind sie wirkungslos.
+   */
+  protected void clearScreenSelection()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.clearScreenSelection();
+    }
+  }
+
+
   public void die()
   {
     // leer
@@ -181,14 +206,48 @@ public abstract class EmuSys
   }
 
 
+  protected void fireOpenSecondScreen()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.fireOpenSecondScreen();
+    }
+  }
+
+
+  protected void firePastingTextFinished()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.firePastingTextFinished();
+    }
+  }
+
+
+  protected void fireRepaint()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.fireRepaint();
+    }
+  }
+
+
+  protected void fireScreenSizeChanged()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.fireScreenSizeChanged();
+    }
+  }
+
+
   /*
    * Die Methode zeigt einen Dialog mit Meldung an,
    * dass ein Zeichen nicht eingefuegt werden konnte.
+   * Ohne Bildschirmfenster wird die Meldung nur ausgegeben.
    * Die Methode kann von jedem Thread heraus aufgerufen werden.
    */
   protected void fireShowCharNotPasted( final CharacterIterator iter )
   {
-    EventQueue.invokeLater(
+    if( this.screenFrm != null ) {
+      EventQueue.invokeLater(
 		new Runnable()
 		{
 		  @Override
@@ -197,6 +256,21 @@ public abstract class EmuSys
 		    showCharNotPasted( iter );
 		  }
 		} );
+    } else {
+      EmuUtil.printlnErr(
+		String.format(
+			"Das Zeichen mit dem hexadezimalen Code %02X"
+				+ " kann nicht eingef\u00FCgt werden.",
+			(int) iter.current() ) );
+    }
+  }
+
+
+  protected void fireUpdScreenTextActionsEnabled()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.fireUpdScreenTextActionsEnabled();
+    }
   }
 
 
@@ -259,6 +333,30 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Zeitpunkt (System.currentTimeMillis()) des letzten Zugriffs
+   * auf eine emulierte Diskette oder Festplatte,
+   * 0 wenn keiner erfolgte bzw. keine Laufwerke emuliert werden
+   */
+  public long getDiskActivityMillis()
+  {
+    return 0L;
+  }
+
+
+  protected static long getDiskActivityMillis( FDC8272 fdc, GIDE gide )
+  {
+    long rv = 0L;
+    if( fdc != null ) {
+      rv = fdc.getLastActivityMillis();
+    }
+    if( gide != null ) {
+      rv = Math.max( rv, gide.getLastActivityMillis() );
+    }
+    return rv;
+  }
+
+
   protected long getHoldMillisPasteChar()
   {
     return 100;
@@ -286,6 +384,19 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Systeme mit Seitentabellen fuer die Speicherzugriffe der CPU
+   * liefern hier ihre MemoryMap.
+   * Die CPU-Zugriffe gehen dann direkt aus dem EmuThread
+   * in die MemoryMap, ohne Umweg ueber readMemByte(...)
+   * bzw. writeMemByte(...).
+   */
+  public MemoryMap getMemoryMap()
+  {
+    return null;
+  }
+
+
   public int getResetStartAddress( EmuThread.ResetLevel resetLevel )
   {
     return 0;
@@ -352,6 +463,25 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Anzahl der Taktzyklen, die z80TStatesProcessed(...) am Stueck
+   * verarbeiten kann, ohne dass sich die Ausgabe am Sound-
+   * bzw. Kassettenausgang gegenueber einzeln gemeldeten Taktzyklen
+   * aendert
+   */
+  protected int getTStatesToNextOutPhase()
+  {
+    int rv = Integer.MAX_VALUE;
+    if( this.soundOutTStates > 0 ) {
+      rv = Math.min( rv, Math.max( this.curSoundOutTStates, 1 ) );
+    }
+    if( this.tapeOutTStates > 0 ) {
+      rv = Math.min( rv, Math.max( this.curTapeOutTStates, 1 ) );
+    }
+    return rv;
+  }
+
+
   public File getUSBMemStickDirectory()
   {
     VDIP vdip = getVDIP();
@@ -424,6 +554,18 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Ohne Bildschirmfenster wird die Vollbilddarstellung
+   * wie ein Fenster mit fester Groesse behandelt.
+   */
+  protected boolean isFullScreenMode()
+  {
+    return this.screenFrm != null ?
+			this.screenFrm.isFullScreenMode()
+			: false;
+  }
+
+
   public boolean isPastingText()
   {
     return this.pasteThread != null;
@@ -527,7 +669,7 @@ public abstract class EmuSys
     if( rv ) {
       long millis = getHoldMillisPasteChar();
       if( millis > 0L ) {
-	Thread.sleep( millis );
+	pasteSleep( millis );
       }
       keyReleased();
     }
@@ -535,6 +677,21 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Wartezeit beim Einfuegen von Text,
+   * bei gesetztem PasteClock in emulierter Zeit
+   */
+  protected void pasteSleep( long millis ) throws InterruptedException
+  {
+    PasteClock pasteClock = this.pasteClock;
+    if( pasteClock != null ) {
+      pasteClock.sleep( millis );
+    } else {
+      Thread.sleep( millis );
+    }
+  }
+
+
   protected byte[] readFontByProperty(
 				Properties props,
 				String     propName,
@@ -565,7 +722,7 @@ public abstract class EmuSys
 
   protected byte[] readResource( String resource )
   {
-    return EmuUtil.readResource( this.screenFrm, resource );
+    return EmuUtil.readSharedResource( this.screenFrm, resource );
   }
 
 
@@ -804,6 +961,24 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Laden eines Snapshots
+   *
+   * Die Methode wird im Emulations-Thread aufgerufen,
+   * nachdem das System mit den Einstellungen aus dem Snapshot
+   * kalt zurueckgesetzt und der Zustand der CPU sowie
+   * des Arbeitsspeichers von EmuThread wiederhergestellt wurden.
+   * Die Rueckwaertsausfuehrung im Debugger ruft die Methode
+   * dagegen ohne vorheriges Zuruecksetzen bei angehaltener
+   * CPU-Emulation auf, weshalb der gesamte Zustand
+   * ueberschrieben werden muss.
+   */
+  public void loadSnapshot( SnapshotReader reader ) throws IOException
+  {
+    throwSnapshotNotSupported();
+  }
+
+
   public void reset( EmuThread.ResetLevel resetLevel, Properties props )
   {
     this.curSoundOutTStates = 0;
@@ -819,12 +994,34 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Sichern des systemspezifischen Zustands in einen Snapshot
+   *
+   * Die Methode wird im Emulations-Thread aufgerufen,
+   * waehrend die CPU-Emulation angehalten ist.
+   * CPU, Arbeitsspeicher des EmuThreads und RAM-Floppies
+   * werden von EmuThread gesichert.
+   */
+  public void saveSnapshot( SnapshotWriter writer ) throws IOException
+  {
+    throwSnapshotNotSupported();
+  }
+
+
   public boolean setBasicMemByte( int addr, int value )
   {
     return setMemByte( addr, value );
   }
 
 
+  protected void setChessboardDirty( boolean state )
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.setChessboardDirty( state );
+    }
+  }
+
+
   public void setFloppyDiskDrive( int idx, FloppyDiskDrive drive )
   {
     // leer
@@ -840,6 +1037,16 @@ public abstract class EmuSys
   public abstract boolean setMemByte( int addr, int value );
 
 
+  /*
+   * Ist ein PasteClock gesetzt, erfolgen die Wartezeiten
+   * beim Einfuegen von Text in emulierter Zeit (Headless-Betrieb).
+   */
+  public void setPasteClock( PasteClock pasteClock )
+  {
+    this.pasteClock = pasteClock;
+  }
+
+
   protected void showNoBasic()
   {
     BaseDlg.showErrorDlg(
@@ -949,6 +1156,12 @@ public abstract class EmuSys
   }
 
 
+  public boolean supportsSnapshot()
+  {
+    return false;
+  }
+
+
   public boolean supportsSoundOut8Bit()
   {
     return false;
@@ -1053,7 +1266,7 @@ public abstract class EmuSys
 
 	// kurze Wartezeit vor dem naechsten Zeichen
 	if( delay > 0L ) {
-	  Thread.sleep( delay );
+	  pasteSleep( delay );
 	}
 
 	// naechstes Zeichen holen und uebergeben
@@ -1062,7 +1275,7 @@ public abstract class EmuSys
 	  char ch = '\u0000';
 	  if( isFirst ) {
 	    keyReleased();
-	    Thread.sleep( 100 );
+	    pasteSleep( 100 );
 	    ch      = iter.first();
 	    isFirst = false;
 	  } else {
@@ -1092,7 +1305,11 @@ public abstract class EmuSys
     }
     catch( InterruptedException ex ) {}
     finally {
-      this.screenFrm.firePastingTextFinished();
+      PasteClock pasteClock = this.pasteClock;
+      if( pasteClock != null ) {
+	pasteClock.threadFinished();
+      }
+      firePastingTextFinished();
     }
   }
 
@@ -1148,9 +1365,10 @@ public abstract class EmuSys
     }
     if( this.pasteIter != null ) {
       this.pasteIter = null;
-      this.screenFrm.firePastingTextFinished();
+      firePastingTextFinished();
     }
-    EventQueue.invokeLater(
+    if( this.screenFrm != null ) {
+      EventQueue.invokeLater(
 		new Runnable()
 		{
 		  @Override
@@ -1159,6 +1377,9 @@ public abstract class EmuSys
 		    keyReleased();
 		  }
 		} );
+    } else {
+      keyReleased();
+    }
   }
 
 
@@ -1169,6 +1390,15 @@ public abstract class EmuSys
   }
 
 
+  @Override
+  public void setScreenDirty( boolean state )
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.setScreenDirty( state );
+    }
+  }
+
+
   @Override
   public synchronized void startPastingText( String text )
   {
@@ -1181,12 +1411,16 @@ public abstract class EmuSys
 				Main.getThreadGroup(),
 				this,
 				"JKCEMU text paste" );
+	PasteClock pasteClock = this.pasteClock;
+	if( pasteClock != null ) {
+	  pasteClock.threadStarted();
+	}
 	this.pasteThread.start();
 	done = true;
       }
     }
     if( !done ) {
-      this.screenFrm.firePastingTextFinished();
+      firePastingTextFinished();
     }
   }
 
@@ -1239,6 +1473,12 @@ public abstract class EmuSys
   }
 
 
+  private void throwSnapshotNotSupported() throws IOException
+  {
+    throw new IOException( TEXT_SNAPSHOT_NOT_SUPPORTED );
+  }
+
+
   private void updSoundOutTStates()
   {
     int frameRate = this.soundOutFrameRate;
@@ -12,6 +12,10 @@ import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.Frame;
 import java.awt.event.KeyEvent;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.lang.*;
 import java.util.Arrays;
 import java.util.Properties;
@@ -47,12 +51,14 @@ import jkcemu.joystick.JoystickFrm;
 import jkcemu.joystick.JoystickThread;
 import jkcemu.print.PrintMngr;
 import jkcemu.text.TextUtil;
+import z80emu.Z80BulkMemory;
 import z80emu.Z80CPU;
 import z80emu.Z80IOSystem;
 import z80emu.Z80Memory;
 
 
 public class EmuThread extends Thread implements
+					Z80BulkMemory,
 					Z80IOSystem,
 					Z80Memory,
 					EmuMemView
@@ -73,31 +79,50 @@ public class EmuThread extends Thread implements
 				= "jkcemu.ramfloppy.clear_on_power_on";
   public static final boolean DEFAULT_RF_CLEAR_ON_POWER_ON = false;
 
+  public static final String PROP_Z80_TABLE_DISPATCH
+				= "jkcemu.z80.table_dispatch";
+  public static final boolean DEFAULT_Z80_TABLE_DISPATCH = true;
+
   public static final String PROP_SRAM_INIT         = "jkcemu.sram.init";
   public static final String VALUE_SRAM_INIT_00     = "00";
   public static final String VALUE_SRAM_INIT_RANDOM = "random";
 
 
-  private ScreenFrm            screenFrm;
-  private Z80CPU               z80cpu;
-  private boolean              willResetDone;
-  private Object               monitor;
-  private FileTimesViewFactory fileTimesViewFactory;
-  private JoystickFrm          joyFrm;
-  private JoystickThread[]     joyThreads;
-  private byte[]               ram;
-  private byte[]               ramExtended;
-  private RAMFloppy            ramFloppy1;
-  private RAMFloppy            ramFloppy2;
-  private PrintMngr            printMngr;
-  private volatile AudioIn     tapeIn;
-  private volatile AudioOut    tapeOut;
-  private volatile AudioOut    soundOut;
-  private volatile LoadData    loadData;
-  private volatile ResetLevel  resetLevel;
-  private volatile boolean     emuRunning;
-  private volatile EmuSys      emuSys;
-  private volatile Boolean     iso646de;
+  private static final String SNAPSHOT_CHUNK_PROPS   = "props";
+  private static final String SNAPSHOT_CHUNK_CPU     = "cpu";
+  private static final String SNAPSHOT_CHUNK_RAM     = "ram";
+  private static final String SNAPSHOT_CHUNK_RAM_EXT = "ram.ext";
+  private static final String SNAPSHOT_CHUNK_RF1     = "ramfloppy1";
+  private static final String SNAPSHOT_CHUNK_RF2     = "ramfloppy2";
+  private static final int    SNAPSHOT_VERSION       = 1;
+
+  private ScreenFrm                 screenFrm;
+  private Z80CPU                   z80cpu;
+  private boolean                  willResetDone;
+  private Object                   monitor;
+  private FileTimesViewFactory     fileTimesViewFactory;
+  private JoystickFrm              joyFrm;
+  private JoystickThread[]         joyThreads;
+  private byte[]                   ram;
+  private byte[]                   ramExtended;
+  private RAMFloppy                ramFloppy1;
+  private RAMFloppy                ramFloppy2;
+  private PrintMngr                printMngr;
+  private WarpMngr                 warpMngr;
+  private volatile AudioIn         tapeIn;
+  private volatile AudioOut        tapeOut;
+  private volatile AudioOut        soundOut;
+  private volatile LoadData        loadData;
+  private volatile File            snapshotFile;
+  private volatile boolean         snapshotLoad;
+  private volatile ResetLevel      resetLevel;
+  private volatile boolean         emuRunning;
+  private volatile EmuSys          emuSys;
+  private volatile MemoryMap       memMap;
+  private volatile Properties      props;
+  private volatile Boolean         iso646de;
+  private volatile boolean         outputSuppressed;
+  private volatile ReverseExecMngr reverseExecMngr;
 
 
   public EmuThread( ScreenFrm screenFrm, Properties props )
@@ -115,13 +140,20 @@ public class EmuThread extends Thread implements
     this.ramFloppy1           = new RAMFloppy();
     this.ramFloppy2           = new RAMFloppy();
     this.printMngr            = new PrintMngr();
+    this.warpMngr             = new WarpMngr( this );
     this.tapeIn               = null;
     this.tapeOut              = null;
     this.soundOut             = null;
     this.loadData             = null;
+    this.snapshotFile         = null;
+    this.snapshotLoad         = false;
     this.resetLevel           = ResetLevel.POWER_ON;
     this.emuRunning           = false;
     this.emuSys               = null;
+    this.memMap               = null;
+    this.props                = props;
+    this.outputSuppressed     = false;
+    this.reverseExecMngr      = null;
     Arrays.fill( this.joyThreads, null );
     applySettings( props );
   }
@@ -129,6 +161,8 @@ public class EmuThread extends Thread implements
 
   public synchronized void applySettings( Properties props )
   {
+    this.props = props;
+
     // zu emulierendes System ermitteln
     boolean done   = false;
     EmuSys  emuSys = this.emuSys;
@@ -239,12 +273,15 @@ public class EmuThread extends Thread implements
 	}
       }
       this.emuSys = emuSys;
+      this.memMap = emuSys.getMemoryMap();
       fireReset( resetLevel );
     }
 
-    // Floppy Disks
-    FloppyDiskStationFrm frm = FloppyDiskStationFrm.getSharedInstance(
-							this.screenFrm );
+    // Floppy Disks (nur mit Bildschirmfenster)
+    FloppyDiskStationFrm frm = null;
+    if( this.screenFrm != null ) {
+      frm = FloppyDiskStationFrm.getSharedInstance( this.screenFrm );
+    }
     if( frm != null ) {
       int n = emuSys.getSupportedFloppyDiskDriveCount();
       frm.setDriveCount( n );
@@ -278,8 +315,14 @@ public class EmuThread extends Thread implements
       updJoystickFrm( i );
     }
 
-    // CPU-Geschwindigkeit
+    // CPU-Geschwindigkeit und Art der Befehlsausfuehrung
     updCPUSpeed( props );
+    this.warpMngr.applySettings( props, emuSys );
+    this.z80cpu.setTableDispatchEnabled(
+		EmuUtil.getBooleanProperty(
+				props,
+				PROP_Z80_TABLE_DISPATCH,
+				DEFAULT_Z80_TABLE_DISPATCH ) );
 
     // sonstiges
     this.iso646de = null;
@@ -467,6 +510,29 @@ public class EmuThread extends Thread implements
   }
 
 
+  /*
+   * Die Methode liefert die zuletzt angewendeten Einstellungen.
+   * Laufen mehrere Emulationen in einer JVM,
+   * hat jede ihre eigenen Einstellungen,
+   * weshalb diese nicht ueber Main.getProperties() gelesen werden.
+   */
+  public Properties getProperties()
+  {
+    return this.props;
+  }
+
+
+  /*
+   * Die Methode liefert den Arbeitsspeicher direkt,
+   * damit ein emuliertes System ihn in seine Seitentabellen
+   * fuer die Speicherzugriffe eintragen kann.
+   */
+  public byte[] getRAM()
+  {
+    return this.ram;
+  }
+
+
   public int getRAMByte( int addr )
   {
     return (int) this.ram[ addr & 0xFFFF ] & 0xFF;
@@ -509,6 +575,12 @@ public class EmuThread extends Thread implements
   }
 
 
+  public WarpMngr getWarpMngr()
+  {
+    return this.warpMngr;
+  }
+
+
   public Z80CPU getZ80CPU()
   {
     return this.z80cpu;
@@ -555,6 +627,17 @@ public class EmuThread extends Thread implements
   }
 
 
+  /*
+   * Solange vom Kassetteneingang gelesen wird (auch ueber
+   * die Rueckwaertsausfuehrung), muss die Eingangsphase
+   * nach jedem Befehl abgefragt werden.
+   */
+  public boolean isTapeInActive()
+  {
+    return (this.tapeIn != null) || (this.reverseExecMngr != null);
+  }
+
+
   public void joystickThreadTerminated( JoystickThread t )
   {
     synchronized( this.joyThreads ) {
@@ -568,34 +651,56 @@ public class EmuThread extends Thread implements
   }
 
 
+  /*
+   * Bei eingeschalteter Rueckwaertsausfuehrung gehen die Eingaben
+   * ueber ReverseExecMngr, damit sie protokolliert werden.
+   */
   public boolean keyPressed( KeyEvent e )
   {
-    return this.emuSys != null ?
-		this.emuSys.keyPressed(
-				e.getKeyCode(),
-				e.isControlDown(),
-				e.isShiftDown() )
-		: false;
+    boolean         rv     = false;
+    EmuSys          emuSys = this.emuSys;
+    ReverseExecMngr mngr   = this.reverseExecMngr;
+    if( mngr != null ) {
+      rv = mngr.keyPressed(
+			e.getKeyCode(),
+			e.isControlDown(),
+			e.isShiftDown() );
+    } else if( emuSys != null ) {
+      rv = emuSys.keyPressed(
+			e.getKeyCode(),
+			e.isControlDown(),
+			e.isShiftDown() );
+    }
+    return rv;
   }
 
 
   public void keyReleased()
   {
-    if( this.emuSys != null )
+    ReverseExecMngr mngr = this.reverseExecMngr;
+    if( mngr != null ) {
+      mngr.keyReleased();
+    } else if( this.emuSys != null ) {
       this.emuSys.keyReleased();
+    }
   }
 
 
   public void keyTyped( char ch )
   {
-    if( this.emuSys != null ) {
-      if( this.emuSys.getSwapKeyCharCase() ) {
+    EmuSys emuSys = this.emuSys;
+    if( emuSys != null ) {
+      if( emuSys.getSwapKeyCharCase() ) {
 	ch = TextUtil.toReverseCase( ch );
       }
-      if( this.emuSys.getConvertKeyCharToISO646DE() ) {
-	this.emuSys.keyTyped( TextUtil.toISO646DE( ch ) );
+      if( emuSys.getConvertKeyCharToISO646DE() ) {
+	ch = TextUtil.toISO646DE( ch );
+      }
+      ReverseExecMngr mngr = this.reverseExecMngr;
+      if( mngr != null ) {
+	mngr.keyTyped( ch );
       } else {
-	this.emuSys.keyTyped( ch );
+	emuSys.keyTyped( ch );
       }
     }
   }
@@ -603,9 +708,12 @@ public class EmuThread extends Thread implements
 
   public boolean readTapeInPhase()
   {
-    boolean phase   = false;
-    AudioIn audioIn = this.tapeIn;
-    if( audioIn != null ) {
+    boolean         phase   = false;
+    AudioIn         audioIn = this.tapeIn;
+    ReverseExecMngr mngr    = this.reverseExecMngr;
+    if( mngr != null ) {
+      phase = mngr.readTapeInPhase( audioIn );
+    } else if( audioIn != null ) {
       phase = audioIn.readPhase();
     }
     return phase;
@@ -655,8 +763,11 @@ public class EmuThread extends Thread implements
 
   public void setJoystickAction( int joyNum, int actionMask )
   {
-    EmuSys emuSys = this.emuSys;
-    if( emuSys != null ) {
+    EmuSys          emuSys = this.emuSys;
+    ReverseExecMngr mngr   = this.reverseExecMngr;
+    if( mngr != null ) {
+      mngr.setJoystickAction( joyNum, actionMask );
+    } else if( emuSys != null ) {
       emuSys.setJoystickAction( joyNum, actionMask );
     }
     JoystickFrm joyFrm = this.joyFrm;
@@ -719,7 +830,7 @@ public class EmuThread extends Thread implements
   public void writeSoundOutPhase( boolean phase )
   {
     AudioOut audioOut = this.soundOut;
-    if( audioOut != null ) {
+    if( (audioOut != null) && !this.outputSuppressed ) {
       audioOut.writePhase( phase );
     }
   }
@@ -732,7 +843,7 @@ public class EmuThread extends Thread implements
 				int rightValue )
   {
     AudioOut audioOut = this.soundOut;
-    if( audioOut != null ) {
+    if( (audioOut != null) && !this.outputSuppressed ) {
       audioOut.writeFrames( nFrames, monoValue, leftValue, rightValue );
     }
   }
@@ -744,7 +855,7 @@ public class EmuThread extends Thread implements
 				int rightValue )
   {
     AudioOut audioOut = this.soundOut;
-    if( audioOut != null ) {
+    if( (audioOut != null) && !this.outputSuppressed ) {
       audioOut.writeValue( monoValue, leftValue, rightValue );
     }
   }
@@ -753,12 +864,114 @@ public class EmuThread extends Thread implements
   public void writeTapeOutPhase( boolean phase )
   {
     AudioOut audioOut = this.tapeOut;
-    if( audioOut != null ) {
+    if( (audioOut != null) && !this.outputSuppressed ) {
       audioOut.writePhase( phase );
     }
   }
 
 
+	/* --- Methoden fuer ReverseExecMngr --- */
+
+  /*
+   * Der Zustand wird ohne die Einstellungen des Emulators
+   * und ohne Abschlussblock in den Snapshot geschrieben
+   * bzw. aus ihm gelesen.
+   * Beim Lesen wird das System weder zurueckgesetzt noch
+   * die Bildschirmausgabe aktualisiert.
+   * Die Methoden werden von saveSnapshot(...) und loadSnapshot(...)
+   * sowie von der Rueckwaertsausfuehrung
+   * bei angehaltener CPU-Emulation verwendet.
+   */
+  void readState( SnapshotReader reader ) throws IOException
+  {
+    EmuSys emuSys = this.emuSys;
+    if( (emuSys == null) || !emuSys.supportsSnapshot() ) {
+      throw new IOException( EmuSys.TEXT_SNAPSHOT_NOT_SUPPORTED );
+    }
+    this.z80cpu.loadState(
+		reader.getRequiredChunk( SNAPSHOT_CHUNK_CPU, SNAPSHOT_VERSION ) );
+    SnapshotReader.readBytes(
+		reader.getRequiredChunk( SNAPSHOT_CHUNK_RAM, SNAPSHOT_VERSION ),
+		this.ram );
+    DataInputStream in = reader.getChunk(
+					SNAPSHOT_CHUNK_RAM_EXT,
+					SNAPSHOT_VERSION );
+    if( in != null ) {
+      int len = in.readInt();
+      if( len > 0 ) {
+	in.readFully( getExtendedRAM( len ), 0, len );
+      }
+    }
+    if( emuSys.supportsRAMFloppy1() ) {
+      in = reader.getChunk( SNAPSHOT_CHUNK_RF1, SNAPSHOT_VERSION );
+      if( in != null ) {
+	this.ramFloppy1.loadState( in );
+      }
+    }
+    if( emuSys.supportsRAMFloppy2() ) {
+      in = reader.getChunk( SNAPSHOT_CHUNK_RF2, SNAPSHOT_VERSION );
+      if( in != null ) {
+	this.ramFloppy2.loadState( in );
+      }
+    }
+    emuSys.loadSnapshot( reader );
+  }
+
+
+  /*
+   * Unterdruecken der Ton-, Kassetten- und Druckerausgaben,
+   * waehrend die Rueckwaertsausfuehrung einen Programmablauf wiederholt
+   */
+  void setOutputSuppressed( boolean state )
+  {
+    this.outputSuppressed = state;
+    this.printMngr.setOutputSuppressed( state );
+  }
+
+
+  void setReverseExecMngr( ReverseExecMngr mngr )
+  {
+    this.reverseExecMngr = mngr;
+  }
+
+
+  void writeState( SnapshotWriter writer ) throws IOException
+  {
+    EmuSys emuSys = this.emuSys;
+    if( (emuSys == null) || !emuSys.supportsSnapshot() ) {
+      throw new IOException( EmuSys.TEXT_SNAPSHOT_NOT_SUPPORTED );
+    }
+    this.z80cpu.flushTStatesListeners();
+    this.z80cpu.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_CPU, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+
+    SnapshotWriter.writeBytes(
+		writer.beginChunk( SNAPSHOT_CHUNK_RAM, SNAPSHOT_VERSION ),
+		this.ram );
+    writer.endChunk();
+
+    byte[] ramExtended = this.ramExtended;
+    if( ramExtended != null ) {
+      SnapshotWriter.writeBytes(
+		writer.beginChunk( SNAPSHOT_CHUNK_RAM_EXT, SNAPSHOT_VERSION ),
+		ramExtended );
+      writer.endChunk();
+    }
+    if( emuSys.supportsRAMFloppy1() ) {
+      this.ramFloppy1.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_RF1, SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+    if( emuSys.supportsRAMFloppy2() ) {
+      this.ramFloppy2.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_RF2, SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+    emuSys.saveSnapshot( writer );
+  }
+
+
 	/* --- Empfang von Signalen aus einen anderen Thread --- */
 
   /*
@@ -771,19 +984,79 @@ public class EmuThread extends Thread implements
    */
   public void fireReset( ResetLevel resetLevel )
   {
-    this.screenFrm.clearScreenSelection();
+    if( this.screenFrm != null ) {
+      this.screenFrm.clearScreenSelection();
+    }
+    EmuSys emuSys = this.emuSys;
+    if( emuSys != null ) {
+      emuSys.cancelPastingText();
+    }
+    synchronized( this.monitor ) {
+      this.resetLevel   = resetLevel;
+      this.loadData     = null;
+      this.snapshotFile = null;
+      this.z80cpu.fireExit();
+    }
+  }
+
+
+  /*
+   * Die Methoden fireLoadSnapshot und fireSaveSnapshot besagen,
+   * dass der Emulatorzustand aus einer Datei geladen bzw.
+   * in eine Datei gesichert werden soll.
+   * Beides geschieht im Emulations-Thread, nachdem die CPU-Emulation
+   * an einer Befehlsgrenze verlassen wurde.
+   * Ein angehaltener Emulator (Pause, Debugger) bleibt dabei angehalten.
+   *
+   * Beim Laden muessen die Einstellungen des im Snapshot gesicherten
+   * Systems bereits angewendet sein.
+   */
+  public void fireLoadSnapshot( File file )
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.clearScreenSelection();
+    }
     EmuSys emuSys = this.emuSys;
     if( emuSys != null ) {
       emuSys.cancelPastingText();
     }
     synchronized( this.monitor ) {
-      this.resetLevel = resetLevel;
-      this.loadData   = null;
+      this.loadData     = null;
+      this.snapshotFile = file;
+      this.snapshotLoad = true;
+      this.z80cpu.fireExit();
+    }
+  }
+
+
+  public void fireSaveSnapshot( File file )
+  {
+    synchronized( this.monitor ) {
+      this.snapshotFile = file;
+      this.snapshotLoad = false;
       this.z80cpu.fireExit();
     }
   }
 
 
+  /*
+   * Ermitteln des Systemnamens aus einer Snapshot-Datei,
+   * um vor dem Laden ggf. die Einstellungen anpassen zu koennen
+   *
+   * Rueckgabewert:
+   *   Einstellungen, mit denen der Snapshot erzeugt wurde
+   */
+  public static Properties readSnapshotProperties(
+					SnapshotReader reader ) throws IOException
+  {
+    Properties props = new Properties();
+    props.load( reader.getRequiredChunk(
+				SNAPSHOT_CHUNK_PROPS,
+				SNAPSHOT_VERSION ) );
+    return props;
+  }
+
+
   /*
    * Diese Methode laedt Daten in den Arbeitsspeicher und startet
    * diese bei Bedarf.
@@ -818,6 +1091,7 @@ public class EmuThread extends Thread implements
 	jt.fireStop();
       }
     }
+    this.warpMngr.die();
     this.emuRunning = false;
     this.z80cpu.fireExit();
   }
@@ -832,14 +1106,31 @@ public class EmuThread extends Thread implements
   }
 
 
+	/* --- Z80BulkMemory --- */
+
+  /*
+   * Am Stueck wird nur in einer MemoryMap kopiert,
+   * alle anderen Systeme verwenden die einzelnen Zugriffe.
+   */
+  @Override
+  public int copyMemBytes( int srcAddr, int dstAddr, int len, int addValue )
+  {
+    MemoryMap memMap = this.memMap;
+    return memMap != null ?
+		memMap.copyMemBytes( srcAddr, dstAddr, len, addValue )
+		: -1;
+  }
+
+
 	/* --- Z80IOSystem --- */
 
   @Override
   public int readIOByte( int port, int tStates )
   {
-    int rv = 0xFF;
-    if( this.emuSys != null ) {
-      rv = this.emuSys.readIOByte( port, tStates );
+    int    rv     = 0xFF;
+    EmuSys emuSys = this.emuSys;
+    if( emuSys != null ) {
+      rv = emuSys.readIOByte( port, tStates );
     }
     return rv;
   }
@@ -848,8 +1139,10 @@ public class EmuThread extends Thread implements
   @Override
   public void writeIOByte( int port, int value, int tStates )
   {
-    if( this.emuSys != null )
-      this.emuSys.writeIOByte( port, value, tStates );
+    EmuSys emuSys = this.emuSys;
+    if( emuSys != null ) {
+      emuSys.writeIOByte( port, value, tStates );
+    }
   }
 
 
@@ -872,7 +1165,10 @@ public class EmuThread extends Thread implements
   @Override
   public int readMemByte( int addr, boolean m1 )
   {
-    return this.emuSys.readMemByte( addr & 0xFFFF, m1 );
+    MemoryMap memMap = this.memMap;
+    return memMap != null ?
+		memMap.read( addr & 0xFFFF, m1 )
+		: this.emuSys.readMemByte( addr & 0xFFFF, m1 );
   }
 
 
@@ -886,7 +1182,12 @@ public class EmuThread extends Thread implements
   @Override
   public void writeMemByte( int addr, int value )
   {
-    this.emuSys.writeMemByte( addr & 0xFFFF, value );
+    MemoryMap memMap = this.memMap;
+    if( memMap != null ) {
+      memMap.write( addr & 0xFFFF, value );
+    } else {
+      this.emuSys.writeMemByte( addr & 0xFFFF, value );
+    }
   }
 
 
@@ -903,17 +1204,44 @@ public class EmuThread extends Thread implements
 	 * Pruefen, ob ein Programm geladen oder der Emulator
 	 * tatsaechlich zurueckgesetzt werden soll
 	 */
-	LoadData loadData = null;
+	LoadData loadData     = null;
+	File     snapshotFile = null;
+	boolean  snapshotLoad = false;
 	synchronized( this.monitor ) {
 	  loadData = this.loadData;
 	  if( loadData != null ) {
 	    this.loadData = null;
 	  } else {
-	    if( this.resetLevel == ResetLevel.POWER_ON ) {
+	    snapshotFile      = this.snapshotFile;
+	    snapshotLoad      = this.snapshotLoad;
+	    this.snapshotFile = null;
+
+	    /*
+	     * Ein noch ausstehendes Zuruecksetzen hat Vorrang
+	     * vor dem Sichern des Zustands.
+	     */
+	    if( !snapshotLoad && (this.resetLevel != ResetLevel.NO_RESET) ) {
+	      snapshotFile = null;
+	    }
+	    if( (snapshotFile == null)
+		&& (this.resetLevel == ResetLevel.POWER_ON) )
+	    {
 	      Arrays.fill( this.ram, (byte) 0 );
 	    }
 	  }
 	}
+	boolean doReset = (loadData == null);
+	if( snapshotFile != null ) {
+	  if( snapshotLoad ) {
+	    doReset = !loadSnapshot( snapshotFile );
+	    if( doReset ) {
+	      this.resetLevel = ResetLevel.COLD_RESET;
+	    }
+	  } else {
+	    saveSnapshot( snapshotFile );
+	    doReset = false;
+	  }
+	}
 	if( loadData != null ) {
 	  loadData.loadIntoMemory( this );
 	  this.z80cpu.setRegPC( loadData.getStartAddr() );
@@ -923,12 +1251,13 @@ public class EmuThread extends Thread implements
 	      this.z80cpu.setRegSP( spInitValue );
 	    }
 	  }
-	} else {
+	}
+	if( doReset ) {
 	  boolean coldReset = (this.resetLevel == ResetLevel.COLD_RESET)
 				|| (this.resetLevel == ResetLevel.POWER_ON);
 	  this.z80cpu.resetCPU( coldReset );
 	  if( this.emuSys != null ) {
-	    this.emuSys.reset( this.resetLevel, Main.getProperties() );
+	    this.emuSys.reset( this.resetLevel, this.props );
 	    this.z80cpu.setRegPC(
 			this.emuSys.getResetStartAddress( this.resetLevel ) );
 	  }
@@ -939,7 +1268,8 @@ public class EmuThread extends Thread implements
 	  this.ramFloppy2.reset();
 	  if( (this.emuSys != null)
 	      && (this.resetLevel == ResetLevel.POWER_ON)
-	      && Main.getBooleanProperty(
+	      && EmuUtil.getBooleanProperty(
+			this.props,
 			PROP_RF_CLEAR_ON_POWER_ON,
 			DEFAULT_RF_CLEAR_ON_POWER_ON ) )
 	  {
@@ -961,29 +1291,22 @@ public class EmuThread extends Thread implements
 	    autoLoadInput = this.emuSys.getAutoLoadInputOnSoftReset();
 	  }
 	  if( autoLoadInput ) {
-	    AutoLoader.start( this, Main.getProperties() );
-	    AutoInputWorker.start( this, Main.getProperties() );
+	    AutoLoader.start( this, this.props );
+	    AutoInputWorker.start( this, this.props );
 	  }
 
 	  // Fenster informieren
-	  final Frame[] frms = Frame.getFrames();
-	  if( frms != null ) {
-	    final EmuThread emuThread = this;
-	    EventQueue.invokeLater(
-			new Runnable()
-			{
-			  @Override
-			  public void run()
-			  {
-			    for( Frame f : frms ) {
-			      if( f instanceof BaseFrm ) {
-				((BaseFrm) f).resetFired();
-			      }
-			    }
-			    emuThread.willResetDone = false;
-			  }
-			} );
-	  }
+	  fireResetFired();
+	}
+
+	/*
+	 * Nach allem ausser dem Sichern des Zustands passt
+	 * die Aufzeichnung der Rueckwaertsausfuehrung
+	 * nicht mehr zum Programmablauf.
+	 */
+	ReverseExecMngr mngr = this.reverseExecMngr;
+	if( (mngr != null) && ((snapshotFile == null) || snapshotLoad) ) {
+	  mngr.discardHistory();
 	}
 
 	// in die Z80-Emulation verzweigen
@@ -1000,6 +1323,129 @@ public class EmuThread extends Thread implements
 
 	/* --- private Methoden --- */
 
+  private void fireResetFired()
+  {
+    final Frame[] frms = Frame.getFrames();
+    if( frms != null ) {
+      final EmuThread emuThread = this;
+      EventQueue.invokeLater(
+		new Runnable()
+		{
+		  @Override
+		  public void run()
+		  {
+		    for( Frame f : frms ) {
+		      if( f instanceof BaseFrm ) {
+			((BaseFrm) f).resetFired();
+		      }
+		    }
+		    emuThread.willResetDone = false;
+		  }
+		} );
+    }
+  }
+
+
+  private void fireShowError( final Exception ex )
+  {
+    final Component owner = this.screenFrm;
+    EventQueue.invokeLater(
+		new Runnable()
+		{
+		  @Override
+		  public void run()
+		  {
+		    BaseDlg.showErrorDlg( owner, ex );
+		  }
+		} );
+  }
+
+
+  /*
+   * Laden eines Snapshots im Emulations-Thread
+   *
+   * Rueckgabewert:
+   *   true:  Zustand vollstaendig wiederhergestellt
+   *   false: Fehler, das System muss zurueckgesetzt werden
+   */
+  private boolean loadSnapshot( File file )
+  {
+    boolean rv = false;
+    try {
+      SnapshotReader reader  = new SnapshotReader( file );
+      Properties     props   = readSnapshotProperties( reader );
+      String         sysName = EmuUtil.getProperty( props, PROP_SYSNAME );
+      if( !sysName.equals(
+		EmuUtil.getProperty( this.props, PROP_SYSNAME ) ) )
+      {
+	throw new IOException( "Der Snapshot wurde mit einem anderen"
+			+ " emulierten System erstellt." );
+      }
+      EmuSys emuSys = this.emuSys;
+      if( (emuSys == null) || !emuSys.supportsSnapshot() ) {
+	throw new IOException( EmuSys.TEXT_SNAPSHOT_NOT_SUPPORTED );
+      }
+
+      // System kalt zuruecksetzen und Grundzustand wiederherstellen
+      this.z80cpu.resetCPU( true );
+      emuSys.reset( ResetLevel.COLD_RESET, this.props );
+      this.printMngr.reset();
+      this.ramFloppy1.reset();
+      this.ramFloppy2.reset();
+
+      readState( reader );
+      this.screenFrm.setScreenDirty( true );
+      this.screenFrm.fireScreenSizeChanged();
+      this.screenFrm.fireShowStatusText( "Emulatorzustand geladen" );
+      rv = true;
+    }
+    catch( IOException ex ) {
+      fireShowError( ex );
+    }
+    fireResetFired();
+    return rv;
+  }
+
+
+  /*
+   * Sichern des Emulatorzustands im Emulations-Thread
+   *
+   * Die CPU-Emulation ist waehrenddessen verlassen,
+   * d.h., der Zustand aendert sich nicht.
+   */
+  private void saveSnapshot( File file )
+  {
+    boolean        done   = false;
+    SnapshotWriter writer = null;
+    try {
+      EmuSys emuSys = this.emuSys;
+      if( (emuSys == null) || !emuSys.supportsSnapshot() ) {
+	throw new IOException( EmuSys.TEXT_SNAPSHOT_NOT_SUPPORTED );
+      }
+      writer = new SnapshotWriter( file, true );
+
+      this.props.store(
+		writer.beginChunk( SNAPSHOT_CHUNK_PROPS, SNAPSHOT_VERSION ),
+		null );
+      writer.endChunk();
+      writeState( writer );
+      writer.finish();
+      done = true;
+    }
+    catch( IOException ex ) {
+      fireShowError( ex );
+    }
+    finally {
+      EmuUtil.closeSilent( writer );
+    }
+    if( done ) {
+      this.screenFrm.fireShowStatusText( "Emulatorzustand gesichert" );
+    } else {
+      file.delete();
+    }
+  }
+
+
   private void updJoystickFrm( final int joyNum )
   {
     final JoystickFrm joyFrm = this.joyFrm;
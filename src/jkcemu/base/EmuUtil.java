@@ -124,6 +124,8 @@ public class EmuUtil
   private static Random                 random         = null;
   private static Map<String,FileFilter> fmt2FileFilter = null;
 
+  private static Map<String,byte[]> sharedResources = new HashMap<>();
+
 
   public static boolean accept( File file, String... suffixes )
   {
@@ -1448,6 +1450,12 @@ public class EmuUtil
   }
 
 
+  public static FileFilter getSnapshotFileFilter()
+  {
+    return getFileFilter( "JKCEMU-Snapshot-Dateien (*.jsn)", "jsn" );
+  }
+
+
   public static FileFilter getTapeFileFilter()
   {
     return getFileFilter(
@@ -1901,7 +1909,8 @@ public class EmuUtil
     InputStream           in   = null;
     Exception             ex   = null;
     try {
-      in = owner.getClass().getResourceAsStream( resource );
+      in = (owner != null ? owner.getClass() : EmuUtil.class)
+			.getResourceAsStream( resource );
       if( in != null ) {
 	if( resource.endsWith( ".gz" ) ) {
 	  is = in;
@@ -1934,6 +1943,29 @@ public class EmuUtil
   }
 
 
+  /*
+   * Lesen einer Ressource, deren Inhalt nur gelesen wird (z.B. ROM)
+   *
+   * Der Inhalt wird nur einmal geladen und allen Aufrufern
+   * gemeinsam zurueckgegeben, auch mehreren gleichzeitig
+   * emulierten Systemen. Er darf deshalb nicht veraendert werden.
+   */
+  public static byte[] readSharedResource(
+					Component owner,
+					String    resource )
+  {
+    byte[] rv = null;
+    synchronized( sharedResources ) {
+      rv = sharedResources.get( resource );
+      if( rv == null ) {
+	rv = readResource( owner, resource );
+	sharedResources.put( resource, rv );
+      }
+    }
+    return rv;
+  }
+
+
   public static void releaseSilent( FileLock fileLock )
   {
     if( fileLock != null ) {
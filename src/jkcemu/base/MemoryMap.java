@@ -0,0 +1,356 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Seitentabellen fuer die Speicherzugriffe der CPU
+ *
+ * Der Adressraum ist in Seiten zu je 1 KByte eingeteilt.
+ * Jede Seite kann fuer Lese- und Schreibzugriffe getrennt
+ * direkt auf einen Bereich in einem Byte-Array abgebildet werden.
+ * Zugriffe auf Seiten ohne Abbildung werden an den Handler
+ * weitergereicht, der sie wie bisher selbst dekodiert
+ * (z.B. Module, Wait-States, E/A-Adressen im Speicherbereich).
+ * Fuer Seiten mit direkter Schreibabbildung kann ein Listener
+ * gesetzt werden, der ueber jeden Schreibzugriff informiert wird
+ * (z.B. zum Markieren des Bildschirminhalts als geaendert).
+ *
+ * Die Seitentabellen duerfen nur im Emulations-Thread
+ * geaendert werden.
+ *
+ * Mit copyMemBytes(...) koennen die Durchlaeufe von LDIR und LDDR
+ * am Stueck ausgefuehrt werden, sofern alle beteiligten Seiten
+ * direkt abgebildet sind und keinen Listener haben.
+ */
+
+package jkcemu.base;
+
+import java.lang.*;
+
+
+public class MemoryMap
+{
+  public interface Handler
+  {
+    public int  memMapRead( MemoryMap memMap, int addr, boolean m1 );
+    public void memMapWrite( MemoryMap memMap, int addr, int value );
+  };
+
+
+  public interface WriteListener
+  {
+    public void memMapWritten( MemoryMap memMap, int addr, int value );
+  };
+
+
+  public static final int PAGE_SHIFT = 10;
+  public static final int PAGE_SIZE  = 1 << PAGE_SHIFT;
+  public static final int PAGE_MASK  = PAGE_SIZE - 1;
+  public static final int PAGE_COUNT = 0x10000 >> PAGE_SHIFT;
+
+  private Handler         handler;
+  private byte[][]        readPages;
+  private byte[][]        writePages;
+  private int[]           readOffs;
+  private int[]           writeOffs;
+  private WriteListener[] writeListeners;
+
+
+  public MemoryMap( Handler handler )
+  {
+    this.handler        = handler;
+    this.readPages      = new byte[ PAGE_COUNT ][];
+    this.writePages     = new byte[ PAGE_COUNT ][];
+    this.readOffs       = new int[ PAGE_COUNT ];
+    this.writeOffs      = new int[ PAGE_COUNT ];
+    this.writeListeners = new WriteListener[ PAGE_COUNT ];
+  }
+
+
+  /*
+   * Alle Seiten werden dem Handler zugeordnet
+   * und alle Listener entfernt.
+   */
+  public void clear()
+  {
+    for( int i = 0; i < PAGE_COUNT; i++ ) {
+      this.readPages[ i ]      = null;
+      this.writePages[ i ]     = null;
+      this.writeListeners[ i ] = null;
+    }
+  }
+
+
+  /*
+   * Kopieren eines Arrays in den Speicher
+   *
+   * Innerhalb direkt abgebildeter Seiten wird blockweise kopiert
+   * und der Listener einmal je geschriebenem Byte informiert,
+   * alle anderen Bytes werden ueber den Handler geschrieben.
+   */
+  public void copyFrom( byte[] src, int srcPos, int addr, int len )
+  {
+    while( len > 0 ) {
+      addr &= 0xFFFF;
+      int    page = addr >> PAGE_SHIFT;
+      int    n    = Math.min( len, PAGE_SIZE - (addr & PAGE_MASK) );
+      byte[] mem  = this.writePages[ page ];
+      if( mem != null ) {
+	System.arraycopy(
+		src,
+		srcPos,
+		mem,
+		this.writeOffs[ page ] + (addr & PAGE_MASK),
+		n );
+	WriteListener listener = this.writeListeners[ page ];
+	if( listener != null ) {
+	  for( int i = 0; i < n; i++ ) {
+	    listener.memMapWritten(
+				this,
+				addr + i,
+				(int) src[ srcPos + i ] & 0xFF );
+	  }
+	}
+      } else {
+	for( int i = 0; i < n; i++ ) {
+	  this.handler.memMapWrite(
+				this,
+				addr + i,
+				(int) src[ srcPos + i ] & 0xFF );
+	}
+      }
+      addr   += n;
+      srcPos += n;
+      len    -= n;
+    }
+  }
+
+
+  /*
+   * Kopieren von Bytes innerhalb des Speichers wie bei LDIR
+   * (addValue = 1) bzw. LDDR (addValue = -1)
+   * entsprechend Z80BulkMemory.copyMemBytes(...)
+   *
+   * Es wird nur kopiert, wenn alle Quellseiten direkt lesbar
+   * und alle Zielseiten direkt beschreibbar sind und
+   * keine Zielseite einen Listener hat.
+   * Anderenfalls bleibt der Speicher unveraendert.
+   *
+   * Rueckgabewert:
+   *   zuletzt kopiertes Byte oder -1, wenn nicht kopiert wurde
+   */
+  public int copyMemBytes( int srcAddr, int dstAddr, int len, int addValue )
+  {
+    int rv = -1;
+    if( (len > 0)
+	&& isMapped( this.readPages, srcAddr, len, addValue )
+	&& isMapped( this.writePages, dstAddr, len, addValue ) )
+    {
+      /*
+       * byteweise kopieren, damit sich ueberlappende Bereiche
+       * genauso wie bei LDIR bzw. LDDR verhalten
+       */
+      for( int i = 0; i < len; i++ ) {
+	srcAddr &= 0xFFFF;
+	dstAddr &= 0xFFFF;
+	int srcPage = srcAddr >> PAGE_SHIFT;
+	int dstPage = dstAddr >> PAGE_SHIFT;
+	rv = (int) this.readPages[ srcPage ][
+			this.readOffs[ srcPage ] + (srcAddr & PAGE_MASK) ]
+								& 0xFF;
+	this.writePages[ dstPage ][
+		this.writeOffs[ dstPage ] + (dstAddr & PAGE_MASK) ]
+								= (byte) rv;
+	srcAddr += addValue;
+	dstAddr += addValue;
+      }
+    }
+    return rv;
+  }
+
+
+  /*
+   * Kopieren eines Speicherbereichs in ein Array
+   *
+   * Innerhalb direkt abgebildeter Seiten wird blockweise kopiert,
+   * alle anderen Bytes werden ueber den Handler gelesen.
+   */
+  public void copyTo( int addr, byte[] dst, int dstPos, int len )
+  {
+    while( len > 0 ) {
+      addr &= 0xFFFF;
+      int    page = addr >> PAGE_SHIFT;
+      int    n    = Math.min( len, PAGE_SIZE - (addr & PAGE_MASK) );
+      byte[] mem  = this.readPages[ page ];
+      if( mem != null ) {
+	System.arraycopy(
+		mem,
+		this.readOffs[ page ] + (addr & PAGE_MASK),
+		dst,
+		dstPos,
+		n );
+      } else {
+	for( int i = 0; i < n; i++ ) {
+	  dst[ dstPos + i ] = (byte) this.handler.memMapRead(
+							this,
+							addr + i,
+							false );
+	}
+      }
+      addr   += n;
+      dstPos += n;
+      len    -= n;
+    }
+  }
+
+
+  /*
+   * Abbilden eines Adressbereichs auf ein Array ab dem Index idx
+   *
+   * Es werden nur die Seiten abgebildet, die vollstaendig
+   * im Adressbereich liegen und vollstaendig vom Array abgedeckt werden.
+   * Alle anderen beruehrten Seiten werden dem Handler zugeordnet.
+   * Bei writeable == false gehen die Schreibzugriffe
+   * weiterhin an den Handler.
+   *
+   * Rueckgabewert:
+   *   true:  alle Seiten des Adressbereichs wurden abgebildet
+   *   false: mindestens eine Seite bleibt beim Handler
+   */
+  public boolean map(
+		int     addr,
+		int     size,
+		byte[]  mem,
+		int     idx,
+		boolean writeable )
+  {
+    boolean rv = (mem != null)
+			&& ((addr & PAGE_MASK) == 0)
+			&& ((size & PAGE_MASK) == 0);
+    while( size > 0 ) {
+      int page = (addr & 0xFFFF) >> PAGE_SHIFT;
+      if( (mem != null)
+	  && ((addr & PAGE_MASK) == 0)
+	  && (size >= PAGE_SIZE)
+	  && (idx >= 0)
+	  && ((idx + PAGE_SIZE) <= mem.length) )
+      {
+	this.readPages[ page ] = mem;
+	this.readOffs[ page ]  = idx;
+	if( writeable ) {
+	  this.writePages[ page ] = mem;
+	  this.writeOffs[ page ]  = idx;
+	} else {
+	  this.writePages[ page ] = null;
+	}
+      } else {
+	this.readPages[ page ]  = null;
+	this.writePages[ page ] = null;
+	rv = false;
+      }
+      int n = Math.min( size, PAGE_SIZE - (addr & PAGE_MASK) );
+      addr += n;
+      idx  += n;
+      size -= n;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Zuordnen eines Adressbereichs zum Handler
+   */
+  public void mapHandler( int addr, int size )
+  {
+    map( addr, size, null, 0, false );
+  }
+
+
+  /*
+   * Lesezugriff der CPU, addr muss im Bereich 0000h-FFFFh liegen
+   */
+  public int read( int addr, boolean m1 )
+  {
+    int    page = addr >> PAGE_SHIFT;
+    byte[] mem  = this.readPages[ page ];
+    return mem != null ?
+	(int) mem[ this.readOffs[ page ] + (addr & PAGE_MASK) ] & 0xFF
+	: this.handler.memMapRead( this, addr, m1 );
+  }
+
+
+  /*
+   * Setzen eines Listeners fuer alle Seiten eines Adressbereichs,
+   * null entfernt den Listener
+   *
+   * Der Listener wird nur bei Schreibzugriffen auf direkt
+   * abgebildete Seiten aufgerufen, da der Handler
+   * die anderen Schreibzugriffe selbst sieht.
+   */
+  public void setWriteListener(
+			int           addr,
+			int           size,
+			WriteListener listener )
+  {
+    while( size > 0 ) {
+      this.writeListeners[ (addr & 0xFFFF) >> PAGE_SHIFT ] = listener;
+      int n = Math.min( size, PAGE_SIZE - (addr & PAGE_MASK) );
+      addr += n;
+      size -= n;
+    }
+  }
+
+
+  /*
+   * Schreibzugriff der CPU, addr muss im Bereich 0000h-FFFFh liegen
+   */
+  public void write( int addr, int value )
+  {
+    int    page = addr >> PAGE_SHIFT;
+    byte[] mem  = this.writePages[ page ];
+    if( mem != null ) {
+      mem[ this.writeOffs[ page ] + (addr & PAGE_MASK) ] = (byte) value;
+      WriteListener listener = this.writeListeners[ page ];
+      if( listener != null ) {
+	listener.memMapWritten( this, addr, value );
+      }
+    } else {
+      this.handler.memMapWrite( this, addr, value );
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Pruefen, ob alle Seiten, die len Zugriffe ab der Adresse addr
+   * in Richtung addValue beruehren, direkt abgebildet sind
+   *
+   * Bei den Schreibseiten darf ausserdem kein Listener gesetzt sein.
+   */
+  private boolean isMapped(
+			byte[][] pages,
+			int      addr,
+			int      len,
+			int      addValue )
+  {
+    boolean rv = true;
+    while( rv && (len > 0) ) {
+      addr &= 0xFFFF;
+      int page = addr >> PAGE_SHIFT;
+      if( (pages[ page ] == null)
+	  || ((pages == this.writePages)
+		&& (this.writeListeners[ page ] != null)) )
+      {
+	rv = false;
+      } else {
+	int n = (addValue > 0 ?
+			PAGE_SIZE - (addr & PAGE_MASK)
+			: (addr & PAGE_MASK) + 1);
+	addr += (n * addValue);
+	len  -= n;
+      }
+    }
+    return rv;
+  }
+}
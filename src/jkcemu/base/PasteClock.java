@@ -0,0 +1,99 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Zeitgeber fuer das Einfuegen von Text in emulierter Zeit
+ *
+ * Normalerweise wartet der Thread, der Text in das emulierte System
+ * einfuegt, zwischen den Zeichen in Echtzeit,
+ * waehrend die Emulation parallel weiterlaeuft.
+ * Ist am EmuSys ein PasteClock gesetzt, meldet der Thread
+ * seine Wartezeiten stattdessen hier an und wartet so lange,
+ * bis derjenige, der die Emulation steuert, das System
+ * entsprechend lange hat laufen lassen.
+ * Da sich beide Seiten abwechseln, ist der Ablauf reproduzierbar.
+ */
+
+package jkcemu.base;
+
+import java.lang.*;
+
+
+public class PasteClock
+{
+  private int  threadCount;
+  private long sleepMillis;
+
+
+  public PasteClock()
+  {
+    this.threadCount = 0;
+    this.sleepMillis = -1;
+  }
+
+
+  /*
+   * Die Methode wartet, bis der Thread zum Einfuegen
+   * eine Wartezeit anmeldet oder sich beendet.
+   *
+   * Rueckgabewert:
+   *   angemeldete Wartezeit in Millisekunden (emulierte Zeit),
+   *   -1, wenn kein Thread zum Einfuegen (mehr) laeuft
+   */
+  public synchronized long awaitSleep()
+  {
+    try {
+      while( (this.threadCount > 0) && (this.sleepMillis < 0) ) {
+	wait();
+      }
+    }
+    catch( InterruptedException ex ) {}
+    return this.sleepMillis;
+  }
+
+
+  /*
+   * Aufruf durch den Thread zum Einfuegen anstelle von Thread.sleep(...)
+   */
+  synchronized void sleep( long millis ) throws InterruptedException
+  {
+    this.sleepMillis = Math.max( millis, 0L );
+    notifyAll();
+    try {
+      while( this.sleepMillis >= 0 ) {
+	wait();
+      }
+    }
+    finally {
+      this.sleepMillis = -1;
+    }
+  }
+
+
+  /*
+   * Die Methode teilt dem Thread zum Einfuegen mit,
+   * dass die angemeldete Wartezeit emuliert wurde.
+   */
+  public synchronized void sleepElapsed()
+  {
+    this.sleepMillis = -1;
+    notifyAll();
+  }
+
+
+  synchronized void threadFinished()
+  {
+    if( this.threadCount > 0 ) {
+      --this.threadCount;
+    }
+    this.sleepMillis = -1;
+    notifyAll();
+  }
+
+
+  synchronized void threadStarted()
+  {
+    this.threadCount++;
+  }
+}
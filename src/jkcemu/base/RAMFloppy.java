@@ -8,6 +8,8 @@
 
 package jkcemu.base;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -228,6 +230,36 @@ public class RAMFloppy
   }
 
 
+  /*
+   * Wiederherstellen des mit saveState(...) gespeicherten Inhalts
+   *
+   * Die RAM-Floppy muss dabei mit der gleichen Groesse
+   * installiert sein wie beim Speichern.
+   */
+  public void loadState( DataInput in ) throws IOException
+  {
+    int size = in.readInt();
+    if( size != this.size ) {
+      throw new IOException( getInfoText() + ": Gr\u00F6\u00DFe stimmt"
+				+ " nicht mit dem Snapshot \u00FCberein." );
+    }
+    this.addr      = in.readInt();
+    this.readOnly  = in.readBoolean();
+    int endOfData  = in.readInt();
+    if( (endOfData < 0) || (endOfData > size) ) {
+      throw new IOException( getInfoText() + ": Snapshot ung\u00FCltig" );
+    }
+    ensureBufferSize();
+    if( this.dataBuf != null ) {
+      in.readFully( this.dataBuf, 0, endOfData );
+      Arrays.fill( this.dataBuf, endOfData, this.dataBuf.length, (byte) 0 );
+    }
+    this.endOfData   = endOfData;
+    this.dataChanged = (endOfData > 0);
+    fireRAMFloppyChanged();
+  }
+
+
   public static RAMFloppy prepare(
 				RAMFloppy rf,
 				String     sysName,
@@ -335,6 +367,22 @@ public class RAMFloppy
   }
 
 
+  public void saveState( DataOutput out ) throws IOException
+  {
+    int endOfData = 0;
+    if( this.dataBuf != null ) {
+      endOfData = Math.min( this.endOfData, this.dataBuf.length );
+    }
+    out.writeInt( this.size );
+    out.writeInt( this.addr );
+    out.writeBoolean( this.readOnly );
+    out.writeInt( endOfData );
+    if( endOfData > 0 ) {
+      out.write( this.dataBuf, 0, endOfData );
+    }
+  }
+
+
   public boolean setByte( int idx, int value )
   {
     boolean rv = false;
@@ -0,0 +1,1085 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Verwaltung der Rueckwaertsausfuehrung im Debugger
+ *
+ * In regelmaessigen Abstaenden (bezogen auf die emulierte Zeit)
+ * wird an einer Befehlsgrenze der Zustand des emulierten Systems
+ * in Form eines Snapshots im Arbeitsspeicher gehalten (Schluesselbild).
+ * Zusaetzlich werden alle Eingaben (Tastatur, Joystick,
+ * Kassetteneingang) mit ihrem Taktzyklenstand protokolliert.
+ * Ein frueherer Zeitpunkt wird erreicht, indem das davor liegende
+ * Schluesselbild wiederhergestellt und der Programmablauf
+ * ab dort mit den protokollierten Eingaben bis zum gewuenschten
+ * Zeitpunkt wiederholt wird.
+ *
+ * Zur Platzersparnis wird nur jedes sechzehnte Schluesselbild
+ * vollstaendig gespeichert.
+ * Die anderen enthalten die Differenz (XOR) zum vollstaendigen
+ * Schluesselbild ihrer Gruppe, was sich durch die Komprimierung
+ * auf wenige Bytes je geaendertem Speicherbereich reduziert.
+ * Ist der Speicherplatz erschoepft, wird die jeweils aelteste Gruppe
+ * verworfen.
+ *
+ * Nicht protokolliert werden Eingaben, die ausserhalb des EmuThreads
+ * direkt an das emulierte System gehen (z.B. Einfuegen von Text,
+ * Bildschirmtastatur) sowie alles, was von der Uhrzeit des Rechners
+ * oder von Dateien und Netzwerk abhaengt.
+ * Damit eine dadurch abweichende Wiederholung nicht unbemerkt bleibt,
+ * wird beim Zurueckgehen zuerst geprueft, ob die Wiederholung
+ * wieder genau den aktuellen Zustand ergibt.
+ */
+
+package jkcemu.base;
+
+import java.io.IOException;
+import java.lang.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import jkcemu.Main;
+import jkcemu.audio.AudioIn;
+import z80emu.Z80Breakpoint;
+import z80emu.Z80CPU;
+import z80emu.Z80EventScheduler;
+import z80emu.Z80InstrBoundaryListener;
+import z80emu.Z80InterruptSource;
+import z80emu.Z80RunResult;
+
+
+public class ReverseExecMngr implements Z80InstrBoundaryListener
+{
+  public static final int DEFAULT_INTERVAL_MILLIS = 200;
+  public static final int MIN_INTERVAL_MILLIS     = 10;
+  public static final int MAX_INTERVAL_MILLIS     = 10000;
+
+  private static final long MAX_MEM_SIZE         = 64L * 1024L * 1024L;
+  private static final int  KEYFRAME_OVERHEAD    = 256;
+  private static final int  KEYFRAMES_PER_GROUP  = 16;
+  private static final int  INPUT_TIMEOUT_MILLIS = 100;
+  private static final int  START_TIMEOUT_MILLIS = 1000;
+
+  private static final int INPUT_KEY_PRESSED  = 1;
+  private static final int INPUT_KEY_RELEASED = 2;
+  private static final int INPUT_KEY_TYPED    = 3;
+  private static final int INPUT_JOYSTICK     = 4;
+
+  private static final String TEXT_DIVERGED =
+		"Die Wiederholung des Programmablaufs ergibt nicht\n"
+			+ "den aktuellen Zustand des emulierten Systems.\n"
+			+ "Wahrscheinlich hat eine nicht aufgezeichnete"
+			+ " Eingabe\n"
+			+ "(z.B. eingef\u00FCgter Text, Diskette, Uhrzeit)"
+			+ " den Programmablauf beeinflusst.\n\n"
+			+ "Der aktuelle Zustand bleibt erhalten.";
+
+
+  private static class InputEvent
+  {
+    private long    tStates;
+    private int     type;
+    private int     value1;
+    private int     value2;
+    private boolean ctrlDown;
+    private boolean shiftDown;
+
+    private InputEvent(
+		int     type,
+		int     value1,
+		int     value2,
+		boolean ctrlDown,
+		boolean shiftDown )
+    {
+      this.tStates   = 0L;
+      this.type      = type;
+      this.value1    = value1;
+      this.value2    = value2;
+      this.ctrlDown  = ctrlDown;
+      this.shiftDown = shiftDown;
+    }
+  }
+
+
+  private static class Keyframe
+  {
+    private long              totalTStates;
+    private long              processedTStates;
+    private Z80EventScheduler events;
+    private InputEvent[]      heldKeys;
+    private int[]             joyActions;
+    private boolean           full;
+    private boolean           deflated;
+    private int               rawLen;
+    private byte[]            data;
+
+    private Keyframe(
+		Z80CPU       cpu,
+		InputEvent[] heldKeys,
+		int[]        joyActions )
+    {
+      this.totalTStates     = cpu.getTotalTStates();
+      this.processedTStates = cpu.getProcessedTStates();
+      this.events           = new Z80EventScheduler();
+      this.events.copyFrom( cpu.getEventScheduler() );
+      this.heldKeys         = heldKeys;
+      this.joyActions       = joyActions;
+      this.full             = true;
+      this.deflated         = false;
+      this.rawLen           = 0;
+      this.data             = null;
+    }
+
+    private int getMemSize()
+    {
+      return this.data.length + KEYFRAME_OVERHEAD;
+    }
+  }
+
+
+  /*
+   * Abbruchbedingung fuer die Wiederholung des Programmablaufs
+   *
+   * Die Wiederholung endet am ersten Befehl, dessen Taktzyklenstand
+   * endTStates erreicht.
+   * Dabei werden der Taktzyklenstand des letzten Befehls davor
+   * sowie der letzte Treffer der uebergebenen Haltepunkte vermerkt.
+   * Mit inclEnd werden die Haltepunkte auch an der Endposition
+   * geprueft, da Speicher-Haltepunkte nur dort die Zugriffe
+   * des vorherigen Befehls sehen.
+   */
+  private static class ReplayCondition implements Z80Breakpoint
+  {
+    private long          endTStates;
+    private long          lastTStates;
+    private long          hitTStates;
+    private Z80Breakpoint breakpoint;
+    private boolean       inclEnd;
+
+    private ReplayCondition(
+			long          endTStates,
+			Z80Breakpoint breakpoint,
+			boolean       inclEnd )
+    {
+      this.endTStates  = endTStates;
+      this.lastTStates = -1L;
+      this.hitTStates  = -1L;
+      this.breakpoint  = breakpoint;
+      this.inclEnd     = inclEnd;
+    }
+
+    @Override
+    public boolean matches( Z80CPU cpu, Z80InterruptSource iSource )
+    {
+      boolean rv      = false;
+      long    tStates = cpu.getTotalTStates();
+      if( tStates >= this.endTStates ) {
+	if( this.inclEnd && (tStates == this.endTStates)
+	    && (this.breakpoint != null) )
+	{
+	  if( this.breakpoint.matches( cpu, iSource ) ) {
+	    this.hitTStates = tStates;
+	  }
+	}
+	rv = true;
+      } else {
+	this.lastTStates = tStates;
+	if( this.breakpoint != null ) {
+	  if( this.breakpoint.matches( cpu, iSource ) ) {
+	    this.hitTStates = tStates;
+	  }
+	}
+      }
+      return rv;
+    }
+  }
+
+
+  /*
+   * Aufgabe, die bei angehaltenem Emulations-Thread
+   * an einer Befehlsgrenze ausgefuehrt wird
+   */
+  private abstract class BoundaryTask implements Runnable
+  {
+    protected boolean     result    = false;
+    protected IOException exception = null;
+
+    protected abstract boolean exec() throws IOException;
+
+    @Override
+    public void run()
+    {
+      try {
+	this.result = exec();
+      }
+      catch( IOException ex ) {
+	this.exception = ex;
+      }
+    }
+  }
+
+
+  private EmuThread                emuThread;
+  private Z80CPU                   cpu;
+  private long                     intervalTStates;
+  private long                     nextKeyframeTStates;
+  private long                     memSize;
+  private List<Keyframe>           keyframes;
+  private List<InputEvent>         journal;
+  private int                      journalPos;
+  private List<InputEvent>         heldKeys;
+  private int[]                    joyActions;
+  private long[]                   tapeTStates;
+  private int                      tapeCount;
+  private boolean                  tapeBasePhase;
+  private boolean                  tapePhase;
+  private byte[]                   groupBaseRaw;
+  private int                      groupCount;
+  private Keyframe                 cacheKeyframe;
+  private byte[]                   cacheRaw;
+  private MyByteArrayOutputStream  stateBuf;
+  private MyByteArrayOutputStream  deflateBuf;
+  private byte[]                   ioBuf;
+  private Deflater                 deflater;
+  private volatile boolean         replaying;
+  private volatile boolean         discardRequested;
+  private volatile boolean         running;
+
+
+  public ReverseExecMngr( EmuThread emuThread, int intervalMillis )
+  {
+    this.emuThread           = emuThread;
+    this.cpu                 = emuThread.getZ80CPU();
+    this.intervalTStates     = (long) Math.max(
+					intervalMillis,
+					MIN_INTERVAL_MILLIS )
+		* (long) Math.max(
+			EmuThread.getDefaultSpeedKHz( Main.getProperties() ),
+			1 );
+    this.nextKeyframeTStates = 0L;
+    this.memSize             = 0L;
+    this.keyframes           = new ArrayList<>();
+    this.journal             = new ArrayList<>();
+    this.journalPos          = 0;
+    this.heldKeys            = new ArrayList<>();
+    this.joyActions          = new int[ 2 ];
+    this.tapeTStates         = new long[ 1024 ];
+    this.tapeCount           = 0;
+    this.tapeBasePhase       = false;
+    this.tapePhase           = false;
+    this.groupBaseRaw        = null;
+    this.groupCount          = 0;
+    this.cacheKeyframe       = null;
+    this.cacheRaw            = null;
+    this.stateBuf            = new MyByteArrayOutputStream( 0x20000 );
+    this.deflateBuf          = new MyByteArrayOutputStream( 0x10000 );
+    this.ioBuf               = new byte[ 0x4000 ];
+    this.deflater            = new Deflater( Deflater.BEST_SPEED );
+    this.replaying           = false;
+    this.discardRequested    = false;
+    this.running             = false;
+  }
+
+
+  public int getKeyframeCount()
+  {
+    return this.keyframes.size();
+  }
+
+
+  public long getMemSize()
+  {
+    return this.memSize;
+  }
+
+
+  public boolean isReplaying()
+  {
+    return this.replaying;
+  }
+
+
+  /*
+   * Zurueckgehen bis zum letzten Befehl vor dem aktuellen,
+   * an dem einer der uebergebenen Haltepunkte zutrifft
+   *
+   * Die Haltepunkte werden bei der Suche mehrfach abgefragt
+   * und sollten deshalb keine Seiteneffekte haben.
+   * Die Programmausfuehrung muss angehalten sein.
+   *
+   * Rueckgabewert:
+   *   true:  Haltepunkt gefunden, Zustand wiederhergestellt
+   *   false: im aufgezeichneten Zeitraum trifft kein Haltepunkt zu,
+   *          der aktuelle Zustand bleibt erhalten
+   */
+  public boolean runBackToBreakpoint(
+			final Z80Breakpoint breakpoint ) throws IOException
+  {
+    return execWhileStopped(
+		new BoundaryTask()
+		{
+		  @Override
+		  protected boolean exec() throws IOException
+		  {
+		    return runBackToBreakpointInternal( breakpoint );
+		  }
+		} );
+  }
+
+
+  /*
+   * Starten der Aufzeichnung
+   *
+   * Das erste Schluesselbild wird sofort angelegt,
+   * damit ein Fehler (z.B. ein System, dessen Zustand nicht
+   * gesichert werden kann) gleich gemeldet wird.
+   */
+  public void start() throws IOException
+  {
+    EmuSys emuSys = this.emuThread.getEmuSys();
+    if( (emuSys == null) || !emuSys.supportsSnapshot() ) {
+      throw new IOException( EmuSys.TEXT_SNAPSHOT_NOT_SUPPORTED );
+    }
+    BoundaryTask task = new BoundaryTask()
+		{
+		  @Override
+		  protected boolean exec() throws IOException
+		  {
+		    clear();
+		    captureKeyframe();
+		    emuThread.setReverseExecMngr( ReverseExecMngr.this );
+		    cpu.setInstrBoundaryListener( ReverseExecMngr.this );
+		    running = true;
+		    return true;
+		  }
+		};
+    if( !this.cpu.execAtInstrBoundary( task, START_TIMEOUT_MILLIS ) ) {
+      throw new IOException( "Die CPU-Emulation ist nicht aktiv." );
+    }
+    if( task.exception != null ) {
+      throw task.exception;
+    }
+  }
+
+
+  /*
+   * Zurueckgehen um einen Befehl
+   *
+   * Die Programmausfuehrung muss angehalten sein.
+   *
+   * Rueckgabewert:
+   *   true:  Zustand vor dem aktuellen Befehl wiederhergestellt
+   *   false: kein frueherer Zustand aufgezeichnet
+   */
+  public boolean stepBack() throws IOException
+  {
+    return execWhileStopped(
+		new BoundaryTask()
+		{
+		  @Override
+		  protected boolean exec() throws IOException
+		  {
+		    return stepBackInternal();
+		  }
+		} );
+  }
+
+
+  public void stop()
+  {
+    if( this.running ) {
+      this.running = false;
+      this.cpu.setInstrBoundaryListener( null );
+      this.emuThread.setReverseExecMngr( null );
+    }
+    synchronized( this ) {
+      clear();
+      this.deflater.end();
+    }
+  }
+
+
+	/* --- Methoden fuer EmuThread --- */
+
+  /*
+   * Verwerfen der bisherigen Aufzeichnung,
+   * z.B. nach dem Zuruecksetzen des emulierten Systems
+   */
+  void discardHistory()
+  {
+    this.discardRequested = true;
+  }
+
+
+  /*
+   * Die Eingaben werden an der naechsten Befehlsgrenze
+   * bei angehaltenem Emulations-Thread angewendet
+   * und mit dem Taktzyklenstand protokolliert.
+   * Ist das nicht moeglich, wird die Eingabe trotzdem angewendet,
+   * jedoch die bisherige Aufzeichnung verworfen.
+   */
+  boolean keyPressed( int keyCode, boolean ctrlDown, boolean shiftDown )
+  {
+    return applyLiveInput(
+		new InputEvent(
+			INPUT_KEY_PRESSED,
+			keyCode,
+			0,
+			ctrlDown,
+			shiftDown ) );
+  }
+
+
+  void keyReleased()
+  {
+    applyLiveInput(
+	new InputEvent( INPUT_KEY_RELEASED, 0, 0, false, false ) );
+  }
+
+
+  boolean keyTyped( char ch )
+  {
+    return applyLiveInput(
+	new InputEvent( INPUT_KEY_TYPED, ch, 0, false, false ) );
+  }
+
+
+  /*
+   * Lesen der Phase des Kassetteneingangs
+   *
+   * Bei der Wiederholung des Programmablaufs
+   * wird die protokollierte Phase geliefert.
+   */
+  boolean readTapeInPhase( AudioIn audioIn )
+  {
+    boolean phase = false;
+    if( this.replaying ) {
+      phase = getTapePhase( this.cpu.getTotalTStates() );
+    } else {
+      if( audioIn != null ) {
+	phase = audioIn.readPhase();
+      }
+      if( phase != this.tapePhase ) {
+	if( this.tapeCount >= this.tapeTStates.length ) {
+	  this.tapeTStates = Arrays.copyOf(
+				this.tapeTStates,
+				this.tapeTStates.length * 2 );
+	}
+	this.tapeTStates[ this.tapeCount++ ] = this.cpu.getTotalTStates();
+	this.tapePhase = phase;
+      }
+    }
+    return phase;
+  }
+
+
+  void setJoystickAction( int joyNum, int actionMask )
+  {
+    applyLiveInput(
+	new InputEvent( INPUT_JOYSTICK, joyNum, actionMask, false, false ) );
+  }
+
+
+	/* --- Z80InstrBoundaryListener --- */
+
+  @Override
+  public void z80InstrBoundary( Z80CPU cpu, boolean interruptAccepted )
+  {
+    long tStates = cpu.getTotalTStates();
+    if( this.replaying ) {
+      EmuSys emuSys = this.emuThread.getEmuSys();
+      while( this.journalPos < this.journal.size() ) {
+	InputEvent event = this.journal.get( this.journalPos );
+	if( event.tStates > tStates ) {
+	  break;
+	}
+	if( emuSys != null ) {
+	  applyInput( emuSys, event );
+	}
+	this.journalPos++;
+      }
+    } else {
+      if( this.discardRequested ) {
+	this.discardRequested    = false;
+	this.nextKeyframeTStates = 0L;
+	synchronized( this ) {
+	  clear();
+	}
+      }
+      if( !interruptAccepted && (tStates >= this.nextKeyframeTStates) ) {
+	try {
+	  synchronized( this ) {
+	    if( this.running ) {
+	      captureKeyframe();
+	    }
+	  }
+	}
+	catch( IOException ex ) {
+	  /*
+	   * Der Zustand kann voruebergehend nicht gesichert werden
+	   * (z.B. waehrend eines Diskettenzugriffs),
+	   * deshalb in Kuerze erneut versuchen
+	   */
+	  this.nextKeyframeTStates = tStates
+				+ Math.max( this.intervalTStates / 16, 1 );
+	}
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private boolean applyInput( EmuSys emuSys, InputEvent event )
+  {
+    boolean rv = true;
+    switch( event.type ) {
+      case INPUT_KEY_PRESSED:
+	rv = emuSys.keyPressed(
+			event.value1,
+			event.ctrlDown,
+			event.shiftDown );
+	this.heldKeys.add( event );
+	break;
+      case INPUT_KEY_RELEASED:
+	emuSys.keyReleased();
+	this.heldKeys.clear();
+	break;
+      case INPUT_KEY_TYPED:
+	rv = emuSys.keyTyped( (char) event.value1 );
+	this.heldKeys.add( event );
+	break;
+      case INPUT_JOYSTICK:
+	emuSys.setJoystickAction( event.value1, event.value2 );
+	if( (event.value1 >= 0) && (event.value1 < this.joyActions.length) ) {
+	  this.joyActions[ event.value1 ] = event.value2;
+	}
+	break;
+    }
+    return rv;
+  }
+
+
+  private boolean applyLiveInput( final InputEvent event )
+  {
+    BoundaryTask task = new BoundaryTask()
+		{
+		  @Override
+		  protected boolean exec()
+		  {
+		    boolean rv    = false;
+		    EmuSys  emuSys = emuThread.getEmuSys();
+		    if( emuSys != null ) {
+		      event.tStates = cpu.getTotalTStates();
+		      journal.add( event );
+		      journalPos = journal.size();
+		      rv = applyInput( emuSys, event );
+		    }
+		    return rv;
+		  }
+		};
+    boolean rv = false;
+    if( this.cpu.execAtInstrBoundary( task, INPUT_TIMEOUT_MILLIS ) ) {
+      rv = task.result;
+    } else {
+      EmuSys emuSys = this.emuThread.getEmuSys();
+      if( emuSys != null ) {
+	rv = applyInput( emuSys, event );
+      }
+      this.discardRequested = true;
+    }
+    return rv;
+  }
+
+
+  private void captureKeyframe() throws IOException
+  {
+    Keyframe keyframe = new Keyframe(
+		this.cpu,
+		this.heldKeys.toArray( new InputEvent[ this.heldKeys.size() ] ),
+		this.joyActions.clone() );
+    byte[] raw      = captureState();
+    keyframe.rawLen = raw.length;
+    if( (this.groupBaseRaw == null)
+	|| (this.groupCount >= KEYFRAMES_PER_GROUP)
+	|| (this.groupBaseRaw.length != raw.length) )
+    {
+      keyframe.full     = true;
+      keyframe.deflated = true;
+      keyframe.data     = deflate( raw );
+      this.groupBaseRaw = raw;
+      this.groupCount   = 1;
+    } else {
+      byte[] base = this.groupBaseRaw;
+      for( int i = 0; i < raw.length; i++ ) {
+	raw[ i ] ^= base[ i ];
+      }
+      keyframe.full     = false;
+      keyframe.deflated = true;
+      keyframe.data     = deflate( raw );
+      this.groupCount++;
+    }
+    this.keyframes.add( keyframe );
+    this.memSize += keyframe.getMemSize();
+    this.nextKeyframeTStates = keyframe.totalTStates + this.intervalTStates;
+
+    // ggf. aelteste Gruppe verwerfen
+    while( this.memSize > MAX_MEM_SIZE ) {
+      int n = 1;
+      while( n < this.keyframes.size() ) {
+	if( this.keyframes.get( n ).full ) {
+	  break;
+	}
+	n++;
+      }
+      if( n >= this.keyframes.size() ) {
+	break;
+      }
+      for( int i = 0; i < n; i++ ) {
+	Keyframe removed = this.keyframes.remove( 0 );
+	this.memSize -= removed.getMemSize();
+	if( removed == this.cacheKeyframe ) {
+	  this.cacheKeyframe = null;
+	  this.cacheRaw      = null;
+	}
+      }
+      pruneJournals( this.keyframes.get( 0 ).totalTStates );
+    }
+  }
+
+
+  private byte[] captureState() throws IOException
+  {
+    this.stateBuf.reset();
+    SnapshotWriter writer = new SnapshotWriter( this.stateBuf, false );
+    this.emuThread.writeState( writer );
+    writer.finish();
+    return this.stateBuf.toByteArray();
+  }
+
+
+  private void clear()
+  {
+    this.keyframes.clear();
+    this.journal.clear();
+    this.journalPos    = 0;
+    this.tapeCount     = 0;
+    this.tapeBasePhase = this.tapePhase;
+    this.memSize       = 0L;
+    this.groupBaseRaw  = null;
+    this.groupCount    = 0;
+    this.cacheKeyframe = null;
+    this.cacheRaw      = null;
+  }
+
+
+  /*
+   * Der Zustand beim Aufruf wird als unkomprimiertes
+   * Schluesselbild geliefert, damit er bei einem Fehler
+   * oder einer Abweichung wiederhergestellt werden kann.
+   */
+  private Keyframe createPresentKeyframe() throws IOException
+  {
+    Keyframe keyframe = new Keyframe(
+		this.cpu,
+		this.heldKeys.toArray( new InputEvent[ this.heldKeys.size() ] ),
+		this.joyActions.clone() );
+    keyframe.data     = captureState();
+    keyframe.rawLen   = keyframe.data.length;
+    keyframe.full     = true;
+    keyframe.deflated = false;
+    return keyframe;
+  }
+
+
+  private byte[] decode( Keyframe keyframe ) throws IOException
+  {
+    byte[] rv = null;
+    if( !keyframe.deflated ) {
+      rv = keyframe.data;
+    } else if( keyframe.full ) {
+      if( keyframe == this.cacheKeyframe ) {
+	rv = this.cacheRaw;
+      } else {
+	rv                 = inflate( keyframe.data, keyframe.rawLen );
+	this.cacheKeyframe = keyframe;
+	this.cacheRaw      = rv;
+      }
+    } else {
+      Keyframe baseKeyframe = null;
+      int      idx          = this.keyframes.indexOf( keyframe );
+      while( idx >= 0 ) {
+	Keyframe k = this.keyframes.get( idx );
+	if( k.full ) {
+	  baseKeyframe = k;
+	  break;
+	}
+	--idx;
+      }
+      if( baseKeyframe == null ) {
+	throwDamaged();
+      }
+      byte[] base = decode( baseKeyframe );
+      rv          = inflate( keyframe.data, keyframe.rawLen );
+      if( base.length != rv.length ) {
+	throwDamaged();
+      }
+      for( int i = 0; i < rv.length; i++ ) {
+	rv[ i ] ^= base[ i ];
+      }
+    }
+    return rv;
+  }
+
+
+  private byte[] deflate( byte[] data )
+  {
+    this.deflater.reset();
+    this.deflater.setInput( data );
+    this.deflater.finish();
+    this.deflateBuf.reset();
+    while( !this.deflater.finished() ) {
+      int n = this.deflater.deflate( this.ioBuf );
+      if( n > 0 ) {
+	this.deflateBuf.write( this.ioBuf, 0, n );
+      }
+    }
+    return this.deflateBuf.toByteArray();
+  }
+
+
+  private boolean execWhileStopped( BoundaryTask task ) throws IOException
+  {
+    if( !this.running ) {
+      throw new IOException( "Die R\u00FCckw\u00E4rtsausf\u00FChrung"
+					+ " ist nicht eingeschaltet." );
+    }
+    if( !this.cpu.execAtInstrBoundary( task, 0 ) ) {
+      throw new IOException( "Die Programmausf\u00FChrung muss"
+					+ " angehalten sein." );
+    }
+    if( task.exception != null ) {
+      throw task.exception;
+    }
+    return task.result;
+  }
+
+
+  private static long getCRC( byte[] data )
+  {
+    CRC32 crc = new CRC32();
+    crc.update( data );
+    return crc.getValue();
+  }
+
+
+  /*
+   * letztes Schluesselbild vor dem uebergebenen Taktzyklenstand
+   */
+  private int getKeyframeIdxBefore( long tStates )
+  {
+    int idx = this.keyframes.size() - 1;
+    while( idx >= 0 ) {
+      if( this.keyframes.get( idx ).totalTStates < tStates ) {
+	break;
+      }
+      --idx;
+    }
+    return idx;
+  }
+
+
+  private boolean getTapePhase( long tStates )
+  {
+    int lo = 0;
+    int hi = this.tapeCount;
+    while( lo < hi ) {
+      int m = (lo + hi) >>> 1;
+      if( this.tapeTStates[ m ] <= tStates ) {
+	lo = m + 1;
+      } else {
+	hi = m;
+      }
+    }
+    return ((lo & 0x01) != 0) ? !this.tapeBasePhase : this.tapeBasePhase;
+  }
+
+
+  private static byte[] inflate( byte[] data, int rawLen ) throws IOException
+  {
+    byte[]   rv       = new byte[ rawLen ];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput( data );
+      int pos = 0;
+      while( pos < rv.length ) {
+	int n = inflater.inflate( rv, pos, rv.length - pos );
+	if( (n == 0) && (inflater.finished() || inflater.needsInput()) ) {
+	  throwDamaged();
+	}
+	pos += n;
+      }
+    }
+    catch( DataFormatException ex ) {
+      throwDamaged();
+    }
+    finally {
+      inflater.end();
+    }
+    return rv;
+  }
+
+
+  private void pruneJournals( long tStates )
+  {
+    int n = 0;
+    while( n < this.journal.size() ) {
+      if( this.journal.get( n ).tStates >= tStates ) {
+	break;
+      }
+      n++;
+    }
+    if( n > 0 ) {
+      this.journal.subList( 0, n ).clear();
+      this.journalPos = Math.max( this.journalPos - n, 0 );
+    }
+    n = 0;
+    while( n < this.tapeCount ) {
+      if( this.tapeTStates[ n ] > tStates ) {
+	break;
+      }
+      n++;
+    }
+    if( n > 0 ) {
+      if( (n & 0x01) != 0 ) {
+	this.tapeBasePhase = !this.tapeBasePhase;
+      }
+      this.tapeCount -= n;
+      System.arraycopy( this.tapeTStates, n, this.tapeTStates, 0, this.tapeCount );
+    }
+  }
+
+
+  /*
+   * Wiederholen des Programmablaufs ab dem wiederhergestellten
+   * Schluesselbild bis zum Erreichen der Abbruchbedingung
+   */
+  private void replay( ReplayCondition condition ) throws IOException
+  {
+    this.replaying = true;
+    this.emuThread.setOutputSuppressed( true );
+    try {
+      Z80RunResult result = this.cpu.resumeUntil( condition );
+      if( result.getStopReason()
+			!= Z80RunResult.StopReason.CONDITION_MATCHED )
+      {
+	throw new IOException( "Die Wiederholung des Programmablaufs"
+					+ " wurde abgebrochen." );
+      }
+    }
+    finally {
+      this.emuThread.setOutputSuppressed( false );
+      this.replaying = false;
+    }
+  }
+
+
+  private void restore( Keyframe keyframe ) throws IOException
+  {
+    EmuSys emuSys = this.emuThread.getEmuSys();
+    if( emuSys == null ) {
+      throw new IOException( EmuSys.TEXT_SNAPSHOT_NOT_SUPPORTED );
+    }
+
+    /*
+     * Gedrueckte Tasten und Joystick-Zustand sind nicht Bestandteil
+     * des Snapshots und werden deshalb vor dem Wiederherstellen
+     * des Systemzustands erneut angewendet.
+     */
+    emuSys.keyReleased();
+    this.heldKeys.clear();
+    for( InputEvent event : keyframe.heldKeys ) {
+      applyInput( emuSys, event );
+    }
+    for( int i = 0; i < keyframe.joyActions.length; i++ ) {
+      emuSys.setJoystickAction( i, keyframe.joyActions[ i ] );
+      this.joyActions[ i ] = keyframe.joyActions[ i ];
+    }
+    this.emuThread.readState( new SnapshotReader( decode( keyframe ) ) );
+    this.cpu.setTStates( keyframe.processedTStates, keyframe.totalTStates );
+    this.cpu.getEventScheduler().copyFrom( keyframe.events );
+
+    // naechster noch nicht angewendeter Eintrag des Eingabeprotokolls
+    this.journalPos = 0;
+    while( this.journalPos < this.journal.size() ) {
+      if( this.journal.get( this.journalPos ).tStates
+					>= keyframe.totalTStates )
+      {
+	break;
+      }
+      this.journalPos++;
+    }
+  }
+
+
+  private void restoreAfterError(
+			Keyframe    present,
+			IOException ex ) throws IOException
+  {
+    try {
+      restore( present );
+    }
+    catch( IOException ex2 ) {}
+    this.emuThread.getScreenFrm().setScreenDirty( true );
+    throw ex;
+  }
+
+
+  private boolean runBackToBreakpointInternal(
+				Z80Breakpoint breakpoint ) throws IOException
+  {
+    boolean rv      = false;
+    long    tStates = this.cpu.getTotalTStates();
+    int     idx     = getKeyframeIdxBefore( tStates );
+    if( idx >= 0 ) {
+      Keyframe present    = createPresentKeyframe();
+      long     presentCRC = getCRC( present.data );
+      try {
+	long endTStates = tStates;
+	while( idx >= 0 ) {
+	  Keyframe        keyframe  = this.keyframes.get( idx );
+	  ReplayCondition condition = new ReplayCondition(
+						endTStates,
+						breakpoint,
+						endTStates != tStates );
+	  restore( keyframe );
+	  replay( condition );
+	  if( endTStates == tStates ) {
+	    verify( tStates, presentCRC );
+	  }
+	  if( condition.hitTStates >= 0 ) {
+	    restore( keyframe );
+	    replay(
+		new ReplayCondition( condition.hitTStates, null, false ) );
+	    truncate( condition.hitTStates );
+	    rv = true;
+	    break;
+	  }
+	  endTStates = keyframe.totalTStates;
+	  --idx;
+	}
+	if( !rv ) {
+	  restore( present );
+	}
+      }
+      catch( IOException ex ) {
+	restoreAfterError( present, ex );
+      }
+      this.emuThread.getScreenFrm().setScreenDirty( true );
+    }
+    return rv;
+  }
+
+
+  private boolean stepBackInternal() throws IOException
+  {
+    boolean rv      = false;
+    long    tStates = this.cpu.getTotalTStates();
+    int     idx     = getKeyframeIdxBefore( tStates );
+    if( idx >= 0 ) {
+      Keyframe present  = createPresentKeyframe();
+      Keyframe keyframe = this.keyframes.get( idx );
+      try {
+	/*
+	 * 1. Durchlauf: Taktzyklenstand des vorherigen Befehls ermitteln
+	 * und pruefen, ob die Wiederholung den aktuellen Zustand ergibt
+	 */
+	ReplayCondition condition = new ReplayCondition( tStates, null, false );
+	restore( keyframe );
+	replay( condition );
+	verify( tStates, getCRC( present.data ) );
+
+	// 2. Durchlauf: bis zum vorherigen Befehl
+	long prevTStates = condition.lastTStates;
+	restore( keyframe );
+	replay( new ReplayCondition( prevTStates, null, false ) );
+	truncate( prevTStates );
+	rv = true;
+      }
+      catch( IOException ex ) {
+	restoreAfterError( present, ex );
+      }
+      this.emuThread.getScreenFrm().setScreenDirty( true );
+    }
+    return rv;
+  }
+
+
+  private static void throwDamaged() throws IOException
+  {
+    throw new IOException( "Gespeicherter Zustand f\u00FCr die"
+			+ " R\u00FCckw\u00E4rtsausf\u00FChrung ist"
+			+ " besch\u00E4digt." );
+  }
+
+
+  /*
+   * Verwerfen aller Schluesselbilder und Eingaben
+   * nach dem uebergebenen Taktzyklenstand,
+   * da der Programmablauf ab dort neu beginnt
+   */
+  private void truncate( long tStates )
+  {
+    int n = this.keyframes.size();
+    while( n > 0 ) {
+      if( this.keyframes.get( n - 1 ).totalTStates <= tStates ) {
+	break;
+      }
+      Keyframe removed = this.keyframes.remove( --n );
+      this.memSize -= removed.getMemSize();
+      if( removed == this.cacheKeyframe ) {
+	this.cacheKeyframe = null;
+	this.cacheRaw      = null;
+      }
+      this.groupBaseRaw = null;
+    }
+    n = this.journal.size();
+    while( n > 0 ) {
+      if( this.journal.get( n - 1 ).tStates <= tStates ) {
+	break;
+      }
+      --n;
+    }
+    if( n < this.journal.size() ) {
+      this.journal.subList( n, this.journal.size() ).clear();
+    }
+    this.journalPos = this.journal.size();
+    while( this.tapeCount > 0 ) {
+      if( this.tapeTStates[ this.tapeCount - 1 ] <= tStates ) {
+	break;
+      }
+      --this.tapeCount;
+    }
+    this.tapePhase = getTapePhase( tStates );
+    if( !this.keyframes.isEmpty() ) {
+      this.nextKeyframeTStates =
+		this.keyframes.get( this.keyframes.size() - 1 ).totalTStates
+			+ this.intervalTStates;
+    }
+  }
+
+
+  private void verify( long tStates, long crc ) throws IOException
+  {
+    if( (this.cpu.getTotalTStates() != tStates)
+	|| (getCRC( captureState() ) != crc) )
+    {
+      throw new IOException( TEXT_DIVERGED );
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * (c) 2008-2016 Jens Mueller
+ * (c) 2008-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -73,7 +73,9 @@ public class ScreenFld extends JComponent implements MouseMotionListener
     this.selectionCharY1 = -1;
     this.selectionCharX2 = -1;
     this.selectionCharY2 = -1;
-    this.screenFrm.setScreenDirty( true );
+    if( this.screenFrm != null ) {
+      this.screenFrm.setScreenDirty( true );
+    }
   }
 
 
@@ -163,6 +163,8 @@ public class ScreenFrm
   private static final String ACTION_RESET             = "reset";
   private static final String ACTION_SECOND_SCREEN     = "second_screen";
   private static final String ACTION_SETTINGS          = "extra.settings";
+  private static final String ACTION_SNAPSHOT_LOAD     = "snapshot.load";
+  private static final String ACTION_SNAPSHOT_SAVE     = "snapshot.save";
   private static final String ACTION_SPEED             = "speed";
   private static final String ACTION_TEXTEDITOR        = "texteditor";
   private static final String ACTION_USB               = "usb";
@@ -183,6 +185,7 @@ public class ScreenFrm
   private JMenuItem          mnuPrintJobs;
   private JMenuItem          mnuRAMFloppies;
   private JMenuItem          mnuSecondScreen;
+  private JMenuItem          mnuSnapshotSave;
   private JMenuItem          mnuSpeed;
   private JMenuItem          mnuUSB;
   private JMenuItem          mnuHelpSys;
@@ -289,6 +292,16 @@ public class ScreenFrm
     mnuFile.add( this.mnuBasicSave );
     mnuFile.addSeparator();
 
+    mnuFile.add( createJMenuItem(
+			"Emulatorzustand laden...",
+			ACTION_SNAPSHOT_LOAD ) );
+
+    this.mnuSnapshotSave = createJMenuItem(
+				"Emulatorzustand sichern...",
+				ACTION_SNAPSHOT_SAVE );
+    mnuFile.add( this.mnuSnapshotSave );
+    mnuFile.addSeparator();
+
     this.mnuRAMFloppies = createJMenuItem(
 				"RAM-Floppies...",
 				ACTION_RAMFLOPPIES );
@@ -1504,6 +1517,14 @@ public class ScreenFrm
 	    emuSys.saveBasicProgram();
 	  }
 	}
+	else if( actionCmd.equals( ACTION_SNAPSHOT_LOAD ) ) {
+	  rv = true;
+	  doFileSnapshotLoad();
+	}
+	else if( actionCmd.equals( ACTION_SNAPSHOT_SAVE ) ) {
+	  rv = true;
+	  doFileSnapshotSave();
+	}
 	else if( actionCmd.equals( ACTION_SCREENIMAGE_SAVE ) ) {
 	  rv = true;
 	  doFileScreenImageSave();
@@ -1885,6 +1906,49 @@ public class ScreenFrm
   }
 
 
+  /*
+   * Vor dem Laden werden die im Snapshot enthaltenen Einstellungen
+   * wie bei einem Profil angewendet,
+   * damit das emulierte System und dessen Ausstattung
+   * (Speichergroessen, Module usw.) uebereinstimmen.
+   */
+  private void doFileSnapshotLoad()
+  {
+    File file = EmuUtil.showFileOpenDlg(
+			this,
+			"Emulatorzustand laden",
+			Main.getLastDirFile( Main.FILE_GROUP_SNAPSHOT ),
+			EmuUtil.getSnapshotFileFilter() );
+    if( file != null ) {
+      try {
+	Properties props = EmuThread.readSnapshotProperties(
+						new SnapshotReader( file ) );
+	this.emuThread.applySettings( props );
+	Main.applyProfileToFrames( Main.getProfileFile(), props, true, null );
+	this.emuThread.fireLoadSnapshot( file );
+	Main.setLastFile( file, Main.FILE_GROUP_SNAPSHOT );
+      }
+      catch( IOException ex ) {
+	BaseDlg.showErrorDlg( this, ex );
+      }
+    }
+  }
+
+
+  private void doFileSnapshotSave()
+  {
+    File file = EmuUtil.showFileSaveDlg(
+			this,
+			"Emulatorzustand sichern",
+			Main.getLastDirFile( Main.FILE_GROUP_SNAPSHOT ),
+			EmuUtil.getSnapshotFileFilter() );
+    if( file != null ) {
+      this.emuThread.fireSaveSnapshot( file );
+      Main.setLastFile( file, Main.FILE_GROUP_SNAPSHOT );
+    }
+  }
+
+
   private void doFloppyDisk()
   {
     EmuSys emuSys = getEmuSys();
@@ -2431,6 +2495,33 @@ public class ScreenFrm
   }
 
 
+  /*
+   * Messwerte der Geschwindigkeitsbremse,
+   * nur wenn die Bremse im letzten Messintervall aktiv war
+   */
+  private String createSpeedBrakeText( Z80CPU cpu )
+  {
+    String rv = null;
+    if( cpu != null ) {
+      if( cpu.isSpeedUnlimited() ) {
+	rv = "automatisch beschleunigt";
+      } else {
+	int sleeps = cpu.getSpeedBrakeSleepsPerSecond();
+	int behind = cpu.getSpeedBrakeFramesBehind();
+	if( (sleeps > 0) || (behind > 0) ) {
+	  rv = String.format(
+		"Bremse: %d/s, \u00D8 %d \u00B5s zu sp\u00E4t,"
+			+ " %d Intervalle im Verzug",
+		sleeps,
+		cpu.getSpeedBrakeOversleepMicros(),
+		behind );
+	}
+      }
+    }
+    return rv;
+  }
+
+
   private void execReset( EmuThread.ResetLevel resetLevel )
   {
     this.emuThread.fireReset( resetLevel );
@@ -2495,6 +2586,11 @@ public class ScreenFrm
 			"Emulierte Taktfrequenz: %s MHz",
 			mhzText );
 
+	      String brakeText = createSpeedBrakeText( z80cpu );
+	      if( brakeText != null ) {
+		msg = String.format( "%s (%s)", msg, brakeText );
+	      }
+
 	      EmuSys emuSys = this.emuThread.getEmuSys();
 	      if( emuSys != null ) {
 		String secondName = emuSys.getSecondSystemName();
@@ -2610,6 +2706,7 @@ public class ScreenFrm
     boolean supportsPrinter      = false;
     boolean supportsRAMFloppies  = false;
     boolean supportsSecondScreen = false;
+    boolean supportsSnapshot     = false;
     boolean supportsUSB          = false;
     if( emuSys != null ) {
       supportsOpenBasic    = emuSys.supportsOpenBasic();
@@ -2624,11 +2721,13 @@ public class ScreenFrm
       supportsUSB          = emuSys.supportsUSB();
       supportsSecondScreen = (emuSys.getSecondScreenDevice() != null);
       supportsRAMFloppies  = emuSys.supportsRAMFloppies();
+      supportsSnapshot     = emuSys.supportsSnapshot();
     }
 
     // Menueeintrage
     this.mnuBasicOpen.setEnabled( supportsOpenBasic );
     this.mnuBasicSave.setEnabled( supportsSaveBasic );
+    this.mnuSnapshotSave.setEnabled( supportsSnapshot );
     this.mnuFloppyDisks.setEnabled( supportsFloppyDisks );
     this.mnuPopupFloppyDisk.setEnabled( supportsFloppyDisks );
     this.mnuAudio.setEnabled( supportsAudio );
@@ -195,6 +195,10 @@ public class SettingsFrm extends BaseFrm
   private JRadioButton                 btnFileDlgSwing;
   private JRadioButton                 btnFileDlgNative;
   private JCheckBox                    btnDirectCopyPaste;
+  private JCheckBox                    btnWarpTapeIn;
+  private JCheckBox                    btnWarpDisk;
+  private JCheckBox                    btnWarpAutoInput;
+  private JCheckBox                    btnWarpPaste;
   private JLabel                       labelSpeedUnit;
   private JTextField                   fldSpeed;
   private Document                     docSpeed;
@@ -443,6 +447,7 @@ public class SettingsFrm extends BaseFrm
 
       tab = this.tabSpeed;
       applySpeed( props );
+      applyWarp( props );
 
       tab = this.tabSys;
       applySys( props );
@@ -467,6 +472,9 @@ public class SettingsFrm extends BaseFrm
       this.emuThread.applySettings( appProps );
       Main.applyProfileToFrames( this.profileFile, appProps, false, this );
 
+      // Das emulierte System kann gewechselt haben.
+      updWarpFields( appProps );
+
       if( !this.btnSpeedValue.isSelected() ) {
 	EmuSys emuSys = this.emuThread.getEmuSys();
 	setSpeedValueFld( EmuThread.getDefaultSpeedKHz( props ) );
@@ -1136,6 +1144,49 @@ public class SettingsFrm extends BaseFrm
     gbcSpeed.gridx++;
     this.tabSpeed.add( this.labelSpeedUnit, gbcSpeed );
 
+    gbcSpeed.insets.top  = 10;
+    gbcSpeed.insets.left = 5;
+    gbcSpeed.gridwidth   = GridBagConstraints.REMAINDER;
+    gbcSpeed.gridx       = 0;
+    gbcSpeed.gridy++;
+    this.tabSpeed.add(
+		new JLabel( "Automatisch unbegrenzte Geschwindigkeit"
+				+ " (Einstellung f\u00FCr das gerade emulierte"
+				+ " System) w\u00E4hrend:" ),
+		gbcSpeed );
+
+    this.btnWarpTapeIn = new JCheckBox(
+			"Laden aus einer Audiodatei",
+			WarpMngr.DEFAULT_TAPE_IN );
+    this.btnWarpTapeIn.addActionListener( this );
+    gbcSpeed.insets.top    = 0;
+    gbcSpeed.insets.left   = 50;
+    gbcSpeed.insets.bottom = 0;
+    gbcSpeed.gridy++;
+    this.tabSpeed.add( this.btnWarpTapeIn, gbcSpeed );
+
+    this.btnWarpDisk = new JCheckBox(
+			"Disketten- und Festplattenzugriffen",
+			WarpMngr.DEFAULT_DISK );
+    this.btnWarpDisk.addActionListener( this );
+    gbcSpeed.gridy++;
+    this.tabSpeed.add( this.btnWarpDisk, gbcSpeed );
+
+    this.btnWarpAutoInput = new JCheckBox(
+			"AutoLoad und AutoInput",
+			WarpMngr.DEFAULT_AUTO_INPUT );
+    this.btnWarpAutoInput.addActionListener( this );
+    gbcSpeed.gridy++;
+    this.tabSpeed.add( this.btnWarpAutoInput, gbcSpeed );
+
+    this.btnWarpPaste = new JCheckBox(
+			"Einf\u00FCgen von Text",
+			WarpMngr.DEFAULT_PASTE );
+    this.btnWarpPaste.addActionListener( this );
+    gbcSpeed.insets.bottom = 5;
+    gbcSpeed.gridy++;
+    this.tabSpeed.add( this.btnWarpPaste, gbcSpeed );
+
 
     // Bereich Bildschirmausgabe
     this.tabScreen= new JPanel( new GridBagLayout() );
@@ -1861,6 +1912,32 @@ public class SettingsFrm extends BaseFrm
   }
 
 
+  /*
+   * Die Optionen gehoeren zum gerade emulierten System,
+   * aus dessen Einstellungen sie auch geladen wurden
+   * (siehe updWarpFields(...)).
+   */
+  private void applyWarp( Properties props )
+  {
+    EmuSys emuSys = this.emuThread.getEmuSys();
+    if( emuSys != null ) {
+      String prefix = emuSys.getPropPrefix() + WarpMngr.PROP_WARP_PREFIX;
+      props.setProperty(
+		prefix + WarpMngr.PROP_TAPE_IN,
+		Boolean.toString( this.btnWarpTapeIn.isSelected() ) );
+      props.setProperty(
+		prefix + WarpMngr.PROP_DISK,
+		Boolean.toString( this.btnWarpDisk.isSelected() ) );
+      props.setProperty(
+		prefix + WarpMngr.PROP_AUTO_INPUT,
+		Boolean.toString( this.btnWarpAutoInput.isSelected() ) );
+      props.setProperty(
+		prefix + WarpMngr.PROP_PASTE,
+		Boolean.toString( this.btnWarpPaste.isSelected() ) );
+    }
+  }
+
+
   private static boolean deleteDir( File dirFile )
   {
     /*
@@ -2146,6 +2223,7 @@ public class SettingsFrm extends BaseFrm
       this.btnSpeedDefault.setSelected( true );
     }
     updSpeedFieldsEnabled();
+    updWarpFields( props );
 
 
     // Bildschirmausgabe
@@ -2352,4 +2430,37 @@ public class SettingsFrm extends BaseFrm
     this.cardLayoutSysOpt.show( this.panelSysOpt, cardName );
     this.curSysOptCard = cardName;
   }
+
+
+  /*
+   * Die Optionen werden fuer das gerade emulierte System angezeigt,
+   * auch wenn in den Einstellungen ein anderes System ausgewaehlt ist.
+   */
+  private void updWarpFields( Properties props )
+  {
+    EmuSys emuSys = this.emuThread.getEmuSys();
+    if( emuSys != null ) {
+      String prefix = emuSys.getPropPrefix() + WarpMngr.PROP_WARP_PREFIX;
+      this.btnWarpTapeIn.setSelected(
+	EmuUtil.getBooleanProperty(
+			props,
+			prefix + WarpMngr.PROP_TAPE_IN,
+			WarpMngr.DEFAULT_TAPE_IN ) );
+      this.btnWarpDisk.setSelected(
+	EmuUtil.getBooleanProperty(
+			props,
+			prefix + WarpMngr.PROP_DISK,
+			WarpMngr.DEFAULT_DISK ) );
+      this.btnWarpAutoInput.setSelected(
+	EmuUtil.getBooleanProperty(
+			props,
+			prefix + WarpMngr.PROP_AUTO_INPUT,
+			WarpMngr.DEFAULT_AUTO_INPUT ) );
+      this.btnWarpPaste.setSelected(
+	EmuUtil.getBooleanProperty(
+			props,
+			prefix + WarpMngr.PROP_PASTE,
+			WarpMngr.DEFAULT_PASTE ) );
+    }
+  }
 }
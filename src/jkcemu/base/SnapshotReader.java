@@ -0,0 +1,255 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Lesen eines mit SnapshotWriter geschriebenen Emulatorzustands
+ *
+ * Die Datei wird vollstaendig gelesen und in ihre Bloecke zerlegt.
+ * Komprimierte Bloecke werden erst beim Zugriff entpackt.
+ */
+
+package jkcemu.base;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+public class SnapshotReader
+{
+  private static class Chunk
+  {
+    private int    version;
+    private int    flags;
+    private int    rawLen;
+    private byte[] data;
+
+    private Chunk( int version, int flags, int rawLen, byte[] data )
+    {
+      this.version = version;
+      this.flags   = flags;
+      this.rawLen  = rawLen;
+      this.data    = data;
+    }
+  }
+
+
+  private Map<String,Chunk> chunks;
+
+
+  public SnapshotReader( File file ) throws IOException
+  {
+    this.chunks        = new HashMap<>();
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(
+		new BufferedInputStream(
+			new FileInputStream( file ) ) );
+      readChunks( in );
+    }
+    finally {
+      EmuUtil.closeSilent( in );
+    }
+  }
+
+
+  /*
+   * Lesen eines mit SnapshotWriter in den Arbeitsspeicher
+   * geschriebenen Zustands
+   */
+  public SnapshotReader( byte[] data ) throws IOException
+  {
+    this.chunks = new HashMap<>();
+    readChunks(
+	new DataInputStream( new ByteArrayInputStream( data ) ) );
+  }
+
+
+  /*
+   * Lesen eines Blocks
+   *
+   * Rueckgabewert:
+   *   Stream mit den Daten des Blocks oder null,
+   *   wenn der Block nicht vorhanden ist
+   */
+  public DataInputStream getChunk(
+				String id,
+				int    maxVersion ) throws IOException
+  {
+    DataInputStream rv    = null;
+    Chunk           chunk = this.chunks.get( id );
+    if( chunk != null ) {
+      if( chunk.version > maxVersion ) {
+	throw new IOException( "Snapshot-Block " + id
+			+ " wurde mit einer neueren JKCEMU-Version erstellt\n"
+			+ "und kann deshalb nicht gelesen werden." );
+      }
+      byte[] data = chunk.data;
+      if( (chunk.flags & SnapshotWriter.FLAG_DEFLATED) != 0 ) {
+	data              = new byte[ chunk.rawLen ];
+	Inflater inflater = new Inflater();
+	try {
+	  inflater.setInput( chunk.data );
+	  int pos = 0;
+	  while( pos < data.length ) {
+	    int n = inflater.inflate( data, pos, data.length - pos );
+	    if( (n == 0)
+		&& (inflater.finished() || inflater.needsInput()) )
+	    {
+	      throwDamaged();
+	    }
+	    pos += n;
+	  }
+	}
+	catch( DataFormatException ex ) {
+	  throwDamaged();
+	}
+	finally {
+	  inflater.end();
+	}
+      }
+      rv = new DataInputStream( new ByteArrayInputStream( data ) );
+    }
+    return rv;
+  }
+
+
+  /*
+   * Rueckgabewert:
+   *   Version des Blocks oder -1, wenn der Block nicht vorhanden ist
+   */
+  public int getChunkVersion( String id )
+  {
+    Chunk chunk = this.chunks.get( id );
+    return chunk != null ? chunk.version : -1;
+  }
+
+
+  /*
+   * wie getChunk(...),
+   * jedoch wird bei fehlendem Block eine Exception geworfen
+   */
+  public DataInputStream getRequiredChunk(
+				String id,
+				int    maxVersion ) throws IOException
+  {
+    DataInputStream rv = getChunk( id, maxVersion );
+    if( rv == null ) {
+      throw new IOException( "Snapshot-Block " + id + " fehlt." );
+    }
+    return rv;
+  }
+
+
+  public boolean hasChunk( String id )
+  {
+    return this.chunks.containsKey( id );
+  }
+
+
+  /*
+   * Lesen eines mit SnapshotWriter.writeBytes(...) geschriebenen
+   * Byte-Arrays in ein vorhandenes Array
+   *
+   * Da die Groesse der Speicherbereiche von den Einstellungen abhaengt,
+   * muss die gespeicherte Laenge mit der des Arrays uebereinstimmen.
+   */
+  public static void readBytes(
+				DataInput in,
+				byte[]    a ) throws IOException
+  {
+    checkSize( in.readInt(), a != null ? a.length : -1 );
+    if( a != null ) {
+      in.readFully( a );
+    }
+  }
+
+
+  /*
+   * Lesen eines mit SnapshotWriter.writeBytes(...) geschriebenen
+   * Arrays von Byte-Arrays (z.B. Speicherbaenke)
+   */
+  public static void readBytes(
+				DataInput in,
+				byte[][]  a ) throws IOException
+  {
+    int n = in.readInt();
+    checkSize( n, a != null ? a.length : -1 );
+    for( int i = 0; i < n; i++ ) {
+      readBytes( in, a[ i ] );
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static void checkSize( int savedLen, int len ) throws IOException
+  {
+    if( savedLen != len ) {
+      throw new IOException( "Die Gr\u00F6\u00DFe eines Speicherbereichs"
+			+ " im Snapshot passt nicht\n"
+			+ "zu den Einstellungen des emulierten Systems." );
+    }
+  }
+
+
+  private void readChunks( DataInputStream in ) throws IOException
+  {
+    try {
+      boolean magicOK = true;
+      for( int i = 0; i < SnapshotWriter.MAGIC.length(); i++ ) {
+	if( in.read() != SnapshotWriter.MAGIC.charAt( i ) ) {
+	  magicOK = false;
+	  break;
+	}
+      }
+      if( !magicOK ) {
+	throw new IOException( "Datei ist keine JKCEMU-Snapshot-Datei." );
+      }
+      if( in.readUnsignedShort() > SnapshotWriter.FORMAT_VERSION ) {
+	throw new IOException( "Die Snapshot-Datei wurde mit einer neueren"
+			+ " JKCEMU-Version erstellt\n"
+			+ "und kann deshalb nicht gelesen werden." );
+      }
+      boolean endFound = false;
+      while( !endFound ) {
+	String id        = in.readUTF();
+	int    version   = in.readUnsignedShort();
+	int    flags     = in.readUnsignedByte();
+	int    rawLen    = in.readInt();
+	int    storedLen = in.readInt();
+	if( (rawLen < 0) || (storedLen < 0) ) {
+	  throwDamaged();
+	}
+	if( id.equals( SnapshotWriter.CHUNK_END ) ) {
+	  endFound = true;
+	} else {
+	  byte[] data = new byte[ storedLen ];
+	  in.readFully( data );
+	  this.chunks.put( id, new Chunk( version, flags, rawLen, data ) );
+	}
+      }
+    }
+    catch( EOFException ex ) {
+      throwDamaged();
+    }
+  }
+
+
+  private static void throwDamaged() throws IOException
+  {
+    throw new IOException( "Snapshot-Datei ist unvollst\u00E4ndig"
+						+ " oder besch\u00E4digt." );
+  }
+}
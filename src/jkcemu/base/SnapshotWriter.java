@@ -0,0 +1,244 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Schreiben eines Emulatorzustands (Snapshot) in eine Datei
+ *
+ * Eine Snapshot-Datei besteht aus einem Kopf und einer Folge
+ * von Bloecken, die jeweils mit einer Kennung und einer Versionsnummer
+ * versehen sind.
+ * Jede Komponente schreibt ihren Zustand in einen oder mehrere
+ * eigene Bloecke.
+ * Beim Lesen koennen dadurch fehlende Bloecke erkannt und Bloecke
+ * einer neueren, nicht unterstuetzten Version abgewiesen werden.
+ *
+ * Ist die Komprimierung eingeschaltet, werden groessere Bloecke
+ * (z.B. Arbeitsspeicher) mit dem Deflate-Verfahren (LZ77) komprimiert.
+ *
+ * Aufbau (alle Werte Big-Endian):
+ *   Kopf:
+ *     Kennung "JKCEMUSN" (8 Bytes)
+ *     Formatversion (2 Bytes)
+ *   Block:
+ *     Kennung (String im Format von DataOutput.writeUTF(...))
+ *     Version (2 Bytes)
+ *     Flags (1 Byte, Bit 0: Daten komprimiert)
+ *     Laenge der unkomprimierten Daten (4 Bytes)
+ *     Laenge der gespeicherten Daten (4 Bytes)
+ *     Daten
+ *   Abschluss:
+ *     Block mit der Kennung "end" und ohne Daten
+ */
+
+package jkcemu.base;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+
+public class SnapshotWriter implements Closeable
+{
+  static final String MAGIC          = "JKCEMUSN";
+  static final int    FORMAT_VERSION = 1;
+  static final String CHUNK_END      = "end";
+  static final int    FLAG_DEFLATED  = 0x01;
+
+  private static final int MIN_SIZE_TO_COMPRESS = 256;
+
+  private DataOutputStream        out;
+  private boolean                 compress;
+  private String                  chunkId;
+  private int                     chunkVersion;
+  private MyByteArrayOutputStream chunkBuf;
+  private MyByteArrayOutputStream deflateBuf;
+  private DataOutputStream        chunkOut;
+  private Set<String>             chunkIds;
+
+
+  public SnapshotWriter( File file, boolean compress ) throws IOException
+  {
+    this(
+	new BufferedOutputStream( new FileOutputStream( file ) ),
+	compress );
+  }
+
+
+  /*
+   * Schreiben in einen beliebigen Stream,
+   * z.B. zum Halten eines Zustands im Arbeitsspeicher
+   */
+  public SnapshotWriter(
+		OutputStream out,
+		boolean      compress ) throws IOException
+  {
+    this.compress     = compress;
+    this.chunkId      = null;
+    this.chunkVersion = 0;
+    this.chunkBuf     = new MyByteArrayOutputStream( 0x10000 );
+    this.deflateBuf   = null;
+    this.chunkOut     = new DataOutputStream( this.chunkBuf );
+    this.chunkIds     = new HashSet<>();
+    this.out          = new DataOutputStream( out );
+    for( int i = 0; i < MAGIC.length(); i++ ) {
+      this.out.write( MAGIC.charAt( i ) );
+    }
+    this.out.writeShort( FORMAT_VERSION );
+  }
+
+
+  /*
+   * Beginnen eines Blocks
+   *
+   * Die Daten des Blocks sind in den zurueckgelieferten Stream
+   * zu schreiben.
+   * Der Block wird mit endChunk() abgeschlossen.
+   */
+  public DataOutputStream beginChunk(
+				String id,
+				int    version ) throws IOException
+  {
+    if( this.chunkId != null ) {
+      throw new IOException( "Snapshot-Block " + this.chunkId
+					+ " nicht abgeschlossen" );
+    }
+    if( id.isEmpty() || id.equals( CHUNK_END ) || !this.chunkIds.add( id ) ) {
+      throw new IOException( "Snapshot-Block " + id + " ung\u00FCltig"
+						+ " oder doppelt vorhanden" );
+    }
+    this.chunkId      = id;
+    this.chunkVersion = version;
+    this.chunkBuf.reset();
+    return this.chunkOut;
+  }
+
+
+  public void endChunk() throws IOException
+  {
+    if( this.chunkId == null ) {
+      throw new IOException( "Kein Snapshot-Block begonnen" );
+    }
+    this.chunkOut.flush();
+    int rawLen = this.chunkBuf.size();
+    if( this.compress && (rawLen >= MIN_SIZE_TO_COMPRESS) ) {
+      if( this.deflateBuf == null ) {
+	this.deflateBuf = new MyByteArrayOutputStream( 0x10000 );
+      }
+      this.deflateBuf.reset();
+      Deflater             deflater = new Deflater( Deflater.BEST_SPEED );
+      DeflaterOutputStream dOut     = new DeflaterOutputStream(
+							this.deflateBuf,
+							deflater );
+      try {
+	this.chunkBuf.writeTo( dOut );
+	dOut.finish();
+      }
+      finally {
+	deflater.end();
+      }
+      if( this.deflateBuf.size() < rawLen ) {
+	writeChunkHeader(
+		this.chunkId,
+		this.chunkVersion,
+		FLAG_DEFLATED,
+		rawLen,
+		this.deflateBuf.size() );
+	this.deflateBuf.writeTo( this.out );
+      } else {
+	writeChunkHeader( this.chunkId, this.chunkVersion, 0, rawLen, rawLen );
+	this.chunkBuf.writeTo( this.out );
+      }
+    } else {
+      writeChunkHeader( this.chunkId, this.chunkVersion, 0, rawLen, rawLen );
+      this.chunkBuf.writeTo( this.out );
+    }
+    this.chunkId = null;
+  }
+
+
+  /*
+   * Abschliessen der Datei
+   *
+   * Wird die Datei ohne vorherigen Aufruf dieser Methode geschlossen,
+   * fehlt der Abschlussblock und die Datei gilt beim Lesen
+   * als unvollstaendig.
+   */
+  public void finish() throws IOException
+  {
+    if( this.chunkId != null ) {
+      throw new IOException( "Snapshot-Block " + this.chunkId
+					+ " nicht abgeschlossen" );
+    }
+    writeChunkHeader( CHUNK_END, 0, 0, 0, 0 );
+    this.out.flush();
+  }
+
+
+  /*
+   * Schreiben eines Byte-Arrays einschliesslich seiner Laenge,
+   * null wird als Laenge -1 gespeichert
+   */
+  public static void writeBytes(
+				DataOutput out,
+				byte[]     a ) throws IOException
+  {
+    if( a != null ) {
+      out.writeInt( a.length );
+      out.write( a );
+    } else {
+      out.writeInt( -1 );
+    }
+  }
+
+
+  public static void writeBytes(
+				DataOutput out,
+				byte[][]   a ) throws IOException
+  {
+    if( a != null ) {
+      out.writeInt( a.length );
+      for( byte[] b : a ) {
+	writeBytes( out, b );
+      }
+    } else {
+      out.writeInt( -1 );
+    }
+  }
+
+
+	/* --- Closeable --- */
+
+  @Override
+  public void close() throws IOException
+  {
+    this.out.close();
+  }
+
+
+	/* --- private Methoden --- */
+
+  private void writeChunkHeader(
+			String id,
+			int    version,
+			int    flags,
+			int    rawLen,
+			int    storedLen ) throws IOException
+  {
+    this.out.writeUTF( id );
+    this.out.writeShort( version );
+    this.out.writeByte( flags );
+    this.out.writeInt( rawLen );
+    this.out.writeInt( storedLen );
+  }
+}
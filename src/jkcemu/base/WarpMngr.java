@@ -0,0 +1,191 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Automatisches Umschalten auf unbegrenzte Geschwindigkeit,
+ * solange laenger dauernde Ein- und Ausgaben laufen
+ * (Laden von einer Audiodatei, Disketten- und Festplattenzugriffe,
+ * AutoLoad/AutoInput sowie Einfuegen von Text)
+ *
+ * Welche Aktivitaeten beschleunigt werden,
+ * wird fuer jedes emulierte System getrennt eingestellt.
+ * Solange ein Audiokanal geoeffnet ist, wird nicht beschleunigt,
+ * da dieser die Emulation ohnehin bremst.
+ */
+
+package jkcemu.base;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.lang.*;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import jkcemu.audio.AudioIn;
+import jkcemu.audio.AudioInFile;
+import z80emu.Z80CPU;
+
+
+public class WarpMngr implements ActionListener
+{
+  public static final String PROP_WARP_PREFIX = "warp.";
+  public static final String PROP_TAPE_IN     = "tape_in";
+  public static final String PROP_DISK        = "disk";
+  public static final String PROP_AUTO_INPUT  = "auto_input";
+  public static final String PROP_PASTE       = "paste";
+
+  public static final boolean DEFAULT_TAPE_IN    = true;
+  public static final boolean DEFAULT_DISK       = true;
+  public static final boolean DEFAULT_AUTO_INPUT = false;
+  public static final boolean DEFAULT_PASTE      = false;
+
+  // Pruefintervall in Millisekunden
+  private static final int CHECK_MILLIS = 100;
+
+  /*
+   * Disketten- und Festplattenzugriffe erfolgen stossweise,
+   * deshalb wird nach dem letzten Zugriff noch eine Weile
+   * mit unbegrenzter Geschwindigkeit weitergearbeitet.
+   */
+  private static final long DISK_HOLD_MILLIS = 1000L;
+
+  private EmuThread         emuThread;
+  private javax.swing.Timer timer;
+  private AtomicInteger     autoInputCount;
+  private volatile boolean  tapeInEnabled;
+  private volatile boolean  diskEnabled;
+  private volatile boolean  autoInputEnabled;
+  private volatile boolean  pasteEnabled;
+
+
+  public WarpMngr( EmuThread emuThread )
+  {
+    this.emuThread        = emuThread;
+    this.autoInputCount   = new AtomicInteger( 0 );
+    this.tapeInEnabled    = DEFAULT_TAPE_IN;
+    this.diskEnabled      = DEFAULT_DISK;
+    this.autoInputEnabled = DEFAULT_AUTO_INPUT;
+    this.pasteEnabled     = DEFAULT_PASTE;
+    this.timer            = null;
+
+    /*
+     * Ohne Bildschirmfenster (z.B. --headless, --farm) wird
+     * die Emulation von aussen gesteuert und nicht gebremst,
+     * weshalb dort kein Timer benoetigt wird.
+     */
+    if( emuThread.getScreenFrm() != null ) {
+      this.timer = new javax.swing.Timer( CHECK_MILLIS, this );
+      this.timer.start();
+    }
+  }
+
+
+  public void applySettings( Properties props, EmuSys emuSys )
+  {
+    String prefix = emuSys.getPropPrefix() + PROP_WARP_PREFIX;
+    this.tapeInEnabled = EmuUtil.getBooleanProperty(
+					props,
+					prefix + PROP_TAPE_IN,
+					DEFAULT_TAPE_IN );
+    this.diskEnabled = EmuUtil.getBooleanProperty(
+					props,
+					prefix + PROP_DISK,
+					DEFAULT_DISK );
+    this.autoInputEnabled = EmuUtil.getBooleanProperty(
+					props,
+					prefix + PROP_AUTO_INPUT,
+					DEFAULT_AUTO_INPUT );
+    this.pasteEnabled = EmuUtil.getBooleanProperty(
+					props,
+					prefix + PROP_PASTE,
+					DEFAULT_PASTE );
+  }
+
+
+  /*
+   * Die beiden Methoden werden von AutoLoader und AutoInputWorker
+   * am Anfang und am Ende ihrer Arbeit aufgerufen.
+   */
+  public void autoInputStarted()
+  {
+    this.autoInputCount.incrementAndGet();
+  }
+
+
+  public void autoInputFinished()
+  {
+    this.autoInputCount.decrementAndGet();
+  }
+
+
+  /*
+   * Der Timer haelt eine Referenz auf den WarpMngr
+   * und damit auf das gesamte emulierte System.
+   * Er muss deshalb beim Beenden angehalten werden.
+   */
+  public void die()
+  {
+    if( this.timer != null ) {
+      this.timer.stop();
+    }
+  }
+
+
+	/* --- ActionListener --- */
+
+  @Override
+  public void actionPerformed( ActionEvent e )
+  {
+    if( e.getSource() == this.timer ) {
+      EmuSys  emuSys = this.emuThread.getEmuSys();
+      boolean state  = false;
+      if( (emuSys != null) && !this.emuThread.isAudioLineOpen() ) {
+	state = isWarpActivity( emuSys );
+      }
+      updCPU( this.emuThread.getZ80CPU(), state );
+      if( emuSys != null ) {
+	updCPU( emuSys.getSecondZ80CPU(), state );
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private boolean isWarpActivity( EmuSys emuSys )
+  {
+    if( this.tapeInEnabled ) {
+      AudioIn audioIn = this.emuThread.getTapeIn();
+      if( audioIn instanceof AudioInFile ) {
+	if( !audioIn.isPause() && audioIn.isProgressUpdateEnabled() ) {
+	  return true;
+	}
+      }
+    }
+    if( this.diskEnabled ) {
+      long millis = emuSys.getDiskActivityMillis();
+      if( (millis > 0L)
+	  && ((System.currentTimeMillis() - millis) < DISK_HOLD_MILLIS) )
+      {
+	return true;
+      }
+    }
+    if( this.autoInputEnabled && (this.autoInputCount.get() > 0) ) {
+      return true;
+    }
+    if( this.pasteEnabled && emuSys.isPastingText() ) {
+      return true;
+    }
+    return false;
+  }
+
+
+  private static void updCPU( Z80CPU cpu, boolean state )
+  {
+    if( cpu != null ) {
+      if( cpu.isSpeedUnlimited() != state ) {
+	cpu.setSpeedUnlimited( state );
+      }
+    }
+  }
+}
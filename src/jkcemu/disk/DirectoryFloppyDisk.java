@@ -77,7 +77,7 @@ public class DirectoryFloppyDisk extends AbstractFloppyDisk
     }
   };
 
-  private static EntryNameComparator entryNameComparator = null;
+  private static volatile EntryNameComparator entryNameComparator = null;
 
   private File                  dirFile;
   private File                  sysFile;
@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -9,19 +9,22 @@
 
 package jkcemu.disk;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.Arrays;
 import jkcemu.Main;
 import jkcemu.base.EmuThread;
 import z80emu.Z80CPU;
 import z80emu.Z80MaxSpeedListener;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class FDC8272 implements
 			Runnable,
 			Z80MaxSpeedListener,
-			Z80TStatesListener
+			Z80TStatesSkipListener
 {
   public interface DriveSelector
   {
@@ -97,6 +100,8 @@ public class FDC8272 implements
 
   private static final int ARG0_SK_MASK    = 0x20;
   private static final int ARG0_MT_MASK    = 0x80;
+  private static final int STATE_VERSION = 1;
+
   private static final int DRIVE_MASK      = 0x03;
   private static final int HEAD_MASK       = 0x04;
   private static final int HEAD_DRIVE_MASK = HEAD_MASK | DRIVE_MASK;
@@ -178,6 +183,7 @@ public class FDC8272 implements
   private int                 curSectorIdx;
   private volatile SectorData curSector;
   private SectorData.Reader   curSectorReader;
+  private volatile long       lastActivityMillis;
 
 
   public FDC8272( DriveSelector driveSelector, int mhz )
@@ -186,6 +192,7 @@ public class FDC8272 implements
     this.mhz                = mhz;
     this.curCmd             = Command.INVALID;
     this.executingDrive     = null;
+    this.lastActivityMillis = 0L;
     this.dmaMode            = false;	// wird von RESET nicht beeinflusst
     this.stepRateMillis     = 16;	// wird von RESET nicht beeinflusst
     this.tStatesPerMilli    = 0;
@@ -310,6 +317,16 @@ public class FDC8272 implements
   }
 
 
+  /*
+   * Zeitpunkt (System.currentTimeMillis()) des Beginns
+   * des letzten Befehls mit Ausfuehrungsphase oder 0
+   */
+  public long getLastActivityMillis()
+  {
+    return this.lastActivityMillis;
+  }
+
+
   public boolean isDMARequest()
   {
     return this.dmaReq;
@@ -322,6 +339,45 @@ public class FDC8272 implements
   }
 
 
+  /*
+   * Zustand sichern und wiederherstellen
+   *
+   * Ein laufender Befehl laesst sich nicht sinnvoll sichern,
+   * da dieser mit dem Ein-/Ausgabe-Thread und dem Diskettenabbild
+   * verwoben ist.
+   * Aus diesem Grund wird das Sichern waehrend eines Befehls abgelehnt
+   * und ansonsten nur der von RESET nicht beeinflusste Zustand gesichert.
+   */
+  public void loadState( DataInput in ) throws IOException
+  {
+    int version = in.readUnsignedByte();
+    if( version > STATE_VERSION ) {
+      throw new IOException( "FDC: Zustand in unbekannter Version" );
+    }
+    this.dmaMode        = in.readBoolean();
+    this.stepRateMillis = in.readUnsignedByte();
+    reset( false );
+  }
+
+
+  public void saveState( DataOutput out ) throws IOException
+  {
+    if( (this.curCmd != Command.INVALID)
+	|| (this.ioTaskCmd != IOTaskCmd.IDLE)
+	|| (this.formatStatus != FormatStatus.IDLE)
+	|| this.seekMode )
+    {
+      throw new IOException( "Der Floppy-Disk-Controller f\u00FChrt gerade"
+			+ " einen Befehl aus.\n"
+			+ "Bitte versuchen Sie es nach Abschluss"
+			+ " des Diskettenzugriffs erneut." );
+    }
+    out.writeByte( STATE_VERSION );
+    out.writeBoolean( this.dmaMode );
+    out.writeByte( this.stepRateMillis );
+  }
+
+
   public int readMainStatusReg()
   {
     int rv = this.statusRegMain;
@@ -513,6 +569,36 @@ public class FDC8272 implements
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Naechstes Ereignis ist der Ablauf einer der Wartezeiten,
+   * die Indexmarkierung bzw. der naechste Schritt beim Positionieren.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    int rv = Integer.MAX_VALUE;
+    if( this.tStatesTillIOStart > 0 ) {
+      rv = Math.min( rv, this.tStatesTillIOStart );
+    }
+    if( this.tStatesTillIOReq > 0 ) {
+      rv = Math.min( rv, this.tStatesTillIOReq );
+    }
+    int tStatesPerRotation = this.tStatesPerRotation;
+    if( tStatesPerRotation > 0 ) {
+      rv = Math.min( rv, tStatesPerRotation - this.tStateRotationCounter );
+    }
+    if( this.seekMode ) {
+      rv = Math.min( rv, this.tStatesPerStep - this.tStateStepCounter );
+    }
+    if( this.tStatesTillOverrun > 0 ) {
+      rv = Math.min( rv, this.tStatesTillOverrun );
+    }
+    return Math.max( rv, 1 );
+  }
+
+
 	/* --- Z80TStatesListener --- */
 
   @Override
@@ -1270,6 +1356,7 @@ public class FDC8272 implements
 
   private void setExecutionMode()
   {
+    this.lastActivityMillis = System.currentTimeMillis();
     this.statusRegMain &= ~STM_REQUEST_FOR_MASTER;
     this.statusRegMain &= ~STM_DATA_INPUT;
     this.statusRegMain |= STM_BUSY;
@@ -120,6 +120,7 @@ public class GIDE implements Runnable
   private boolean               readMissingFileShown;
   private boolean               readErrShown;
   private boolean               writeErrShown;
+  private volatile long         lastActivityMillis;
 
 
   public static boolean complies(
@@ -168,6 +169,16 @@ public class GIDE implements Runnable
   }
 
 
+  /*
+   * Zeitpunkt (System.currentTimeMillis()) des letzten Befehls
+   * an eine vorhandene Festplatte oder 0
+   */
+  public long getLastActivityMillis()
+  {
+    return this.lastActivityMillis;
+  }
+
+
   public boolean isInterruptRequest()
   {
     return this.interruptRequest;
@@ -504,6 +515,7 @@ public class GIDE implements Runnable
     this.totalSectors    = null;
     this.ioBuf           = null;
     this.ioTaskEnabled   = true;
+    this.lastActivityMillis = 0L;
     this.ioTaskQueue     = new ArrayBlockingQueue<>( 1 );
     this.ioTaskThread    = new Thread(
 				Main.getThreadGroup(),
@@ -664,7 +676,8 @@ public class GIDE implements Runnable
       }
     }
     if( this.curDisk != null ) {
-      this.statusReg = STATUS_SEEK_COMPLETE | STATUS_DRIVE_READY;
+      this.statusReg          = STATUS_SEEK_COMPLETE | STATUS_DRIVE_READY;
+      this.lastActivityMillis = System.currentTimeMillis();
     } else {
       this.statusReg = 0;
     }
@@ -33,6 +33,7 @@ import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.FileFormat;
+import jkcemu.base.MemoryMap;
 import jkcemu.base.RAMFloppy;
 import jkcemu.base.SaveDlg;
 import jkcemu.base.SourceUtil;
@@ -53,12 +54,16 @@ import z80emu.Z80CTC;
 import z80emu.Z80InterruptSource;
 import z80emu.Z80PIO;
 import z80emu.Z80PCListener;
+import z80emu.Z80TStatesListenerAdapter;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class A5105 extends EmuSys implements
 					FDC8272.DriveSelector,
+					MemoryMap.Handler,
 					PSG8910.Callback,
-					Z80PCListener
+					Z80PCListener,
+					Z80TStatesSkipListener
 {
 
 private static int lastAA = -1;
@@ -111,9 +116,9 @@ private static int lastAA = -1;
   private static final int   BIOS_ADDR_CONIN        = 0xFD09;
   private static final int   V24_TSTATES_PER_BIT    = 390;
 
-  private static byte[]        romK1505 = null;
-  private static byte[]        romK5651 = null;
-  private static CharConverter cp437
+  private static volatile byte[] romK1505 = null;
+  private static volatile byte[] romK5651 = null;
+  private static CharConverter   cp437
 			= new CharConverter( CharConverter.Encoding.CP437 );
 
   /*
@@ -184,10 +189,13 @@ private static int lastAA = -1;
   private int                   outAA;
   private int                   coninRetAddr;
   private int[]                 keyboardMatrix;
+  private MemoryMap             memMap;
   private A5105KeyboardFld      keyboardFld;
   private volatile ByteIterator keyClickSamples;
   private volatile boolean      pasteFast;
 
+  private Z80TStatesListenerAdapter tStatesAdapter;
+
 
   public A5105( EmuThread emuThread, Properties props )
   {
@@ -203,6 +211,7 @@ private static int lastAA = -1;
     this.outAA          = 0xFF;
     this.keyboardFld    = null;
     this.keyboardMatrix = new int[ 9 ];
+    this.memMap         = new MemoryMap( this );
     Arrays.fill( keyboardMatrix, 0 );
 
     if( emulatesFloppyDisk( props ) ) {
@@ -283,7 +292,8 @@ private static int lastAA = -1;
     catch( ArrayStoreException ex ) {}
 
     cpu.addMaxSpeedListener( this );
-    cpu.addTStatesListener( this );
+    this.tStatesAdapter = new Z80TStatesListenerAdapter( this, 1000 );
+    this.tStatesAdapter.install( cpu );
     this.ctc80.setTimerConnection( 0, 2 );
     this.ctc80.setTimerConnection( 2, 3 );
     if( this.vdip != null ) {
@@ -351,6 +361,22 @@ private static int lastAA = -1;
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByte( addr, m1 );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByte( addr, value );
+  }
+
+
 	/* --- PSG8910.Callback --- */
 
   @Override
@@ -411,6 +437,39 @@ private static int lastAA = -1;
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Der Zaehler fuer die Shift-Taste wird nur beim Lesen
+   * der Tastatur ausgewertet und ist deshalb kein Ereignis.
+   * Der Kassetteneingang wird nach jedem Befehl abgefragt.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    long rv = Math.min(
+			getTStatesToNextOutPhase(),
+			this.ctc80.getTStatesToNextEvent() );
+    if( this.ctc50 != null ) {
+      rv = Math.min( rv, this.ctc50.getTStatesToNextEvent() );
+    }
+    rv = Math.min( rv, this.gdc.getTStatesToNextEvent() );
+    if( this.fdc != null ) {
+      rv = Math.min( rv, this.fdc.getTStatesToNextEvent() );
+    }
+    if( this.kcNet != null ) {
+      rv = Math.min( rv, this.kcNet.getTStatesToNextEvent() );
+    }
+    if( this.v24BitNum > 0 ) {
+      rv = Math.min( rv, Math.max( this.v24TStateCounter + 1, 1 ) );
+    }
+    if( this.emuThread.isTapeInActive() ) {
+      rv = 1;
+    }
+    return (int) rv;
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -495,7 +554,7 @@ private static int lastAA = -1;
     boolean state = isFixedScreenSize( props );
     if( state != this.vis.isFixedScreenSize() ) {
       this.vis.setFixedScreenSize( state );
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     createColors( props );
     checkAddPCListener( props );
@@ -559,7 +618,7 @@ private static int lastAA = -1;
   public synchronized void die()
   {
     Z80CPU cpu = this.emuThread.getZ80CPU();
-    cpu.removeTStatesListener( this );
+    this.tStatesAdapter.uninstall( cpu );
     cpu.removeMaxSpeedListener( this );
     cpu.setInterruptSources( (Z80InterruptSource[]) null );
     if( this.pasteFast ) {
@@ -619,7 +678,7 @@ private static int lastAA = -1;
     if( canExtractScreenText() ) {
       int charHeight = Math.min( this.gdc.getCharRowHeight(), 8 );
       int rowHeight  = this.gdc.getCharRowHeight();
-      if( this.vis.isFixedScreenSize() || this.screenFrm.isFullScreenMode() ) {
+      if( this.vis.isFixedScreenSize() || isFullScreenMode() ) {
 	charHeight *= 2;
 	rowHeight *= 2;
       }
@@ -649,6 +708,13 @@ private static int lastAA = -1;
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, null );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -1222,13 +1288,18 @@ private static int lastAA = -1;
   }
 
 
+  /*
+   * Da jeder M1-Zyklus einen Wait-State erzeugt,
+   * wird die MemoryMap nicht mit getMemoryMap() herausgegeben,
+   * sondern nur hier verwendet.
+   */
   @Override
   public int readMemByte( int addr, boolean m1 )
   {
     if( m1 ) {
       this.emuThread.getZ80CPU().addWaitStates( 1 );
     }
-    return getMemByte( addr, m1 );
+    return this.memMap.read( addr & 0xFFFF, m1 );
   }
 
 
@@ -1273,6 +1344,7 @@ private static int lastAA = -1;
     setKeyClickPhase( false );
     setCapsLockLED( false );
     setTapeLED( false );
+    updMemPages();
   }
 
 
@@ -1385,7 +1457,7 @@ private static int lastAA = -1;
       }
     }
     if( !done ) {
-      this.screenFrm.firePastingTextFinished();
+      firePastingTextFinished();
     }
   }
 
@@ -1651,6 +1723,7 @@ private static int lastAA = -1;
 
       case 0xA8:				// SVG Port A
 	this.memConfig = value;
+	updMemPages();
 	break;
 
       case 0xAA:				// SVG Port C
@@ -1691,6 +1764,13 @@ private static int lastAA = -1;
   }
 
 
+  @Override
+  public void writeMemByte( int addr, int value )
+  {
+    this.memMap.write( addr & 0xFFFF, value );
+  }
+
+
   @Override
   public void z80MaxSpeedChanged( Z80CPU cpu )
   {
@@ -1894,4 +1974,52 @@ private static int lastAA = -1;
     if( this.keyboardFld != null )
       this.keyboardFld.updKeySelection( this.keyboardMatrix );
   }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * entsprechend der Speicherkonfiguration im SVG-Port A,
+   * ROM-Bereiche nur fuer Lesezugriffe
+   */
+  private void updMemPages()
+  {
+    byte[] ram = this.emuThread.getRAM();
+    this.memMap.clear();
+    switch( this.memConfig & 0x03 ) {
+      case 0x00:
+	this.memMap.map( 0x0000, 0x4000, romK1505, 0x0000, false );
+	break;
+
+      case 0x02:
+	this.memMap.map( 0x0000, 0x4000, ram, 0x0000, true );
+	break;
+    }
+    switch( this.memConfig & 0x0C ) {
+      case 0x00:
+	this.memMap.map( 0x4000, 0x4000, romK1505, 0x4000, false );
+	break;
+
+      case 0x04:
+	if( this.fdc != null ) {
+	  this.memMap.map( 0x4000, 0x4000, romK5651, 0x0000, false );
+	}
+	break;
+
+      case 0x08:
+	this.memMap.map( 0x4000, 0x4000, ram, 0x4000, true );
+	break;
+    }
+    switch( this.memConfig & 0x30 ) {
+      case 0x00:
+	this.memMap.map( 0x8000, 0x4000, romK1505, 0x8000, false );
+	break;
+
+      case 0x20:
+	this.memMap.map( 0x8000, 0x4000, ram, 0x8000, true );
+	break;
+    }
+    if( (this.memConfig & 0xC0) == 0x80 ) {
+      this.memMap.map( 0xC000, 0x4000, ram, 0xC000, true );
+    }
+  }
 }
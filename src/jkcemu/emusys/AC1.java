@@ -24,6 +24,7 @@ import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.FileFormat;
 import jkcemu.base.LoadData;
+import jkcemu.base.MemoryMap;
 import jkcemu.base.OptionDlg;
 import jkcemu.base.RAMFloppy;
 import jkcemu.base.SaveDlg;
@@ -418,17 +419,17 @@ public class AC1
 				0x0800,		// FE
 				0x0800 };	// FF
 
-  private static byte[] mon31_64x16 = null;
-  private static byte[] mon31_64x32 = null;
-  private static byte[] monSCCH80   = null;
-  private static byte[] monSCCH1088 = null;
-  private static byte[] mon2010c    = null;
-  private static byte[] minibasic   = null;
-  private static byte[] pio2Rom2010 = null;
-  private static byte[] font2010    = null;
-  private static byte[] fontACC     = null;
-  private static byte[] fontSCCH    = null;
-  private static byte[] fontU402    = null;
+  private static volatile byte[] mon31_64x16 = null;
+  private static volatile byte[] mon31_64x32 = null;
+  private static volatile byte[] monSCCH80   = null;
+  private static volatile byte[] monSCCH1088 = null;
+  private static volatile byte[] mon2010c    = null;
+  private static volatile byte[] minibasic   = null;
+  private static volatile byte[] pio2Rom2010 = null;
+  private static volatile byte[] font2010    = null;
+  private static volatile byte[] fontACC     = null;
+  private static volatile byte[] fontSCCH    = null;
+  private static volatile byte[] fontU402    = null;
 
   private Color[]           colors;
   private byte[]            ramColor;
@@ -1125,6 +1126,13 @@ public class AC1
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, this.gide );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -1218,6 +1226,17 @@ public class AC1
   }
 
 
+  /*
+   * Werden die M1-Zyklen fuer den CTC gezaehlt,
+   * muessen die CPU-Zugriffe ueber readMemByte(...) gehen.
+   */
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.ctcM1ToClk2 ? null : this.memMap;
+  }
+
+
   @Override
   protected int getScreenChar( CharRaster chRaster, int chX, int chY )
   {
@@ -1308,7 +1327,7 @@ public class AC1
     switch( keyCode ) {
       case KeyEvent.VK_F1:
 	this.inverseByKey = !this.inverseByKey;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -1345,7 +1364,7 @@ public class AC1
     switch( ch ) {
       case '\u00F1':
 	this.inverseByKey = !this.inverseByKey;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -1728,7 +1747,7 @@ public class AC1
       }
       this.lastMemReadM1 = m1;
     }
-    return getMemByte( addr, m1 );
+    return this.memMap.read( addr & 0xFFFF, m1 );
   }
 
 
@@ -1810,6 +1829,7 @@ public class AC1
       this.v24TStatesPerBit = V24_TSTATES_PER_BIT_EXTERN;
     }
     this.pio1.putInValuePortB( 0, 0x04 );
+    updMemPages();
   }
 
 
@@ -2006,13 +2026,13 @@ public class AC1
 	if( (this.ramColor != null) && ((this.regF0 & 0x04) != 0) ) {
 	  if( idx < this.ramColor.length ) {
 	    this.ramColor[ idx ] = (byte) value;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	    rv = true;
 	  }
 	} else {
 	  if( idx < this.ramVideo.length ) {
 	    this.ramVideo[ idx ] = (byte) value;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	    rv = true;
 	  }
 	}
@@ -2206,7 +2226,7 @@ public class AC1
 		}
 		if( offs != this.fontOffs ) {
 		  this.fontOffs = offs;
-		  this.screenFrm.setScreenDirty( true );
+		  setScreenDirty( true );
 		}
 		this.pio1B3State = state;
 	      }
@@ -2216,7 +2236,7 @@ public class AC1
 		if( state != this.pio1B3State ) {
 		  this.inverseBySW = state;
 		  this.pio1B3State = state;
-		  this.screenFrm.setScreenDirty( true );
+		  setScreenDirty( true );
 		}
 	      }
 	    }
@@ -2284,6 +2304,7 @@ public class AC1
 	      this.romBank2010Len  = 0;
 	      this.romBank2010Offs = -1;
 	    }
+	    updMemPages();
 	  }
 	  break;
 
@@ -2305,6 +2326,7 @@ public class AC1
 	      default:
 		this.pio2Rom2010Offs = -1;
 	    }
+	    updMemPages();
 	  }
 	  break;
 
@@ -2324,6 +2346,7 @@ public class AC1
 	    } else {
 	      this.scchPrgXRomEnabled = ((value & 0x01) != 0);
 	    }
+	    updMemPages();
 	  }
 	  break;
 
@@ -2334,18 +2357,21 @@ public class AC1
 	    this.rf32KActive    = ((value & 0x20) != 0);
 	    this.rfReadEnabled  = ((value & 0x40) != 0);
 	    this.rfWriteEnabled = ((value & 0x80) != 0);
+	    updMemPages();
 	  }
 	  break;
 
 	case 0x16:
 	  if( this.modeSCCH ) {
 	    this.osRomEnabled = false;
+	    updMemPages();
 	  }
 	  break;
 
 	case 0x17:
 	  if( this.modeSCCH ) {
 	    this.osRomEnabled = true;
+	    updMemPages();
 	  }
 	  break;
 
@@ -2355,6 +2381,7 @@ public class AC1
 	case 0x1F:
 	  if( !this.mode64x16 ) {
 	    this.lowerDRAMEnabled = ((value & 0x01) != 0);
+	    updMemPages();
 	  }
 	  break;
 
@@ -2426,9 +2453,10 @@ public class AC1
 	    }
 	    if( (value & 0x02) != (this.regF0 & 0x02) ) {
 	      this.inverseBySW = ((value & 0x02) != 0);
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    this.regF0 = value;
+	    updMemPages();
 	  }
 	  break;
 
@@ -2646,4 +2674,60 @@ public class AC1
       }
     }
   }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByte(...)
+   *
+   * ROM-Bereiche werden nur fuer Lesezugriffe eingetragen,
+   * da die Schreibzugriffe dort je nach Betriebsart
+   * in den DRAM durchgeschrieben oder ignoriert werden.
+   */
+  private void updMemPages()
+  {
+    this.memMap.clear();
+    if( !this.mode64x16 ) {
+      this.memMap.map(
+		0x0000,
+		0x10000,
+		this.emuThread.getRAM(),
+		0x0000,
+		true );
+    }
+    if( !this.lowerDRAMEnabled ) {
+      if( this.osRomEnabled ) {
+	this.memMap.map( 0x0000, 0x1000, this.osBytes, 0x0000, false );
+      }
+      if( (this.ramColor != null) && ((this.regF0 & 0x04) != 0) ) {
+	this.memMap.map( 0x1000, 0x0800, this.ramColor, 0x0000, true );
+      } else {
+	this.memMap.map( 0x1000, 0x0800, this.ramVideo, 0x0000, true );
+      }
+      this.memMap.setWriteListener( 0x1000, 0x0800, this );
+      this.memMap.map( 0x1800, 0x0800, this.ramStatic, 0x0000, true );
+    }
+    if( this.mode2010 ) {
+      if( this.pio2Rom2010Offs >= 0 ) {
+	this.memMap.map(
+		0x2000,
+		0x0800,
+		this.pio2Rom2010Bytes,
+		this.pio2Rom2010Offs,
+		false );
+      }
+      if( this.romBank2010Offs >= 0 ) {
+	this.memMap.mapHandler( 0x8000, 0x8000 );
+	this.memMap.map(
+		0xA000,
+		this.romBank2010Len,
+		this.romBank2010Bytes,
+		this.romBank2010Offs,
+		false );
+      }
+    }
+    if( this.modeSCCH ) {
+      updScchMemPages();
+    }
+  }
 }
@@ -25,9 +25,12 @@ import z80emu.Z80CPU;
 import z80emu.Z80CTC;
 import z80emu.Z80CTCListener;
 import z80emu.Z80InterruptSource;
+import z80emu.Z80TStatesSkipListener;
 
 
-public class BCS3 extends EmuSys implements Z80CTCListener
+public class BCS3 extends EmuSys implements
+					Z80CTCListener,
+					Z80TStatesSkipListener
 {
   public static final String SYSNAME        = "BCS3";
   public static final String PROP_PREFIX    = "jkcemu.bcs3.";
@@ -133,14 +136,14 @@ public class BCS3 extends EmuSys implements Z80CTCListener
   private static int[] endInstBytesSE31 = { 0x0F, 0x27, 0xCE, 0x1E };
   private static int[] endInstBytesSP33 = { 0x00, 0x27, 0xCA, 0x1E };
 
-  private static byte[] fontBytesSE24  = null;
-  private static byte[] fontBytesSE31  = null;
-  private static byte[] fontBytesSP33  = null;
-  private static byte[] osBytesSE24    = null;
-  private static byte[] osBytesSE31_29 = null;
-  private static byte[] osBytesSE31_40 = null;
-  private static byte[] osBytesSP33_29 = null;
-  private static byte[] mcEdtitorSE31  = null;
+  private static volatile byte[] fontBytesSE24  = null;
+  private static volatile byte[] fontBytesSE31  = null;
+  private static volatile byte[] fontBytesSP33  = null;
+  private static volatile byte[] osBytesSE24    = null;
+  private static volatile byte[] osBytesSE31_29 = null;
+  private static volatile byte[] osBytesSE31_40 = null;
+  private static volatile byte[] osBytesSP33_29 = null;
+  private static volatile byte[] mcEdtitorSE31  = null;
 
   private Z80CTC           ctc;
   private String           osFile;
@@ -516,10 +519,10 @@ public class BCS3 extends EmuSys implements Z80CTCListener
 	  this.screenEnabled       = true;
 
 	  // Bildschirm und ggf. Copy-Button aktualisieren
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  if( rasChanged ) {
-	    this.screenFrm.clearScreenSelection();
-	    this.screenFrm.fireUpdScreenTextActionsEnabled();
+	    clearScreenSelection();
+	    fireUpdScreenTextActionsEnabled();
 	  }
 	  break;
       }
@@ -527,6 +530,26 @@ public class BCS3 extends EmuSys implements Z80CTCListener
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Das Ende des WAIT-Zustands wird ueber den CTC ausgeloest,
+   * weshalb die WAIT-Zyklen bis zu dessen naechstem Ereignis
+   * am Stueck verarbeitet werden koennen.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    int rv = Math.min(
+		getTStatesToNextOutPhase(),
+		this.ctc.getTStatesToNextEvent() );
+    if( this.screenActiveTStates > 0 ) {
+      rv = Math.min( rv, this.screenActiveTStates );
+    }
+    return rv;
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -1471,7 +1494,7 @@ public class BCS3 extends EmuSys implements Z80CTCListener
       if( this.screenActiveTStates <= 0 ) {
 	if( this.screenEnabled ) {
 	  this.screenEnabled = false;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
     }
@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -35,7 +35,7 @@ public class C80 extends EmuSys
 		{ '+', '-', 'E', 'B', '8', '5', '2', '0' },
 		{ 0,   0,   'F', 'C', '9', '6', '3', 'M' } };
 
-  private static byte[] mon = null;
+  private static volatile byte[] mon = null;
 
   private C80KeyboardFld keyboardFld;
   private int[]          keyboardMatrix;
@@ -508,7 +508,7 @@ public class C80 extends EmuSys
       }
     }
     if( dirty ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -554,7 +554,7 @@ public class C80 extends EmuSys
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
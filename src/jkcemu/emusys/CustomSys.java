@@ -126,8 +126,8 @@ public class CustomSys
 
   private enum SioOut { NONE, PRINTER };
 
-  private static byte[]        romFont = null;
-  private static CharConverter cp437
+  private static volatile byte[] romFont = null;
+  private static CharConverter   cp437
 			= new CharConverter( CharConverter.Encoding.CP437 );
 
   private String         title;
@@ -909,6 +909,13 @@ public class CustomSys
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, this.gide );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -1290,7 +1297,7 @@ public class CustomSys
   {
     this.emuThread.setRAMByte( addr & 0xFFFF, value );
     if( (addr >= this.screenBegAddr) && (addr <= this.screenEndAddr) ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
     return true;
   }
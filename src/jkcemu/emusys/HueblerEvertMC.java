@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -43,8 +43,8 @@ public class HueblerEvertMC extends AbstractHueblerMC
 			'\u00F6', '\u00DC', '\u00FC', '\u2192',
 			'\u221A', '\u00B2', '\u00A3', '\u00A5' };
 
-  private static byte[] hemcFont = null;
-  private static byte[] mon21    = null;
+  private static volatile byte[] hemcFont = null;
+  private static volatile byte[] mon21    = null;
 
   private byte[] fontBytes;
   private byte[] ramVideo;
@@ -164,6 +164,13 @@ public class HueblerEvertMC extends AbstractHueblerMC
   }
 
 
+  @Override
+  public int getDefaultPromptAfterResetMillisMax()
+  {
+    return DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX;
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -442,7 +449,7 @@ public class HueblerEvertMC extends AbstractHueblerMC
       int idx = addr - 0xE800;
       if( idx < this.ramVideo.length ) {
 	this.ramVideo[ idx ] = (byte) value;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
     }
@@ -86,9 +86,9 @@ public class HueblerGraphicsMC extends AbstractHueblerMC
 			"POO",   "LO",    "CSTS", "IOBYTE",
 			"IOSET", "MEMSI", "MAIN" };
 
-  private static byte[]              monBytes         = null;
-  private static byte[]              monBasicBytes    = null;
-  private static Map<Long,Character> pixelCRC32ToChar = null;
+  private static volatile byte[]              monBytes         = null;
+  private static volatile byte[]              monBasicBytes    = null;
+  private static volatile Map<Long,Character> pixelCRC32ToChar = null;
 
   private byte[]  romBytes;
   private String  romFile;
@@ -352,6 +352,13 @@ public class HueblerGraphicsMC extends AbstractHueblerMC
   }
 
 
+  @Override
+  public int getDefaultPromptAfterResetMillisMax()
+  {
+    return DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX;
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -613,7 +620,7 @@ public class HueblerGraphicsMC extends AbstractHueblerMC
       if( (addr >= this.videoBaseAddr)
 	  && (addr < (this.videoBaseAddr + 0x2000)) )
       {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
       rv = true;
     }
@@ -683,7 +690,7 @@ public class HueblerGraphicsMC extends AbstractHueblerMC
 
       case 0x10:
         this.videoBaseAddr = (value << 8) & 0xE000;
-        this.screenFrm.setScreenDirty( true );
+        setScreenDirty( true );
         break;
 
       case 0xC0:
@@ -774,7 +781,8 @@ public class HueblerGraphicsMC extends AbstractHueblerMC
 
   private Map<Long,Character> getPixelCRC32ToCharMap()
   {
-    if( pixelCRC32ToChar == null ) {
+    Map<Long,Character> rv = pixelCRC32ToChar;
+    if( rv == null ) {
       ensureMonBytesLoaded();
       if( monBytes != null ) {
         if( monBytes.length >= 0x0E0D ) {
@@ -788,10 +796,11 @@ public class HueblerGraphicsMC extends AbstractHueblerMC
             addr += 8;
           }
           pixelCRC32ToChar = map;
+          rv               = map;
         }
       }
     }
-    return pixelCRC32ToChar;
+    return rv;
   }
 
 
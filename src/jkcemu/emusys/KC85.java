@@ -10,15 +10,14 @@ package jkcemu.emusys;
 
 import java.awt.Color;
 import java.awt.event.KeyEvent;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.*;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.audio.AudioOut;
 import jkcemu.base.AbstractKeyboardFld;
 import jkcemu.base.BaseDlg;
@@ -27,6 +26,9 @@ import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.FileFormat;
+import jkcemu.base.MemoryMap;
+import jkcemu.base.SnapshotReader;
+import jkcemu.base.SnapshotWriter;
 import jkcemu.base.SourceUtil;
 import jkcemu.base.UserCancelException;
 import jkcemu.disk.FloppyDiskDrive;
@@ -69,9 +71,15 @@ import z80emu.Z80MemView;
 import z80emu.Z80Memory;
 import z80emu.Z80PIO;
 import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesListenerAdapter;
+import z80emu.Z80TStatesSkipListener;
 
 
-public class KC85 extends EmuSys implements Z80CTCListener
+public class KC85 extends EmuSys implements
+					MemoryMap.Handler,
+					MemoryMap.WriteListener,
+					Z80CTCListener,
+					Z80TStatesSkipListener
 {
   public static final String SYSNAME_HC900  = "HC900";
   public static final String SYSNAME_KC85_2 = "KC85_2";
@@ -97,6 +105,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
   public static final String PROP_D004_ENABLED      = "d004.enabled";
   public static final String PROP_D004_ROM          = "d004.rom";
   public static final String PROP_D004_MAXSPEED_KHZ = "d004.maxspeed.khz";
+  public static final String PROP_D004_SAME_THREAD  = "d004.same_thread";
   public static final String PROP_ROM_BASIC_FILE    = "rom.basic.file";
   public static final String PROP_ROM_CAOS_C_FILE   = "rom.caos_c.file";
   public static final String PROP_ROM_CAOS_E_FILE   = "rom.caos_e.file";
@@ -147,6 +156,13 @@ public class KC85 extends EmuSys implements Z80CTCListener
     "RANDOMIZE", "VGET$",    "LINE",    "CIRCLE",	// 0xF0
     "CSRLIN" };
 
+  private static final String SNAPSHOT_CHUNK_SYS    = "kc85";
+  private static final String SNAPSHOT_CHUNK_CTC    = "kc85.ctc";
+  private static final String SNAPSHOT_CHUNK_PIO    = "kc85.pio";
+  private static final String SNAPSHOT_CHUNK_INPUT  = "kc85.input";
+  private static final String SNAPSHOT_CHUNK_MODULE = "kc85.module.";
+  private static final int    SNAPSHOT_VERSION      = 1;
+
   private static final int DEFAULT_SPEED_2_KHZ = 1750;
   private static final int DEFAULT_SPEED_4_KHZ = 1773;
   private static final int SUTAB               = 0xB7B0;
@@ -257,21 +273,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 			"INIME", "ZKOUT", "MENU",  "V24OUT",
 			"V24DUP" };
 
-  private static Map<String,byte[]> resources = new HashMap<>();
-
-  private static byte[] basic_x4_c000 = null;
-  private static byte[] basic_c000    = null;
-  private static byte[] hc900_e000    = null;
-  private static byte[] hc900_f000    = null;
-  private static byte[] caos22_e000   = null;
-  private static byte[] caos22_f000   = null;
-  private static byte[] caos31_e000   = null;
-  private static byte[] caos42_c000   = null;
-  private static byte[] caos42_e000   = null;
-  private static byte[] caos45_c000   = null;
-  private static byte[] caos45_e000   = null;
-
-  private static Boolean defaultEmulateVideoTiming = null;
+  private static volatile Boolean defaultEmulateVideoTiming = null;
 
   private int                     kcTypeNum;
   private String                  sysName;
@@ -340,9 +342,11 @@ public class KC85 extends EmuSys implements Z80CTCListener
   private byte[]                  ramColor1;
   private byte[]                  ramPixel0;
   private byte[]                  ramPixel1;
+  private MemoryMap               memMap;
   private int[]                   rgbValues;
   private Color[]                 colors;
   private AbstractKC85Module[]    modules;
+  private AbstractKC85Module[][]  ioModules;
   private KC85CharRecognizer      charRecognizer;
   private AbstractKC85KeyboardFld keyboardFld;
   private KC85LEDFld              ledFld;
@@ -353,6 +357,8 @@ public class KC85 extends EmuSys implements Z80CTCListener
   private D004                    d004;
   private String                  d004RomProp;
 
+  private Z80TStatesListenerAdapter tStatesAdapter;
+
 
   public KC85( EmuThread emuThread, Properties props )
   {
@@ -407,6 +413,8 @@ public class KC85 extends EmuSys implements Z80CTCListener
     this.ramPixel0 = new byte[ 0x4000 ];
     this.ramPixel1 = new byte[ 0x4000 ];
 
+    this.memMap    = new MemoryMap( this );
+
     Z80CPU cpu       = emuThread.getZ80CPU();
     this.ctc         = new Z80CTC( "CTC (E/A-Adressen 8Ch-8Fh)" );
     this.pio         = new Z80PIO( "PIO (E/A-Adressen 88h-8Bh)" );
@@ -451,12 +459,11 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	    resource = "/rom/kc85/d004_20.bin";
 	  }
 	}
-	romBytes = EmuUtil.readResource(
-				this.emuThread.getScreenFrm(),
-				resource );
+	romBytes = readResource( resource );
       }
       this.d004 = new D004(
 			this.emuThread.getScreenFrm(),
+			cpu,
 			props,
 			this.propPrefix,
 			romBytes );
@@ -482,9 +489,6 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	    ((Z80MaxSpeedListener) module).z80MaxSpeedChanged( cpu );
 	    cpu.addMaxSpeedListener( (Z80MaxSpeedListener) module );
 	  }
-	  if( module instanceof Z80TStatesListener ) {
-	    cpu.addTStatesListener( (Z80TStatesListener) module );
-	  }
 	}
 	cpu.setInterruptSources(
 		iSources.toArray(
@@ -494,10 +498,18 @@ public class KC85 extends EmuSys implements Z80CTCListener
     } else {
       cpu.setInterruptSources( this.ctc, this.pio );
     }
+    updIOModules();
     this.ctc.addCTCListener( this );
-    cpu.addTStatesListener( this );
     cpu.addMaxSpeedListener( this );
 
+    /*
+     * Die Module mit Taktzyklen-Listener werden ueber
+     * z80TStatesProcessed(...) mit bedient,
+     * und zwar wie bisher vor dem Grundgeraet.
+     */
+    this.tStatesAdapter = new Z80TStatesListenerAdapter( this, 1000 );
+    this.tStatesAdapter.install( cpu );
+
     this.screenBufUsed  = null;
     this.screenBufSaved = null;
     this.rgbValues      = new int[ rawRGBValues.length ];
@@ -583,6 +595,38 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByteInternal( addr, this.irmEnabled, m1, true );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByteInternal( addr, value, this.irmEnabled );
+  }
+
+
+	/* --- MemoryMap.WriteListener --- */
+
+  /*
+   * Die Methode wird bei Schreibzugriffen auf den IRM aufgerufen.
+   */
+  @Override
+  public void memMapWritten( MemoryMap memMap, int addr, int value )
+  {
+    if( this.screenBufUsed != null ) {
+      this.screenDirty = true;
+    } else {
+      setScreenDirty( true );
+    }
+  }
+
+
 	/* --- Z80CTCListener --- */
 
   /*
@@ -611,7 +655,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	  if( this.screenBufUsed != null ) {
 	    this.screenDirty = true;
 	  } else {
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  break;
       }
@@ -619,6 +663,67 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Ereignisse sind die Flanken der CTC-Eingaenge,
+   * die Ausgabe der Tongeneratoren, die Impulse der Tastatur
+   * und die Ereignisse der CTC und der Module.
+   * Der Kassetteneingang wird nach jedem Befehl abgefragt.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    long rv = Math.min(
+			getTStatesToNextOutPhase(),
+			this.ctc.getTStatesToNextEvent() );
+    int tStatesPerLine = this.tStatesPerLine;
+    if( tStatesPerLine > 0 ) {
+      int lineTStates = this.lineTStateCounter;
+      int linePos     = tStatesPerLine;
+      if( lineTStates < this.tStatesLinePos2 ) {
+	linePos = this.tStatesLinePos2;
+      }
+      if( lineTStates < this.tStatesLinePos1 ) {
+	linePos = this.tStatesLinePos1;
+      }
+      if( lineTStates < this.tStatesLinePos0 ) {
+	linePos = this.tStatesLinePos0;
+      }
+      rv = Math.min( rv, Math.max( linePos - lineTStates, 1 ) );
+    }
+    if( this.soundOutTStates > 0 ) {
+      rv = Math.min( rv, Math.max( this.curSoundOutTStates, 1 ) );
+    }
+    if( this.keyShiftBitCnt <= 0 ) {
+      if( this.keyTStates > 0 ) {
+	rv = Math.min( rv, this.keyTStates );
+      }
+    } else if( this.keyShiftBitCnt == 8 ) {
+      rv = 1;
+    } else if( this.keyShiftBitCnt < 8 ) {
+      int keyTStates = ((this.keyShiftValue & 0x01) != 0 ? 12496 : 8960);
+      rv = Math.min( rv, Math.max( keyTStates - this.keyTStates, 1 ) );
+    }
+    if( this.emuThread.isTapeInActive() ) {
+      rv = 1;
+    }
+    AbstractKC85Module[] modules = this.modules;
+    if( modules != null ) {
+      for( AbstractKC85Module module : modules ) {
+	if( module instanceof Z80TStatesSkipListener ) {
+	  rv = Math.min(
+		rv,
+		((Z80TStatesSkipListener) module).getTStatesToNextEvent() );
+	} else if( module instanceof Z80TStatesListener ) {
+	  rv = 1;
+	}
+      }
+    }
+    return (int) Math.max( rv, 1 );
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -1001,7 +1106,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
   {
     Z80CPU cpu = this.emuThread.getZ80CPU();
     this.ctc.removeCTCListener( this );
-    cpu.removeTStatesListener( this );
+    this.tStatesAdapter.uninstall( cpu );
     cpu.removeMaxSpeedListener( this );
     cpu.setInterruptSources( (Z80InterruptSource[]) null );
     if( this.d004 != null ) {
@@ -1011,9 +1116,6 @@ public class KC85 extends EmuSys implements Z80CTCListener
     if( this.modules != null ) {
       for( int i = 0; i < this.modules.length; i++ ) {
 	AbstractKC85Module module = this.modules[ i ];
-	if( module instanceof Z80TStatesListener ) {
-	  cpu.removeTStatesListener( (Z80TStatesListener) module );
-	}
 	if( module instanceof Z80MaxSpeedListener ) {
 	  cpu.removeMaxSpeedListener( (Z80MaxSpeedListener) module );
 	}
@@ -1190,6 +1292,23 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  @Override
+  public int getDefaultPromptAfterResetMillisMax()
+  {
+    return this.kcTypeNum < 4 ?
+		DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX_2
+		: DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX_4;
+  }
+
+
+  @Override
+  public long getDiskActivityMillis()
+  {
+    D004 d004 = this.d004;
+    return d004 != null ? d004.getDiskActivityMillis() : 0L;
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -1204,6 +1323,13 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.memMap;
+  }
+
+
   @Override
   public int getResetStartAddress( EmuThread.ResetLevel resetLevel )
   {
@@ -1237,7 +1363,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
   public KC85LEDFld getSecondScreenDevice()
   {
     if( this.ledFld == null ) {
-      this.ledFld = new KC85LEDFld( this, Main.getProperties() );
+      this.ledFld = new KC85LEDFld( this, this.emuThread.getProperties() );
       this.ledFld.setPioAValue( this.pio.fetchOutValuePortA( false ) );
     }
     return this.ledFld;
@@ -1560,6 +1686,102 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  /*
+   * Die Module werden in der Reihenfolge ihrer Konfiguration gesichert.
+   * Da die Einstellungen aus dem Snapshot vor dem Laden angewendet
+   * werden, muessen die Module uebereinstimmen.
+   * Eine gesteckte D004 verhindert das Sichern
+   * (siehe D004.saveState(...)).
+   */
+  @Override
+  public void loadSnapshot( SnapshotReader reader ) throws IOException
+  {
+    DataInputStream in = reader.getRequiredChunk(
+					SNAPSHOT_CHUNK_SYS,
+					SNAPSHOT_VERSION );
+    this.basicC000Enabled  = in.readBoolean();
+    this.caosC000Enabled   = in.readBoolean();
+    this.caosE000Enabled   = in.readBoolean();
+    this.blinkEnabled      = in.readBoolean();
+    this.blinkState        = in.readBoolean();
+    this.hiColorRes        = in.readBoolean();
+    this.irmEnabled        = in.readBoolean();
+    this.ram0Enabled       = in.readBoolean();
+    this.ram0Writeable     = in.readBoolean();
+    this.ram4Enabled       = in.readBoolean();
+    this.ram4Writeable     = in.readBoolean();
+    this.ram8Enabled       = in.readBoolean();
+    this.ram8Writeable     = in.readBoolean();
+    this.ramColorEnabled   = in.readBoolean();
+    this.screen1Enabled    = in.readBoolean();
+    this.screen1Visible    = in.readBoolean();
+    this.biState           = in.readBoolean();
+    this.h4State           = in.readBoolean();
+    this.soundOutPhaseL    = in.readBoolean();
+    this.soundOutPhaseR    = in.readBoolean();
+    int kout               = in.readByte();
+    this.kout              = (kout >= 0 ? Boolean.valueOf( kout != 0 ) : null);
+    this.basicSegNum       = in.readUnsignedByte();
+    this.ram8SegNum        = in.readUnsignedByte();
+    this.lineTStateCounter = in.readInt();
+    this.lineCounter       = in.readInt();
+    this.soundOutValueM    = in.readInt();
+    this.soundOutValueL    = in.readInt();
+    this.soundOutValueR    = in.readInt();
+    SnapshotReader.readBytes( in, this.ramColor0 );
+    SnapshotReader.readBytes( in, this.ramColor1 );
+    SnapshotReader.readBytes( in, this.ramPixel0 );
+    SnapshotReader.readBytes( in, this.ramPixel1 );
+    int nModules = in.readUnsignedByte();
+    if( nModules != (this.modules != null ? this.modules.length : 0) ) {
+      throw new IOException( "Die im Snapshot gesicherten Module stimmen"
+			+ " nicht mit den eingestellten \u00FCberein." );
+    }
+    for( int i = 0; i < nModules; i++ ) {
+      if( !this.modules[ i ].getModuleName().equals( in.readUTF() )
+	  || (this.modules[ i ].getSlot() != in.readUnsignedByte()) )
+      {
+	throw new IOException( "Die im Snapshot gesicherten Module stimmen"
+			+ " nicht mit den eingestellten \u00FCberein." );
+      }
+    }
+
+    this.ctc.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_CTC, SNAPSHOT_VERSION ) );
+    this.pio.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_PIO, SNAPSHOT_VERSION ) );
+    for( int i = 0; i < nModules; i++ ) {
+      this.modules[ i ].loadState(
+		reader.getRequiredChunk(
+				SNAPSHOT_CHUNK_MODULE + String.valueOf( i ),
+				SNAPSHOT_VERSION ) );
+    }
+
+    /*
+     * Zustand der Tastaturuebertragung und des Kassetteneingangs,
+     * in aelteren Snapshots nicht vorhanden
+     */
+    in = reader.getChunk( SNAPSHOT_CHUNK_INPUT, SNAPSHOT_VERSION );
+    if( in != null ) {
+      this.tapeInPhase       = in.readBoolean();
+      this.keyNumStageBuf    = in.readInt();
+      this.keyNumStageNum    = in.readInt();
+      this.keyNumStageMillis = -1L;
+      this.keyNumProcessing  = in.readInt();
+      this.keyShiftBitCnt    = in.readInt();
+      this.keyShiftValue     = in.readInt();
+      this.keyTStates        = in.readInt();
+    }
+    if( this.ledFld != null ) {
+      this.ledFld.setPioAValue( this.pio.fetchOutValuePortA( false ) );
+    }
+    this.screenDirty = true;
+    setScreenDirty( true );
+    updMemPages();
+    updSoundOut();
+  }
+
+
   /*
    * KC-BASIC-Programme sollen bei Adressen ab 8000h nicht in den
    * IRM geladen werden, auch wenn dieser gerade eingeblendet ist.
@@ -1633,7 +1855,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	if( ix >= 0 ) {
 	  if( (getMemByte( ix + 8, false ) & 0x01) != 0 ) {
 	    do {
-	      Thread.sleep( 10 );
+	      pasteSleep( 10 );
 	    } while( (getMemByte( ix + 8, false ) & 0x01) != 0 );
 	  }
 	  setMemByte( ix + 13, ch );
@@ -1690,12 +1912,15 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	break;
 
       default:
-	if( this.modules != null ) {
-	  for( int i = 0; i < this.modules.length; i++ ) {
-	    int v = this.modules[ i ].readIOByte( port, tStates );
-	    if( v >= 0 ) {
-	      rv = v;
-	      break;
+	{
+	  AbstractKC85Module[] modules = this.ioModules[ port & 0xFF ];
+	  if( modules != null ) {
+	    for( int i = 0; i < modules.length; i++ ) {
+	      int v = modules[ i ].readIOByte( port, tStates );
+	      if( v >= 0 ) {
+		rv = v;
+		break;
+	      }
 	    }
 	  }
 	}
@@ -1704,10 +1929,17 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  /*
+   * Lese- und Schreibzugriffe der CPU laufen ueber die Seitentabellen.
+   * Diese werden nur im Emulations-Thread aktualisiert,
+   * weshalb alle anderen Zugriffe (z.B. Debugger, Laden von Dateien)
+   * weiterhin ueber get/setMemByteInternal(...) vollstaendig
+   * dekodiert werden.
+   */
   @Override
   public int readMemByte( int addr, boolean m1 )
   {
-    return getMemByteInternal( addr, this.irmEnabled, m1, true );
+    return this.memMap.read( addr & 0xFFFF, m1 );
   }
 
 
@@ -2034,6 +2266,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
     this.keyTStates           = 0;
     this.ctc.reset( coldReset );
     this.pio.reset( coldReset );
+    updMemPages();
     updSoundOut();
   }
 
@@ -2045,6 +2278,79 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  @Override
+  public void saveSnapshot( SnapshotWriter writer ) throws IOException
+  {
+    DataOutputStream out = writer.beginChunk(
+					SNAPSHOT_CHUNK_SYS,
+					SNAPSHOT_VERSION );
+    out.writeBoolean( this.basicC000Enabled );
+    out.writeBoolean( this.caosC000Enabled );
+    out.writeBoolean( this.caosE000Enabled );
+    out.writeBoolean( this.blinkEnabled );
+    out.writeBoolean( this.blinkState );
+    out.writeBoolean( this.hiColorRes );
+    out.writeBoolean( this.irmEnabled );
+    out.writeBoolean( this.ram0Enabled );
+    out.writeBoolean( this.ram0Writeable );
+    out.writeBoolean( this.ram4Enabled );
+    out.writeBoolean( this.ram4Writeable );
+    out.writeBoolean( this.ram8Enabled );
+    out.writeBoolean( this.ram8Writeable );
+    out.writeBoolean( this.ramColorEnabled );
+    out.writeBoolean( this.screen1Enabled );
+    out.writeBoolean( this.screen1Visible );
+    out.writeBoolean( this.biState );
+    out.writeBoolean( this.h4State );
+    out.writeBoolean( this.soundOutPhaseL );
+    out.writeBoolean( this.soundOutPhaseR );
+    Boolean kout = this.kout;
+    out.writeByte( kout != null ? (kout.booleanValue() ? 1 : 0) : -1 );
+    out.writeByte( this.basicSegNum );
+    out.writeByte( this.ram8SegNum );
+    out.writeInt( this.lineTStateCounter );
+    out.writeInt( this.lineCounter );
+    out.writeInt( this.soundOutValueM );
+    out.writeInt( this.soundOutValueL );
+    out.writeInt( this.soundOutValueR );
+    SnapshotWriter.writeBytes( out, this.ramColor0 );
+    SnapshotWriter.writeBytes( out, this.ramColor1 );
+    SnapshotWriter.writeBytes( out, this.ramPixel0 );
+    SnapshotWriter.writeBytes( out, this.ramPixel1 );
+    int nModules = (this.modules != null ? this.modules.length : 0);
+    out.writeByte( nModules );
+    for( int i = 0; i < nModules; i++ ) {
+      out.writeUTF( this.modules[ i ].getModuleName() );
+      out.writeByte( this.modules[ i ].getSlot() );
+    }
+    writer.endChunk();
+
+    this.ctc.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_CTC, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+    this.pio.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_PIO, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+    for( int i = 0; i < nModules; i++ ) {
+      this.modules[ i ].saveState(
+		writer.beginChunk(
+			SNAPSHOT_CHUNK_MODULE + String.valueOf( i ),
+			SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+
+    out = writer.beginChunk( SNAPSHOT_CHUNK_INPUT, SNAPSHOT_VERSION );
+    out.writeBoolean( this.tapeInPhase );
+    out.writeInt( this.keyNumStageBuf );
+    out.writeInt( this.keyNumStageNum );
+    out.writeInt( this.keyNumProcessing );
+    out.writeInt( this.keyShiftBitCnt );
+    out.writeInt( this.keyShiftValue );
+    out.writeInt( this.keyTStates );
+    writer.endChunk();
+  }
+
+
   @Override
   public boolean setBasicMemByte( int addr, int value )
   {
@@ -2136,6 +2442,13 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  @Override
+  public boolean supportsSnapshot()
+  {
+    return true;
+  }
+
+
   @Override
   public boolean supportsSoundOut8Bit()
   {
@@ -2212,10 +2525,11 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	  this.screen1Enabled  = ((value & 0x04) != 0);
 	  this.hiColorRes      = ((value & 0x08) == 0);
 	  this.ram8SegNum      = (value >> 4) & 0x0F;
+	  updMemPages();
 	  if( this.screenBufUsed != null ) {
 	    this.screenDirty = true;
 	  } else {
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	}
 	break;
@@ -2227,6 +2541,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	  this.ram4Writeable   = ((value & 0x02) != 0);
 	  this.basicSegNum     = (~value >> 5) & 0x03;
 	  this.caosC000Enabled = ((value & 0x80) != 0);
+	  updMemPages();
 	}
 	break;
 
@@ -2238,6 +2553,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	this.irmEnabled       = ((m & 0x04) != 0);
 	this.ram0Writeable    = ((m & 0x08) != 0);
 	this.basicC000Enabled = ((m & 0x80) != 0);
+	updMemPages();
 	if( this.kcTypeNum >= 4 ) {
 	  boolean kout = ((m & 0x10) != 0);
 	  if( this.keyboardFld != null ) {
@@ -2254,9 +2570,11 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	if( this.screenBufUsed != null ) {
 	  this.screenDirty = true;
 	} else {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
+	}
+	if( this.ledFld != null ) {
+	  this.ledFld.setPioAValue( m );
 	}
-	this.ledFld.setPioAValue( m );
 	break;
 
       case 0x89:
@@ -2270,6 +2588,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	  }
 	  this.ram8Enabled   = ((m & 0x20) != 0);
 	  this.ram8Writeable = ((m & 0x40) != 0);
+	  updMemPages();
 	}
 	this.blinkEnabled = ((m & 0x80) != 0);
 	break;
@@ -2290,10 +2609,13 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	break;
 
       default:
-	if( this.modules != null ) {
-	  for( int i = 0; i < this.modules.length; i++ ) {
-	    if( this.modules[ i ].writeIOByte( port, value, tStates ) ) {
-	      break;
+	{
+	  AbstractKC85Module[] modules = this.ioModules[ port & 0xFF ];
+	  if( modules != null ) {
+	    for( int i = 0; i < modules.length; i++ ) {
+	      if( modules[ i ].writeIOByte( port, value, tStates ) ) {
+		break;
+	      }
 	    }
 	  }
 	}
@@ -2301,6 +2623,13 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  @Override
+  public void writeMemByte( int addr, int value )
+  {
+    this.memMap.write( addr & 0xFFFF, value );
+  }
+
+
   @Override
   public void z80MaxSpeedChanged( Z80CPU cpu )
   {
@@ -2319,6 +2648,14 @@ public class KC85 extends EmuSys implements Z80CTCListener
   @Override
   public void z80TStatesProcessed( Z80CPU cpu, int tStates )
   {
+    AbstractKC85Module[] modules = this.modules;
+    if( modules != null ) {
+      for( AbstractKC85Module module : modules ) {
+	if( module instanceof Z80TStatesListener ) {
+	  ((Z80TStatesListener) module).z80TStatesProcessed( cpu, tStates );
+	}
+      }
+    }
     super.z80TStatesProcessed( cpu, tStates );
     this.ctc.z80TStatesProcessed( cpu, tStates );
 
@@ -2337,14 +2674,14 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	if( this.lineCounter < 311 ) {
 	  if( this.screenRefreshEnabled ) {
 	    updScreenLine();
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  this.lineCounter++;
 	} else {
 	  this.lineCounter = 0;
 	  if( this.screenDirty && (this.screenBufUsed != null) ) {
 	    this.screenDirty = false;
-	    this.screenFrm.fireRepaint();
+	    fireRepaint();
 	    this.screenRefreshEnabled = true;
 	  } else {
 	    this.screenRefreshEnabled = false;
@@ -3116,16 +3453,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 
   private byte[] getResource( String resource )
   {
-    byte[] rv = null;
-    if( resource != null ) {
-      if( resources.containsKey( resource ) ) {
-	rv = resources.get( resource );
-      } else {
-	rv = EmuUtil.readResource( this.screenFrm, resource );
-	resources.put( resource, rv );
-      }
-    }
-    return rv;
+    return resource != null ? readResource( resource ) : null;
   }
 
 
@@ -3444,7 +3772,7 @@ public class KC85 extends EmuSys implements Z80CTCListener
 	    if( this.screenBufUsed != null ) {
 	      this.screenDirty = true;
 	    } else {
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    rv = true;
 	  }
@@ -3547,6 +3875,38 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  /*
+   * Aufbau der Tabelle mit den Modulen je Portadresse
+   * (niederwertiges Byte) fuer die E/A-Zugriffe,
+   * die nicht vom Grundgeraet bedient werden
+   *
+   * Je Portadresse bleibt die Reihenfolge der Module erhalten,
+   * sodass wie bisher das erste Modul, das den Zugriff bedient,
+   * den Vorrang hat.
+   * Da die Module nur im Konstruktor angelegt werden,
+   * wird die Tabelle auch nur dort aufgebaut.
+   */
+  private void updIOModules()
+  {
+    this.ioModules = new AbstractKC85Module[ 0x100 ][];
+    if( this.modules != null ) {
+      java.util.List<AbstractKC85Module> list = new ArrayList<>();
+      for( int port = 0; port < this.ioModules.length; port++ ) {
+	list.clear();
+	for( AbstractKC85Module module : this.modules ) {
+	  if( module.supportsIOPort( port ) ) {
+	    list.add( module );
+	  }
+	}
+	if( !list.isEmpty() ) {
+	  this.ioModules[ port ] = list.toArray(
+				new AbstractKC85Module[ list.size() ] );
+	}
+      }
+    }
+  }
+
+
   private void updKeyboardFld( int keyNum )
   {
     if( this.keyboardFld != null ) {
@@ -3555,6 +3915,107 @@ public class KC85 extends EmuSys implements Z80CTCListener
   }
 
 
+  /*
+   * Aufbau der Seitentabellen fuer die Speicherzugriffe der CPU
+   *
+   * Die Methode wird nach jeder Aenderung der Speicheraufteilung
+   * (Ports 84h, 86h, 88h und 89h) aufgerufen.
+   * Eingetragen werden die RAM-, IRM- und ROM-Bereiche
+   * des Grundgeraets mit derselben Aufteilung
+   * wie in get/setMemByteInternal(...).
+   * Seiten, die Modulen gehoeren, bleiben ohne Eintrag,
+   * da die Module ihre Speicherzugriffe selbst dekodieren.
+   * Dort wird auch der Wait-State bei M1-Zugriffen auf Module
+   * in einem D002 erzeugt.
+   * In ROM-Bereiche und schreibgeschuetzte RAM-Bereiche
+   * wird nur fuer Lesezugriffe eingetragen.
+   */
+  private void updMemPages()
+  {
+    byte[] ram = this.emuThread.getRAM();
+    this.memMap.clear();
+    if( this.ram0Enabled ) {
+      this.memMap.map( 0x0000, 0x4000, ram, 0x0000, this.ram0Writeable );
+    }
+    if( this.ram4Enabled ) {
+      this.memMap.map( 0x4000, 0x4000, ram, 0x4000, this.ram4Writeable );
+    }
+    if( this.irmEnabled ) {
+      byte[] irm = null;
+      if( this.screen1Enabled ) {
+	irm = this.ramColorEnabled ? this.ramColor1 : this.ramPixel1;
+      } else {
+	irm = this.ramColorEnabled ? this.ramColor0 : this.ramPixel0;
+      }
+      if( this.caosC000Enabled && !this.caosE000Enabled ) {
+	this.memMap.map( 0x8000, 0x4000, irm, 0x0000, true );
+      } else {
+	this.memMap.map( 0x8000, 0x2800, irm, 0x0000, true );
+	this.memMap.map( 0xA800, 0x1800, this.ramPixel0, 0x2800, true );
+      }
+      this.memMap.setWriteListener( 0x8000, 0x4000, this );
+    } else if( this.ram8Enabled && (this.ram8 != null) ) {
+      if( this.kcTypeNum == 4 ) {
+	this.memMap.map(
+		0x8000,
+		0x4000,
+		this.ram8,
+		(this.ram8SegNum & 0x01) != 0 ? 0x4000 : 0x0000,
+		this.ram8Writeable );
+      } else if( this.kcTypeNum > 4 ) {
+	if( this.ram8SegNum < 2 ) {
+	  this.memMap.map(
+		0x8000,
+		0x4000,
+		ram,
+		this.ram8SegNum * 0x4000,
+		this.ram8Writeable );
+	} else {
+	  this.memMap.map(
+		0x8000,
+		0x4000,
+		this.ram8,
+		(this.ram8SegNum - 2) * 0x4000,
+		this.ram8Writeable );
+	}
+      }
+    }
+    if( (this.kcTypeNum >= 4) && this.caosC000Enabled ) {
+      if( this.caosC000 != null ) {
+	if( (this.caosC000.length > 0x1000) || (this.kcTypeNum > 4) ) {
+	  this.memMap.map( 0xC000, 0x2000, this.caosC000, 0x0000, false );
+	} else {
+	  this.memMap.map( 0xC000, 0x1000, this.caosC000, 0x0000, false );
+	}
+      }
+    } else if( this.basicC000Enabled && (this.basicC000 != null) ) {
+      int idx = 0x0000;
+      if( (this.kcTypeNum > 4) && (this.basicC000.length > 0x2000) ) {
+	switch( this.basicSegNum ) {
+	  case 0:
+	    idx = 0x6000;
+	    break;
+	  case 1:
+	    idx = 0x2000;
+	    break;
+	  case 2:
+	    idx = 0x4000;
+	    break;
+	}
+      }
+      this.memMap.map( 0xC000, 0x2000, this.basicC000, idx, false );
+    }
+    if( this.caosE000Enabled ) {
+      if( this.kcTypeNum >= 3 ) {
+	this.memMap.map( 0xE000, 0x2000, this.caosE000, 0x0000, false );
+      } else {
+	this.memMap.map( 0xE000, 0x0800, this.caosE000, 0x0000, false );
+	this.memMap.map( 0xF000, 0x0800, this.caosF000, 0x0000, false );
+      }
+    }
+  }
+
+
   private void updScreenLine()
   {
     byte[] screenBuf = this.screenBufUsed;
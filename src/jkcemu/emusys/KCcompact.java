@@ -22,6 +22,7 @@ import jkcemu.base.CharRaster;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
+import jkcemu.base.MemoryMap;
 import jkcemu.disk.FDC8272;
 import jkcemu.disk.FloppyDiskDrive;
 import jkcemu.disk.FloppyDiskInfo;
@@ -40,6 +41,8 @@ import z80emu.Z80InterruptSource;
 public class KCcompact extends EmuSys implements
 					CRTC6845.SyncListener,
 					FDC8272.DriveSelector,
+					MemoryMap.Handler,
+					MemoryMap.WriteListener,
 					PPI8255.Callback,
 					PSG8910.Callback,
 					Z80InstrTStatesMngr,
@@ -137,10 +140,10 @@ public class KCcompact extends EmuSys implements
 		    -1,     -1,     -1,     -1,		// 240
 		    -1,     -1, 0x25B6, 0x25C0 };	// 244
 
-  private static byte[]              romOS            = null;
-  private static byte[]              romBASIC         = null;
-  private static byte[]              romFDC           = null;
-  private static Map<Long,Character> pixelCRC32ToChar = null;
+  private static volatile byte[]              romOS            = null;
+  private static volatile byte[]              romBASIC         = null;
+  private static volatile byte[]              romFDC           = null;
+  private static volatile Map<Long,Character> pixelCRC32ToChar = null;
 
   private Color[]              colors;
   private int[]                regColors;
@@ -178,6 +181,7 @@ public class KCcompact extends EmuSys implements
   private KCcompactKeyboardFld keyboardFld;
   private FDC8272              fdc;
   private FloppyDiskDrive[]    floppyDiskDrives;
+  private MemoryMap            memMap;
 
 
   public KCcompact( EmuThread emuThread, Properties props )
@@ -211,6 +215,7 @@ public class KCcompact extends EmuSys implements
     Arrays.fill( this.regColors, 0 );
 
     this.ram16KOffs = new int[ 4 ];
+    this.memMap     = new MemoryMap( this );
     this.crtc       = new CRTC6845( 1000, this );
     this.ppi        = new PPI8255( this );
     this.psg        = new PSG8910(
@@ -336,8 +341,8 @@ public class KCcompact extends EmuSys implements
 	  this.screenBuf[ dstPos++ ] = (byte) this.borderColorIdx;
 	}
       }
-      this.screenFrm.setScreenDirty( true );
-      this.screenFrm.fireRepaint();
+      setScreenDirty( true );
+      fireRepaint();
     }
   }
 
@@ -391,6 +396,38 @@ public class KCcompact extends EmuSys implements
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByte( addr, m1 );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByte( addr, value );
+  }
+
+
+	/* --- MemoryMap.WriteListener --- */
+
+  /*
+   * Die Methode wird bei Schreibzugriffen auf den Grund-RAM aufgerufen.
+   * Da sich die Anfangsadresse des CRTC jederzeit aendern kann,
+   * wird erst hier geprueft, ob der Bildschirminhalt betroffen ist.
+   */
+  @Override
+  public void memMapWritten( MemoryMap memMap, int addr, int value )
+  {
+    if( (addr & 0xC000) == ((this.crtc.getStartAddr() << 2) & 0xC000) ) {
+      this.screenDirty = true;
+    }
+  }
+
+
 	/* --- PPI8255.Callback --- */
 
   @Override
@@ -575,6 +612,7 @@ public class KCcompact extends EmuSys implements
       }
     }
     setScreenMode( 1 );
+    updMemPages();
   }
 
 
@@ -609,7 +647,7 @@ public class KCcompact extends EmuSys implements
     boolean state = isFixedScreenSize( props );
     if( state != this.fixedScreenSize ) {
       this.fixedScreenSize = state;
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     createColors( props );
   }
@@ -705,7 +743,7 @@ public class KCcompact extends EmuSys implements
   public int getColorIndex( int x, int y )
   {
     int rv = this.borderColorIdx;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       if( this.screenMode < 2 ) {
 	x /= 2;
       }
@@ -763,6 +801,20 @@ public class KCcompact extends EmuSys implements
   }
 
 
+  @Override
+  public int getDefaultPromptAfterResetMillisMax()
+  {
+    return DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX;
+  }
+
+
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, null );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -827,6 +879,13 @@ public class KCcompact extends EmuSys implements
   }
 
 
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.memMap;
+  }
+
+
   @Override
   public int getResetStartAddress( EmuThread.ResetLevel resetLevel )
   {
@@ -878,7 +937,7 @@ public class KCcompact extends EmuSys implements
   @Override
   public int getScreenHeight()
   {
-    return (this.fixedScreenSize || this.screenFrm.isFullScreenMode()) ?
+    return (this.fixedScreenSize || isFullScreenMode()) ?
 								400 : 200;
   }
 
@@ -886,7 +945,7 @@ public class KCcompact extends EmuSys implements
   @Override
   public int getScreenWidth()
   {
-    return (this.fixedScreenSize || this.screenFrm.isFullScreenMode()) ?
+    return (this.fixedScreenSize || isFullScreenMode()) ?
 						640 : this.screenWidth;
   }
 
@@ -1086,6 +1145,13 @@ public class KCcompact extends EmuSys implements
   }
 
 
+  @Override
+  public int readMemByte( int addr, boolean m1 )
+  {
+    return this.memMap.read( addr & 0xFFFF, m1 );
+  }
+
+
   @Override
   public void reset( EmuThread.ResetLevel resetLevel, Properties props )
   {
@@ -1094,6 +1160,7 @@ public class KCcompact extends EmuSys implements
 	&& isReloadExtROMsOnPowerOnEnabled( props ) )
     {
       loadROMs( props );
+      updMemPages();
     }
     this.joy0ActionMask = 0;
     this.joy1ActionMask = 0;
@@ -1254,6 +1321,7 @@ public class KCcompact extends EmuSys implements
     }
     if( (port & 0x2000) == 0 ) {		// A13=0: ROM Select
       this.romSelect = value;
+      updMemPages();
     }
     if( (port & 0x4000) == 0 ) {		// A14=0: CRTC
       switch( port & 0x0300 ) {
@@ -1295,6 +1363,7 @@ public class KCcompact extends EmuSys implements
 	    this.lineIrqCounter = 52;
 	  }
 	  setScreenMode( value & 0x03 );
+	  updMemPages();
 	  break;
 	case 0xC0:				// RAM Konfiguration
 	  Arrays.fill( this.ram16KOffs, 0 );
@@ -1318,12 +1387,20 @@ public class KCcompact extends EmuSys implements
 	      this.ram16KOffs[ 1 ] = 0x180000;
 	      break;
 	  }
+	  updMemPages();
 	  break;
       }
     }
   }
 
 
+  @Override
+  public void writeMemByte( int addr, int value )
+  {
+    this.memMap.write( addr & 0xFFFF, value );
+  }
+
+
   @Override
   public void z80MaxSpeedChanged( Z80CPU cpu )
   {
@@ -1433,7 +1510,8 @@ public class KCcompact extends EmuSys implements
 
   private Map<Long,Character> getPixelCRC32ToCharMap()
   {
-    if( pixelCRC32ToChar == null ) {
+    Map<Long,Character> rv = pixelCRC32ToChar;
+    if( rv == null ) {
       if( romOS != null ) {
         if( romOS.length >= 0x4000 ) {
           Map<Long,Character> map = new HashMap<>();
@@ -1447,10 +1525,11 @@ public class KCcompact extends EmuSys implements
 	    }
 	  }
           pixelCRC32ToChar = map;
+          rv               = map;
         }
       }
     }
-    return pixelCRC32ToChar;
+    return rv;
   }
 
 
@@ -1536,7 +1615,7 @@ public class KCcompact extends EmuSys implements
 	this.screenMode = mode;
 	this.screenWidth = w;
 	if( !this.fixedScreenSize ) {
-	  this.screenFrm.fireScreenSizeChanged();
+	  fireScreenSizeChanged();
 	}
       }
     }
@@ -1548,4 +1627,44 @@ public class KCcompact extends EmuSys implements
     if( this.keyboardFld != null )
       this.keyboardFld.updKeySelection( this.keyboardMatrix );
   }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByte(...)
+   *
+   * Die ROM-Bereiche werden nur fuer Lesezugriffe eingetragen,
+   * da Schreibzugriffe dort in den darunter liegenden RAM gehen.
+   */
+  private void updMemPages()
+  {
+    this.memMap.clear();
+    byte[] ram = this.emuThread.getRAM();
+    for( int i = 0; i < this.ram16KOffs.length; i++ ) {
+      int addr = i * 0x4000;
+      int idx  = addr + this.ram16KOffs[ i ];
+      if( idx >= 0x10000 ) {
+	this.memMap.map( addr, 0x4000, this.ramExt, idx & 0xFFFF, true );
+      } else {
+	this.memMap.map( addr, 0x4000, ram, idx, true );
+	this.memMap.setWriteListener( addr, 0x4000, this );
+      }
+    }
+    if( this.osROMEnabled ) {
+      this.memMap.map( 0x0000, 0x4000, this.osBytes, 0x0000, false );
+    }
+    if( this.basicROMEnabled ) {
+      byte[] rom = this.basicBytes;
+      int    idx = 0x0000;
+      if( this.fdc != null ) {
+	if( this.romSelect == 6 ) {
+	  rom = this.fdcROMBytes;
+	  idx = 0x4000;
+	} else if( this.romSelect == 7 ) {
+	  rom = this.fdcROMBytes;
+	}
+      }
+      this.memMap.map( 0xC000, 0x4000, rom, idx, false );
+    }
+  }
 }
@@ -91,10 +91,10 @@ public class KramerMC extends EmuSys implements Z80PCListener
 			"CI", "RI",   "CO",    "WO",
 			"LO", "CSTS", "IOCHK", "IOSET" };
 
-  private static byte[] rom0000 = null;
-  private static byte[] rom8000 = null;
-  private static byte[] romC000 = null;
-  private static byte[] romFont = null;
+  private static volatile byte[] rom0000 = null;
+  private static volatile byte[] rom8000 = null;
+  private static volatile byte[] romC000 = null;
+  private static volatile byte[] romFont = null;
 
   private String       rom0000File;
   private String       rom8000File;
@@ -516,7 +516,7 @@ public class KramerMC extends EmuSys implements Z80PCListener
     }
     if( rv ) {
       while( this.kbStatus > 0 ) {
-	Thread.sleep( 50 );
+	pasteSleep( 50 );
       }
     }
     return rv;
@@ -634,7 +634,7 @@ public class KramerMC extends EmuSys implements Z80PCListener
       int idx = addr - 0xFC00;
       if( idx < this.ramVideo.length ) {
 	this.ramVideo[ idx ] = (byte) value;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
     }
@@ -87,13 +87,13 @@ public class LC80 extends EmuSys implements
 	"TROFF",    "FILES",  "LFILES",   "LLIST",
 	"LPRINT",   "TIME$",  "DATE$",    "EDIT" };
 
-  private static byte[] lc80_u505   = null;
-  private static byte[] lc80_2716   = null;
-  private static byte[] lc80_2      = null;
-  private static byte[] lc80e_0000  = null;
-  private static byte[] lc80e_c000  = null;
-  private static byte[] lc80ex_a000 = null;
-  private static byte[] lc80ex_c000 = null;
+  private static volatile byte[] lc80_u505   = null;
+  private static volatile byte[] lc80_2716   = null;
+  private static volatile byte[] lc80_2      = null;
+  private static volatile byte[] lc80e_0000  = null;
+  private static volatile byte[] lc80e_c000  = null;
+  private static volatile byte[] lc80ex_a000 = null;
+  private static volatile byte[] lc80ex_c000 = null;
 
   private String           romOSFile;
   private String           romA000File;
@@ -256,7 +256,7 @@ public class LC80 extends EmuSys implements
   {
     if( haltState != this.haltState ) {
       this.haltState = haltState;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -479,6 +479,13 @@ public class LC80 extends EmuSys implements
   }
 
 
+  @Override
+  public int getDefaultPromptAfterResetMillisMax()
+  {
+    return DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX;
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -1122,7 +1129,7 @@ public class LC80 extends EmuSys implements
 	  this.ram[ idx ] = (byte) value;
 	}
 	if( this.chessComputer && (addr >= 0x2715) && (addr < 0x2763) ) {
-          this.screenFrm.setChessboardDirty( true );
+          setChessboardDirty( true );
         }
 	rv = true;
       }
@@ -1241,7 +1248,7 @@ public class LC80 extends EmuSys implements
 	  if( tapeOutPhase != this.tapeOutPhase ) {
 	    this.tapeOutPhase = tapeOutPhase;
 	    this.tapeOutState = true;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  putKBMatrixRowValueToPort();
 	  updDisplay();
@@ -1265,7 +1272,7 @@ public class LC80 extends EmuSys implements
 	case 1:
 	  this.sio.writeDataB( value );
 	  if( !this.tvTermFired ) {
-	    this.screenFrm.fireOpenSecondScreen();
+	    fireOpenSecondScreen();
 	    this.tvTermFired = true;
 	  }
 	  break;
@@ -1328,7 +1335,7 @@ public class LC80 extends EmuSys implements
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.tapeOutState      = false;
 	this.curDisplayTStates = 0;
@@ -1531,7 +1538,7 @@ public class LC80 extends EmuSys implements
       }
     }
     if( dirty )
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
   }
 
 
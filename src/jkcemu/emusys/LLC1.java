@@ -16,7 +16,6 @@ import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
 import java.util.Arrays;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.base.AbstractKeyboardFld;
 import jkcemu.base.AbstractScreenFrm;
 import jkcemu.base.EmuMemView;
@@ -44,9 +43,9 @@ public class LLC1 extends EmuSys
   private static final int DISPLAY_DISTANCE     = 30;
   private static final int PASTE_READS_PER_CHAR = 10;
 
-  private static byte[] rom0000 = null;
-  private static byte[] rom0800 = null;
-  private static byte[] romFont = null;
+  private static volatile byte[] rom0000 = null;
+  private static volatile byte[] rom0800 = null;
+  private static volatile byte[] romFont = null;
 
   private byte[]                ramStatic;
   private byte[]                ramVideo;
@@ -335,8 +334,8 @@ public class LLC1 extends EmuSys
   {
     if( this.alphaScreenDevice == null ) {
       this.alphaScreenDevice = new LLC1AlphaScreenDevice(
-						this,
-						Main.getProperties() );
+					this,
+					this.emuThread.getProperties() );
     }
     return this.alphaScreenDevice;
   }
@@ -749,7 +748,7 @@ public class LLC1 extends EmuSys
 	    synchronized( this.digitValues ) {
 	      if( bValue != this.digitValues[ this.digitIdx ] ) {
 		this.digitValues[ this.digitIdx ] = bValue;
-		this.screenFrm.setScreenDirty( true );
+		setScreenDirty( true );
 	      }
 	      this.digitStatus[ this.digitIdx ] = 2;
 	    }
@@ -798,7 +797,7 @@ public class LLC1 extends EmuSys
 	&& (value != 0x00) && (value != 0x20)
 	&& (value != 0x40) && (value != 0xFF) )
     {
-      this.screenFrm.fireOpenSecondScreen();
+      fireOpenSecondScreen();
       this.alphaScreenFired = true;
     }
   }
@@ -836,7 +835,7 @@ public class LLC1 extends EmuSys
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
@@ -71,8 +71,8 @@ public class LLC2
   private static int V24_TSTATES_PER_BIT_INTERN = 337;
   private static int V24_TSTATES_PER_BIT_EXTERN = 312;
 
-  private static byte[] llc2Font  = null;
-  private static byte[] scchMon91 = null;
+  private static volatile byte[] llc2Font  = null;
+  private static volatile byte[] scchMon91 = null;
 
   private Z80CTC            ctc;
   private Z80PIO            pio2;
@@ -290,7 +290,7 @@ public class LLC2
     loadFont( props );
     checkAddPCListener( props );
     if( updScreenRatio( props ) ) {
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     if( this.vdip != null ) {
       this.vdip.applySettings( props );
@@ -469,6 +469,13 @@ public class LLC2
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, this.gide );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -569,7 +576,7 @@ public class LLC2
     switch( keyCode ) {
       case KeyEvent.VK_F1:
 	this.screenInverseMode = !this.screenInverseMode;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -592,7 +599,7 @@ public class LLC2
     switch( ch ) {
       case '\u00F1':
 	this.screenInverseMode = !this.screenInverseMode;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -725,6 +732,7 @@ public class LLC2
 	case 0xE2:
 	case 0xE3:
 	  this.osRomEnabled = false;
+	  updMemPages();
 	  break;
 
 	case 0xE4:
@@ -838,7 +846,8 @@ public class LLC2
     } else {
       this.v24TStatesPerBit = V24_TSTATES_PER_BIT_EXTERN;
     }
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    updMemPages();
+    fireUpdScreenTextActionsEnabled();
   }
 
 
@@ -915,13 +924,13 @@ public class LLC2
 	if( (addr >= this.videoPixelAddr)
 	    && (addr < (this.videoPixelAddr + 0x4000)) )
 	{
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       } else {
 	if( (addr >= this.videoTextAddr)
 	    && (addr < (this.videoTextAddr + 0x0800)) )
 	{
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
       rv = true;
@@ -1102,6 +1111,7 @@ public class LLC2
 	case 0xE2:
 	case 0xE3:
 	  this.osRomEnabled = false;
+	  updMemPages();
 	  break;
 
 	case 0xE4:
@@ -1197,6 +1207,7 @@ public class LLC2
 	  } else {
 	    this.scchPrgXRomEnabled = ((value & 0x01) != 0);
 	  }
+	  updMemPages();
 	  break;
 
 	case 0xED:
@@ -1205,6 +1216,7 @@ public class LLC2
 	  this.rf32KActive    = ((value & 0x20) != 0);
 	  this.rfReadEnabled  = ((value & 0x40) != 0);
 	  this.rfWriteEnabled = ((value & 0x80) != 0);
+	  updMemPages();
 	  break;
 
 	case 0xEE:
@@ -1236,8 +1248,9 @@ public class LLC2
 	    if( hiRes != this.hiRes ) {
 	      this.hiRes = hiRes;
 	      dirty      = true;
-	      this.screenFrm.fireUpdScreenTextActionsEnabled();
+	      fireUpdScreenTextActionsEnabled();
 	    }
+	    updMemPages();
 	  }
 	  break;
 
@@ -1249,7 +1262,7 @@ public class LLC2
 	  break;
       }
       if( dirty ) {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
     }
   }
@@ -1291,7 +1304,7 @@ public class LLC2
 	if( this.lineCounter >= 312 ) {
 	  this.lineCounter = 0;
 	  this.ctc.externalUpdate( 2, 1 );
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
     }
@@ -1414,4 +1427,30 @@ public class LLC2
     }
     return changed;
   }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByte(...)
+   *
+   * Der Listener markiert bei Schreibzugriffen
+   * auf den angezeigten Bereich den Bildschirm als geaendert.
+   */
+  private void updMemPages()
+  {
+    byte[] ram = this.emuThread.getRAM();
+    this.memMap.clear();
+    if( this.osRomEnabled ) {
+      this.memMap.map( 0x0000, 0xC000, this.osBytes, 0x0000, false );
+    } else {
+      this.memMap.map( 0x0000, 0xC000, ram, 0x0000, true );
+    }
+    this.memMap.map( 0xC000, 0x4000, ram, 0xC000, true );
+    if( this.hiRes ) {
+      this.memMap.setWriteListener( this.videoPixelAddr, 0x4000, this );
+    } else {
+      this.memMap.setWriteListener( this.videoTextAddr, 0x0800, this );
+    }
+    updScchMemPages();
+  }
 }
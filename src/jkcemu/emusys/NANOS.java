@@ -20,6 +20,7 @@ import jkcemu.base.CharRaster;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
+import jkcemu.base.MemoryMap;
 import jkcemu.disk.FDC8272;
 import jkcemu.disk.FloppyDiskDrive;
 import jkcemu.disk.FloppyDiskFormat;
@@ -40,6 +41,8 @@ import z80emu.Z80SIOChannelListener;
 
 public class NANOS extends EmuSys implements
 					FDC8272.DriveSelector,
+					MemoryMap.Handler,
+					MemoryMap.WriteListener,
 					Z80CTCListener,
 					Z80PIOPortListener,
 					Z80SIOChannelListener
@@ -92,9 +95,9 @@ public class NANOS extends EmuSys implements
 			"NANOS 2.2 Boot-Diskette",
 			2, 2048, true );
 
-  private static byte[] romEpos   = null;
-  private static byte[] romNanos  = null;
-  private static byte[] fontNanos = null;
+  private static volatile byte[] romEpos   = null;
+  private static volatile byte[] romNanos  = null;
+  private static volatile byte[] fontNanos = null;
 
   private byte[]            fontBytes8x6;
   private byte[]            fontBytes8x8;
@@ -114,6 +117,7 @@ public class NANOS extends EmuSys implements
   private GIDE              gide;
   private FDC8272           fdc;
   private FloppyDiskDrive[] fdDrives;
+  private MemoryMap         memMap;
   private boolean           fdcTC;
   private boolean           tapeInPhase;
   private boolean           altFontSelected;
@@ -163,6 +167,7 @@ public class NANOS extends EmuSys implements
     this.romProp         = null;
     this.ram1000         = new byte[ 0x0400 ];
     this.ram256k         = new byte[ 0x40000 ];
+    this.memMap          = new MemoryMap( this );
     this.fdc             = new FDC8272( this, 4 );
     this.fdDrives        = new FloppyDiskDrive[ 4 ];
     Arrays.fill( this.fdDrives, null );
@@ -260,6 +265,35 @@ public class NANOS extends EmuSys implements
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByte( addr, m1 );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByte( addr, value );
+  }
+
+
+	/* --- MemoryMap.WriteListener --- */
+
+  /*
+   * Die Methode wird bei Schreibzugriffen
+   * auf den Bildwiederholspeicher der Farbgrafikkarte aufgerufen.
+   */
+  @Override
+  public void memMapWritten( MemoryMap memMap, int addr, int value )
+  {
+    setScreenDirty( true );
+  }
+
+
 	/* --- Z80CTCListener --- */
 
   @Override
@@ -408,7 +442,7 @@ public class NANOS extends EmuSys implements
     if( this.keyboardHW == KeyboardHW.PIO00A_HS ) {
       if( this.pasteIter != null ) {
 	this.pasteIter = null;
-	this.screenFrm.firePastingTextFinished();
+	firePastingTextFinished();
       }
     } else {
       super.cancelPastingText();
@@ -639,6 +673,13 @@ public class NANOS extends EmuSys implements
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, this.gide );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -698,6 +739,13 @@ public class NANOS extends EmuSys implements
   }
 
 
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.memMap;
+  }
+
+
   @Override
   protected int getScreenChar( CharRaster chRaster, int chX, int chY )
   {
@@ -931,7 +979,7 @@ public class NANOS extends EmuSys implements
       }
       if( (ch > 0) && (ch < 0x7F) ) {
 	while( !this.pio00.isReadyPortA() ) {
-	  Thread.sleep( 50 );
+	  pasteSleep( 50 );
 	}
 	rv = putKeyChar( ch );
       }
@@ -941,7 +989,7 @@ public class NANOS extends EmuSys implements
       }
       if( (ch > 0) && (ch < 0xFF) ) {
 	while( !this.sio84.isReadyReceiverA() ) {
-	  Thread.sleep( 50 );
+	  pasteSleep( 50 );
 	}
 	rv = putKeyChar( ch );
       }
@@ -1085,6 +1133,13 @@ public class NANOS extends EmuSys implements
   }
 
 
+  @Override
+  public int readMemByte( int addr, boolean m1 )
+  {
+    return this.memMap.read( addr & 0xFFFF, m1 );
+  }
+
+
   @Override
   public void reset( EmuThread.ResetLevel resetLevel, Properties props )
   {
@@ -1147,6 +1202,7 @@ public class NANOS extends EmuSys implements
     this.ram256kMemBaseAddr = 0;
     this.ram256kRFBaseAddr  = 0;
     this.pasteTStates       = 0;
+    updMemPages();
 
     // Initialzustand fuer Tastatur
     this.pio00.putInValuePortA( 0x00, 0xFF );
@@ -1212,7 +1268,7 @@ public class NANOS extends EmuSys implements
       if( !done ) {
 	this.emuThread.setRAMByte( addr, value );
       }
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
       rv = true;
     }
     return rv;
@@ -1247,7 +1303,7 @@ public class NANOS extends EmuSys implements
 	}
       }
       if( !done ) {
-	this.screenFrm.firePastingTextFinished();
+	firePastingTextFinished();
       }
     } else {
       super.startPastingText( text );
@@ -1310,9 +1366,13 @@ public class NANOS extends EmuSys implements
 	  case 1:
 	    {
 	      this.pio00.writeDataB( value );
-	      int outValue = this.pio00.fetchOutValuePortB( false );
-	      this.bootMemEnabled = ((outValue & 0x80) != 0);
-	      this.tapeOutPhase   = ((outValue & 0x40) != 0);
+	      int     outValue       = this.pio00.fetchOutValuePortB( false );
+	      boolean bootMemEnabled = ((outValue & 0x80) != 0);
+	      if( bootMemEnabled != this.bootMemEnabled ) {
+		this.bootMemEnabled = bootMemEnabled;
+		updMemPages();
+	      }
+	      this.tapeOutPhase = ((outValue & 0x40) != 0);
 	    }
 	    break;
 	  case 2:
@@ -1333,18 +1393,23 @@ public class NANOS extends EmuSys implements
 	    this.ram256kMemBaseAddr = ((value << 12) & 0x30000);
 	    this.ram256kRFBaseAddr  = (this.ram256kRFBaseAddr & 0x0FF00)
 					| ((value << 10) & 0x30000);
+	    updMemPages();
 	    break;
 	  case 0xC4:
 	    this.ram256kEnabled = false;
+	    updMemPages();
 	    break;
 	  case 0xC5:
 	    this.ram256kEnabled = true;
+	    updMemPages();
 	    break;
 	  case 0xC6:
 	    this.ram256kReadable = false;
+	    updMemPages();
 	    break;
 	  case 0xC7:
 	    this.ram256kReadable = true;
+	    updMemPages();
 	    break;
 
 	  // PIO 0 auf IO-Karte
@@ -1439,6 +1504,7 @@ public class NANOS extends EmuSys implements
 	  case 0xF2:
 	    if( this.graphicHW == GraphicHW.Poppe_64x32_80x24 ) {
 	      this.colorRamSelected = ((value & 0x01) != 0);
+	      updMemPages();
 	    }
 	    break;
 	}
@@ -1447,6 +1513,13 @@ public class NANOS extends EmuSys implements
   }
 
 
+  @Override
+  public void writeMemByte( int addr, int value )
+  {
+    this.memMap.write( addr & 0xFFFF, value );
+  }
+
+
   @Override
   public void z80MaxSpeedChanged( Z80CPU cpu )
   {
@@ -1684,7 +1757,49 @@ public class NANOS extends EmuSys implements
     boolean oldMode64x32 = this.mode64x32;
     this.mode64x32       = state;
     if( this.mode64x32 != oldMode64x32 ) {
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
+    }
+  }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByte(...)
+   *
+   * Ist die 256K-RAM-Karte aktiv, gehen Schreibzugriffe auf den
+   * Boot-RAM und den Bildwiederholspeicher zusaetzlich in deren RAM.
+   * Diese Bereiche werden deshalb dann nur fuer Lesezugriffe eingetragen.
+   * Die Seite mit dem RAM-Floppy-Fenster ab F700h sowie
+   * der Bereich ab F800h ohne Farbgrafikkarte bleiben beim Handler.
+   */
+  private void updMemPages()
+  {
+    this.memMap.clear();
+    if( this.ram256kEnabled && this.ram256kReadable ) {
+      this.memMap.map(
+		0x0000,
+		0xF400,
+		this.ram256k,
+		this.ram256kMemBaseAddr,
+		true );
+    }
+    if( this.bootMemEnabled ) {
+      this.memMap.map( 0x0000, 0x1000, this.romBytes, 0x0000, false );
+      this.memMap.map(
+		0x1000,
+		0x0400,
+		this.ram1000,
+		0x0000,
+		!this.ram256kEnabled );
+    }
+    if( (this.ramVideoText != null) && (this.ramVideoColor != null) ) {
+      this.memMap.map(
+		0xF800,
+		0x0800,
+		this.colorRamSelected ? this.ramVideoColor : this.ramVideoText,
+		0x0000,
+		!this.ram256kEnabled );
+      this.memMap.setWriteListener( 0xF800, 0x0800, this );
     }
   }
 }
@@ -17,6 +17,7 @@ import jkcemu.base.CharRaster;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
+import jkcemu.base.MemoryMap;
 import jkcemu.base.RAMFloppy;
 import jkcemu.disk.FDC8272;
 import jkcemu.disk.FloppyDiskDrive;
@@ -34,6 +35,8 @@ import z80emu.Z80SIOChannelListener;
 
 public class PCM extends EmuSys implements
 					FDC8272.DriveSelector,
+					MemoryMap.Handler,
+					MemoryMap.WriteListener,
 					Z80CTCListener,
 					Z80SIOChannelListener
 {
@@ -81,12 +84,12 @@ public class PCM extends EmuSys implements
 							disk80x24v331,
 							disk80x24ssrc };
 
-  private static byte[] bdos              = null;
-  private static byte[] romRF64x16        = null;
-  private static byte[] romFDC64x16       = null;
-  private static byte[] romFDC80x24       = null;
-  private static byte[] pcmFontBytes64x16 = null;
-  private static byte[] pcmFontBytes80x24 = null;
+  private static volatile byte[] bdos              = null;
+  private static volatile byte[] romRF64x16        = null;
+  private static volatile byte[] romFDC64x16       = null;
+  private static volatile byte[] romFDC80x24       = null;
+  private static volatile byte[] pcmFontBytes64x16 = null;
+  private static volatile byte[] pcmFontBytes80x24 = null;
 
   private byte[]            bdosBytes;
   private String            bdosFile;
@@ -101,6 +104,7 @@ public class PCM extends EmuSys implements
   private FDC8272           fdc;
   private FloppyDiskDrive   curFDDrive;
   private FloppyDiskDrive[] fdDrives;
+  private MemoryMap         memMap;
   private boolean           fdcTC;
   private boolean           tapeInPhase;
   private boolean           keyboardUsed;
@@ -122,6 +126,7 @@ public class PCM extends EmuSys implements
     this.romBytes   = null;
     this.romFile    = null;
     this.ramVideo   = new byte[ 0x0800 ];
+    this.memMap     = new MemoryMap( this );
     this.fdcTC      = false;
     this.mode80x24  = emulates80x24( props );
     this.curFDDrive = null;
@@ -188,6 +193,35 @@ public class PCM extends EmuSys implements
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByte( addr, m1 );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByte( addr, value );
+  }
+
+
+	/* --- MemoryMap.WriteListener --- */
+
+  /*
+   * Die Methode wird bei Schreibzugriffen
+   * auf den Bildwiederholspeicher aufgerufen.
+   */
+  @Override
+  public void memMapWritten( MemoryMap memMap, int addr, int value )
+  {
+    setScreenDirty( true );
+  }
+
+
 	/* --- Z80CTCListener --- */
 
   @Override
@@ -421,6 +455,13 @@ public class PCM extends EmuSys implements
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, null );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -674,7 +715,7 @@ public class PCM extends EmuSys implements
 	ch = Character.toUpperCase( ch );
       }
       this.pio.putInValuePortA( ch | 0x80, 0xFF );
-      Thread.sleep( 100 );
+      pasteSleep( 100 );
       this.pio.putInValuePortA( 0, 0xFF );
       rv = true;
     }
@@ -753,6 +794,11 @@ public class PCM extends EmuSys implements
   }
 
 
+  /*
+   * Da der NMI nach einer bestimmten Anzahl von M1-Zyklen ausgeloest wird,
+   * wird die MemoryMap nicht mit getMemoryMap() herausgegeben,
+   * sondern nur hier verwendet.
+   */
   @Override
   public int readMemByte( int addr, boolean m1 )
   {
@@ -762,7 +808,7 @@ public class PCM extends EmuSys implements
 	this.emuThread.getZ80CPU().fireNMI();
       }
     }
-    return getMemByte( addr, m1 );
+    return this.memMap.read( addr & 0xFFFF, m1 );
   }
 
 
@@ -815,6 +861,7 @@ public class PCM extends EmuSys implements
     this.upperBank0Enabled = true;
     this.ramBank           = 0;
     this.nmiCounter        = 0;
+    updMemPages();
   }
 
 
@@ -839,7 +886,7 @@ public class PCM extends EmuSys implements
       int idx = addr - 0xF800;
       if( idx < this.ramVideo.length ) {
 	this.ramVideo[ idx ] = (byte) value;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
     } else {
@@ -973,6 +1020,7 @@ public class PCM extends EmuSys implements
 	this.ramBank           = value & 0x03;
 	this.upperBank0Enabled = ((value & 0x40) != 0);
 	this.romEnabled        = ((value & 0x80) == 0);
+	updMemPages();
 	break;
 
       case 0x98:
@@ -1015,6 +1063,13 @@ public class PCM extends EmuSys implements
   }
 
 
+  @Override
+  public void writeMemByte( int addr, int value )
+  {
+    this.memMap.write( addr & 0xFFFF, value );
+  }
+
+
   @Override
   public void z80MaxSpeedChanged( Z80CPU cpu )
   {
@@ -1148,4 +1203,30 @@ public class PCM extends EmuSys implements
     }
     loadFont( props );
   }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByte(...)
+   *
+   * Die RAM-Baenke 1 und 2 liegen in der RAM-Floppy
+   * und bleiben deshalb beim Handler.
+   * Der ROM wird nur fuer Lesezugriffe eingetragen,
+   * da Schreibzugriffe dort ignoriert werden.
+   */
+  private void updMemPages()
+  {
+    this.memMap.clear();
+    byte[] ram = this.emuThread.getRAM();
+    if( this.ramBank == 0 ) {
+      this.memMap.map( 0x0000, 0xF800, ram, 0x0000, true );
+    } else if( this.upperBank0Enabled ) {
+      this.memMap.map( 0xC000, 0x3800, ram, 0xC000, true );
+    }
+    if( this.romEnabled ) {
+      this.memMap.map( 0x0000, this.romSize, this.romBytes, 0x0000, false );
+    }
+    this.memMap.map( 0xF800, 0x0800, this.ramVideo, 0x0000, true );
+    this.memMap.setWriteListener( 0xF800, 0x0800, this );
+  }
 }
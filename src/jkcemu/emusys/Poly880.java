@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -44,8 +44,8 @@ public class Poly880 extends EmuSys implements Z80CTCListener
   private static final int[] key5 = { '0', '2', '3', '1', '8', '9', 'B', 'A' };
   private static final int[] key7 = { '4', '6', '7', '5', 'C', 'D', 'F', 'E' };
 
-  private static byte[] mon0000 = null;
-  private static byte[] mon1000 = null;
+  private static volatile byte[] mon0000 = null;
+  private static volatile byte[] mon1000 = null;
 
   private byte[]             ram;
   private byte[]             rom0Bytes;
@@ -645,7 +645,7 @@ public class Poly880 extends EmuSys implements Z80CTCListener
 	}
       }
       if( dirty ) {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
     }
   }
@@ -687,7 +687,7 @@ public class Poly880 extends EmuSys implements Z80CTCListener
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
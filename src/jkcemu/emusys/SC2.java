@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -31,8 +31,8 @@ public class SC2 extends EmuSys
   public static final String SYSNAME     = "SC2";
   public static final String PROP_PREFIX = "jkcemu.sc2.";
 
-  private static byte[] rom0000 = null;
-  private static byte[] rom2000 = null;
+  private static volatile byte[] rom0000 = null;
+  private static volatile byte[] rom2000 = null;
 
   private byte[]         ram;
   private int[]          digitStatus;
@@ -531,7 +531,7 @@ public class SC2 extends EmuSys
       if( idx < this.ram.length ) {
 	this.ram[ idx ] = (byte) value;
 	if( (idx < 0x78) && ((idx % 16) < 8) ) {
-	  this.screenFrm.setChessboardDirty( true );
+	  setChessboardDirty( true );
 	}
 	rv = true;
       }
@@ -652,7 +652,7 @@ public class SC2 extends EmuSys
 	  }
 	}
 	if( displayDirty || ledDirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	if( ledDirty && (this.keyboardFld != null) ) {
 	  this.keyboardFld.repaint();
@@ -760,7 +760,7 @@ public class SC2 extends EmuSys
       }
     }
     if( displayDirty || ledDirty ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
     if( ledDirty && (this.keyboardFld != null) ) {
       this.keyboardFld.repaint();
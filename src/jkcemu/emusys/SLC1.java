@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -29,7 +29,7 @@ public class SLC1 extends EmuSys implements Z80PCListener
   public static final String SYSNAME     = "SLC1";
   public static final String PROP_PREFIX = "jkcemu.slc1.";
 
-  private static byte[] rom = null;
+  private static volatile byte[] rom = null;
 
   private SLC1KeyboardFld keyboardFld;
   private int[]           keyboardMatrix;
@@ -550,7 +550,7 @@ public class SLC1 extends EmuSys implements Z80PCListener
       if( idx < this.ram.length ) {
 	this.ram[ idx ] = (byte) value;
 	if( this.chessMode && (idx < 0x78) && ((idx % 16) < 8) ) {
-	  this.screenFrm.setChessboardDirty( true );
+	  setChessboardDirty( true );
 	}
 	rv = true;
       }
@@ -635,7 +635,7 @@ public class SLC1 extends EmuSys implements Z80PCListener
       this.ledValue  = ledValue;
     }
     if( dirty ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -677,7 +677,7 @@ public class SLC1 extends EmuSys implements Z80PCListener
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
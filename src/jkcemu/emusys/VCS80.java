@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -35,7 +35,7 @@ public class VCS80 extends EmuSys implements Z80AddressListener
 		{ 'F', 'E', 'D', 'C', 'B', 'A', '9', '8' },
 		{ 'P', 'S', 'T', 'G', 'R', 'M', '-', '+' } };
 
-  private static byte[] mon = null;
+  private static volatile byte[] mon = null;
 
   private VCS80KeyboardFld keyboardFld;
   private int[]            keyboardMatrix;
@@ -424,7 +424,7 @@ public class VCS80 extends EmuSys implements Z80AddressListener
 	    }
 	  }
 	  if ( dirty ) {
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 
 	  // Spaltenzaehler inkrementieren
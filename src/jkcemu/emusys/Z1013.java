@@ -8,11 +8,13 @@
 
 package jkcemu.emusys;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.base.AbstractKeyboardFld;
 import jkcemu.base.CharRaster;
 import jkcemu.base.EmuMemView;
@@ -20,9 +22,12 @@ import jkcemu.base.EmuSys;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.EmuThread;
 import jkcemu.base.FileFormat;
+import jkcemu.base.MemoryMap;
 import jkcemu.base.OptionDlg;
 import jkcemu.base.RAMFloppy;
 import jkcemu.base.SaveDlg;
+import jkcemu.base.SnapshotReader;
+import jkcemu.base.SnapshotWriter;
 import jkcemu.base.SourceUtil;
 import jkcemu.disk.FDC8272;
 import jkcemu.disk.FloppyDiskDrive;
@@ -52,6 +57,8 @@ import z80emu.Z80PIO;
 
 public class Z1013 extends EmuSys implements
 					FDC8272.DriveSelector,
+					MemoryMap.Handler,
+					MemoryMap.WriteListener,
 					Z80AddressListener,
 					Z80PCListener
 {
@@ -119,6 +126,11 @@ public class Z1013 extends EmuSys implements
     "PAPER",     "AT",       "HSAVE",   "HLOAD",	// 0xE0
     "PSET",      "PRES" };
 
+  private static final String SNAPSHOT_CHUNK_SYS = "z1013";
+  private static final String SNAPSHOT_CHUNK_PIO = "z1013.pio";
+  private static final String SNAPSHOT_CHUNK_FDC = "z1013.fdc";
+  private static final int    SNAPSHOT_VERSION   = 1;
+
   private static final String[] sysCallNames = {
 			"OUTCH", "INCH",  "PRST7", "INHEX",
 			"INKEY", "INLIN", "OUTHX", "OUTHL",
@@ -166,16 +178,16 @@ public class Z1013 extends EmuSys implements
 			CENTR7_PRACTIC_2_1989,
 			CENTR8_FA_10_1990 };
 
-  private static byte[] mon202         = null;
-  private static byte[] monA2          = null;
-  private static byte[] monRB_K7659    = null;
-  private static byte[] monRB_S6009    = null;
-  private static byte[] monINCOM_K7669 = null;
-  private static byte[] monJM_1992     = null;
-  private static byte[] bl4_K7659      = null;
-  private static byte[] modBasic       = null;
-  private static byte[] fontStd        = null;
-  private static byte[] fontAlt        = null;
+  private static volatile byte[] mon202         = null;
+  private static volatile byte[] monA2          = null;
+  private static volatile byte[] monRB_K7659    = null;
+  private static volatile byte[] monRB_S6009    = null;
+  private static volatile byte[] monINCOM_K7669 = null;
+  private static volatile byte[] monJM_1992     = null;
+  private static volatile byte[] bl4_K7659      = null;
+  private static volatile byte[] modBasic       = null;
+  private static volatile byte[] fontStd        = null;
+  private static volatile byte[] fontAlt        = null;
 
   private Z80PIO              pio;
   private GIDE                gide;
@@ -186,6 +198,7 @@ public class Z1013 extends EmuSys implements
   private AbstractKeyboardFld keyboardFld;
   private KCNet               kcNet;
   private VDIP                vdip;
+  private MemoryMap           memMap;
   private RAMFloppy           ramFloppy1;
   private RAMFloppy           ramFloppy2;
   private int                 ramPixelBank;
@@ -254,6 +267,7 @@ public class Z1013 extends EmuSys implements
     this.ramPixelBank      = 0;
     this.ramEndAddr        = getRAMEndAddr( props );
     this.ramVideo          = new byte[ 0x0400 ];
+    this.memMap            = new MemoryMap( this );
     this.ramStatic         = null;
     if( this.ramEndAddr == 0x03FF ) {
       this.ramStatic = new byte[ 0x0400 ];
@@ -343,8 +357,7 @@ public class Z1013 extends EmuSys implements
     catch( ArrayStoreException ex ) {}
 
     this.keyboardFld = null;
-    this.keyboard    = new Z1013Keyboard( this.pio );
-    this.keyboard.applySettings( props );
+    this.keyboard    = new Z1013Keyboard( this.pio, props );
 
     if( this.vdip != null ) {
       this.vdip.applySettings( props );
@@ -402,6 +415,37 @@ public class Z1013 extends EmuSys implements
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByte( addr, m1 );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByte( addr, value );
+    updGraphCCJActive( addr );
+  }
+
+
+	/* --- MemoryMap.WriteListener --- */
+
+  /*
+   * Die Methode wird bei Schreibzugriffen
+   * auf den Bildwiederholspeicher aufgerufen.
+   */
+  @Override
+  public void memMapWritten( MemoryMap memMap, int addr, int value )
+  {
+    setScreenDirty( true );
+    updGraphCCJActive( addr );
+  }
+
+
 	/* --- Z80AddressListener --- */
 
   @Override
@@ -866,6 +910,13 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, this.gide );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -952,6 +1003,13 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.memMap;
+  }
+
+
   @Override
   public int getResetStartAddress( EmuThread.ResetLevel resetLevel )
   {
@@ -1130,6 +1188,50 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  /*
+   * Die Grafikkarte CC-Jena, GIDE, KCNet und USB
+   * sind nicht Bestandteil des Snapshots
+   * und befinden sich nach dem Laden im Grundzustand.
+   */
+  @Override
+  public void loadSnapshot( SnapshotReader reader ) throws IOException
+  {
+    DataInputStream in = reader.getRequiredChunk(
+					SNAPSHOT_CHUNK_SYS,
+					SNAPSHOT_VERSION );
+    this.romDisabled       = in.readBoolean();
+    this.altFontEnabled    = in.readBoolean();
+    this.mode64x16         = in.readBoolean();
+    this.modeGraph         = in.readBoolean();
+    boolean mode4MHz       = in.readBoolean();
+    this.ramPixelBank      = in.readUnsignedByte();
+    this.romMegaSeg        = in.readUnsignedByte();
+    this.centrTStatesToAck = in.readInt();
+    int selectedCol        = in.readUnsignedByte();
+    SnapshotReader.readBytes( in, this.ramVideo );
+    SnapshotReader.readBytes( in, this.ramStatic );
+    SnapshotReader.readBytes( in, this.ramPixel );
+    this.pio.loadState(
+		reader.getRequiredChunk( SNAPSHOT_CHUNK_PIO, SNAPSHOT_VERSION ) );
+    if( this.fdc != null ) {
+      in = reader.getChunk( SNAPSHOT_CHUNK_FDC, SNAPSHOT_VERSION );
+      if( in != null ) {
+	this.fdc.loadState( in );
+      }
+    }
+    this.keyboard.setSelectedCol( selectedCol );
+    updMemPages();
+    if( mode4MHz ) {
+      Z80CPU cpu = this.emuThread.getZ80CPU();
+      if( cpu.getMaxSpeedKHz() == 2000 ) {
+	cpu.setMaxSpeedKHz( 4000 );
+	this.mode4MHz = true;
+      }
+    }
+    setScreenDirty( true );
+  }
+
+
   @Override
   public void openBasicProgram()
   {
@@ -1207,7 +1309,7 @@ public class Z1013 extends EmuSys implements
 	  ch = '\r';
 	}
 	while( this.charToPaste != 0 ) {
-	  Thread.sleep( 10 );
+	  pasteSleep( 10 );
 	}
 	this.charToPaste = ch;
 	rv = true;
@@ -1330,12 +1432,14 @@ public class Z1013 extends EmuSys implements
 
 	case 0x0C:				// IOSEL3 -> Vollgrafik ein
 	  this.modeGraph = true;
-	  this.screenFrm.setScreenDirty( true );
+	  updVideoPage();
+	  setScreenDirty( true );
 	  break;
 
 	case 0x10:				// IOSEL3 -> Vollgrafik aus
 	  this.modeGraph = false;
-	  this.screenFrm.setScreenDirty( true );
+	  updVideoPage();
+	  setScreenDirty( true );
 	  break;
       }
     }
@@ -1344,6 +1448,18 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  /*
+   * Lese- und Schreibzugriffe der CPU laufen ueber die Seitentabellen,
+   * alle anderen Zugriffe werden weiterhin
+   * in get/setMemByte(...) dekodiert.
+   */
+  @Override
+  public int readMemByte( int addr, boolean m1 )
+  {
+    return this.memMap.read( addr & 0xFFFF, m1 );
+  }
+
+
   @Override
   public int reassembleSysCall(
 			Z80MemView    memory,
@@ -1433,10 +1549,10 @@ public class Z1013 extends EmuSys implements
     if( this.mode64x16 || this.graphCCJActive ) {
       this.graphCCJActive = false;
       this.mode64x16      = false;
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     if( this.mode4MHz ) {
-      this.emuThread.updCPUSpeed( Main.getProperties() );
+      this.emuThread.updCPUSpeed( props );
       this.mode4MHz = false;
     }
     if( resetLevel == EmuThread.ResetLevel.POWER_ON ) {
@@ -1479,6 +1595,7 @@ public class Z1013 extends EmuSys implements
     if( this.userPort == UserPort.CENTR7_PRACTIC_2_1989 ) {
       this.pio.putInValuePortA( 0, 0x80 );
     }
+    updMemPages();
   }
 
 
@@ -1567,6 +1684,36 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  @Override
+  public void saveSnapshot( SnapshotWriter writer ) throws IOException
+  {
+    if( this.fdc != null ) {
+      this.fdc.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_FDC, SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+    DataOutputStream out = writer.beginChunk(
+					SNAPSHOT_CHUNK_SYS,
+					SNAPSHOT_VERSION );
+    out.writeBoolean( this.romDisabled );
+    out.writeBoolean( this.altFontEnabled );
+    out.writeBoolean( this.mode64x16 );
+    out.writeBoolean( this.modeGraph );
+    out.writeBoolean( this.mode4MHz );
+    out.writeByte( this.ramPixelBank );
+    out.writeByte( this.romMegaSeg );
+    out.writeInt( this.centrTStatesToAck );
+    out.writeByte( this.keyboard.getSelectedCol() );
+    SnapshotWriter.writeBytes( out, this.ramVideo );
+    SnapshotWriter.writeBytes( out, this.ramStatic );
+    SnapshotWriter.writeBytes( out, this.ramPixel );
+    writer.endChunk();
+    this.pio.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_PIO, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+  }
+
+
   @Override
   public void setJoystickAction( int joyNum, int actionMask )
   {
@@ -1629,7 +1776,7 @@ public class Z1013 extends EmuSys implements
 	int idx = addr - 0xEC00;
 	if( (idx >= 0) && (idx < ram.length) ) {
 	  ram[ idx ] = (byte) value;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  rv = true;
 	}
       }
@@ -1745,6 +1892,13 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  @Override
+  public boolean supportsSnapshot()
+  {
+    return true;
+  }
+
+
   @Override
   public boolean supportsTapeIn()
   {
@@ -1783,7 +1937,11 @@ public class Z1013 extends EmuSys implements
       boolean oldAltFontEnabled = this.altFontEnabled;
       boolean oldMode64x16      = this.mode64x16;
 
-      this.romDisabled    = ((value & 0x10) != 0);
+      boolean romDisabled = ((value & 0x10) != 0);
+      if( romDisabled != this.romDisabled ) {
+	this.romDisabled = romDisabled;
+	updMemPages();
+      }
       this.altFontEnabled = ((value & 0x20) != 0);
       this.mode64x16      = ((value & 0x80) != 0);
 
@@ -1803,11 +1961,11 @@ public class Z1013 extends EmuSys implements
       if( (this.altFontEnabled != oldAltFontEnabled)
 	  || (this.mode64x16 != oldMode64x16) )
       {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
       if( this.mode64x16 != oldMode64x16 ) {
-	this.screenFrm.clearScreenSelection();
-	this.screenFrm.fireScreenSizeChanged();
+	clearScreenSelection();
+	fireScreenSizeChanged();
       }
     }
     else if( (port == 0x18) && (this.graphCCJ != null) ) {
@@ -1817,7 +1975,7 @@ public class Z1013 extends EmuSys implements
       this.graphCCJ.writeCmd( value );
       if( !this.graphCCJActive ) {
 	this.graphCCJActive = true;
-	this.screenFrm.fireScreenSizeChanged();
+	fireScreenSizeChanged();
       }
     }
     if( (this.gide != null)
@@ -1869,6 +2027,7 @@ public class Z1013 extends EmuSys implements
 	  if( this.romMega != null ) {
 	    if( port == 0xFF ) {
 	      this.romMegaSeg = value;
+	      updMemPages();
 	    }
 	  } else {
 	    if( this.vdip != null ) {
@@ -1934,27 +2093,30 @@ public class Z1013 extends EmuSys implements
 	    value &= 0x0F;
 	    if( value == 8 ) {
 	      this.modeGraph = true;
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    else if( value == 9 ) {
 	      this.modeGraph = false;
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    this.ramPixelBank = (value & 0x07);
+	    updVideoPage();
 	  }
 	  break;
 
 	case 0x0C:				// IOSEL3
 	  if( this.ramPixel != null ) {
 	    this.modeGraph = true;
-	    this.screenFrm.setScreenDirty( true );
+	    updVideoPage();
+	    setScreenDirty( true );
 	  }
 	  break;
 
 	case 0x10:				// IOSEL4
 	  if( this.ramPixel != null ) {
 	    this.modeGraph = false;
-	    this.screenFrm.setScreenDirty( true );
+	    updVideoPage();
+	    setScreenDirty( true );
 	  }
 	  break;
       }
@@ -1966,30 +2128,7 @@ public class Z1013 extends EmuSys implements
   @Override
   public void writeMemByte( int addr, int value )
   {
-    addr &= 0xFFFF;
-    setMemByte( addr, value );
-    /*
-     * Wenn die zusaetztliche Grafikkarte aktiv ist
-     * und der Adressbereich EC00-EFFF der Reihe nach beschrieben wird,
-     * wird davon ausgegangen, dass wieder die Standardbildschirmausgabe
-     * aktiv sein soll.
-     * In dem Fall wird deshalb wieder zurueckgeschaltet.
-     */
-    if( (addr >= 0xEC00) && (addr < 0xF000) && this.graphCCJActive ) {
-      if( (addr == 0xEC00)
-	  || ((addr > 0xEC00) && (addr < 0xEFFF)
-	      && (addr == (this.lastWrittenAddr + 1))) )
-      {
-	this.lastWrittenAddr = addr;
-      } else if( (addr == 0xEFFF)
-		 && (addr == (this.lastWrittenAddr + 1)) )
-      {
-	this.graphCCJActive = false;
-	this.screenFrm.fireScreenSizeChanged();
-      } else {
-	this.lastWrittenAddr = -1;
-      }
-    }
+    this.memMap.write( addr & 0xFFFF, value );
   }
 
 
@@ -2444,6 +2583,33 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  /*
+   * Wenn die zusaetztliche Grafikkarte aktiv ist
+   * und der Adressbereich EC00-EFFF der Reihe nach beschrieben wird,
+   * wird davon ausgegangen, dass wieder die Standardbildschirmausgabe
+   * aktiv sein soll.
+   * In dem Fall wird deshalb wieder zurueckgeschaltet.
+   */
+  private void updGraphCCJActive( int addr )
+  {
+    if( (addr >= 0xEC00) && (addr < 0xF000) && this.graphCCJActive ) {
+      if( (addr == 0xEC00)
+	  || ((addr > 0xEC00) && (addr < 0xEFFF)
+	      && (addr == (this.lastWrittenAddr + 1))) )
+      {
+	this.lastWrittenAddr = addr;
+      } else if( (addr == 0xEFFF)
+		 && (addr == (this.lastWrittenAddr + 1)) )
+      {
+	this.graphCCJActive = false;
+	fireScreenSizeChanged();
+      } else {
+	this.lastWrittenAddr = -1;
+      }
+    }
+  }
+
+
   private void updKeyboardFld()
   {
     if( this.keyboardFld != null ) {
@@ -2453,4 +2619,59 @@ public class Z1013 extends EmuSys implements
       }
     }
   }
+
+
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByte(...)
+   *
+   * Die ROM-Bereiche werden nur fuer Lesezugriffe eingetragen,
+   * da Schreibzugriffe dort in den darunter liegenden RAM gehen.
+   */
+  private void updMemPages()
+  {
+    this.memMap.clear();
+    if( this.ramStatic != null ) {
+      this.memMap.map( 0x0000, 0x0400, this.ramStatic, 0x0000, true );
+    } else {
+      this.memMap.map(
+		0x0000,
+		this.ramEndAddr + 1,
+		this.emuThread.getRAM(),
+		0x0000,
+		true );
+    }
+    if( this.romBasic != null ) {
+      this.memMap.map( 0xC000, 0x2C00, this.romBasic, 0x0000, false );
+    } else if( this.romMega != null ) {
+      for( int i = 0; i < 5; i++ ) {
+	this.memMap.map(
+		0xC000 + (i * 0x0800),
+		0x0800,
+		this.romMega,
+		((i * 256) + this.romMegaSeg) * 2048,
+		false );
+      }
+    }
+    updVideoPage();
+    if( !this.romDisabled && (this.osBytes != null) ) {
+      this.memMap.map( 0xF000, 0x1000, this.osBytes, 0x0000, false );
+    }
+  }
+
+
+  private void updVideoPage()
+  {
+    byte[] ram = this.ramVideo;
+    if( (this.ramPixel != null) && this.modeGraph ) {
+      ram = null;
+      if( (this.ramPixelBank >= 0)
+	  && (this.ramPixelBank < this.ramPixel.length) )
+      {
+	ram = this.ramPixel[ this.ramPixelBank ];
+      }
+    }
+    this.memMap.map( 0xEC00, 0x0400, ram, 0x0000, true );
+    this.memMap.setWriteListener( 0xEC00, 0x0400, this );
+  }
 }
@@ -12,6 +12,9 @@ import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.*;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,7 +25,10 @@ import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.FileFormat;
+import jkcemu.base.MemoryMap;
 import jkcemu.base.RAMFloppy;
+import jkcemu.base.SnapshotReader;
+import jkcemu.base.SnapshotWriter;
 import jkcemu.base.SourceUtil;
 import jkcemu.disk.FDC8272;
 import jkcemu.disk.FloppyDiskDrive;
@@ -45,14 +51,18 @@ import z80emu.Z80PCListener;
 import z80emu.Z80PIO;
 import z80emu.Z80SIO;
 import z80emu.Z80SIOChannelListener;
+import z80emu.Z80TStatesListenerAdapter;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class Z9001 extends EmuSys implements
 					ActionListener,
 					FDC8272.DriveSelector,
+					MemoryMap.Handler,
 					Z80CTCListener,
 					Z80PCListener,
-					Z80SIOChannelListener
+					Z80SIOChannelListener,
+					Z80TStatesSkipListener
 {
   public static final String SYSNAME_KC85_1 = "KC85_1";
   public static final String SYSNAME_KC87   = "KC87";
@@ -120,6 +130,15 @@ public class Z9001 extends EmuSys implements
     "GCLS",      "SCALE",    "SCREEN",  "POINT",
     "XPOS",      "!",        "YPOS" };			// 0xF0
 
+  private static final String SNAPSHOT_CHUNK_SYS    = "z9001";
+  private static final String SNAPSHOT_CHUNK_CTC80  = "z9001.ctc80";
+  private static final String SNAPSHOT_CHUNK_PIO88  = "z9001.pio88";
+  private static final String SNAPSHOT_CHUNK_PIO90  = "z9001.pio90";
+  private static final String SNAPSHOT_CHUNK_CTC_A8 = "z9001.ctcA8";
+  private static final String SNAPSHOT_CHUNK_SIO_B0 = "z9001.sioB0";
+  private static final String SNAPSHOT_CHUNK_FDC    = "z9001.fdc";
+  private static final int    SNAPSHOT_VERSION      = 1;
+
   private static final String[] biosCallNames = {
 			"INIT",  "WBOOT", "CONST", "CONIN",
 			"COOUT", "LIST",  "PUNCH", "READER",
@@ -201,15 +220,15 @@ public class Z9001 extends EmuSys implements
 			"Z9001 CP/A Systemdiskette",
 			0, 2048, true ) };
 
-  private static byte[] os11            = null;
-  private static byte[] os12            = null;
-  private static byte[] os13            = null;
-  private static byte[] basic86         = null;
-  private static byte[] bootROMBytes    = null;
-  private static byte[] megaROMBytes    = null;
-  private static byte[] printerModBytes = null;
-  private static byte[] kc87FontBytes   = null;
-  private static byte[] z9001FontBytes  = null;
+  private static volatile byte[] os11            = null;
+  private static volatile byte[] os12            = null;
+  private static volatile byte[] os13            = null;
+  private static volatile byte[] basic86         = null;
+  private static volatile byte[] bootROMBytes    = null;
+  private static volatile byte[] megaROMBytes    = null;
+  private static volatile byte[] printerModBytes = null;
+  private static volatile byte[] kc87FontBytes   = null;
+  private static volatile byte[] z9001FontBytes  = null;
 
   private byte[]            fontBytes;
   private byte[]            romOS;
@@ -291,6 +310,9 @@ public class Z9001 extends EmuSys implements
   private javax.swing.Timer blinkTimer;
   private Color[]           colors;
   private FloppyDiskDrive[] floppyDiskDrives;
+  private MemoryMap         memMap;
+
+  private Z80TStatesListenerAdapter tStatesAdapter;
 
 
   public Z9001( EmuThread emuThread, Properties props )
@@ -312,6 +334,7 @@ public class Z9001 extends EmuSys implements
     this.ram64k        = false;
     this.graphicLED    = false;
     this.keyboardFld   = null;
+    this.memMap        = new MemoryMap( this );
 
     this.sysName = EmuUtil.getProperty( props, EmuThread.PROP_SYSNAME );
     switch( this.sysName ) {
@@ -445,7 +468,8 @@ public class Z9001 extends EmuSys implements
       this.ctcA8.addCTCListener( this );
     }
     cpu.addMaxSpeedListener( this );
-    cpu.addTStatesListener( this );
+    this.tStatesAdapter = new Z80TStatesListenerAdapter( this, 1000 );
+    this.tStatesAdapter.install( cpu );
     checkAddPCListener( props );
 
     this.ramPixel  = null;
@@ -550,7 +574,7 @@ public class Z9001 extends EmuSys implements
 	&& !this.emuThread.getZ80CPU().isPause() )
     {
       this.colorSwap = !this.colorSwap;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -570,6 +594,48 @@ public class Z9001 extends EmuSys implements
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByteInternal( addr, true );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    if( this.ramFont != null ) {
+      switch( addr ) {
+	case 0xEBFC:
+	  this.ramFontActive  = false;
+	  this.ramFontEnabled = true;
+	  setScreenDirty( true );
+	  break;
+	case 0xEBFE:
+	  this.ramFontActive  = true;
+	  this.ramFontEnabled = false;
+	  setScreenDirty( true );
+	  break;
+	case 0xEBFF:
+	  this.ramFontActive  = false;
+	  this.ramFontEnabled = false;
+	  setScreenDirty( true );
+	  break;
+      }
+    }
+    if( addr >= 0xF800 ) {
+      boolean romModuleEnabled = ((addr & 0x0400) == 0);
+      if( romModuleEnabled != this.romModuleEnabled ) {
+	this.romModuleEnabled = romModuleEnabled;
+	updMemPages();
+      }
+    }
+    setMemByteInternal( addr, value, true );
+  }
+
+
 	/* --- Z80CTCListener --- */
 
   @Override
@@ -614,6 +680,40 @@ public class Z9001 extends EmuSys implements
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Die Zeilenzaehlung wird fuer die Wartezyklen beim Zugriff
+   * auf den Bildwiederholspeicher benoetigt.
+   * Der Kassetteneingang wird nach jedem Befehl abgefragt.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    long rv = Math.min(
+			getTStatesToNextOutPhase(),
+			this.ctc80.getTStatesToNextEvent() );
+    if( this.ctcA8 != null ) {
+      rv = Math.min( rv, this.ctcA8.getTStatesToNextEvent() );
+    }
+    if( this.fdc != null ) {
+      rv = Math.min( rv, this.fdc.getTStatesToNextEvent() );
+    }
+    if( this.kcNet != null ) {
+      rv = Math.min( rv, this.kcNet.getTStatesToNextEvent() );
+    }
+    if( (this.tStatesPerLine > 0) && (this.tStatesVisible > 0) ) {
+      rv = Math.min(
+		rv,
+		Math.max( this.tStatesPerLine - this.lineTStates, 1 ) );
+    }
+    if( this.emuThread.isTapeInActive() ) {
+      rv = 1;
+    }
+    return (int) rv;
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -720,7 +820,7 @@ public class Z9001 extends EmuSys implements
     boolean state = isFixedScreenSize( props );
     if( state != this.fixedScreenSize ) {
       this.fixedScreenSize = state;
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     checkAddPCListener( props );
     createColors( props );
@@ -898,7 +998,7 @@ public class Z9001 extends EmuSys implements
 
     Z80CPU cpu = this.emuThread.getZ80CPU();
     cpu.removeMaxSpeedListener( this );
-    cpu.removeTStatesListener( this );
+    this.tStatesAdapter.uninstall( cpu );
     cpu.setInterruptSources( (Z80InterruptSource[]) null );
     if( this.pcListenerAdded ) {
       cpu.removePCListener( this );
@@ -962,7 +1062,7 @@ public class Z9001 extends EmuSys implements
   public int getColorIndex( int x, int y )
   {
     int rv = 0;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       y /= 2;
     }
     if( this.graphMode
@@ -970,7 +1070,7 @@ public class Z9001 extends EmuSys implements
 	&& (this.ramPixel != null) )
     {
       boolean done = false;
-      if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+      if( this.fixedScreenSize || isFullScreenMode() ) {
 	x /= 2;
       }
       x -= 32;		// Grafikausgabe ueber Alpha-Ausgabe zentrieren
@@ -1001,7 +1101,7 @@ public class Z9001 extends EmuSys implements
 	}
 	col /= 2;
       } else {
-	if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+	if( this.fixedScreenSize || isFullScreenMode() ) {
 	  x   /= 2;
 	  col /= 2;
 	}
@@ -1096,7 +1196,7 @@ public class Z9001 extends EmuSys implements
       int rowHeight  = (this.mode20Rows ? 9 : 8);
       int charHeight = 8;
       int charWidth  = 8;
-      if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+      if( this.fixedScreenSize || isFullScreenMode() ) {
 	charHeight *= 2;
 	rowHeight *= 2;
 	if( !this.c80Active ) {
@@ -1142,6 +1242,20 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  @Override
+  public int getDefaultPromptAfterResetMillisMax()
+  {
+    return DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX;
+  }
+
+
+  @Override
+  public long getDiskActivityMillis()
+  {
+    return getDiskActivityMillis( this.fdc, this.gide );
+  }
+
+
   @Override
   public String getHelpPage()
   {
@@ -1156,6 +1270,13 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.memMap;
+  }
+
+
   @Override
   public Plotter getPlotter()
   {
@@ -1227,7 +1348,7 @@ public class Z9001 extends EmuSys implements
   public int getScreenHeight()
   {
     int rv = 192;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       rv *= 2;
     }
     return rv;
@@ -1238,7 +1359,7 @@ public class Z9001 extends EmuSys implements
   public int getScreenWidth()
   {
     int rv = 320;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode()
+    if( this.fixedScreenSize || isFullScreenMode()
 	|| (this.c80Active && !this.graphMode) )
     {
       rv *= 2;
@@ -1478,6 +1599,76 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  /*
+   * Plotter, GIDE, KCNet und USB sind nicht Bestandteil des Snapshots
+   * und befinden sich nach dem Laden im Grundzustand.
+   */
+  @Override
+  public void loadSnapshot( SnapshotReader reader ) throws IOException
+  {
+    DataInputStream in = reader.getRequiredChunk(
+					SNAPSHOT_CHUNK_SYS,
+					SNAPSHOT_VERSION );
+    this.megaROMSeg        = in.readUnsignedByte();
+    this.fontOffs          = in.readInt();
+    this.graphBank         = in.readUnsignedByte();
+    this.graphAddrL        = in.readUnsignedByte();
+    this.graphBgColor      = in.readUnsignedByte();
+    this.graphFgColor      = in.readUnsignedByte();
+    this.graphBorder       = in.readBoolean();
+    this.graphMode         = in.readBoolean();
+    boolean graphicLED     = in.readBoolean();
+    boolean c80Active      = in.readBoolean();
+    this.c80MemSwap        = in.readBoolean();
+    this.mode20Rows        = in.readBoolean();
+    this.borderColorIdx    = in.readUnsignedByte();
+    this.fdcReset          = in.readBoolean();
+    this.fdcTC             = in.readBoolean();
+    this.rf1ReadOnly       = in.readBoolean();
+    this.rf2ReadOnly       = in.readBoolean();
+    this.ram4000ExtEnabled = in.readBoolean();
+    this.ramC000Enabled    = in.readBoolean();
+    this.ramFontActive     = in.readBoolean();
+    this.ramFontEnabled    = in.readBoolean();
+    this.romModuleEnabled  = in.readBoolean();
+    this.lineNum           = in.readInt();
+    this.lineTStates       = in.readInt();
+    SnapshotReader.readBytes( in, this.ramFont );
+    SnapshotReader.readBytes( in, this.ramColor );
+    SnapshotReader.readBytes( in, this.ramColor2 );
+    SnapshotReader.readBytes( in, this.ramVideo );
+    SnapshotReader.readBytes( in, this.ramVideo2 );
+    SnapshotReader.readBytes( in, this.ramPixel );
+    SnapshotReader.readBytes( in, this.ramExt );
+
+    this.ctc80.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_CTC80, SNAPSHOT_VERSION ) );
+    this.pio88.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_PIO88, SNAPSHOT_VERSION ) );
+    this.pio90.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_PIO90, SNAPSHOT_VERSION ) );
+    if( this.ctcA8 != null ) {
+      this.ctcA8.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_CTC_A8, SNAPSHOT_VERSION ) );
+    }
+    if( this.sioB0 != null ) {
+      this.sioB0.loadState(
+	reader.getRequiredChunk( SNAPSHOT_CHUNK_SIO_B0, SNAPSHOT_VERSION ) );
+    }
+    if( this.fdc != null ) {
+      in = reader.getChunk( SNAPSHOT_CHUNK_FDC, SNAPSHOT_VERSION );
+      if( in != null ) {
+	this.fdc.loadState( in );
+      }
+    }
+    setGraphicLED( graphicLED );
+    upd80CharsMode( c80Active );
+    updMemPages();
+    setScreenDirty( true );
+    fireUpdScreenTextActionsEnabled();
+  }
+
+
   @Override
   public void openBasicProgram()
   {
@@ -1498,7 +1689,7 @@ public class Z9001 extends EmuSys implements
 	  ch = '\r';
 	}
 	while( getMemByte( 0x0025, false ) != 0 ) {
-	  Thread.sleep( 10 );
+	  pasteSleep( 10 );
 	}
 	setMemByte( 0x0024, ch );
 	setMemByte( 0x0025, ch );
@@ -1518,21 +1709,25 @@ public class Z9001 extends EmuSys implements
     switch( port & 0xFF ) {
       case 4:
 	this.ram4000ExtEnabled = false;
+	updMemPages();
 	break;
 
       case 5:
 	if( this.ramExt != null ) {
 	  this.ram4000ExtEnabled = true;
+	  updMemPages();
 	}
 	break;
 
       case 6:
 	this.ramC000Enabled = false;
+	updMemPages();
 	break;
 
       case 7:
 	if( this.ramExt != null ) {
 	  this.ramC000Enabled = true;
+	  updMemPages();
 	}
 	break;
 
@@ -1730,10 +1925,16 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  /*
+   * Lese- und Schreibzugriffe der CPU laufen ueber die Seitentabellen.
+   * Der Bildwiederhol-, Farb- und Zeichensatzspeicher
+   * ab E800h bleibt wegen der Wartezyklen und der Steueradressen
+   * immer beim Handler.
+   */
   @Override
   public int readMemByte( int addr, boolean m1 )
   {
-    return getMemByteInternal( addr, true );
+    return this.memMap.read( addr & 0xFFFF, m1 );
   }
 
 
@@ -1859,7 +2060,8 @@ public class Z9001 extends EmuSys implements
     setGraphicLED( false );
     upd80CharsMode( false );
     updScreenConfig( 0 );
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    updMemPages();
+    fireUpdScreenTextActionsEnabled();
   }
 
 
@@ -1872,6 +2074,72 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  @Override
+  public void saveSnapshot( SnapshotWriter writer ) throws IOException
+  {
+    if( this.fdc != null ) {
+      this.fdc.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_FDC, SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+    DataOutputStream out = writer.beginChunk(
+					SNAPSHOT_CHUNK_SYS,
+					SNAPSHOT_VERSION );
+    out.writeByte( this.megaROMSeg );
+    out.writeInt( this.fontOffs );
+    out.writeByte( this.graphBank );
+    out.writeByte( this.graphAddrL );
+    out.writeByte( this.graphBgColor );
+    out.writeByte( this.graphFgColor );
+    out.writeBoolean( this.graphBorder );
+    out.writeBoolean( this.graphMode );
+    out.writeBoolean( this.graphicLED );
+    out.writeBoolean( this.c80Active );
+    out.writeBoolean( this.c80MemSwap );
+    out.writeBoolean( this.mode20Rows );
+    out.writeByte( this.borderColorIdx );
+    out.writeBoolean( this.fdcReset );
+    out.writeBoolean( this.fdcTC );
+    out.writeBoolean( this.rf1ReadOnly );
+    out.writeBoolean( this.rf2ReadOnly );
+    out.writeBoolean( this.ram4000ExtEnabled );
+    out.writeBoolean( this.ramC000Enabled );
+    out.writeBoolean( this.ramFontActive );
+    out.writeBoolean( this.ramFontEnabled );
+    out.writeBoolean( this.romModuleEnabled );
+    out.writeInt( this.lineNum );
+    out.writeInt( this.lineTStates );
+    SnapshotWriter.writeBytes( out, this.ramFont );
+    SnapshotWriter.writeBytes( out, this.ramColor );
+    SnapshotWriter.writeBytes( out, this.ramColor2 );
+    SnapshotWriter.writeBytes( out, this.ramVideo );
+    SnapshotWriter.writeBytes( out, this.ramVideo2 );
+    SnapshotWriter.writeBytes( out, this.ramPixel );
+    SnapshotWriter.writeBytes( out, this.ramExt );
+    writer.endChunk();
+
+    this.ctc80.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_CTC80, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+    this.pio88.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_PIO88, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+    this.pio90.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_PIO90, SNAPSHOT_VERSION ) );
+    writer.endChunk();
+    if( this.ctcA8 != null ) {
+      this.ctcA8.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_CTC_A8, SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+    if( this.sioB0 != null ) {
+      this.sioB0.saveState(
+		writer.beginChunk( SNAPSHOT_CHUNK_SIO_B0, SNAPSHOT_VERSION ) );
+      writer.endChunk();
+    }
+  }
+
+
   @Override
   public void setFloppyDiskDrive( int idx, FloppyDiskDrive drive )
   {
@@ -1966,6 +2234,13 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  @Override
+  public boolean supportsSnapshot()
+  {
+    return true;
+  }
+
+
   @Override
   public boolean supportsSoundOutMono()
   {
@@ -2009,21 +2284,25 @@ public class Z9001 extends EmuSys implements
     switch( port & 0xFF ) {
       case 4:
 	this.ram4000ExtEnabled = false;
+	updMemPages();
 	break;
 
       case 5:
 	if( this.ramExt != null ) {
 	  this.ram4000ExtEnabled = true;
+	  updMemPages();
 	}
 	break;
 
       case 6:
 	this.ramC000Enabled = false;
+	updMemPages();
 	break;
 
       case 7:
 	if( this.ramExt != null ) {
 	  this.ramC000Enabled = true;
+	  updMemPages();
 	}
 	break;
 
@@ -2232,15 +2511,15 @@ public class Z9001 extends EmuSys implements
 	    this.graphFgColor = (value >> 4) & 0x07;
 	    this.graphBorder  = ((value & 0x80) != 0);
 	    graphMode         = ((value & 0x08) != 0);
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  } else if( this.graphType == GRAPHIC_KRT ) {
 	    this.graphBank = value & 0x07;
 	    graphMode      = ((value & 0x08) != 0);
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  if( graphMode != this.graphMode ) {
 	    this.graphMode = graphMode;
-	    this.screenFrm.fireUpdScreenTextActionsEnabled();
+	    fireUpdScreenTextActionsEnabled();
 	  }
 	}
 	break;
@@ -2260,7 +2539,7 @@ public class Z9001 extends EmuSys implements
 	  int addr = (port & 0xFF00) | this.graphAddrL;
 	  if( (addr >= 0) && (addr < this.ramPixel.length) ) {
 	    this.ramPixel[ addr ] = (byte) value;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	}
 	break;
@@ -2321,6 +2600,7 @@ public class Z9001 extends EmuSys implements
 
       case 0xFF:
 	this.megaROMSeg = (value & 0xFF);
+	updMemPages();
 	break;
 
       default:
@@ -2337,29 +2617,7 @@ public class Z9001 extends EmuSys implements
   @Override
   public void writeMemByte( int addr, int value )
   {
-    if( this.ramFont != null ) {
-      switch( addr ) {
-	case 0xEBFC:
-	  this.ramFontActive  = false;
-	  this.ramFontEnabled = true;
-	  this.screenFrm.setScreenDirty( true );
-	  break;
-	case 0xEBFE:
-	  this.ramFontActive  = true;
-	  this.ramFontEnabled = false;
-	  this.screenFrm.setScreenDirty( true );
-	  break;
-	case 0xEBFF:
-	  this.ramFontActive  = false;
-	  this.ramFontEnabled = false;
-	  this.screenFrm.setScreenDirty( true );
-	  break;
-      }
-    }
-    if( addr >= 0xF800 ) {
-      this.romModuleEnabled = ((addr & 0x0400) == 0);
-    }
-    setMemByteInternal( addr, value, true );
+    this.memMap.write( addr & 0xFFFF, value );
   }
 
 
@@ -2425,6 +2683,8 @@ public class Z9001 extends EmuSys implements
 
   private void adjustVideoRAMAccessTStates()
   {
+    // Rasterposition auf den Stand vor dem aktuellen Befehl bringen
+    this.emuThread.getZ80CPU().flushTStatesListeners();
     if( (this.lineNum < 192)
 	&& (this.tStatesPerLine > 0)
 	&& (this.tStatesVisible > 0)
@@ -3160,7 +3420,7 @@ public class Z9001 extends EmuSys implements
 	} else {
 	  this.ramColor[ idx ] = (byte) value;
 	}
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	if( emuWaitStates ) {
 	  adjustVideoRAMAccessTStates();
@@ -3176,7 +3436,7 @@ public class Z9001 extends EmuSys implements
 	idx += (this.graphBank * 0x0400);
 	if( (idx >= 0) && (idx < this.ramPixel.length) ) {
 	  this.ramPixel[ idx ] = (byte) value;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  rv = true;
 	}
       } else {
@@ -3185,7 +3445,7 @@ public class Z9001 extends EmuSys implements
 	} else {
 	  this.ramVideo[ idx ] = (byte) value;
 	}
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
       if( emuWaitStates ) {
@@ -3200,9 +3460,9 @@ public class Z9001 extends EmuSys implements
   {
     if( this.c80Active != state ) {
       this.c80Active = state;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
       if( !this.fixedScreenSize ) {
-	this.screenFrm.fireScreenSizeChanged();
+	fireScreenSizeChanged();
       }
     }
   }
@@ -3223,6 +3483,66 @@ public class Z9001 extends EmuSys implements
   }
 
 
+  /*
+   * Eintragen der Speicherbereiche in die Seitentabellen
+   * wie in get/setMemByteInternal(...)
+   *
+   * Die Bereiche ab E800h bleiben ohne Eintrag.
+   * ROM-Bereiche werden nur fuer Lesezugriffe eingetragen,
+   * damit die Schreibzugriffe auf F800h-FFFFh weiterhin
+   * den ROM-Modul umschalten.
+   */
+  private void updMemPages()
+  {
+    byte[] ram = this.emuThread.getRAM();
+    this.memMap.clear();
+    this.memMap.map( 0x0000, 0x4000, ram, 0x0000, true );
+    if( this.rom16k4000 != null ) {
+      this.memMap.map( 0x4000, 0x4000, this.rom16k4000, 0x0000, false );
+    } else if( this.rom32k4000 != null ) {
+      this.memMap.map( 0x4000, 0x4000, this.rom32k4000, 0x0000, false );
+    } else if( this.ram64k ) {
+      if( this.ram4000ExtEnabled && (this.ramExt != null) ) {
+	this.memMap.map( 0x4000, 0x4000, this.ramExt, 0x0000, true );
+      } else {
+	this.memMap.map( 0x4000, 0x4000, ram, 0x4000, true );
+      }
+    } else if( this.ram16k4000 ) {
+      this.memMap.map( 0x4000, 0x4000, ram, 0x4000, true );
+    }
+    if( this.rom32k4000 != null ) {
+      this.memMap.map( 0x8000, 0x4000, this.rom32k4000, 0x4000, false );
+    } else if( this.rom16k8000 != null ) {
+      this.memMap.map( 0x8000, 0x4000, this.rom16k8000, 0x0000, false );
+    } else if( this.ram16k8000 || this.ram64k ) {
+      this.memMap.map( 0x8000, 0x4000, ram, 0x8000, true );
+    } else if( this.printerModule && (printerModBytes != null) ) {
+      this.memMap.map( 0xB800, 0x0800, printerModBytes, 0x0000, false );
+    }
+    if( this.ram64k && this.ramC000Enabled ) {
+      this.memMap.map( 0xC000, 0x2800, ram, 0xC000, true );
+    } else if( this.romModuleEnabled && (this.romBoot != null) ) {
+      this.memMap.map( 0xC000, 0x2800, this.romBoot, 0x0000, false );
+    } else if( this.romModuleEnabled && (this.romMega != null) ) {
+      for( int i = 0; i < 5; i++ ) {
+	this.memMap.map(
+		0xC000 + (i * 0x0800),
+		0x0800,
+		this.romMega,
+		((i * 256) + this.megaROMSeg) * 2048,
+		false );
+      }
+    } else if( this.rom10kC000 != null ) {
+      this.memMap.map( 0xC000, 0x2800, this.rom10kC000, 0x0000, false );
+    } else if( this.kc87 && (this.romBasic != null) ) {
+      this.memMap.map( 0xC000, 0x2800, this.romBasic, 0x0000, false );
+    }
+    if( this.romOS != null ) {
+      this.memMap.map( 0xF000, 0x1000, this.romOS, 0x0000, false );
+    }
+  }
+
+
   private void updScreenConfig( int value )
   {
     boolean mode20Rows = ((value & 0x04) != 0);
@@ -3232,7 +3552,7 @@ public class Z9001 extends EmuSys implements
     {
       this.mode20Rows     = mode20Rows;
       this.borderColorIdx = colorIdx;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 }
@@ -111,9 +111,9 @@ public class ZXSpectrum extends EmuSys implements
 			  KeyEvent.VK_N,
 			  KeyEvent.VK_B } };			// A15
 
-  private static byte[]              os48k            = null;
-  private static byte[]              os128k           = null;
-  private static Map<Long,Character> pixelCRC32ToChar = null;
+  private static volatile byte[]              os48k            = null;
+  private static volatile byte[]              os128k           = null;
+  private static volatile Map<Long,Character> pixelCRC32ToChar = null;
 
   private Color[]             colors;
   private String              osFile;
@@ -1125,7 +1125,8 @@ public class ZXSpectrum extends EmuSys implements
 
   private Map<Long,Character> getPixelCRC32ToCharMap()
   {
-    if( pixelCRC32ToChar == null ) {
+    Map<Long,Character> rv = pixelCRC32ToChar;
+    if( rv == null ) {
       byte[] os48kBytes = getOS48kBytes();
       if( os48kBytes != null ) {
 	if( os48kBytes.length >= 0x4000 ) {
@@ -1145,10 +1146,11 @@ public class ZXSpectrum extends EmuSys implements
 	    addr += 8;
 	  }
 	  pixelCRC32ToChar = map;
+	  rv               = map;
 	}
       }
     }
-    return pixelCRC32ToChar;
+    return rv;
   }
 
 
@@ -1254,7 +1256,7 @@ public class ZXSpectrum extends EmuSys implements
 	    colorNum = (attr >> 3) & 0x07;
 	  }
 	  this.screenColorNums[ dstPos++ ] = (byte) colorNum;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  pixels <<= 1;
 	}
       }
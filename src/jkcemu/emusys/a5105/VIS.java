@@ -1,5 +1,5 @@
 /*
- * (c) 2010-2016 Jens Mueller
+ * (c) 2010-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -141,7 +141,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
       yMargin = 0;
     }
     int rv = yMargin + this.gdc.getCharTopLine();
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       rv *= 2;
     }
     return rv;
@@ -170,7 +170,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 
   public int getScreenHeight()
   {
-    return (this.fixedScreenSize || this.screenFrm.isFullScreenMode()) ?
+    return (this.fixedScreenSize || isFullScreenMode()) ?
 		(2 * DEFAULT_SCREEN_HEIGHT) : DEFAULT_SCREEN_HEIGHT;
   }
 
@@ -178,7 +178,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   public int getScreenWidth()
   {
     int rv = DEFAULT_SCREEN_WIDTH;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       rv = 2 * DEFAULT_SCREEN_WIDTH;
     } else {
       if( this.screenWidth > DEFAULT_SCREEN_WIDTH ) {
@@ -205,7 +205,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
       int cLine   = 0;
       int yMargin = (DEFAULT_SCREEN_HEIGHT - this.gdc.getDisplayLines()) / 2;
       if( yMargin > 0 ) {
-	if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+	if( this.fixedScreenSize || isFullScreenMode() ) {
 	  yMargin *= 2;
 	}
 	yOffs += (yMargin * screenScale);
@@ -360,7 +360,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 	  img.setRGB( x++, y, border );
 	}
       }
-      if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+      if( this.fixedScreenSize || isFullScreenMode() ) {
 	g.drawImage(
 		img,
 		xOffs,
@@ -419,7 +419,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
       this.screenImage = null;
       this.w640        = false;
     }
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -446,7 +446,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 	this.fontBytes[ idx ] = (byte) value;
       }
       this.fontRowAddr = (this.fontRowAddr + 1) & 0x07;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty();
     }
   }
 
@@ -519,10 +519,9 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 	break;
     }
     if( configChanged ) {
-      this.screenFrm.clearScreenSelection();
-      this.screenFrm.fireUpdScreenTextActionsEnabled();
+      fireScreenConfigChanged();
     }
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -531,15 +530,14 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   @Override
   public void screenConfigChanged( GDC82720 gdc )
   {
-    this.screenFrm.clearScreenSelection();
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    fireScreenConfigChanged();
   }
 
 
   @Override
   public void screenDirty( GDC82720 gdc )
   {
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -556,12 +554,25 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   public void setVRAMWord( int addr, int value )
   {
     this.vram[ addr & 0xFFFF ]= (short) value;
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
 	/* --- private Methoden --- */
 
+  /*
+   * Ohne Bildschirmfenster (Headless-Betrieb) sind die folgenden
+   * Methoden wirkungslos.
+   */
+  private void fireScreenConfigChanged()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.clearScreenSelection();
+      this.screenFrm.fireUpdScreenTextActionsEnabled();
+    }
+  }
+
+
   private BufferedImage getScreenImage()
   {
     BufferedImage img = this.screenImage;
@@ -596,6 +607,22 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   }
 
 
+  private boolean isFullScreenMode()
+  {
+    return this.screenFrm != null ?
+			this.screenFrm.isFullScreenMode()
+			: false;
+  }
+
+
+  private void setScreenDirty()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.setScreenDirty( true );
+    }
+  }
+
+
   private void updScreenWidth()
   {
     int oldWidth = getScreenWidth();
@@ -606,7 +633,9 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
     }
     this.screenWidth = newWidth;
     if( (newWidth != oldWidth) && !this.fixedScreenSize ) {
-      this.screenFrm.fireScreenSizeChanged();
+      if( this.screenFrm != null ) {
+	this.screenFrm.fireScreenSizeChanged();
+      }
     }
   }
 }
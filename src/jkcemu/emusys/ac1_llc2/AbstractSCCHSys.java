@@ -1,5 +1,5 @@
 /*
- * (c) 2010-2016 Jens Mueller
+ * (c) 2010-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -16,6 +16,7 @@ import java.util.Properties;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
+import jkcemu.base.MemoryMap;
 import jkcemu.base.SourceUtil;
 import jkcemu.text.TextUtil;
 import z80emu.Z80CPU;
@@ -26,7 +27,10 @@ import z80emu.Z80PIO;
 
 public abstract class AbstractSCCHSys
 			extends EmuSys
-			implements Z80PCListener
+			implements
+				MemoryMap.Handler,
+				MemoryMap.WriteListener,
+				Z80PCListener
 {
   public static final String PROP_JOYSTICK_ENABLED = "joystick.enabled";
   public static final String PROP_SCCH_PREFIX      = "scch.";
@@ -156,6 +160,7 @@ public abstract class AbstractSCCHSys
 		'\u2585', '\u2586', '\u2587', '\u2588' };
 
   protected Z80PIO           pio1;
+  protected MemoryMap        memMap;
   protected volatile boolean joystickEnabled;
   protected volatile boolean joystickSelected;
   protected int              joystickValue;
@@ -207,6 +212,7 @@ public abstract class AbstractSCCHSys
     this.scchRomdiskBankAddr = 0;
     this.pasteFast           = false;
     this.gsbasic             = null;
+    this.memMap              = new MemoryMap( this );
   }
 
 
@@ -380,6 +386,67 @@ public abstract class AbstractSCCHSys
   }
 
 
+  /*
+   * Eintragen der aktiven SCCH-Module in die Seitentabellen
+   * wie in get/setScchMemByte(...)
+   *
+   * Die Methode wird nach dem Eintragen der anderen Bereiche aufgerufen,
+   * da die SCCH-Module Vorrang haben.
+   * Ist die RAM-Floppy fuer alle Lese- oder Schreibzugriffe eingeblendet,
+   * bleiben alle Seiten beim Handler,
+   * da dann Lesezugriffe mit und ohne M1 unterschiedlich
+   * dekodiert werden.
+   */
+  protected void updScchMemPages()
+  {
+    if( (this.rfReadEnabled || this.rfWriteEnabled)
+	&& (this.ramModule3 != null) )
+    {
+      this.memMap.clear();
+    } else {
+      if( this.scchPrgXRomEnabled ) {
+	this.memMap.map(
+		0xE000,
+		0x2000,
+		this.scchPrgXRomBytes,
+		0x0000,
+		false );
+      }
+      if( this.scchRomdiskEnabled ) {
+	this.memMap.map(
+		this.scchRomdiskBegAddr,
+		0x10000 - this.scchRomdiskBegAddr,
+		this.scchRomdiskBytes,
+		this.scchRomdiskBankAddr,
+		false );
+      }
+      if( this.scchBasicRomEnabled ) {
+	this.memMap.map(
+		this.scchBasicRomBegAddr,
+		0x6000 - this.scchBasicRomBegAddr,
+		this.scchBasicRomBytes,
+		0x0000,
+		false );
+      }
+      if( this.rf32KActive && (this.ramModule3 != null) ) {
+	int negA15 = (this.rf32NegA15 ? 0x8000 : 0);
+	this.memMap.map(
+		0x4000,
+		0x4000,
+		this.ramModule3,
+		this.rfAddr16to19 | (0x4000 ^ negA15),
+		true );
+	this.memMap.map(
+		0x8000,
+		0x4000,
+		this.ramModule3,
+		this.rfAddr16to19 | (0x8000 ^ negA15),
+		true );
+      }
+    }
+  }
+
+
   /*
    * Setzen eines Bytes im Arbeitsspeicher
    *
@@ -418,6 +485,35 @@ public abstract class AbstractSCCHSys
   }
 
 
+	/* --- MemoryMap.Handler --- */
+
+  @Override
+  public int memMapRead( MemoryMap memMap, int addr, boolean m1 )
+  {
+    return getMemByte( addr, m1 );
+  }
+
+
+  @Override
+  public void memMapWrite( MemoryMap memMap, int addr, int value )
+  {
+    setMemByte( addr, value );
+  }
+
+
+	/* --- MemoryMap.WriteListener --- */
+
+  /*
+   * Die Methode wird bei Schreibzugriffen
+   * auf den Bildwiederholspeicher aufgerufen.
+   */
+  @Override
+  public void memMapWritten( MemoryMap memMap, int addr, int value )
+  {
+    setScreenDirty( true );
+  }
+
+
 	/* --- Z80PCListener --- */
 
   @Override
@@ -480,6 +576,13 @@ public abstract class AbstractSCCHSys
   }
 
 
+  @Override
+  public MemoryMap getMemoryMap()
+  {
+    return this.memMap;
+  }
+
+
   @Override
   public int getSupportedJoystickCount()
   {
@@ -590,6 +693,18 @@ public abstract class AbstractSCCHSys
   }
 
 
+  /*
+   * Lese- und Schreibzugriffe der CPU laufen ueber die Seitentabellen,
+   * alle anderen Zugriffe werden weiterhin
+   * in get/setMemByte(...) dekodiert.
+   */
+  @Override
+  public int readMemByte( int addr, boolean m1 )
+  {
+    return this.memMap.read( addr & 0xFFFF, m1 );
+  }
+
+
   @Override
   public int reassembleSysCall(
 			Z80MemView    memory,
@@ -833,7 +948,7 @@ public abstract class AbstractSCCHSys
       }
     }
     if( !done ) {
-      this.screenFrm.firePastingTextFinished();
+      firePastingTextFinished();
     }
   }
 
@@ -852,6 +967,13 @@ public abstract class AbstractSCCHSys
   }
 
 
+  @Override
+  public void writeMemByte( int addr, int value )
+  {
+    this.memMap.write( addr & 0xFFFF, value );
+  }
+
+
 	/* --- private Methoden --- */
 
   private int getScchBasicRomBegAddr( Properties props )
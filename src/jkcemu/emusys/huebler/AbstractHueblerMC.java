@@ -246,7 +246,7 @@ public abstract class AbstractHueblerMC
       }
     }
     if( !done ) {
-      this.screenFrm.firePastingTextFinished();
+      firePastingTextFinished();
     }
   }
 
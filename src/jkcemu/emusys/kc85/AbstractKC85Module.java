@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -9,6 +9,9 @@
 package jkcemu.emusys.kc85;
 
 import java.awt.Component;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import jkcemu.base.EmuUtil;
 import jkcemu.text.TextUtil;
@@ -20,6 +23,7 @@ public abstract class AbstractKC85Module
   protected boolean enabled;
 
   private String typeByteText;
+  private int    statusValue;
 
 
   protected AbstractKC85Module( int slot )
@@ -27,6 +31,7 @@ public abstract class AbstractKC85Module
     this.slot         = slot;
     this.enabled      = false;
     this.typeByteText = null;
+    this.statusValue  = -1;
   }
 
 
@@ -132,6 +137,24 @@ public abstract class AbstractKC85Module
   }
 
 
+  /*
+   * Zustand sichern und wiederherstellen
+   *
+   * Die Basisklasse sichert das zuletzt in das Steuerregister
+   * geschriebene Byte und stellt den Zustand wieder her,
+   * indem sie dieses Byte erneut schreibt.
+   * Module mit eigenem RAM oder eigenen Schaltkreisen
+   * muessen die Methoden ueberschreiben.
+   */
+  public void loadState( DataInput in ) throws IOException
+  {
+    int value = in.readShort();
+    if( value >= 0 ) {
+      setStatus( value );
+    }
+  }
+
+
   /*
    * Rueckgabewert:
    *  -1: Modul bedient diesen Lesevorgang nicht.
@@ -158,9 +181,31 @@ public abstract class AbstractKC85Module
   }
 
 
+  public void saveState( DataOutput out ) throws IOException
+  {
+    out.writeShort( this.statusValue );
+  }
+
+
   public void setStatus( int value )
   {
-    this.enabled = ((value & 0x01) != 0);
+    this.statusValue = value & 0xFF;
+    this.enabled     = ((value & 0x01) != 0);
+  }
+
+
+  /*
+   * Die Methode liefert true, wenn das Modul E/A-Zugriffe
+   * auf die Portadresse (niederwertiges Byte) bedienen kann,
+   * unabhaengig davon, ob es gerade aktiv ist.
+   * Das KC85-System leitet E/A-Zugriffe nur an die Module weiter,
+   * die die jeweilige Portadresse unterstuetzen.
+   * Wer readIOByte(...) oder writeIOByte(...) ueberschreibt,
+   * muss deshalb auch diese Methode ueberschreiben.
+   */
+  public boolean supportsIOPort( int port )
+  {
+    return false;
   }
 
 
@@ -1,42 +1,63 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
  * Emulation der Floppy Disk Station D004
+ *
+ * Die CPU der D004 laeuft normalerweise in einem eigenen Thread.
+ * Alternativ kann sie im Thread des Grundgeraetes emuliert werden.
+ * Dabei werden beide CPUs in festen Zeitscheiben abwechselnd
+ * ausgefuehrt, sodass der Ablauf reproduzierbar ist.
  */
 
 package jkcemu.emusys.kc85;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.Properties;
 import jkcemu.Main;
+import jkcemu.base.EmuUtil;
 import jkcemu.base.ScreenFrm;
 import jkcemu.disk.FloppyDiskDrive;
+import jkcemu.emusys.KC85;
 import z80emu.Z80CPU;
+import z80emu.Z80CoScheduler;
 import z80emu.Z80Memory;
 
 
 public class D004 extends AbstractKC85Module
 {
-  private byte[]      rom;
-  private int         romAddr;
-  private boolean     connected;
-  private boolean     cpuEnableValue;
-  private boolean     cpuStopValue;
-  private boolean     cpuResetValue;
-  private boolean     cpuNMIValue;
-  private D004ProcSys procSys;
-  private Thread      thread;
+  /*
+   * Laenge einer Zeitscheibe in Taktzyklen des Grundgeraetes
+   * bei Emulation im Thread des Grundgeraetes
+   */
+  private static final int COSCHED_QUANTUM_TSTATES = 256;
+
+  private String         propPrefix;
+  private byte[]         rom;
+  private int            romAddr;
+  private boolean        connected;
+  private boolean        cpuEnableValue;
+  private boolean        cpuStopValue;
+  private boolean        cpuResetValue;
+  private boolean        cpuNMIValue;
+  private boolean        coScheduled;
+  private D004ProcSys    procSys;
+  private Z80CoScheduler coScheduler;
+  private Thread         thread;
 
 
   public D004(
 		ScreenFrm  screenFrm,
+		Z80CPU     mainCPU,
 		Properties props,
 		String     propPrefix,
 		byte[]     rom )
   {
     super( 0xFC );
+    this.propPrefix     = propPrefix;
     this.rom            = rom;
     this.romAddr        = 0xC000;
     this.connected      = false;
@@ -44,8 +65,15 @@ public class D004 extends AbstractKC85Module
     this.cpuStopValue   = false;
     this.cpuResetValue  = false;
     this.cpuNMIValue    = false;
+    this.coScheduled    = false;
     this.procSys        = new D004ProcSys( screenFrm, props, propPrefix );
+    this.coScheduler    = null;
     this.thread         = null;
+    if( isSameThread( props, propPrefix ) ) {
+      this.coScheduler = new Z80CoScheduler(
+					mainCPU,
+					COSCHED_QUANTUM_TSTATES );
+    }
   }
 
 
@@ -55,9 +83,15 @@ public class D004 extends AbstractKC85Module
   }
 
 
+  /*
+   * Ein Wechsel zwischen eigenem Thread und Emulation
+   * im Thread des Grundgeraetes erfordert eine neue Instanz.
+   */
   public boolean canApplySettings( Properties props )
   {
-    return this.procSys.canApplySettings( props );
+    return this.procSys.canApplySettings( props )
+		&& (isSameThread( props, this.propPrefix )
+			== (this.coScheduler != null));
   }
 
 
@@ -75,6 +109,11 @@ public class D004 extends AbstractKC85Module
 
   public synchronized void fireStop()
   {
+    if( this.coScheduled ) {
+      this.coScheduler.remove( this.procSys );
+      this.procSys.fireStop();
+      this.coScheduled = false;
+    }
     if( this.thread != null ) {
       this.procSys.fireStop();
       this.thread = null;
@@ -82,6 +121,12 @@ public class D004 extends AbstractKC85Module
   }
 
 
+  public long getDiskActivityMillis()
+  {
+    return this.procSys.getDiskActivityMillis();
+  }
+
+
   public int getSupportedFloppyDiskDriveCount()
   {
     return this.procSys.getSupportedFloppyDiskDriveCount();
@@ -90,7 +135,7 @@ public class D004 extends AbstractKC85Module
 
   public boolean isRunning()
   {
-    return this.thread != null;
+    return (this.thread != null) || this.coScheduled;
   }
 
 
@@ -181,6 +226,22 @@ public class D004 extends AbstractKC85Module
   }
 
 
+  /*
+   * Die Floppy-Disk-Station laeuft in einem eigenen Thread
+   * mit eigener CPU, deren Zustand sich nicht konsistent
+   * zusammen mit dem Grundgeraet sichern laesst.
+   * Auch bei Emulation im Thread des Grundgeraetes
+   * wird der Zustand von CPU und FDC der D004 nicht gesichert.
+   */
+  @Override
+  public void saveState( DataOutput out ) throws IOException
+  {
+    throw new IOException( "Das Sichern des Emulatorzustands wird bei"
+			+ " eingesteckter Floppy-Disk-Station D004\n"
+			+ "nicht unterst\u00FCtzt." );
+  }
+
+
   @Override
   public void setStatus( int value )
   {
@@ -190,6 +251,14 @@ public class D004 extends AbstractKC85Module
   }
 
 
+  @Override
+  public boolean supportsIOPort( int port )
+  {
+    port &= 0xFF;
+    return (port >= 0xF0) && (port <= 0xF4);
+  }
+
+
   @Override
   public boolean writeIOByte( int port, int value, int tStates )
   {
@@ -220,14 +289,14 @@ public class D004 extends AbstractKC85Module
 	  state = ((value & 0x04) != 0);
 	  if( state != this.cpuResetValue ) {
 	    this.cpuResetValue = state;
-	    if( state && (this.thread != null) ) {
+	    if( state && isRunning() ) {
 	      this.procSys.fireReset();
 	    }
 	  }
 	  state = ((value & 0x08) != 0);
 	  if( state != this.cpuNMIValue ) {
 	    this.cpuNMIValue = state;
-	    if( state && (this.thread != null) ) {
+	    if( state && isRunning() ) {
 	      this.procSys.fireNMI();
 	    }
 	  }
@@ -243,10 +312,28 @@ public class D004 extends AbstractKC85Module
 
   private synchronized void enableCPU()
   {
-    if( this.thread == null ) {
+    if( this.coScheduler != null ) {
+      if( !this.coScheduled ) {
+	this.procSys.startCoScheduled();
+	this.coScheduler.add( this.procSys );
+	this.coScheduled = true;
+      }
+    }
+    else if( this.thread == null ) {
       Thread t = new Thread( Main.getThreadGroup(), this.procSys, "D004" );
       this.thread = t;
       t.start();
     }
   }
+
+
+  private static boolean isSameThread(
+				Properties props,
+				String     propPrefix )
+  {
+    return EmuUtil.getBooleanProperty(
+				props,
+				propPrefix + KC85.PROP_D004_SAME_THREAD,
+				false );
+  }
 }
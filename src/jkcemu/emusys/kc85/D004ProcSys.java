@@ -1,9 +1,13 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
  * Emulation des D004-Prozessorsystems
+ *
+ * Das Prozessorsystem laeuft entweder in einem eigenen Thread (run())
+ * oder wird im Thread des Grundgeraetes abschnittsweise
+ * mit ausgefuehrt (runCoScheduled(...)).
  */
 
 package jkcemu.emusys.kc85;
@@ -20,34 +24,41 @@ import jkcemu.disk.FloppyDiskDrive;
 import jkcemu.disk.GIDE;
 import z80emu.Z80CPU;
 import z80emu.Z80CTC;
+import z80emu.Z80CoScheduledSystem;
 import z80emu.Z80IOSystem;
 import z80emu.Z80Memory;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesListenerAdapter;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class D004ProcSys implements
 				FDC8272.DriveSelector,
 				Runnable,
+				Z80CoScheduledSystem,
 				Z80IOSystem,
 				Z80Memory,
-				Z80TStatesListener
+				Z80TStatesSkipListener
 {
-  private ScreenFrm         screenFrm;
-  private String            propPrefix;
-  private FloppyDiskDrive   curFDDrive;
-  private FloppyDiskDrive[] fdDrives;
-  private byte[]            ram;
-  private byte[]            loadData;
-  private int               loadAddr;
-  private int               startAddr;
-  private int               ctcTStateCounter;
-  private volatile int      runLevel;
-  private Object            loadLock;
-  private Object            runLock;
-  private GIDE              gide;
-  private FDC8272           fdc;
-  private Z80CPU            cpu;
-  private Z80CTC            ctc;
+  private ScreenFrm                 screenFrm;
+  private String                    propPrefix;
+  private FloppyDiskDrive           curFDDrive;
+  private FloppyDiskDrive[]         fdDrives;
+  private byte[]                    ram;
+  private byte[]                    loadData;
+  private int                       loadAddr;
+  private int                       startAddr;
+  private int                       ctcTStateCounter;
+  private volatile int              runLevel;
+  private volatile boolean          coScheduled;
+  private volatile boolean          restartPending;
+  private boolean                   powerOn;
+  private Object                    loadLock;
+  private Object                    runLock;
+  private GIDE                      gide;
+  private FDC8272                   fdc;
+  private Z80CPU                    cpu;
+  private Z80CTC                    ctc;
+  private Z80TStatesListenerAdapter tStatesAdapter;
 
 
   public D004ProcSys(
@@ -59,6 +70,9 @@ public class D004ProcSys implements
     this.propPrefix       = propPrefix;
     this.ctcTStateCounter = 0;
     this.runLevel         = 0;
+    this.coScheduled      = false;
+    this.restartPending   = false;
+    this.powerOn          = true;
     this.startAddr        = -1;
     this.loadAddr         = -1;
     this.loadData         = null;
@@ -80,8 +94,10 @@ public class D004ProcSys implements
     this.cpu.setMaxSpeedKHz( 4000 );
     this.cpu.setInterruptSources( this.ctc );
     this.cpu.addMaxSpeedListener( this.fdc );
-    this.cpu.addTStatesListener( this );
     this.fdc.setTStatesPerMilli( this.cpu.getMaxSpeedKHz() );
+
+    this.tStatesAdapter = new Z80TStatesListenerAdapter( this, 1000 );
+    this.tStatesAdapter.install( this.cpu );
   }
 
 
@@ -113,7 +129,7 @@ public class D004ProcSys implements
     if( this.gide != null ) {
       this.gide.die();
     }
-    this.cpu.removeTStatesListener( this );
+    this.tStatesAdapter.uninstall( this.cpu );
     this.cpu.removeMaxSpeedListener( this.fdc );
     this.fdc.die();
   }
@@ -127,17 +143,31 @@ public class D004ProcSys implements
 
   public void fireReset()
   {
+    if( this.coScheduled ) {
+      this.restartPending = true;
+    }
     this.cpu.fireExit();
   }
 
 
   public void fireStop()
   {
-    this.runLevel = 0;
+    this.runLevel    = 0;
+    this.coScheduled = false;
     this.cpu.fireExit();
   }
 
 
+  public long getDiskActivityMillis()
+  {
+    long rv = this.fdc.getLastActivityMillis();
+    if( this.gide != null ) {
+      rv = Math.max( rv, this.gide.getLastActivityMillis() );
+    }
+    return rv;
+  }
+
+
   public int getSupportedFloppyDiskDriveCount()
   {
     return this.fdDrives.length;
@@ -158,6 +188,9 @@ public class D004ProcSys implements
 	  this.loadData  = loadData;
 	  this.loadAddr  = loadAddr;
 	  this.startAddr = startAddr;
+	  if( this.coScheduled ) {
+	    this.restartPending = true;
+	  }
 	  this.cpu.fireExit();
 	}
       } else {
@@ -174,6 +207,19 @@ public class D004ProcSys implements
   }
 
 
+  /*
+   * Starten des Prozessorsystems ohne eigenen Thread,
+   * die Ausfuehrung erfolgt mit runCoScheduled(...)
+   */
+  public void startCoScheduled()
+  {
+    this.powerOn        = true;
+    this.restartPending = true;
+    this.coScheduled    = true;
+    this.runLevel       = 1;
+  }
+
+
 	/* --- FDC8272.DriveSelector --- */
 
   @Override
@@ -201,30 +247,7 @@ public class D004ProcSys implements
       boolean powerOn = true;
       while( this.runLevel > 0 ) {
 	try {
-	  byte[] loadData  = null;
-	  int    loadAddr  = -1;
-	  int    startAddr = -1;
-	  synchronized( this.loadLock ) {
-	    loadData       = this.loadData;
-	    loadAddr       = this.loadAddr;
-	    startAddr      = this.startAddr;
-	    this.loadData  = null;
-	    this.loadAddr  = -1;
-	    this.startAddr = -1;
-	  }
-	  if( (loadData != null) && (loadAddr >= 0) ) {
-	    loadIntoRAM( loadData, loadAddr );
-	    if( startAddr >= 0 ) {
-	      this.cpu.setRegPC( startAddr );
-	    }
-	  } else {
-	    this.curFDDrive = null;
-	    this.fdc.reset( powerOn );
-	    if( this.gide != null ) {
-	      this.gide.reset();
-	    }
-	    this.cpu.resetCPU( powerOn );
-	  }
+	  prepareRun( powerOn );
 	  this.cpu.run();
 	}
 	catch( Exception ex ) {
@@ -236,6 +259,30 @@ public class D004ProcSys implements
   }
 
 
+	/* --- Z80CoScheduledSystem --- */
+
+  @Override
+  public long runCoScheduled( long tStates )
+  {
+    long rv = 0L;
+    if( this.coScheduled && (this.runLevel > 0) ) {
+      try {
+	if( this.restartPending ) {
+	  this.restartPending = false;
+	  prepareRun( this.powerOn );
+	  this.powerOn = false;
+	}
+	rv = this.cpu.runFor( tStates ).getUsedTStates();
+      }
+      catch( Exception ex ) {
+	this.restartPending = true;
+	EventQueue.invokeLater( new ErrorMsg( this.screenFrm, ex ) );
+      }
+    }
+    return rv;
+  }
+
+
 	/* --- Z80IOSystem --- */
 
   @Override
@@ -410,15 +457,36 @@ public class D004ProcSys implements
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Kanal 0 der CTC zaehlt den durch 8 geteilten Systemtakt.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    long rv     = Math.min(
+			this.ctc.getTStatesToNextEvent(),
+			this.fdc.getTStatesToNextEvent() );
+    int  pulses = this.ctc.getPulsesToNextEvent( 0 );
+    if( pulses < Integer.MAX_VALUE ) {
+      rv = Math.min(
+		rv,
+		Math.max( (8L * pulses) - this.ctcTStateCounter, 1L ) );
+    }
+    return (int) rv;
+  }
+
+
 	/* --- Z80TStatesListener --- */
 
   @Override
   public void z80TStatesProcessed( Z80CPU cpu, int tStates )
   {
     this.ctcTStateCounter += tStates;
-    while( this.ctcTStateCounter >= 8 ) {
-      ctc.externalUpdate( 0, 1 );
-      this.ctcTStateCounter -= 8;
+    if( this.ctcTStateCounter >= 8 ) {
+      this.ctc.externalUpdate( 0, this.ctcTStateCounter / 8 );
+      this.ctcTStateCounter %= 8;
     }
     this.ctc.z80TStatesProcessed( cpu, tStates );
     this.fdc.z80TStatesProcessed( cpu, tStates );
@@ -436,5 +504,39 @@ public class D004ProcSys implements
       }
     }
   }
+
+
+  /*
+   * Vorbereiten der Programmausfuehrung:
+   * Liegt ein zu ladendes Programm vor, wird es geladen und gestartet,
+   * anderenfalls wird das Prozessorsystem zurueckgesetzt.
+   */
+  private void prepareRun( boolean powerOn )
+  {
+    byte[] loadData  = null;
+    int    loadAddr  = -1;
+    int    startAddr = -1;
+    synchronized( this.loadLock ) {
+      loadData       = this.loadData;
+      loadAddr       = this.loadAddr;
+      startAddr      = this.startAddr;
+      this.loadData  = null;
+      this.loadAddr  = -1;
+      this.startAddr = -1;
+    }
+    if( (loadData != null) && (loadAddr >= 0) ) {
+      loadIntoRAM( loadData, loadAddr );
+      if( startAddr >= 0 ) {
+	this.cpu.setRegPC( startAddr );
+      }
+    } else {
+      this.curFDDrive = null;
+      this.fdc.reset( powerOn );
+      if( this.gide != null ) {
+	this.gide.reset();
+      }
+      this.cpu.resetCPU( powerOn );
+    }
+  }
 }
 
@@ -1,5 +1,5 @@
 /*
- * (c) 2013-2016 Jens Mueller
+ * (c) 2013-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -815,11 +815,11 @@ public class KC85CharRecognizer
     { '\u25A1', 0x0F, 0x09, 0x09, 0x09, 0x09, 0x09, 0x09, 0x09, 0x09, 0x0F } };
 
 
-  private static Map<Long,Character> pixel8x8aCrc32ToChar = null;
-  private static Map<Long,Character> pixel8x8bCrc32ToChar = null;
-  private static Map<Long,Character> pixel4x8aCrc32ToChar = null;
-  private static Map<Long,Character> pixel4x8bCrc32ToChar = null;
-  private static Map<Long,Character> pixel4x10Crc32ToChar = null;
+  private static volatile Map<Long,Character> pixel8x8aCrc32ToChar = null;
+  private static volatile Map<Long,Character> pixel8x8bCrc32ToChar = null;
+  private static volatile Map<Long,Character> pixel4x8aCrc32ToChar = null;
+  private static volatile Map<Long,Character> pixel4x8bCrc32ToChar = null;
+  private static volatile Map<Long,Character> pixel4x10Crc32ToChar = null;
 
   private byte[] pixelBytes;
 
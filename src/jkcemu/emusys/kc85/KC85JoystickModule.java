@@ -1,5 +1,5 @@
 /*
- * (c) 2010-2016 Jens Mueller
+ * (c) 2010-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -8,16 +8,20 @@
 
 package jkcemu.emusys.kc85;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import jkcemu.base.EmuThread;
 import jkcemu.joystick.JoystickThread;
-import z80emu.Z80InterruptSource;
+import z80emu.Z80InterruptLine;
+import z80emu.Z80InterruptLineSource;
 import z80emu.Z80PIO;
 
 
 public abstract class KC85JoystickModule
 			extends AbstractKC85Module
-			implements Z80InterruptSource
+			implements Z80InterruptLineSource
 {
   protected Z80PIO  pio;
   private   boolean lastBI;
@@ -81,6 +85,15 @@ public abstract class KC85JoystickModule
   }
 
 
+	/* --- Z80InterruptLineSource --- */
+
+  @Override
+  public void setInterruptLine( Z80InterruptLine line )
+  {
+    this.pio.setInterruptLine( line );
+  }
+
+
 	/* --- Z80InterruptSource --- */
 
   @Override
@@ -137,6 +150,15 @@ public abstract class KC85JoystickModule
   }
 
 
+  @Override
+  public void loadState( DataInput in ) throws IOException
+  {
+    super.loadState( in );
+    this.lastBI = in.readBoolean();
+    this.pio.loadState( in );
+  }
+
+
   @Override
   public int readIOByte( int port, int tStates )
   {
@@ -168,6 +190,15 @@ public abstract class KC85JoystickModule
   }
 
 
+  @Override
+  public void saveState( DataOutput out ) throws IOException
+  {
+    super.saveState( out );
+    out.writeBoolean( this.lastBI );
+    this.pio.saveState( out );
+  }
+
+
   @Override
   public void setStatus( int value )
   {
@@ -175,6 +206,14 @@ public abstract class KC85JoystickModule
   }
 
 
+  @Override
+  public boolean supportsIOPort( int port )
+  {
+    port &= 0xFF;
+    return (port >= 0x90) && (port < 0x98);
+  }
+
+
   @Override
   public String toString()
   {
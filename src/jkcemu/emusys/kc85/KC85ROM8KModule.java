@@ -1,5 +1,5 @@
 /*
- * (c) 2011-2016 Jens Mueller
+ * (c) 2011-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -9,16 +9,12 @@
 package jkcemu.emusys.kc85;
 
 import java.lang.*;
-import java.util.HashMap;
-import java.util.Map;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 
 
 public class KC85ROM8KModule extends AbstractKC85Module
 {
-  private static Map<String,byte[]> map = new HashMap<>();
-
   private String moduleName;
   private int    begAddr;
   private byte[] rom;
@@ -46,11 +42,9 @@ public class KC85ROM8KModule extends AbstractKC85Module
     super( slot );
     this.begAddr    = 0;
     this.moduleName = moduleName;
-    this.rom        = map.get( resource );
-    if( this.rom == null ) {
-      this.rom = EmuUtil.readResource( emuThread.getScreenFrm(), resource );
-      map.put( resource, this.rom );
-    }
+    this.rom        = EmuUtil.readSharedResource(
+					emuThread.getScreenFrm(),
+					resource );
   }
 
 
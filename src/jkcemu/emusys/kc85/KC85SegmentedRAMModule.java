@@ -8,9 +8,14 @@
 
 package jkcemu.emusys.kc85;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.Arrays;
 import jkcemu.base.EmuThread;
+import jkcemu.base.SnapshotReader;
+import jkcemu.base.SnapshotWriter;
 
 
 public class KC85SegmentedRAMModule extends AbstractKC85Module
@@ -83,6 +88,14 @@ public class KC85SegmentedRAMModule extends AbstractKC85Module
   }
 
 
+  @Override
+  public void loadState( DataInput in ) throws IOException
+  {
+    super.loadState( in );
+    SnapshotReader.readBytes( in, this.ram );
+  }
+
+
   @Override
   public int readMemByte( int addr )
   {
@@ -100,6 +113,14 @@ public class KC85SegmentedRAMModule extends AbstractKC85Module
   }
 
 
+  @Override
+  public void saveState( DataOutput out ) throws IOException
+  {
+    super.saveState( out );
+    SnapshotWriter.writeBytes( out, this.ram );
+  }
+
+
   @Override
   public void setStatus( int value )
   {
@@ -1,5 +1,5 @@
 /*
- * (c) 2010-2016 Jens Mueller
+ * (c) 2010-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -169,6 +169,7 @@ public class KC85SettingsFld
   private JRadioButton         btnD004Speed4MHz;
   private JRadioButton         btnD004Speed8MHz;
   private JRadioButton         btnD004Speed16MHz;
+  private JCheckBox            btnD004SingleThread;
   private FileNameFld          fldD004RomFile;
   private JButton              btnD004RomFileSelect;
   private JButton              btnD004RomFileRemove;
@@ -415,6 +416,15 @@ public class KC85SettingsFld
     grpD004Speed.add( this.btnD004Speed16MHz );
     panelD004Speed.add( this.btnD004Speed16MHz );
 
+    this.btnD004SingleThread = new JCheckBox(
+		"D004 im Thread des Grundger\u00E4tes emulieren"
+				+ " (reproduzierbarer Ablauf)",
+		false );
+    this.btnD004SingleThread.addActionListener( this );
+    gbcDisk.insets.top = 10;
+    gbcDisk.gridy++;
+    this.tabD004.add( this.btnD004SingleThread, gbcDisk );
+
 
     // Tab GIDE
     this.tabGIDE = new GIDESettingsFld( settingsFrm, propPrefix );
@@ -747,6 +757,9 @@ public class KC85SettingsFld
 		this.propPrefix + KC85.PROP_D004_MAXSPEED_KHZ,
 		"4000" );
       }
+      props.setProperty(
+		this.propPrefix + KC85.PROP_D004_SAME_THREAD,
+		Boolean.toString( this.btnD004SingleThread.isSelected() ) );
 
       // Tab GIDE
       tab = this.tabGIDE;
@@ -817,7 +830,8 @@ public class KC85SettingsFld
 	       || (src == this.comboD004Rom)
 	       || (src == this.btnD004Speed4MHz)
 	       || (src == this.btnD004Speed8MHz)
-	       || (src == this.btnD004Speed16MHz) )
+	       || (src == this.btnD004Speed16MHz)
+	       || (src == this.btnD004SingleThread) )
       {
 	rv = true;
 	fireDataChanged();
@@ -1015,6 +1029,11 @@ public class KC85SettingsFld
     } else {
       this.btnD004Speed4MHz.setSelected( true );
     }
+    this.btnD004SingleThread.setSelected(
+			EmuUtil.getBooleanProperty(
+				props,
+				this.propPrefix + KC85.PROP_D004_SAME_THREAD,
+				false ) );
     updD004FieldsEnabled();
 
     // Tab GIDE
@@ -1381,6 +1400,7 @@ public class KC85SettingsFld
     this.btnD004Speed4MHz.setEnabled( state );
     this.btnD004Speed8MHz.setEnabled( state );
     this.btnD004Speed16MHz.setEnabled( state );
+    this.btnD004SingleThread.setEnabled( state );
     if( state && (this.comboD004Rom.getSelectedIndex() != 2) ) {
       state = false;
     }
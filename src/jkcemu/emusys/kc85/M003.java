@@ -8,28 +8,31 @@
 
 package jkcemu.emusys.kc85;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import jkcemu.base.EmuThread;
 import jkcemu.print.PrintMngr;
 import z80emu.Z80CPU;
 import z80emu.Z80CTC;
 import z80emu.Z80CTCListener;
-import z80emu.Z80InterruptSource;
+import z80emu.Z80InterruptLine;
+import z80emu.Z80InterruptLineSource;
 import z80emu.Z80SIO;
 import z80emu.Z80SIOChannelListener;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class M003 extends AbstractKC85Module implements
 						Z80CTCListener,
-						Z80InterruptSource,
+						Z80InterruptLineSource,
 						Z80SIOChannelListener,
-						Z80TStatesListener
+						Z80TStatesSkipListener
 {
   private String    title;
   private int       remainTStates;
   private PrintMngr printMngr;
-  private Z80CPU    cpu;
   private Z80CTC    ctc;
   private Z80SIO    sio;
 
@@ -40,12 +43,10 @@ public class M003 extends AbstractKC85Module implements
     this.title         = String.format( "M003 im Schacht %02X", slot );
     this.remainTStates = 0;
     this.printMngr     = emuThread.getPrintMngr();
-    this.cpu           = emuThread.getZ80CPU();
     this.ctc           = new Z80CTC( "CTC (M003)" );
     this.sio           = new Z80SIO( "SIO (M003)" );
     this.sio.addChannelListener( this, 0 );
     this.ctc.addCTCListener( this );
-    this.cpu.addTStatesListener( this );
   }
 
 
@@ -66,6 +67,16 @@ public class M003 extends AbstractKC85Module implements
   }
 
 
+	/* --- Z80InterruptLineSource --- */
+
+  @Override
+  public void setInterruptLine( Z80InterruptLine line )
+  {
+    this.ctc.setInterruptLine( line );
+    this.sio.setInterruptLine( line );
+  }
+
+
 	/* --- Z80InterruptSource --- */
 
   @Override
@@ -146,6 +157,27 @@ public class M003 extends AbstractKC85Module implements
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Die ersten beiden CTC-Kanaele zaehlen den halben Systemtakt.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    long rv = this.ctc.getTStatesToNextEvent();
+    for( int i = 0; i < 2; i++ ) {
+      int pulses = this.ctc.getPulsesToNextEvent( i );
+      if( pulses < Integer.MAX_VALUE ) {
+	rv = Math.min(
+		rv,
+		Math.max( (2L * pulses) - this.remainTStates, 1L ) );
+      }
+    }
+    return (int) rv;
+  }
+
+
 	/* --- Z80TStatesListener --- */
 
   @Override
@@ -169,7 +201,6 @@ public class M003 extends AbstractKC85Module implements
   @Override
   public void die()
   {
-    this.cpu.removeTStatesListener( this );
     this.ctc.removeCTCListener( this );
     this.sio.removeChannelListener( this, 0 );
   }
@@ -189,6 +220,16 @@ public class M003 extends AbstractKC85Module implements
   }
 
 
+  @Override
+  public void loadState( DataInput in ) throws IOException
+  {
+    super.loadState( in );
+    this.remainTStates = in.readInt();
+    this.ctc.loadState( in );
+    this.sio.loadState( in );
+  }
+
+
   @Override
   public int readIOByte( int port, int tStates )
   {
@@ -223,6 +264,24 @@ public class M003 extends AbstractKC85Module implements
   }
 
 
+  @Override
+  public void saveState( DataOutput out ) throws IOException
+  {
+    super.saveState( out );
+    out.writeInt( this.remainTStates );
+    this.ctc.saveState( out );
+    this.sio.saveState( out );
+  }
+
+
+  @Override
+  public boolean supportsIOPort( int port )
+  {
+    port &= 0xFF;
+    return (port >= 0x08) && (port < 0x10);
+  }
+
+
   @Override
   public boolean supportsPrinter()
   {
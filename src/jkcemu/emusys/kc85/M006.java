@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2016 Jens Mueller
+ * (c) 2009-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -15,20 +15,17 @@ import jkcemu.base.EmuUtil;
 
 public class M006 extends AbstractKC85Module
 {
-  private static byte[] rom = null;
-
-  private int begAddr;
+  private byte[] rom;
+  private int    begAddr;
 
 
   public M006( int slot, EmuThread emuThread )
   {
     super( slot );
     this.begAddr = 0;
-    if( rom == null ) {
-      rom = EmuUtil.readResource(
+    this.rom     = EmuUtil.readSharedResource(
 				emuThread.getScreenFrm(),
 				"/rom/kc85/m006.bin" );
-    }
   }
 
 
@@ -62,11 +59,11 @@ public class M006 extends AbstractKC85Module
     if( this.enabled
 	&& (addr >= this.begAddr)
 	&& (addr < (this.begAddr + 0x4000))
-	&& (rom != null) )
+	&& (this.rom != null) )
     {
       int idx = addr - this.begAddr;
-      if( idx < rom.length ) {
-	rv = (int) rom[ idx ] & 0xFF;
+      if( idx < this.rom.length ) {
+	rv = (int) this.rom[ idx ] & 0xFF;
       }
     }
     return rv;
@@ -8,9 +8,14 @@
 
 package jkcemu.emusys.kc85;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.Arrays;
 import jkcemu.base.EmuThread;
+import jkcemu.base.SnapshotReader;
+import jkcemu.base.SnapshotWriter;
 
 
 public class M011 extends AbstractKC85Module
@@ -80,6 +85,14 @@ public class M011 extends AbstractKC85Module
   }
 
 
+  @Override
+  public void loadState( DataInput in ) throws IOException
+  {
+    super.loadState( in );
+    SnapshotReader.readBytes( in, this.ram );
+  }
+
+
   @Override
   public int readMemByte( int addr )
   {
@@ -94,6 +107,14 @@ public class M011 extends AbstractKC85Module
   }
 
 
+  @Override
+  public void saveState( DataOutput out ) throws IOException
+  {
+    super.saveState( out );
+    SnapshotWriter.writeBytes( out, this.ram );
+  }
+
+
   @Override
   public void setStatus( int value )
   {
@@ -1,5 +1,5 @@
 /*
- * (c) 2010-2016 Jens Mueller
+ * (c) 2010-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -12,14 +12,14 @@ import java.lang.*;
 import jkcemu.base.EmuThread;
 import jkcemu.print.PrintMngr;
 import z80emu.Z80CPU;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80EventListener;
 
 
-public class M021 extends KC85JoystickModule implements Z80TStatesListener
+public class M021 extends KC85JoystickModule implements Z80EventListener
 {
-  private EmuThread    emuThread;
-  private boolean      cenStrobe;
-  private volatile int cenBusyTStateCounter;
+  private EmuThread        emuThread;
+  private boolean          cenStrobe;
+  private volatile boolean cenBusy;
 
 
   public M021( int slot, EmuThread emuThread )
@@ -27,27 +27,32 @@ public class M021 extends KC85JoystickModule implements Z80TStatesListener
     super( slot );
     this.emuThread            = emuThread;
     this.cenStrobe            = false;
-    this.cenBusyTStateCounter = 0;
+    this.cenBusy              = false;
     this.pio.putInValuePortA( 0, 0x40 );	// BUSY=0
   }
 
 
-		/* --- Z80TStatesListener --- */
+		/* --- Z80EventListener --- */
 
   @Override
-  public synchronized void z80TStatesProcessed( Z80CPU cpu, int tStates )
+  public synchronized void z80EventDue( Z80CPU cpu, long dueTStates )
   {
-    if( this.cenBusyTStateCounter > 0 ) {
-      this.cenBusyTStateCounter -= tStates;
-      if( this.cenBusyTStateCounter <= 0 ) {
-	this.pio.putInValuePortA( 0, 0x40 );		// BUSY=0
-      }
+    if( this.cenBusy ) {
+      this.cenBusy = false;
+      this.pio.putInValuePortA( 0, 0x40 );		// BUSY=0
     }
   }
 
 
 	/* --- ueberschriebene Methoden --- */
 
+  @Override
+  public void die()
+  {
+    this.emuThread.getZ80CPU().cancelEvent( this );
+  }
+
+
   @Override
   public String getModuleName()
   {
@@ -82,11 +87,11 @@ public class M021 extends KC85JoystickModule implements Z80TStatesListener
 		  pm.putByte( this.pio.fetchOutValuePortB( false ) );
 		  this.pio.putInValuePortA( 0x40, 0x40 );	// BUSY=1
 		  synchronized( this ) {
-		    this.cenBusyTStateCounter =
-			this.emuThread.getZ80CPU().getMaxSpeedKHz() / 20;
-		    if( this.cenBusyTStateCounter < 1 ) {
-		      this.cenBusyTStateCounter = 1;
-		    }
+		    Z80CPU cpu = this.emuThread.getZ80CPU();
+		    this.cenBusy = true;
+		    cpu.scheduleEvent(
+				this,
+				Math.max( cpu.getMaxSpeedKHz() / 20, 1 ) );
 		  }
 		}
 	      }
@@ -102,7 +107,7 @@ public class M021 extends KC85JoystickModule implements Z80TStatesListener
 	  this.pio.writeControlA( value );
 	  // sicherstellen, dass der BUSY-Status nicht verlorengegangen ist
 	  this.pio.putInValuePortA(
-		this.cenBusyTStateCounter > 0 ? 0x40 : 0, 0x40 );
+		this.cenBusy ? 0x40 : 0, 0x40 );
 	  break;
 
 	case 0x93:
@@ -1,5 +1,5 @@
 /*
- * (c) 2010-2016 Jens Mueller
+ * (c) 2010-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -15,10 +15,9 @@ import jkcemu.base.EmuUtil;
 
 public class M033 extends AbstractKC85Module
 {
-  private static byte[] rom = null;
-
-  private int begAddr;
-  private int segMask;
+  private byte[] rom;
+  private int    begAddr;
+  private int    segMask;
 
 
   public M033( int slot, EmuThread emuThread )
@@ -26,11 +25,9 @@ public class M033 extends AbstractKC85Module
     super( slot );
     this.begAddr = 0;
     this.segMask = 0;
-    if( rom == null ) {
-      rom = EmuUtil.readResource(
+    this.rom     = EmuUtil.readSharedResource(
 				emuThread.getScreenFrm(),
 				"/rom/kc85/m033.bin" );
-    }
   }
 
 
@@ -70,11 +67,11 @@ public class M033 extends AbstractKC85Module
     int rv = -1;
     if( this.enabled
 	&& (addr >= this.begAddr) && (addr < (this.begAddr + 0x2000))
-	&& (rom != null) )
+	&& (this.rom != null) )
     {
       int idx = (addr - this.begAddr) | this.segMask;
-      if( idx < rom.length ) {
-	rv = (int) rom[ idx ] & 0xFF;
+      if( idx < this.rom.length ) {
+	rv = (int) this.rom[ idx ] & 0xFF;
       }
     }
     return rv;
@@ -1,5 +1,5 @@
 /*
- * (c) 2011-2016 Jens Mueller
+ * (c) 2011-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -15,19 +15,18 @@ import jkcemu.base.FileTimesViewFactory;
 import jkcemu.etc.VDIP;
 import jkcemu.net.KCNet;
 import z80emu.Z80CPU;
-import z80emu.Z80InterruptSource;
+import z80emu.Z80InterruptLine;
+import z80emu.Z80InterruptLineSource;
 import z80emu.Z80MaxSpeedListener;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class M052 extends AbstractKC85Module
 				implements
-					Z80InterruptSource,
+					Z80InterruptLineSource,
 					Z80MaxSpeedListener,
-					Z80TStatesListener
+					Z80TStatesSkipListener
 {
-  private static byte[] m052 = null;
-
   private Component owner;
   private String    fileName;
   private String    title;
@@ -57,10 +56,7 @@ public class M052 extends AbstractKC85Module
     this.rom       = null;
     reload( owner );
     if( this.rom == null ) {
-      if( m052 == null ) {
-	m052 = EmuUtil.readResource( owner, "/rom/kc85/m052.bin" );
-      }
-      this.rom = m052;
+      this.rom = EmuUtil.readSharedResource( owner, "/rom/kc85/m052.bin" );
     }
   }
 
@@ -71,6 +67,16 @@ public class M052 extends AbstractKC85Module
   }
 
 
+	/* --- Z80InterruptLineSource --- */
+
+  @Override
+  public void setInterruptLine( Z80InterruptLine line )
+  {
+    this.kcNet.setInterruptLine( line );
+    this.vdip.setInterruptLine( line );
+  }
+
+
 	/* --- Z80InterruptSource --- */
 
   @Override
@@ -146,6 +152,15 @@ public class M052 extends AbstractKC85Module
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    return this.kcNet.getTStatesToNextEvent();
+  }
+
+
 	/* --- Z80TStatesListener --- */
 
   @Override
@@ -269,6 +284,14 @@ public class M052 extends AbstractKC85Module
   }
 
 
+  @Override
+  public boolean supportsIOPort( int port )
+  {
+    port &= 0xFF;
+    return (port == 0x08) || ((port >= 0x28) && (port < 0x30));
+  }
+
+
   @Override
   public String toString()
   {
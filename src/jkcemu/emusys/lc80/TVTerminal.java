@@ -34,7 +34,7 @@ public class TVTerminal
   private static final String START_MSG
 	= "TV Terminal      (c)SP/RW 2007/2016 V1.2RS232 8,N,1 9600 Bd\r\n";
 
-  private static byte[] romFont = null;
+  private static volatile byte[] romFont = null;
 
   private LC80                       lc80;
   private boolean                    ignoreKeyChar;
@@ -577,7 +577,7 @@ public class TVTerminal
 
   private byte[] readResource( String resource )
   {
-    return EmuUtil.readResource( this.lc80.getScreenFrm(), resource );
+    return EmuUtil.readSharedResource( this.lc80.getScreenFrm(), resource );
   }
 
 
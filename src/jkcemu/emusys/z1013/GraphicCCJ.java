@@ -1,5 +1,5 @@
 /*
- * (c) 2011-2016 Jens Mueller
+ * (c) 2011-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -21,7 +21,7 @@ public class GraphicCCJ implements GDC82720.GDCListener, GDC82720.VRAM
   private static final int DEFAULT_SCREEN_HEIGHT = 256;
   private static final int DEFAULT_SCREEN_WIDTH  = 640;
 
-  private static byte[] gccjFont = null;
+  private static volatile byte[] gccjFont = null;
 
   private ScreenFrm screenFrm;
   private GDC82720  gdc;
@@ -127,7 +127,7 @@ public class GraphicCCJ implements GDC82720.GDCListener, GDC82720.VRAM
     }
     if( fontBytes == null ) {
       if( gccjFont == null ) {
-	gccjFont = EmuUtil.readResource(
+	gccjFont = EmuUtil.readSharedResource(
 				this.screenFrm,
 				"/rom/z1013/gccjfont.bin" );
       }
@@ -171,14 +171,16 @@ public class GraphicCCJ implements GDC82720.GDCListener, GDC82720.VRAM
 
   public void screenConfigChanged( GDC82720 gdc )
   {
-    this.screenFrm.clearScreenSelection();
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    if( this.screenFrm != null ) {
+      this.screenFrm.clearScreenSelection();
+      this.screenFrm.fireUpdScreenTextActionsEnabled();
+    }
   }
 
 
   public void screenDirty( GDC82720 gdc )
   {
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -193,7 +195,7 @@ public class GraphicCCJ implements GDC82720.GDCListener, GDC82720.VRAM
   public void setVRAMWord( int addr, int value )
   {
     this.vram[ addr & 0x07FF ]= (byte) value;
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -204,4 +206,12 @@ public class GraphicCCJ implements GDC82720.GDCListener, GDC82720.VRAM
     int h = this.gdc.getDisplayLines();
     return DEFAULT_SCREEN_HEIGHT > h ? ((DEFAULT_SCREEN_HEIGHT - h) / 2) : 0;
   }
+
+
+  private void setScreenDirty()
+  {
+    if( this.screenFrm != null ) {
+      this.screenFrm.setScreenDirty( true );
+    }
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (c) 2008-2016 Jens Mueller
+ * (c) 2008-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -10,7 +10,6 @@ package jkcemu.emusys.z1013;
 
 import java.lang.*;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.emusys.Z1013;
 import z80emu.Z80PIO;
 
@@ -23,13 +22,13 @@ public class Z1013Keyboard
   private volatile int            selectedCol;
 
 
-  public Z1013Keyboard( Z80PIO z80pio )
+  public Z1013Keyboard( Z80PIO z80pio, Properties props )
   {
     this.z80pio         = z80pio;
     this.keyboardMatrix = null;
     this.fontAltEnabled = false;
     this.selectedCol    = 0;
-    applySettings( Main.getProperties() );
+    applySettings( props );
     if( this.keyboardMatrix == null ) {
       this.keyboardMatrix = new KeyboardMatrix8x4();
     }
@@ -78,6 +77,12 @@ public class Z1013Keyboard
   }
 
 
+  public int getSelectedCol()
+  {
+    return this.selectedCol;
+  }
+
+
   public void putRowValuesToPIO()
   {
     this.z80pio.putInValuePortB(
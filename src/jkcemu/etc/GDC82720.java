@@ -12,12 +12,12 @@ package jkcemu.etc;
 import java.lang.*;
 import z80emu.Z80CPU;
 import z80emu.Z80MaxSpeedListener;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class GDC82720 implements
 				Z80MaxSpeedListener,
-				Z80TStatesListener
+				Z80TStatesSkipListener
 {
   public interface GDCListener
   {
@@ -523,6 +523,24 @@ public class GDC82720 implements
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Die Taktzyklen werden hoechstens bis zum Ende
+   * der aktuellen Pixelzeile am Stueck verarbeitet.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    int rv             = Integer.MAX_VALUE;
+    int tStatesPerLine = this.tStatesPerLine;
+    if( this.screenEnabled && (tStatesPerLine > 0) ) {
+      rv = Math.max( tStatesPerLine - this.lineTStateCounter, 1 );
+    }
+    return rv;
+  }
+
+
 	/* --- Z80TStatesListener --- */
 
   @Override
@@ -31,14 +31,15 @@ import jkcemu.Main;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.FileTimesView;
 import jkcemu.base.FileTimesViewFactory;
-import z80emu.Z80InterruptSource;
+import z80emu.Z80InterruptLine;
+import z80emu.Z80InterruptLineSource;
 import z80emu.Z80PIO;
 import z80emu.Z80PIOPortListener;
 
 
 public class VDIP implements
 			Runnable,
-			Z80InterruptSource,
+			Z80InterruptLineSource,
 			Z80PIOPortListener
 {
   public static final String PROP_USB_DIR
@@ -439,6 +440,15 @@ public class VDIP implements
   }
 
 
+	/* --- Z80InterruptLineSource --- */
+
+  @Override
+  public void setInterruptLine( Z80InterruptLine line )
+  {
+    this.pio.setInterruptLine( line );
+  }
+
+
 	/* --- Z80InterruptSource --- */
 
   @Override
@@ -11,64 +11,58 @@ package jkcemu.image;
 import java.lang.*;
 import java.util.Arrays;
 import jkcemu.base.EmuUtil;
+import z80emu.Z80BulkMemory;
 import z80emu.Z80CPU;
 import z80emu.Z80Memory;
-import z80emu.Z80PCListener;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80RunResult;
 
 
-public class KC85ImgUnpacker implements
-				Z80Memory,
-				Z80PCListener,
-				Z80TStatesListener
-
+public class KC85ImgUnpacker implements Z80BulkMemory, Z80Memory
 {
-  private boolean cancelled;
-  private long    totalTStates;
-  private Z80CPU  cpu;
-  private byte[]  memory;
+  private Z80CPU cpu;
+  private byte[] memory;
 
 
   public KC85ImgUnpacker()
   {
-    this.cancelled    = false;
-    this.totalTStates = 0;
-    this.cpu          = new Z80CPU( this, null );
-    this.memory       = new byte[ 0x10000 ];
+    this.cpu    = new Z80CPU( this, null );
+    this.memory = new byte[ 0x10000 ];
     Arrays.fill( this.memory, (byte) 0xFF );
   }
 
 
+  /*
+   * Die Entpackroutine endet mit dem Sprung auf Adresse 0038h.
+   * Sie benoetigt ueblicherweise deutlich weniger
+   * als 500000 Taktzyklen.
+   * Zur Sicherheit wird nach 2 Mio. Taktzyklen abgebrochen.
+   */
   public synchronized boolean unpack( int startAddr )
   {
-    this.cancelled    = false;
-    this.totalTStates = 0;
-    this.cpu.addPCListener( this, 0x0038 );
-    this.cpu.addTStatesListener( this );
     this.cpu.setRegSP( 0x0000 );
     this.cpu.setRegPC( startAddr );
-    this.cpu.run();
-    this.cpu.removeTStatesListener( this );
-    this.cpu.removePCListener( this );
-    return !this.cancelled;
+    Z80RunResult result = this.cpu.runUntil( 0x0038, 2000000L );
+    return result.getStopReason() == Z80RunResult.StopReason.PC_REACHED;
   }
 
 
-	/* --- Z80TStatesListener --- */
+	/* --- Z80BulkMemory --- */
 
-  /*
-   * Die Entpackroutine benoetigt ueblicherweise deutlich weniger
-   * als 500000 Taktzyklen.
-   * Zur Sicherheit wird nach 2 Mio. Taktzyklen abgebrochen.
-   */
   @Override
-  public void z80TStatesProcessed( Z80CPU cpu, int tStates )
+  public int copyMemBytes( int srcAddr, int dstAddr, int len, int addValue )
   {
-    this.totalTStates += tStates;
-    if( this.totalTStates > 2000000 ) {
-      this.cancelled = true;
-      this.cpu.fireExit();
+    /*
+     * byteweise kopieren, damit sich ueberlappende Bereiche
+     * genauso wie bei LDIR bzw. LDDR verhalten
+     */
+    int b = -1;
+    for( int i = 0; i < len; i++ ) {
+      b = (int) this.memory[ srcAddr & 0xFFFF ] & 0xFF;
+      this.memory[ dstAddr & 0xFFFF ] = (byte) b;
+      srcAddr += addValue;
+      dstAddr += addValue;
     }
+    return b;
   }
 
 
@@ -107,13 +101,4 @@ public class KC85ImgUnpacker implements
   {
     setMemByte( addr, value );
   }
-
-
-	/* --- Z80PCListener --- */
-
-  @Override
-  public void z80PCChanged( Z80CPU cpu, int addr )
-  {
-    this.cpu.fireExit();
-  }
 }
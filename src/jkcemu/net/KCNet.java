@@ -1,5 +1,5 @@
 /*
- * (c) 2011-2016 Jens Mueller
+ * (c) 2011-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -12,18 +12,19 @@ import java.lang.*;
 import java.util.Arrays;
 import jkcemu.Main;
 import z80emu.Z80CPU;
-import z80emu.Z80InterruptSource;
+import z80emu.Z80InterruptLine;
+import z80emu.Z80InterruptLineSource;
 import z80emu.Z80MaxSpeedListener;
 import z80emu.Z80PIO;
 import z80emu.Z80PIOPortListener;
-import z80emu.Z80TStatesListener;
+import z80emu.Z80TStatesSkipListener;
 
 
 public class KCNet implements
-			Z80InterruptSource,
+			Z80InterruptLineSource,
 			Z80MaxSpeedListener,
 			Z80PIOPortListener,
-			Z80TStatesListener
+			Z80TStatesSkipListener
 {
   public static final String PROP_PREFIX      = "jkcemu.kcnet.";
   public static final String PROP_AUTOCONFIG  = "auto_config";
@@ -90,7 +91,7 @@ public class KCNet implements
 			Command.READ_ID,		// 12
 			Command.READ_ERROR_CNT };	// 13
 
-  private static byte[] idBytes = null;
+  private static volatile byte[] idBytes = null;
 
   private String   title;
   private Command  cmd;
@@ -209,6 +210,15 @@ public class KCNet implements
   }
 
 
+	/* --- Z80InterruptLineSource --- */
+
+  @Override
+  public void setInterruptLine( Z80InterruptLine line )
+  {
+    this.pio.setInterruptLine( line );
+  }
+
+
 	/* --- Z80InterruptSource --- */
 
   @Override
@@ -297,6 +307,24 @@ public class KCNet implements
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Der Taktzyklenzaehler laeuft nur durch
+   * und wird erst beim Lesen benoetigt.
+   * Ein Ereignis ist deshalb nur der Ablauf der Zeitueberwachung.
+   */
+  @Override
+  public synchronized int getTStatesToNextEvent()
+  {
+    long rv = Integer.MAX_VALUE;
+    if( (this.tStatesCounterWrap > 0) && (this.tStatesToTimeout > 0) ) {
+      rv = Math.min( rv, this.tStatesToTimeout );
+    }
+    return (int) rv;
+  }
+
+
 	/* --- Z80TStatesListener --- */
 
   @Override
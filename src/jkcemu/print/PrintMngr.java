@@ -24,13 +24,15 @@ public class PrintMngr extends AbstractTableModel
   private int                       nextEntryNum;
   private java.util.List<PrintData> entries;
   private PrintData                 activeEntry;
+  private volatile boolean          outputSuppressed;
 
 
   public PrintMngr()
   {
-    this.nextEntryNum = 1;
-    this.entries      = new ArrayList<>();
-    this.activeEntry  = null;
+    this.nextEntryNum     = 1;
+    this.entries          = new ArrayList<>();
+    this.activeEntry      = null;
+    this.outputSuppressed = false;
   }
 
 
@@ -67,16 +69,18 @@ public class PrintMngr extends AbstractTableModel
 
   public void putByte( int b )
   {
-    boolean lastRowOnly = true;
-    synchronized( this.entries ) {
-      if( this.activeEntry == null ) {
-	this.activeEntry = new PrintData( this.nextEntryNum++ );
-	this.entries.add( this.activeEntry );
-	lastRowOnly = false;
+    if( !this.outputSuppressed ) {
+      boolean lastRowOnly = true;
+      synchronized( this.entries ) {
+	if( this.activeEntry == null ) {
+	  this.activeEntry = new PrintData( this.nextEntryNum++ );
+	  this.entries.add( this.activeEntry );
+	  lastRowOnly = false;
+	}
+	this.activeEntry.putByte( b );
       }
-      this.activeEntry.putByte( b );
+      fireDataChanged( lastRowOnly );
     }
-    fireDataChanged( lastRowOnly );
   }
 
 
@@ -111,6 +115,17 @@ public class PrintMngr extends AbstractTableModel
   }
 
 
+  /*
+   * Solange die Ausgabe unterdrueckt ist, werden alle Bytes verworfen,
+   * z.B. bei der Wiederholung eines Programmablaufs
+   * durch die Rueckwaertsausfuehrung im Debugger.
+   */
+  public void setOutputSuppressed( boolean state )
+  {
+    this.outputSuppressed = state;
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -45,6 +45,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
@@ -85,15 +86,18 @@ import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.HelpFrm;
 import jkcemu.base.ReplyIntDlg;
+import jkcemu.base.ReverseExecMngr;
 import jkcemu.text.TextUtil;
 import jkcemu.tools.ToolsUtil;
 import z80emu.Z80Breakpoint;
 import z80emu.Z80CPU;
 import z80emu.Z80InterruptSource;
 import z80emu.Z80Memory;
+import z80emu.Z80Profiler;
 import z80emu.Z80ReassInstr;
 import z80emu.Z80Reassembler;
 import z80emu.Z80StatusListener;
+import z80emu.Z80TraceBuffer;
 
 
 public class DebugFrm extends BaseFrm implements
@@ -141,6 +145,10 @@ public class DebugFrm extends BaseFrm implements
 			= "Einzelschritt \u00FCber Aufruf hinweg";
   private static final String TEXT_STEP_INTO
 			= "Einzelschritt in Aufruf hinein";
+  private static final String TEXT_STEP_BACK
+			= "Einzelschritt zur\u00FCck";
+  private static final String TEXT_RUN_BACK
+			= "Zur\u00FCck bis zum vorherigen Haltepunkt";
   private static final String TEXT_STEP_TO_RET
 			= "Bis RET ausf\u00FChren";
 
@@ -189,6 +197,9 @@ public class DebugFrm extends BaseFrm implements
 
   private static final int DEFAULT_MAX_LOG_CNT = 500;
 
+  // Anzahl der Befehle im Ringpuffer der binaeren Aufzeichnung
+  private static final int DEFAULT_BIN_TRACE_CAPACITY = 1000000;
+
   private EmuThread                 emuThread;
   private Z80CPU                    cpu;
   private Z80Memory                 memory;
@@ -209,6 +220,12 @@ public class DebugFrm extends BaseFrm implements
   private File                      lastBreakpointFile;
   private File                      lastTraceFile;
   private PrintWriter               traceWriter;
+  private Z80Profiler               profiler;
+  private Z80TraceBuffer            binTraceBuf;
+  private File                      lastBinTraceFile;
+  private int                       binTraceCapacity;
+  private ReverseExecMngr           reverseExecMngr;
+  private int                       reverseIntervalMillis;
   private int                       popupBreakGroupIdx;
   private JMenuItem                 mnuFileClose;
   private JMenuItem                 mnuFileBreakImport;
@@ -223,6 +240,8 @@ public class DebugFrm extends BaseFrm implements
   private JMenuItem                 mnuDebugStepOver;
   private JMenuItem                 mnuDebugStepInto;
   private JMenuItem                 mnuDebugStepToRET;
+  private JMenuItem                 mnuDebugStepBack;
+  private JMenuItem                 mnuDebugRunBack;
   private JMenuItem                 mnuDebugBreakInterruptAdd;
   private JMenuItem                 mnuDebugBreakInputAdd;
   private JMenuItem                 mnuDebugBreakOutputAdd;
@@ -240,6 +259,11 @@ public class DebugFrm extends BaseFrm implements
   private JMenuItem                 mnuDebugBreakRemove;
   private JMenuItem                 mnuDebugBreakRemoveAll;
   private JCheckBoxMenuItem         mnuDebugTracer;
+  private JCheckBoxMenuItem         mnuDebugBinTracer;
+  private JMenuItem                 mnuDebugBinTraceView;
+  private JCheckBoxMenuItem         mnuDebugProfiler;
+  private JMenuItem                 mnuDebugProfilerSave;
+  private JCheckBoxMenuItem         mnuDebugReverse;
   private JMenuItem                 mnuVarAdd;
   private JMenuItem                 mnuVarEdit;
   private JMenuItem                 mnuVarRemove;
@@ -364,6 +388,12 @@ public class DebugFrm extends BaseFrm implements
     this.lastBreakpointFile        = null;
     this.lastTraceFile             = null;
     this.traceWriter               = null;
+    this.profiler                  = null;
+    this.binTraceBuf               = null;
+    this.lastBinTraceFile          = null;
+    this.binTraceCapacity          = DEFAULT_BIN_TRACE_CAPACITY;
+    this.reverseExecMngr           = null;
+    this.reverseIntervalMillis     = ReverseExecMngr.DEFAULT_INTERVAL_MILLIS;
     this.bpDlg                     = null;
     this.bpModels                  = new BreakpointListModel[ BP_GROUP_CNT ];
     this.bpLists                   = new BreakpointList[ BP_GROUP_CNT ];
@@ -444,6 +474,20 @@ public class DebugFrm extends BaseFrm implements
 					KeyEvent.VK_F8,
 					0 );
     mnuDebug.add( this.mnuDebugStepToRET );
+
+    this.mnuDebugStepBack = createJMenuItem(
+					TEXT_STEP_BACK,
+					KeyEvent.VK_F7,
+					InputEvent.SHIFT_MASK );
+    this.mnuDebugStepBack.setEnabled( false );
+    mnuDebug.add( this.mnuDebugStepBack );
+
+    this.mnuDebugRunBack = createJMenuItem(
+					TEXT_RUN_BACK,
+					KeyEvent.VK_F5,
+					InputEvent.SHIFT_MASK );
+    this.mnuDebugRunBack.setEnabled( false );
+    mnuDebug.add( this.mnuDebugRunBack );
     mnuDebug.addSeparator();
 
     this.mnuDebugBreakPCAdd = createJMenuItem(
@@ -521,6 +565,40 @@ public class DebugFrm extends BaseFrm implements
     this.mnuDebugTracer.addActionListener( this );
     mnuDebug.add( this.mnuDebugTracer );
 
+    this.mnuDebugBinTracer = new JCheckBoxMenuItem(
+			"Letzte Befehle bin\u00E4r aufzeichnen" );
+    this.mnuDebugBinTracer.setSelected( false );
+    this.mnuDebugBinTracer.addActionListener( this );
+    mnuDebug.add( this.mnuDebugBinTracer );
+
+    this.mnuDebugBinTraceView = createJMenuItem(
+			"Bin\u00E4re Befehlsaufzeichnung anzeigen..." );
+    mnuDebug.add( this.mnuDebugBinTraceView );
+
+    this.mnuDebugProfiler = new JCheckBoxMenuItem( "Laufzeitanalyse" );
+    this.mnuDebugProfiler.setSelected( false );
+    this.mnuDebugProfiler.addActionListener( this );
+    mnuDebug.add( this.mnuDebugProfiler );
+
+    this.mnuDebugProfilerSave = createJMenuItem(
+				"Ergebnis der Laufzeitanalyse speichern..." );
+    this.mnuDebugProfilerSave.setEnabled( false );
+    mnuDebug.add( this.mnuDebugProfilerSave );
+    mnuDebug.addSeparator();
+
+    /*
+     * Die Rueckwaertsausfuehrung sichert den Zustand des gesamten
+     * emulierten Systems und steht deshalb nur
+     * fuer die Haupt-CPU zur Verfuegung.
+     */
+    this.mnuDebugReverse = new JCheckBoxMenuItem(
+			"R\u00FCckw\u00E4rtsausf\u00FChrung erm\u00F6glichen" );
+    this.mnuDebugReverse.setSelected( false );
+    this.mnuDebugReverse.setEnabled(
+			(emuThread != null) && (emuThread.getZ80CPU() == cpu) );
+    this.mnuDebugReverse.addActionListener( this );
+    mnuDebug.add( this.mnuDebugReverse );
+
 
     // Menu Log-Meldungen
     JMenu mnuLog = new JMenu( "Log-Meldungen" );
@@ -1754,6 +1832,34 @@ public class DebugFrm extends BaseFrm implements
 	rv = true;
 	doDebugTracer();
       }
+      else if( src == this.mnuDebugBinTracer ) {
+	rv = true;
+	doDebugBinTracer();
+      }
+      else if( src == this.mnuDebugBinTraceView ) {
+	rv = true;
+	doDebugBinTraceView();
+      }
+      else if( src == this.mnuDebugProfiler ) {
+	rv = true;
+	doDebugProfiler();
+      }
+      else if( src == this.mnuDebugProfilerSave ) {
+	rv = true;
+	doDebugProfilerSave();
+      }
+      else if( src == this.mnuDebugReverse ) {
+	rv = true;
+	doDebugReverse();
+      }
+      else if( src == this.mnuDebugStepBack ) {
+	rv = true;
+	doDebugStepBack();
+      }
+      else if( src == this.mnuDebugRunBack ) {
+	rv = true;
+	doDebugRunBack();
+      }
       else if( (src == this.mnuVarAdd)
 	       || (src == this.popupVarAdd) )
       {
@@ -1976,6 +2082,9 @@ public class DebugFrm extends BaseFrm implements
   public boolean doClose()
   {
     closeTrace();
+    closeBinTrace();
+    stopReverseExec();
+    this.cpu.setProfiler( null );
     this.cpu.setDebugEnabled( false );
     return super.doClose();
   }
@@ -2530,6 +2639,276 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void doDebugBinTracer()
+  {
+    if( this.mnuDebugBinTracer.isSelected() ) {
+      // Menueintrag ersteinmal ausschalten, falls ein Fehler
+      // auftritt oder die Aktion abgebrochen wird.
+      this.mnuDebugBinTracer.setSelected( false );
+
+      ReplyIntDlg dlg = new ReplyIntDlg(
+			this,
+			"Anzahl der letzten Befehle,\n"
+				+ "die aufgezeichnet bleiben sollen:",
+			this.binTraceCapacity,
+			1000,
+			Z80TraceBuffer.MAX_CAPACITY );
+      dlg.setVisible( true );
+      Integer capacity = dlg.getReply();
+      if( capacity != null ) {
+	File file = EmuUtil.showFileSaveDlg(
+			this,
+			"Bin\u00E4re Befehlsaufzeichnung speichern",
+			this.lastBinTraceFile != null ?
+				this.lastBinTraceFile
+				: Main.getLastDirFile( Main.FILE_GROUP_DEBUG ) );
+	if( file != null ) {
+	  try {
+	    this.binTraceBuf = Z80TraceBuffer.createFile(
+						file,
+						capacity.intValue() );
+	    this.cpu.setTraceBuffer( this.binTraceBuf );
+	    this.mnuDebugBinTracer.setSelected( true );
+	    this.binTraceCapacity = capacity.intValue();
+	    this.lastBinTraceFile = file;
+	    Main.setLastFile( file, Main.FILE_GROUP_DEBUG );
+	  }
+	  catch( IOException ex ) {
+	    this.binTraceBuf = null;
+	    BaseDlg.showErrorDlg(
+		this,
+		"Die Datei f\u00FCr die bin\u00E4re Befehlsaufzeichnung\n"
+			+ "kann nicht angelegt werden.\n\n"
+			+ ex.getMessage() );
+	  }
+	}
+      }
+    } else {
+      closeBinTrace();
+    }
+  }
+
+
+  /*
+   * Eine laufende Aufzeichnung wird vor dem Anzeigen beendet,
+   * da sonst die angezeigten Eintraege ueberschrieben wuerden.
+   */
+  private void doDebugBinTraceView()
+  {
+    if( this.binTraceBuf != null ) {
+      closeBinTrace();
+      this.mnuDebugBinTracer.setSelected( false );
+    }
+    TraceViewFrm.open( this.lastBinTraceFile );
+  }
+
+
+  /*
+   * Beim Einschalten der Laufzeitanalyse wird mit neuen Zaehlern
+   * begonnen, beim Ausschalten bleiben die Zaehler fuer das
+   * Speichern des Ergebnisses erhalten.
+   */
+  private void doDebugProfiler()
+  {
+    if( this.mnuDebugProfiler.isSelected() ) {
+      this.profiler = new Z80Profiler();
+      this.cpu.setProfiler( this.profiler );
+      this.mnuDebugProfilerSave.setEnabled( true );
+    } else {
+      this.cpu.setProfiler( null );
+    }
+  }
+
+
+  private void doDebugProfilerSave()
+  {
+    Z80Profiler profiler = this.profiler;
+    if( profiler != null ) {
+      File file = EmuUtil.showFileSaveDlg(
+			this,
+			"Ergebnis der Laufzeitanalyse speichern",
+			Main.getLastDirFile( Main.FILE_GROUP_DEBUG ),
+			EmuUtil.getTextFileFilter() );
+      if( file != null ) {
+
+	// importierte Marken als Namen der Routinen verwenden
+	Map<Integer,String> labels = new TreeMap<>();
+	BreakpointListModel model  = this.bpModels[ BP_PC_IDX ];
+	int                 nBPs   = model.size();
+	for( int i = 0; i < nBPs; i++ ) {
+	  AbstractBreakpoint bp = model.get( i );
+	  if( bp instanceof LabelBreakpoint ) {
+	    String labelName = ((LabelBreakpoint) bp).getLabelName();
+	    if( labelName != null ) {
+	      if( !labelName.isEmpty() ) {
+		labels.put( ((LabelBreakpoint) bp).getAddress(), labelName );
+	      }
+	    }
+	  }
+	}
+
+	PrintWriter out = null;
+	try {
+	  out = new PrintWriter(
+			new BufferedWriter( new FileWriter( file ) ) );
+	  profiler.writeFlatProfile( out, labels );
+	  out.flush();
+	  if( out.checkError() ) {
+	    throw new IOException( "Die Datei konnte nicht geschrieben"
+							+ " werden." );
+	  }
+	  Main.setLastFile( file, Main.FILE_GROUP_DEBUG );
+	}
+	catch( IOException ex ) {
+	  BaseDlg.showErrorDlg( this, ex );
+	}
+	finally {
+	  EmuUtil.closeSilent( out );
+	}
+      }
+    }
+  }
+
+
+  /*
+   * Beim Einschalten wird der Abstand der gesicherten Zustaende
+   * abgefragt. Je kleiner er ist, umso schneller geht das Zurueckgehen,
+   * umso mehr Speicher wird aber auch benoetigt.
+   */
+  private void doDebugReverse()
+  {
+    if( this.mnuDebugReverse.isSelected() ) {
+      // Menueintrag ersteinmal ausschalten, falls ein Fehler
+      // auftritt oder die Aktion abgebrochen wird.
+      this.mnuDebugReverse.setSelected( false );
+
+      ReplyIntDlg dlg = new ReplyIntDlg(
+			this,
+			"Abstand der gesicherten Zust\u00E4nde\n"
+				+ "in Millisekunden (emulierte Zeit):",
+			this.reverseIntervalMillis,
+			ReverseExecMngr.MIN_INTERVAL_MILLIS,
+			ReverseExecMngr.MAX_INTERVAL_MILLIS );
+      dlg.setVisible( true );
+      Integer millis = dlg.getReply();
+      if( (millis != null) && (this.emuThread != null) ) {
+	ReverseExecMngr mngr = new ReverseExecMngr(
+					this.emuThread,
+					millis.intValue() );
+	try {
+	  mngr.start();
+	  this.reverseExecMngr       = mngr;
+	  this.reverseIntervalMillis = millis.intValue();
+	  this.mnuDebugReverse.setSelected( true );
+	}
+	catch( IOException ex ) {
+	  mngr.stop();
+	  BaseDlg.showErrorDlg(
+		this,
+		"Die R\u00FCckw\u00E4rtsausf\u00FChrung kann nicht"
+			+ " eingeschaltet werden.\n\n"
+			+ ex.getMessage() );
+	}
+      }
+    } else {
+      stopReverseExec();
+    }
+    boolean stopped = (this.cpu.isPause() && (this.walkMillis == 0));
+    this.mnuDebugStepBack.setEnabled(
+			stopped && (this.reverseExecMngr != null) );
+    this.mnuDebugRunBack.setEnabled(
+			stopped && (this.reverseExecMngr != null) );
+  }
+
+
+  /*
+   * Beim Zurueckgehen werden nur die Haltepunkte beruecksichtigt,
+   * bei denen das Anhalten eingeschaltet ist.
+   * Log-Meldungen werden dabei nicht erzeugt.
+   */
+  private void doDebugRunBack()
+  {
+    ReverseExecMngr mngr = this.reverseExecMngr;
+    if( mngr != null ) {
+      final java.util.List<AbstractBreakpoint> bps = new ArrayList<>();
+      for( BreakpointListModel model : this.bpModels ) {
+	if( model != null ) {
+	  for( AbstractBreakpoint bp : model ) {
+	    if( bp.isStopEnabled() ) {
+	      bps.add( bp );
+	    }
+	  }
+	}
+      }
+      if( bps.isEmpty() ) {
+	BaseDlg.showErrorDlg(
+		this,
+		"Es ist kein Haltepunkt zum Anhalten eingeschaltet." );
+      } else {
+	Z80Breakpoint condition = new Z80Breakpoint()
+		{
+		  @Override
+		  public boolean matches(
+				Z80CPU             cpu,
+				Z80InterruptSource iSource )
+		  {
+		    boolean rv = false;
+		    for( AbstractBreakpoint bp : bps ) {
+		      if( bp.matchesImpl( cpu, iSource ) ) {
+			rv = true;
+			break;
+		      }
+		    }
+		    return rv;
+		  }
+		};
+	try {
+	  setWaitCursor( true );
+	  if( mngr.runBackToBreakpoint( condition ) ) {
+	    updDebuggerInternal( null, null );
+	    this.labelStatus.setText(
+			"Bis zum vorherigen Haltepunkt zur\u00FCckgegangen" );
+	  } else {
+	    this.labelStatus.setText(
+			"Im aufgezeichneten Zeitraum wurde"
+				+ " kein Haltepunkt erreicht" );
+	  }
+	}
+	catch( IOException ex ) {
+	  BaseDlg.showErrorDlg( this, ex );
+	}
+	finally {
+	  setWaitCursor( false );
+	}
+      }
+    }
+  }
+
+
+  private void doDebugStepBack()
+  {
+    ReverseExecMngr mngr = this.reverseExecMngr;
+    if( mngr != null ) {
+      try {
+	setWaitCursor( true );
+	if( mngr.stepBack() ) {
+	  updDebuggerInternal( null, null );
+	  this.labelStatus.setText( "Einen Befehl zur\u00FCckgegangen" );
+	} else {
+	  this.labelStatus.setText(
+			"Kein fr\u00FCherer Zustand aufgezeichnet" );
+	}
+      }
+      catch( IOException ex ) {
+	BaseDlg.showErrorDlg( this, ex );
+      }
+      finally {
+	setWaitCursor( false );
+      }
+    }
+  }
+
+
   private void doDebugTracer()
   {
     if( this.mnuDebugTracer.isSelected() ) {
@@ -2875,6 +3254,26 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void closeBinTrace()
+  {
+    Z80TraceBuffer traceBuf = this.binTraceBuf;
+    if( traceBuf != null ) {
+      this.cpu.setTraceBuffer( null );
+      this.binTraceBuf = null;
+      try {
+	traceBuf.close();
+      }
+      catch( IOException ex ) {
+	BaseDlg.showErrorDlg(
+		this,
+		"Die bin\u00E4re Befehlsaufzeichnung konnte nicht\n"
+			+ "vollst\u00E4ndig geschrieben werden.\n\n"
+			+ ex.getMessage() );
+      }
+    }
+  }
+
+
   private void closeTrace()
   {
     if( this.traceWriter != null ) {
@@ -3479,6 +3878,8 @@ public class DebugFrm extends BaseFrm implements
     this.mnuDebugStepOver.setEnabled( false );
     this.mnuDebugStepInto.setEnabled( false );
     this.mnuDebugStepToRET.setEnabled( false );
+    this.mnuDebugStepBack.setEnabled( false );
+    this.mnuDebugRunBack.setEnabled( false );
     this.btnRun.setEnabled( false );
     this.btnWalk.setEnabled( false );
     this.popupWalk100.setEnabled( false );
@@ -3506,6 +3907,8 @@ public class DebugFrm extends BaseFrm implements
     this.mnuDebugStepOver.setEnabled( false );
     this.mnuDebugStepInto.setEnabled( false );
     this.mnuDebugStepToRET.setEnabled( false );
+    this.mnuDebugStepBack.setEnabled( false );
+    this.mnuDebugRunBack.setEnabled( false );
     this.btnRun.setEnabled( false );
     this.btnWalk.setEnabled( true );
     this.popupWalk100.setEnabled( true );
@@ -3555,6 +3958,10 @@ public class DebugFrm extends BaseFrm implements
     this.mnuDebugStepOver.setEnabled( stopped );
     this.mnuDebugStepInto.setEnabled( stopped );
     this.mnuDebugStepToRET.setEnabled( stopped );
+    this.mnuDebugStepBack.setEnabled(
+			stopped && (this.reverseExecMngr != null) );
+    this.mnuDebugRunBack.setEnabled(
+			stopped && (this.reverseExecMngr != null) );
 
     this.btnRun.setEnabled( true );
     this.btnWalk.setEnabled( true );
@@ -3634,6 +4041,17 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void stopReverseExec()
+  {
+    ReverseExecMngr mngr = this.reverseExecMngr;
+    if( mngr != null ) {
+      this.reverseExecMngr = null;
+      mngr.stop();
+    }
+    this.mnuDebugReverse.setSelected( false );
+  }
+
+
   private void updBreakpointActionsEnabled()
   {
     boolean hasEntries      = false;
@@ -3732,7 +4150,9 @@ public class DebugFrm extends BaseFrm implements
 	if( bpToSelect != null ) {
 	  EmuUtil.fireSelectRow( this.bpLists[ bpGroupIdx ], bpToSelect );
 	}
-	java.util.List<Z80Breakpoint> list = null;
+	java.util.List<Z80Breakpoint> list      = null;
+	long[]                        readBits  = null;
+	long[]                        writeBits = null;
 	for( int i = 0; i < this.bpModels.length; i++ ) {
 	  BreakpointListModel model = this.bpModels[ i ];
 	  if( model != null ) {
@@ -3746,6 +4166,15 @@ public class DebugFrm extends BaseFrm implements
 		    }
 		    list.add( (Z80Breakpoint) bp );
 		  }
+		  if( bp instanceof MemoryBreakpoint ) {
+		    if( readBits == null ) {
+		      readBits  = new long[ Z80CPU.MEM_WATCH_BITMAP_SIZE ];
+		      writeBits = new long[ Z80CPU.MEM_WATCH_BITMAP_SIZE ];
+		    }
+		    ((MemoryBreakpoint) bp).markWatchedAddresses(
+							readBits,
+							writeBits );
+		  }
 		}
 		if( bp instanceof LabelBreakpoint ) {
 		  hasImported = true;
@@ -3754,6 +4183,7 @@ public class DebugFrm extends BaseFrm implements
 	    }
 	  }
 	}
+	this.cpu.setMemWatchBitmaps( readBits, writeBits );
 	this.cpu.setBreakpoints( list != null ?
 		list.toArray( new Z80Breakpoint[ list.size() ] )
 		: null );
@@ -1,5 +1,5 @@
 /*
- * (c) 2011-2016 Jens Mueller
+ * (c) 2011-2017 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -11,9 +11,12 @@ package jkcemu.tools.debugger;
 import java.lang.*;
 import z80emu.Z80CPU;
 import z80emu.Z80InterruptSource;
+import z80emu.Z80PCBreakpoint;
 
 
-public class PCBreakpoint extends AbstractBreakpoint
+public class PCBreakpoint
+			extends AbstractBreakpoint
+			implements Z80PCBreakpoint
 {
   private int     addr;
   private String  reg;
@@ -116,6 +119,15 @@ public class PCBreakpoint extends AbstractBreakpoint
   }
 
 
+	/* --- Z80PCBreakpoint --- */
+
+  @Override
+  public int getBreakPC()
+  {
+    return this.addr;
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
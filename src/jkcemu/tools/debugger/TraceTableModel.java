@@ -0,0 +1,278 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Tabellenmodell fuer die binaere Befehlsaufzeichnung
+ *
+ * Die Eintraege werden erst bei der Anzeige aus der Aufzeichnung
+ * gelesen und reassembliert,
+ * weshalb auch Aufzeichnungen mit mehreren Millionen Befehlen
+ * ohne Wartezeit angezeigt werden koennen.
+ */
+
+package jkcemu.tools.debugger;
+
+import java.lang.*;
+import javax.swing.table.AbstractTableModel;
+import z80emu.Z80ReassInstr;
+import z80emu.Z80Reassembler;
+import z80emu.Z80TraceBuffer;
+import z80emu.Z80TraceRecord;
+
+
+public class TraceTableModel extends AbstractTableModel
+{
+  public static final int COL_NUM       = 0;
+  public static final int COL_TSTATES   = 1;
+  public static final int COL_INTERRUPT = 2;
+  public static final int COL_PC        = 3;
+  public static final int COL_BYTES     = 4;
+  public static final int COL_INST      = 5;
+  public static final int COL_AF        = 6;
+  public static final int COL_FLAGS     = 7;
+  public static final int COL_BC        = 8;
+  public static final int COL_DE        = 9;
+  public static final int COL_HL        = 10;
+  public static final int COL_IX        = 11;
+  public static final int COL_IY        = 12;
+  public static final int COL_SP        = 13;
+
+  private static final String[] colNames = {
+					"Nr.",
+					"Taktzyklen",
+					"Int.",
+					"PC",
+					"Bytes",
+					"Befehl",
+					"AF",
+					"Flags",
+					"BC",
+					"DE",
+					"HL",
+					"IX",
+					"IY",
+					"SP" };
+
+  private Z80TraceBuffer traceBuf;
+  private Z80TraceRecord record;
+  private Z80ReassInstr  instr;
+  private int            recordIdx;
+
+
+  public TraceTableModel()
+  {
+    this.traceBuf  = null;
+    this.record    = new Z80TraceRecord();
+    this.instr     = null;
+    this.recordIdx = -1;
+  }
+
+
+  public Z80TraceBuffer getTraceBuffer()
+  {
+    return this.traceBuf;
+  }
+
+
+  public void setTraceBuffer( Z80TraceBuffer traceBuf )
+  {
+    this.traceBuf  = traceBuf;
+    this.instr     = null;
+    this.recordIdx = -1;
+    fireTableDataChanged();
+  }
+
+
+  /*
+   * Erzeugen einer Textzeile fuer einen Eintrag,
+   * wie sie auch die textuelle Befehlsaufzeichnung schreibt
+   */
+  public String createTextLine( int row )
+  {
+    StringBuilder buf = new StringBuilder( 128 );
+    if( loadRecord( row ) ) {
+      Z80TraceRecord rec = this.record;
+      switch( rec.getMarker() ) {
+	case Z80TraceRecord.MARKER_NMI:
+	  buf.append( "--- NMI ---\n" );
+	  break;
+	case Z80TraceRecord.MARKER_INTERRUPT:
+	  buf.append( "--- Interrupt ---\n" );
+	  break;
+      }
+      buf.append( String.format(
+		"%12d  AF=%04X [%s] BC=%04X DE=%04X HL=%04X"
+			+ " IX=%04X IY=%04X SP=%04X   PC=%04X  %-12s%s",
+		rec.getTStates(),
+		rec.getRegAF(),
+		getValueAt( row, COL_FLAGS ),
+		rec.getRegBC(),
+		rec.getRegDE(),
+		rec.getRegHL(),
+		rec.getRegIX(),
+		rec.getRegIY(),
+		rec.getRegSP(),
+		rec.getPC(),
+		getValueAt( row, COL_BYTES ),
+		getValueAt( row, COL_INST ) ) );
+    }
+    return buf.toString();
+  }
+
+
+	/* --- TableModel --- */
+
+  @Override
+  public Class<?> getColumnClass( int col )
+  {
+    return (col == COL_NUM) || (col == COL_TSTATES) ?
+						Long.class
+						: String.class;
+  }
+
+
+  @Override
+  public int getColumnCount()
+  {
+    return colNames.length;
+  }
+
+
+  @Override
+  public String getColumnName( int col )
+  {
+    return (col >= 0) && (col < colNames.length) ? colNames[ col ] : "";
+  }
+
+
+  @Override
+  public int getRowCount()
+  {
+    return this.traceBuf != null ? this.traceBuf.getAvailableCount() : 0;
+  }
+
+
+  @Override
+  public Object getValueAt( int row, int col )
+  {
+    Object rv = null;
+    if( loadRecord( row ) ) {
+      Z80TraceRecord rec = this.record;
+      switch( col ) {
+	case COL_NUM:
+	  rv = rec.getSeqNum();
+	  break;
+	case COL_TSTATES:
+	  rv = rec.getTStates();
+	  break;
+	case COL_INTERRUPT:
+	  switch( rec.getMarker() ) {
+	    case Z80TraceRecord.MARKER_NMI:
+	      rv = "NMI";
+	      break;
+	    case Z80TraceRecord.MARKER_INTERRUPT:
+	      rv = "INT";
+	      break;
+	  }
+	  break;
+	case COL_PC:
+	  rv = String.format( "%04X", rec.getPC() );
+	  break;
+	case COL_BYTES:
+	  {
+	    int n = (this.instr != null ? this.instr.getLength() : 1);
+	    StringBuilder buf = new StringBuilder( 12 );
+	    for( int i = 0; i < n; i++ ) {
+	      if( i > 0 ) {
+		buf.append( ' ' );
+	      }
+	      buf.append( String.format( "%02X", rec.getInstByte( i ) ) );
+	    }
+	    rv = buf.toString();
+	  }
+	  break;
+	case COL_INST:
+	  if( this.instr != null ) {
+	    String name = this.instr.getName();
+	    if( name != null ) {
+	      String arg1 = this.instr.getArg1();
+	      if( arg1 != null ) {
+		String arg2 = this.instr.getArg2();
+		if( arg2 != null ) {
+		  rv = String.format( "%-8s%s,%s", name, arg1, arg2 );
+		} else {
+		  rv = String.format( "%-8s%s", name, arg1 );
+		}
+	      } else {
+		rv = name;
+	      }
+	    }
+	  }
+	  break;
+	case COL_AF:
+	  rv = String.format( "%04X", rec.getRegAF() );
+	  break;
+	case COL_FLAGS:
+	  {
+	    int f = rec.getRegAF() & 0xFF;
+	    rv = String.format(
+			"%c%c%c%c%c%c%c%c",
+			(f & 0x80) != 0 ? 'S' : '.',
+			(f & 0x40) != 0 ? 'Z' : '.',
+			(f & 0x20) != 0 ? '1' : '.',
+			(f & 0x10) != 0 ? 'H' : '.',
+			(f & 0x08) != 0 ? '1' : '.',
+			(f & 0x04) != 0 ? 'P' : '.',
+			(f & 0x02) != 0 ? 'N' : '.',
+			(f & 0x01) != 0 ? 'C' : '.' );
+	  }
+	  break;
+	case COL_BC:
+	  rv = String.format( "%04X", rec.getRegBC() );
+	  break;
+	case COL_DE:
+	  rv = String.format( "%04X", rec.getRegDE() );
+	  break;
+	case COL_HL:
+	  rv = String.format( "%04X", rec.getRegHL() );
+	  break;
+	case COL_IX:
+	  rv = String.format( "%04X", rec.getRegIX() );
+	  break;
+	case COL_IY:
+	  rv = String.format( "%04X", rec.getRegIY() );
+	  break;
+	case COL_SP:
+	  rv = String.format( "%04X", rec.getRegSP() );
+	  break;
+      }
+    }
+    return rv;
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Da eine Tabellenzeile spaltenweise abgefragt wird,
+   * wird der zuletzt gelesene Eintrag zwischengespeichert.
+   */
+  private boolean loadRecord( int row )
+  {
+    boolean rv = false;
+    if( (this.traceBuf != null)
+	&& (row >= 0) && (row < this.traceBuf.getAvailableCount()) )
+    {
+      if( row != this.recordIdx ) {
+	this.traceBuf.readRecord( row, this.record );
+	this.instr     = Z80Reassembler.reassInstruction(
+						this.record,
+						this.record.getPC() );
+	this.recordIdx = row;
+      }
+      rv = true;
+    }
+    return rv;
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Fenster zum Anzeigen einer binaeren Befehlsaufzeichnung
+ *
+ * Die Aufzeichnung wird unabhaengig vom laufenden Emulator
+ * aus einer Datei gelesen und erst bei der Anzeige reassembliert.
+ */
+
+package jkcemu.tools.debugger;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.Frame;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.*;
+import java.util.EventObject;
+import javax.swing.JLabel;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import jkcemu.Main;
+import jkcemu.base.BaseDlg;
+import jkcemu.base.BaseFrm;
+import jkcemu.base.EmuUtil;
+import jkcemu.base.HelpFrm;
+import z80emu.Z80TraceBuffer;
+
+
+public class TraceViewFrm extends BaseFrm
+{
+  private static final String HELP_PAGE = "/help/tools/debugger.htm";
+
+  private static TraceViewFrm instance = null;
+
+  private JMenuItem       mnuOpen;
+  private JMenuItem       mnuSaveText;
+  private JMenuItem       mnuClose;
+  private JMenuItem       mnuHelpContent;
+  private JTable          table;
+  private TraceTableModel tableModel;
+  private JLabel          labelStatus;
+
+
+  public static TraceViewFrm open()
+  {
+    if( instance != null ) {
+      if( instance.getExtendedState() == Frame.ICONIFIED ) {
+	instance.setExtendedState( Frame.NORMAL );
+      }
+    } else {
+      instance = new TraceViewFrm();
+    }
+    instance.setVisible( true );
+    instance.toFront();
+    return instance;
+  }
+
+
+  public static TraceViewFrm open( File file )
+  {
+    TraceViewFrm frm = open();
+    if( file != null ) {
+      frm.openFile( file );
+    }
+    return frm;
+  }
+
+
+	/* --- ueberschriebene Methoden --- */
+
+  @Override
+  protected boolean doAction( EventObject e )
+  {
+    boolean rv = false;
+    if( e != null ) {
+      Object src = e.getSource();
+      if( src == this.mnuOpen ) {
+	rv = true;
+	doOpen();
+      }
+      else if( src == this.mnuSaveText ) {
+	rv = true;
+	doSaveText();
+      }
+      else if( src == this.mnuClose ) {
+	rv = true;
+	doClose();
+      }
+      else if( src == this.mnuHelpContent ) {
+	rv = true;
+	HelpFrm.open( HELP_PAGE );
+      }
+    }
+    return rv;
+  }
+
+
+  @Override
+  public boolean doClose()
+  {
+    boolean rv = super.doClose();
+    if( rv ) {
+      closeTraceBuffer();
+      instance = null;
+    }
+    return rv;
+  }
+
+
+	/* --- Aktionen --- */
+
+  private void doOpen()
+  {
+    File file = EmuUtil.showFileOpenDlg(
+			this,
+			"Befehlsaufzeichnung \u00F6ffnen",
+			Main.getLastDirFile( Main.FILE_GROUP_DEBUG ) );
+    if( file != null ) {
+      openFile( file );
+    }
+  }
+
+
+  private void doSaveText()
+  {
+    int nRows = this.tableModel.getRowCount();
+    if( nRows > 0 ) {
+      File file = EmuUtil.showFileSaveDlg(
+			this,
+			"Befehlsaufzeichnung als Text speichern",
+			Main.getLastDirFile( Main.FILE_GROUP_DEBUG ),
+			EmuUtil.getTextFileFilter() );
+      if( file != null ) {
+	PrintWriter out = null;
+	try {
+	  setWaitCursor( true );
+	  out = new PrintWriter(
+			new BufferedWriter( new FileWriter( file ) ) );
+	  for( int i = 0; i < nRows; i++ ) {
+	    out.println( this.tableModel.createTextLine( i ) );
+	  }
+	  out.flush();
+	  if( out.checkError() ) {
+	    throw new IOException( "Die Datei konnte nicht geschrieben"
+							+ " werden." );
+	  }
+	  Main.setLastFile( file, Main.FILE_GROUP_DEBUG );
+	}
+	catch( IOException ex ) {
+	  BaseDlg.showErrorDlg( this, ex );
+	}
+	finally {
+	  EmuUtil.closeSilent( out );
+	  setWaitCursor( false );
+	}
+      }
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private TraceViewFrm()
+  {
+    setTitle( "JKCEMU Befehlsaufzeichnung" );
+    Main.updIcon( this );
+
+
+    // Menu
+    JMenuBar mnuBar = new JMenuBar();
+    setJMenuBar( mnuBar );
+
+    JMenu mnuFile = new JMenu( "Datei" );
+    mnuFile.setMnemonic( KeyEvent.VK_D );
+    mnuBar.add( mnuFile );
+
+    this.mnuOpen = createJMenuItem( "\u00D6ffnen..." );
+    mnuFile.add( this.mnuOpen );
+
+    this.mnuSaveText = createJMenuItem( "Als Text speichern..." );
+    this.mnuSaveText.setEnabled( false );
+    mnuFile.add( this.mnuSaveText );
+    mnuFile.addSeparator();
+
+    this.mnuClose = createJMenuItem( "Schlie\u00DFen" );
+    mnuFile.add( this.mnuClose );
+
+    JMenu mnuHelp = new JMenu( "?" );
+    mnuBar.add( mnuHelp );
+
+    this.mnuHelpContent = createJMenuItem( "Hilfe..." );
+    mnuHelp.add( this.mnuHelpContent );
+
+
+    // Fensterinhalt
+    setLayout( new BorderLayout() );
+
+    this.tableModel = new TraceTableModel();
+    this.table      = new JTable( this.tableModel );
+    this.table.setAutoCreateRowSorter( false );
+    this.table.setAutoResizeMode( JTable.AUTO_RESIZE_OFF );
+    this.table.setColumnSelectionAllowed( false );
+    this.table.setFont( new Font( Font.MONOSPACED, Font.PLAIN, 12 ) );
+    this.table.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+    EmuUtil.setTableColWidths(
+		this.table,
+		100, 100, 40, 50, 100, 150,
+		50, 80, 50, 50, 50, 50, 50, 50 );
+    add( new JScrollPane( this.table ), BorderLayout.CENTER );
+
+    this.labelStatus = new JLabel( "Keine Befehlsaufzeichnung geladen" );
+    add( this.labelStatus, BorderLayout.SOUTH );
+
+
+    // sonstiges
+    setResizable( true );
+    if( !applySettings( Main.getProperties(), true ) ) {
+      setSize( 900, 500 );
+      setLocationByPlatform( true );
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private void closeTraceBuffer()
+  {
+    Z80TraceBuffer traceBuf = this.tableModel.getTraceBuffer();
+    if( traceBuf != null ) {
+      this.tableModel.setTraceBuffer( null );
+      EmuUtil.closeSilent( traceBuf );
+    }
+  }
+
+
+  private void openFile( File file )
+  {
+    try {
+      Z80TraceBuffer traceBuf = Z80TraceBuffer.openFile( file );
+      closeTraceBuffer();
+      this.tableModel.setTraceBuffer( traceBuf );
+      setTitle( "JKCEMU Befehlsaufzeichnung: " + file.getPath() );
+      Main.setLastFile( file, Main.FILE_GROUP_DEBUG );
+
+      long nTotal     = traceBuf.getRecordCount();
+      int  nAvailable = traceBuf.getAvailableCount();
+      this.labelStatus.setText(
+		String.format(
+			"%d von insgesamt %d aufgezeichneten Befehlen"
+				+ " vorhanden (Puffergr\u00F6\u00DFe: %d)",
+			nAvailable,
+			nTotal,
+			traceBuf.getCapacity() ) );
+      this.mnuSaveText.setEnabled( nAvailable > 0 );
+
+      // die juengsten Eintraege sind meistens die interessantesten
+      if( nAvailable > 0 ) {
+	int row = nAvailable - 1;
+	this.table.setRowSelectionInterval( row, row );
+	Rectangle r = this.table.getCellRect( row, 0, true );
+	if( r != null ) {
+	  this.table.scrollRectToVisible( r );
+	}
+      }
+    }
+    catch( IOException ex ) {
+      BaseDlg.showErrorDlg( this, ex );
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Optionales Interface fuer einen Arbeitsspeicher,
+ * der mehrere Bytes am Stueck kopieren bzw. fuellen kann
+ *
+ * Die CPU verwendet dieses Interface bei LDIR und LDDR,
+ * wenn weder Listener noch ein Debugger aktiv sind.
+ * Die Befehlsholezyklen des Blockbefehls entfallen dabei,
+ * weshalb das Interface nur von einem Speicher implementiert
+ * werden sollte, bei dem Lese- und Schreibzugriffe
+ * keine Nebeneffekte (z.B. WAIT-States) haben.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public interface Z80BulkMemory
+{
+  /*
+   * Die Methode muss das gleiche Ergebnis liefern wie die
+   * entsprechende Anzahl einzelner Lese- und Schreibzugriffe
+   * von LDIR (addValue = 1) bzw. LDDR (addValue = -1).
+   * Es wird also byteweise kopiert, und die Adressen laufen
+   * innerhalb von 64 KByte um.
+   * Bei sich ueberlappenden Bereichen (z.B. Zieladresse gleich
+   * Quelladresse plus eins) wird dadurch der Speicher gefuellt.
+   *
+   * Rueckgabewert:
+   *   zuletzt kopiertes Byte oder -1, wenn das Kopieren
+   *   am Stueck nicht moeglich ist.
+   *   Im letzteren Fall darf der Speicher nicht veraendert werden.
+   */
+  public int copyMemBytes( int srcAddr, int dstAddr, int len, int addValue );
+}
@@ -12,9 +12,12 @@
 package z80emu;
 
 import java.lang.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 
 public class Z80CPU implements Runnable
@@ -45,6 +48,61 @@ public class Z80CPU implements Runnable
   // Nach wieviel Taktzyklen die Zaehlung bei Null beginnen soll
   private static final long tStatesWrap = Long.MAX_VALUE - 1000000L;
 
+  /*
+   * Wieviel Taktzyklen ein Blockbefehl hoechstens am Stueck
+   * ohne Umweg ueber die Hauptschleife wiederholt werden darf
+   */
+  private static final long BLOCK_REPEAT_MAX_TSTATES = 0x4000L;
+
+  /*
+   * Wieviel Taktzyklen im WAIT-Zustand bei unbegrenzter Geschwindigkeit
+   * hoechstens am Stueck verarbeitet werden
+   */
+  private static final long WAIT_MAX_TSTATES = 0x4000L;
+
+  /*
+   * Intervall der Geschwindigkeitsbremse in Millisekunden,
+   * entspricht einem Bild bei 50 Hz
+   */
+  private static final int SPEED_BRAKE_MILLIS = 20;
+
+  // Anzahl der long-Werte einer Bitmap fuer die Speicherueberwachung
+  public static final int MEM_WATCH_BITMAP_SIZE = 0x10000 / 64;
+
+  /*
+   * maximale Anzahl der je Befehl gemerkten Zugriffe
+   * auf ueberwachte Speicheradressen,
+   * reicht fuer den laengsten Befehl einschliesslich Interrupt-Annahme
+   */
+  private static final int MAX_MEM_WATCH_HITS  = 16;
+
+  /*
+   * Kennungen in der Tabelle der Programmadressen,
+   * an denen etwas zu tun ist
+   */
+  private static final byte PC_FLAG_LISTENER   = 0x01;
+  private static final byte PC_FLAG_BREAKPOINT = 0x02;
+  private static final int MEM_WATCH_HIT_WRITE = 0x1000000;
+
+  // Version des mit saveState(...) geschriebenen Zustands
+  private static final int STATE_VERSION = 1;
+
+  /*
+   * Die letzten Mikrosekunden vor dem Zielzeitpunkt wird aktiv gewartet,
+   * da LockSupport.parkNanos(...) je nach Betriebssystem
+   * deutlich zu spaet zurueckkehren kann.
+   */
+  private static final long SPEED_BRAKE_SPIN_NANOS = 100000L;
+
+  // hoechstens beruecksichtigte Ueberschreitung beim Schlafen
+  private static final long SPEED_BRAKE_MAX_OVERSLEEP_NANOS = 2000000L;
+
+  /*
+   * Liegt die Emulation weiter als diese Zeit hinter dem Zeitplan,
+   * wird der Zeitplan neu begonnen anstatt die Zeit aufzuholen.
+   */
+  private static final long SPEED_BRAKE_MAX_LAG_NANOS = 100000000L;
+
 
   // Masken fuer die einzelnen Bits
   private static final int BIT0 = 0x01;
@@ -56,31 +114,67 @@ public class Z80CPU implements Runnable
   private static final int BIT6 = 0x40;
   private static final int BIT7 = 0x80;
 
+  // Bits im F-Register
+  private static final int FLAG_S  = Z80FlagTables.FLAG_S;
+  private static final int FLAG_Z  = Z80FlagTables.FLAG_Z;
+  private static final int FLAG_5  = Z80FlagTables.FLAG_5;
+  private static final int FLAG_H  = Z80FlagTables.FLAG_H;
+  private static final int FLAG_3  = Z80FlagTables.FLAG_3;
+  private static final int FLAG_PV = Z80FlagTables.FLAG_PV;
+  private static final int FLAG_N  = Z80FlagTables.FLAG_N;
+  private static final int FLAG_C  = Z80FlagTables.FLAG_C;
+
 
   // private Attribute
   private volatile PCListenerItem           pcListener;
   private volatile Z80AddressListener       addrListener;
   private volatile Z80TStatesListener[]     tStatesListeners;
+  private volatile Z80TStatesListenerAdapter[] tStatesAdapters;
+  private Z80EventScheduler                 eventScheduler;
+  private Z80RunResult                      runResult;
   private Z80Memory                         memory;
   private Z80IOSystem                       ioSys;
   private Thread                            thread;
   private volatile PrintWriter              debugTracer;
+  private volatile Z80Profiler              profiler;
+  private volatile Z80TraceBuffer           traceBuffer;
+  private volatile Z80InstrBoundaryListener instrBoundaryListener;
   private volatile Z80Breakpoint[]          breakpoints;
+  private volatile Map<Integer,Z80Breakpoint[]> pcBreakpoints;
+  private volatile byte[]                   pcFlags;
+  private volatile long[]                   memWatchReadBits;
+  private volatile long[]                   memWatchWriteBits;
+  private int[]                             memWatchHits;
+  private int                               memWatchHitCnt;
   private volatile Z80InterruptSource[]     interruptSources;
+  private volatile Z80InterruptSource[]     polledInterruptSources;
+  private volatile Z80InterruptLine         interruptLine;
   private Collection<Z80HaltStateListener>  haltStateListeners;
   private Collection<Z80MaxSpeedListener>   maxSpeedListeners;
   private Collection<Z80StatusListener>     statusListeners;
   private volatile Z80InstrTStatesMngr      instTStatesMngr;
-  private boolean[]                         parity;
   private volatile boolean                  brakeEnabled;
+  private volatile boolean                  speedUnlimited;
   private volatile int                      maxSpeedKHz;
   private volatile long                     speedUnlimitedTill;
   private volatile long                     speedNanosBeg;
   private volatile long                     speedNanosEnd;
-  private int                               speedBrakeTStates;
+  private long                              paceTStates;
+  private long                              paceNextTStates;
+  private long                              paceTargetNanos;
+  private long                              paceRemainder;
+  private long                              paceParkOversleep;
+  private long                              paceStatBegNanos;
+  private int                               paceStatSleeps;
+  private int                               paceStatBehind;
+  private long                              paceStatOversleep;
+  private volatile int                      speedBrakeSleepsPerSec;
+  private volatile int                      speedBrakeOversleepMicros;
+  private volatile int                      speedBrakeFramesBehind;
   private volatile long                     speedTStates;
   private volatile long                     processedTStates;
-  private volatile int                      instTStates;
+  private long                              tStatesOffset;
+  private int                               instTStates;
   private volatile int                      debugCallLevel;
   private volatile Action                   action;
   private volatile int                      interruptMode;
@@ -113,25 +207,62 @@ public class Z80CPU implements Runnable
   private boolean                           iff1;
   private boolean                           iff2;
   private volatile boolean                  nmiFired;
+  private boolean                           nmiAccepted;
   private volatile boolean                  waitMode;
-  private boolean                           flagSign;
-  private boolean                           flagZero;
-  private boolean                           flag5;
-  private boolean                           flagHalf;
-  private boolean                           flag3;
-  private boolean                           flagPV;
-  private boolean                           flagN;
-  private boolean                           flagCarry;
+  private int                               regF;
   private boolean                           lastInstWasEIorDI;
   private boolean                           lastInstWasRET;
   private volatile boolean                  active;
   private volatile boolean                  pause;
   private volatile boolean                  debugEnabled;
+  private volatile boolean                  tableDispatch;
+  private boolean                           blockRepeat;
+  private long                              blockRepeatTStatesEnd;
   private int                               stepOverBreakAddr;
   private int                               stepOverSP;
   private int                               walkBreakAddr;
-  private AtomicInteger                     waitStates;
+  private int                               waitStates;
   private Object                            waitMonitor;
+  private boolean                           parked;
+  private boolean                           boundaryHeld;
+  private volatile int                      boundaryWaiters;
+  private volatile boolean                  replaying;
+
+  /*
+   * Steuerdaten, die von anderen Threads geaendert werden koennen,
+   * liest der Emulations-Thread nicht vor jedem Befehl einzeln,
+   * sondern nur dann, wenn sich der Zaehler controlEpoch geaendert hat.
+   * Die Kopien fuer die Befehlsausfuehrung stehen in den
+   * folgenden, nicht volatilen Attributen.
+   */
+  private volatile int                      controlEpoch;
+  private int                               seenControlEpoch;
+  private boolean                           curActive;
+  private boolean                           curWaitMode;
+  private boolean                           curNMIPending;
+  private boolean                           curDebugEnabled;
+  private boolean                           curDebugOrPause;
+  private boolean                           curTableDispatch;
+  private boolean                           curBrakeEnabled;
+  private long                              curSpeedUnlimitedTill;
+  private PCListenerItem                    curPCListener;
+  private byte[]                            curPCFlags;
+  private Z80Breakpoint[]                   curBreakpoints;
+  private Map<Integer,Z80Breakpoint[]>      curPCBreakpoints;
+  private Z80AddressListener                curAddrListener;
+  private Z80TStatesListener[]              curTStatesListeners;
+  private long                              listenerTStates;
+  private int                               lastListenerTStates;
+  private boolean                           tStatesAdaptersDirty;
+  private Z80InterruptSource[]              curInterruptSources;
+  private Z80InterruptSource[]              curPolledInterruptSources;
+  private Z80InterruptLine                  curInterruptLine;
+  private Z80InstrTStatesMngr               curInstTStatesMngr;
+  private Z80Profiler                       curProfiler;
+  private Z80TraceBuffer                    curTraceBuffer;
+  private Z80InstrBoundaryListener          curInstrBoundaryListener;
+  private long[]                            curMemWatchReadBits;
+  private long[]                            curMemWatchWriteBits;
 
 
   public Z80CPU( Z80Memory memory, Z80IOSystem ioSys )
@@ -142,43 +273,62 @@ public class Z80CPU implements Runnable
     this.pcListener            = null;
     this.addrListener          = null;
     this.tStatesListeners      = null;
+    this.tStatesAdapters       = null;
+    this.listenerTStates       = 0L;
+    this.lastListenerTStates   = 0;
+    this.tStatesAdaptersDirty  = false;
+    this.eventScheduler        = new Z80EventScheduler();
+    this.runResult             = new Z80RunResult();
     this.interruptSources      = null;
+    this.polledInterruptSources = null;
+    this.interruptLine         = new Z80InterruptLine();
     this.haltStateListeners    = new ArrayList<>();
     this.maxSpeedListeners     = new ArrayList<>();
     this.statusListeners       = new ArrayList<>();
     this.instTStatesMngr       = null;
     this.breakpoints           = null;
+    this.pcBreakpoints         = null;
+    this.pcFlags               = null;
+    this.memWatchReadBits      = null;
+    this.memWatchWriteBits     = null;
+    this.memWatchHits          = new int[ MAX_MEM_WATCH_HITS ];
+    this.memWatchHitCnt        = 0;
     this.debugTracer           = null;
+    this.profiler              = null;
+    this.traceBuffer           = null;
+    this.instrBoundaryListener = null;
     this.haltPC                = null;
     this.maxSpeedKHz           = -1;
     this.brakeEnabled          = true;
+    this.speedUnlimited        = false;
     this.active                = false;
     this.haltState             = false;
     this.debugEnabled          = false;
+    this.tableDispatch         = true;
+    this.blockRepeat           = false;
+    this.blockRepeatTStatesEnd = 0L;
     this.waitMode              = false;
-    this.waitStates            = new AtomicInteger( 0 );
+    this.waitStates            = 0;
     this.waitMonitor           = new Object();
-
-    // Paritaeten fuer den Byte-Bereich berechnen
-    this.parity = new boolean[ 0x100 ];
-    for( int i = 0; i < this.parity.length; i++ ) {
-      boolean v = true;
-      int     m = i;
-      for( int k = 0; k < 8; k++ ) {
-	if( (m & BIT0) != 0 ) {
-	  v = !v;
-	}
-	m >>= 1;
-      }
-      this.parity[ i ] = v;
-    }
+    this.parked                = false;
+    this.boundaryHeld          = false;
+    this.boundaryWaiters       = 0;
+    this.replaying             = false;
+    this.tStatesOffset         = 0L;
+    this.controlEpoch          = 0;
+    this.seenControlEpoch      = 0;
     resetCPU( true );
+    refreshControl();
   }
 
 
+  /*
+   * Die Methode darf nur im Emulations-Thread aufgerufen werden,
+   * d.h. waehrend eines Speicher- oder E/A-Zugriffs der CPU.
+   */
   public void addWaitStates( int tStates )
   {
-    this.waitStates.addAndGet( tStates );
+    this.waitStates += tStates;
   }
 
 
@@ -210,6 +360,7 @@ public class Z80CPU implements Runnable
       throw new IllegalStateException( "Zu viele Z80AddressListeners" );
     }
     this.addrListener = listener;
+    controlChanged();
   }
 
 
@@ -219,6 +370,7 @@ public class Z80CPU implements Runnable
 	&& (this.addrListener == listener) )
     {
       this.addrListener = null;
+      controlChanged();
     }
   }
 
@@ -232,6 +384,8 @@ public class Z80CPU implements Runnable
       throw new IllegalStateException( "Zu viele Z80PCListeners" );
     }
     this.pcListener = new PCListenerItem( listener, pc );
+    updPCFlags();
+    controlChanged();
   }
 
 
@@ -241,6 +395,8 @@ public class Z80CPU implements Runnable
     if( item != null ) {
       if( item.listener == listener ) {
 	this.pcListener = null;
+	updPCFlags();
+	controlChanged();
       }
     }
   }
@@ -248,11 +404,37 @@ public class Z80CPU implements Runnable
 
   /*
    * Das erste Argument bzw. der erste Eintrag in der Argumentliste
-   * hat die hochste Interrupt-Prioritaet.
+   * hat die hoechste Interrupt-Prioritaet.
+   *
+   * Quellen, die das Interface Z80InterruptLineSource implementieren,
+   * melden ihre Anforderungen ueber eine gemeinsame Leitung.
+   * Alle anderen Quellen werden vor jedem Befehl einzeln abgefragt.
+   * Die komplette Prioritaetskette wird nur durchlaufen,
+   * wenn eine Anforderung vorliegt.
    */
-  public void setInterruptSources( Z80InterruptSource... iSources )
+  public synchronized void setInterruptSources(
+				Z80InterruptSource... iSources )
   {
-    this.interruptSources = iSources;
+    Z80InterruptLine         line   = new Z80InterruptLine();
+    List<Z80InterruptSource> polled = null;
+    if( iSources != null ) {
+      for( Z80InterruptSource iSource : iSources ) {
+	if( iSource instanceof Z80InterruptLineSource ) {
+	  ((Z80InterruptLineSource) iSource).setInterruptLine( line );
+	} else {
+	  if( polled == null ) {
+	    polled = new ArrayList<>();
+	  }
+	  polled.add( iSource );
+	}
+      }
+    }
+    this.interruptLine          = line;
+    this.polledInterruptSources = (polled != null ?
+		polled.toArray( new Z80InterruptSource[ polled.size() ] )
+		: null);
+    this.interruptSources       = iSources;
+    controlChanged();
   }
 
 
@@ -294,6 +476,12 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Die hier angemeldeten Listener werden nach jedem Befehl aufgerufen.
+   * Komponenten, die nur zu bestimmten Zeitpunkten etwas tun muessen,
+   * sollten stattdessen ein Ereignis ueber scheduleEvent(...) anmelden
+   * bzw. ueber einen Z80TStatesListenerAdapter angemeldet werden.
+   */
   public synchronized void addTStatesListener( Z80TStatesListener listener )
   {
     Z80TStatesListener[] listeners = this.tStatesListeners;
@@ -314,6 +502,7 @@ public class Z80CPU implements Runnable
       listeners[ 0 ]        = listener;
       this.tStatesListeners = listeners;
     }
+    controlChanged();
   }
 
 
@@ -336,6 +525,53 @@ public class Z80CPU implements Runnable
 	}
 	catch( ArrayStoreException ex ) {}
       }
+      controlChanged();
+    }
+  }
+
+
+  public void cancelEvent( Z80EventListener listener )
+  {
+    this.eventScheduler.cancel( listener );
+  }
+
+
+  public Z80EventScheduler getEventScheduler()
+  {
+    return this.eventScheduler;
+  }
+
+
+  /*
+   * Anmelden eines Ereignisses, das ausgeloest wird,
+   * sobald die angegebene Anzahl an Taktzyklen verarbeitet wurde
+   */
+  public void scheduleEvent( Z80EventListener listener, long tStates )
+  {
+    this.eventScheduler.schedule( listener, this.processedTStates + tStates );
+  }
+
+
+  /*
+   * Melden der noch ausstehenden Taktzyklen an die Listener,
+   * die ueber einen Z80TStatesListenerAdapter angemeldet sind
+   *
+   * Ein- und Ausgabebefehle rufen die Methode selbst auf.
+   * Haengt ein Speicherzugriff vom Zustand eines solchen Listeners ab
+   * (z.B. Wartezyklen in Abhaengigkeit von der Rasterposition),
+   * muss der Arbeitsspeicher die Methode vorher aufrufen.
+   * Auch vor dem Sichern des Zustands ist sie aufzurufen.
+   * Der Aufruf darf nur im Emulations-Thread
+   * bzw. bei angehaltener CPU-Emulation erfolgen.
+   */
+  public void flushTStatesListeners()
+  {
+    Z80TStatesListenerAdapter[] adapters = this.tStatesAdapters;
+    if( adapters != null ) {
+      for( int i = 0; i < adapters.length; i++ ) {
+	adapters[ i ].update( this, this.listenerTStates );
+      }
+      this.tStatesAdaptersDirty = true;
     }
   }
 
@@ -358,25 +594,52 @@ public class Z80CPU implements Runnable
   }
 
 
+  public boolean isSpeedUnlimited()
+  {
+    return this.speedUnlimited;
+  }
+
+
   public boolean isPause()
   {
     return this.pause;
   }
 
 
+  public boolean isTableDispatchEnabled()
+  {
+    return this.tableDispatch;
+  }
+
+
   public synchronized void setBrakeEnabled( boolean state )
   {
     if( state != this.brakeEnabled ) {
       this.speedNanosBeg      = System.nanoTime();
       this.speedNanosEnd      = -1L;
-      this.speedBrakeTStates  = 0;
       this.speedTStates       = 0L;
       this.speedUnlimitedTill = 0L;
       this.brakeEnabled       = state;
+      controlChanged();
     }
   }
 
 
+  /*
+   * Unbegrenzte Geschwindigkeit, solange der Zustand gesetzt ist,
+   * z.B. waehrend eine Datei von Kassette geladen wird
+   *
+   * Im Gegensatz zu setBrakeEnabled(...) ist das keine Einstellung
+   * des Anwenders, sondern ein voruebergehender Zustand,
+   * weshalb beide Werte getrennt gespeichert werden.
+   */
+  public void setSpeedUnlimited( boolean state )
+  {
+    this.speedUnlimited = state;
+    controlChanged();
+  }
+
+
   public void setDebugEnabled( boolean state )
   {
     this.debugEnabled = state;
@@ -389,9 +652,23 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Umschalten zwischen der tabellengesteuerten Befehlsausfuehrung
+   * (Standard) und der urspruenglichen verschachtelten Verzweigung.
+   * Beide Varianten verhalten sich identisch,
+   * die Umschaltung dient nur dem Vergleich.
+   */
+  public void setTableDispatchEnabled( boolean state )
+  {
+    this.tableDispatch = state;
+    controlChanged();
+  }
+
+
   public void setInstrTStatesMngr( Z80InstrTStatesMngr instrTStatesMngr )
   {
     this.instTStatesMngr = instrTStatesMngr;
+    controlChanged();
   }
 
 
@@ -406,14 +683,17 @@ public class Z80CPU implements Runnable
   {
     synchronized( this.waitMonitor ) {
       this.speedNanosEnd = System.nanoTime();
+      this.parked        = true;
       try {
 	this.waitMonitor.wait();
       }
       catch( InterruptedException ex ) {}
+      this.parked = false;
       if( this.speedNanosEnd > 0L ) {
         this.speedNanosBeg += (System.nanoTime() - this.speedNanosEnd);
       }
-      this.speedNanosEnd = -1L;
+      this.speedNanosEnd   = -1L;
+      this.paceNextTStates = 0L;
     }
   }
 
@@ -429,6 +709,101 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Ausfuehren einer Aufgabe im aufrufenden Thread,
+   * waehrend der Emulations-Thread an einer Befehlsgrenze steht
+   *
+   * Ist die CPU-Emulation angehalten (Pause, Debugger),
+   * wird die Aufgabe sofort ausgefuehrt.
+   * Laeuft sie, wird der Emulations-Thread an der naechsten
+   * Befehlsgrenze fuer die Dauer der Aufgabe festgehalten,
+   * und zwar an der Stelle, an der auch die Haltepunkte geprueft werden.
+   * Aenderungen, die die Aufgabe vornimmt, wirken sich damit
+   * immer auf einen definierten Befehl aus.
+   *
+   * Rueckgabewert:
+   *   true:  Aufgabe wurde ausgefuehrt
+   *   false: CPU-Emulation ist nicht aktiv oder hat innerhalb
+   *          der Wartezeit keine Befehlsgrenze erreicht
+   *          (z.B. im WAIT-Zustand), die Aufgabe wurde
+   *          nicht ausgefuehrt.
+   */
+  public boolean execAtInstrBoundary( Runnable task, int timeoutMillis )
+  {
+    boolean rv = false;
+    synchronized( this.waitMonitor ) {
+      if( !this.parked && this.active && (timeoutMillis > 0) ) {
+	this.boundaryWaiters++;
+	controlChanged();
+	try {
+	  long endMillis = System.currentTimeMillis() + timeoutMillis;
+	  while( !this.parked && !this.boundaryHeld && this.active ) {
+	    long millis = endMillis - System.currentTimeMillis();
+	    if( millis <= 0 ) {
+	      break;
+	    }
+	    this.waitMonitor.wait( millis );
+	  }
+	}
+	catch( InterruptedException ex ) {}
+	finally {
+	  --this.boundaryWaiters;
+	  controlChanged();
+	}
+      }
+      if( this.parked || this.boundaryHeld ) {
+	try {
+	  task.run();
+	  rv = true;
+	}
+	finally {
+	  if( this.boundaryHeld ) {
+	    this.boundaryHeld = false;
+	    this.waitMonitor.notifyAll();
+	  }
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  /*
+   * Fortsetzen der Programmausfuehrung im aufrufenden Thread,
+   * bis die Bedingung erfuellt ist
+   *
+   * Die Methode ist fuer das Wiederholen eines Programmablaufs
+   * ab einem wiederhergestellten Zustand gedacht und darf nur
+   * innerhalb einer mit execAtInstrBoundary(...) ausgefuehrten Aufgabe
+   * bei angehaltener CPU-Emulation aufgerufen werden.
+   * Der wiederhergestellte Zustand muss dabei ebenfalls von einer
+   * Befehlsgrenze nach der Interruptannahme stammen,
+   * weshalb vor dem ersten Befehl keine Interrupts verarbeitet werden.
+   * Profiler und binaere Befehlsaufzeichnung bleiben unberuehrt.
+   */
+  public Z80RunResult resumeUntil( Z80Breakpoint condition )
+  {
+    Z80RunResult rv     = null;
+    boolean      active = this.active;
+    Thread       thread = this.thread;
+    this.replaying      = true;
+    try {
+      rv = runBounded( Long.MAX_VALUE, -1, false, condition, true );
+    }
+    finally {
+      this.replaying = false;
+      this.thread    = thread;
+      if( (rv == null)
+	  || (rv.getStopReason() != Z80RunResult.StopReason.EXIT) )
+      {
+	this.active = active;
+      }
+      controlChanged();
+    }
+    return rv;
+  }
+
+
   public void resetCPU( boolean powerOn )
   {
     Z80InterruptSource[] iSources = this.interruptSources;
@@ -437,6 +812,7 @@ public class Z80CPU implements Runnable
 	iSources[ i ].reset( powerOn );
     }
     this.nmiFired          = false;
+    this.curNMIPending     = false;
     this.iff1              = false;
     this.iff2              = false;
     this.interruptMode     = 0;
@@ -488,9 +864,111 @@ public class Z80CPU implements Runnable
     this.speedNanosBeg      = System.nanoTime();
     this.speedNanosEnd      = -1L;
     this.speedUnlimitedTill = 0L;
-    this.speedBrakeTStates  = 0;
     this.speedTStates       = 0L;
+    this.paceNextTStates    = 0L;
+    this.eventScheduler.rebase( this.processedTStates );
+    this.tStatesOffset     += this.processedTStates;
     this.processedTStates   = 0L;
+    this.speedBrakeSleepsPerSec    = 0;
+    this.speedBrakeOversleepMicros = 0;
+    this.speedBrakeFramesBehind    = 0;
+    controlChanged();
+  }
+
+
+  /*
+   * Speichern und Wiederherstellen des Prozessorzustands (Snapshot)
+   *
+   * Gespeichert werden die Register sowie der Interrupt- und HALT-Zustand.
+   * Die Zaehlung der Taktzyklen beginnt nach dem Wiederherstellen
+   * wie nach einem Reset von vorn.
+   * Beide Methoden duerfen nur aufgerufen werden,
+   * wenn die CPU-Emulation gerade nicht laeuft.
+   */
+  public void loadState( DataInput in ) throws IOException
+  {
+    if( in.readUnsignedByte() != STATE_VERSION ) {
+      throw new IOException( "CPU-Zustand: Version nicht unterst\u00FCtzt" );
+    }
+    this.regA          = in.readUnsignedByte();
+    this.regF          = in.readUnsignedByte();
+    this.regB          = in.readUnsignedByte();
+    this.regC          = in.readUnsignedByte();
+    this.regD          = in.readUnsignedByte();
+    this.regE          = in.readUnsignedByte();
+    this.regH          = in.readUnsignedByte();
+    this.regL          = in.readUnsignedByte();
+    this.regA2         = in.readUnsignedByte();
+    this.regF2         = in.readUnsignedByte();
+    this.regB2         = in.readUnsignedByte();
+    this.regC2         = in.readUnsignedByte();
+    this.regD2         = in.readUnsignedByte();
+    this.regE2         = in.readUnsignedByte();
+    this.regH2         = in.readUnsignedByte();
+    this.regL2         = in.readUnsignedByte();
+    this.regIX         = in.readUnsignedShort();
+    this.regIY         = in.readUnsignedShort();
+    this.regSP         = in.readUnsignedShort();
+    this.regPC         = in.readUnsignedShort();
+    this.interruptReg  = in.readUnsignedByte();
+    setRegR( in.readUnsignedByte() );
+    this.iff1          = in.readBoolean();
+    this.iff2          = in.readBoolean();
+    this.interruptMode = in.readUnsignedByte() & 0x03;
+    this.lastInstWasEIorDI = in.readBoolean();
+
+    this.instBegPC         = in.readUnsignedShort();
+    this.preCode           = in.readShort();
+
+    int haltPC = in.readInt();
+    this.haltPC = (haltPC >= 0 ? haltPC & 0xFFFF : null);
+    setHaltState( this.haltPC != null );
+
+    this.nmiFired          = false;
+    this.curNMIPending     = false;
+    this.instTStates       = 0;
+    this.lastInstWasRET    = false;
+    this.debugCallLevel    = 0;
+    this.stepOverBreakAddr = -1;
+    this.stepOverSP        = -1;
+    this.walkBreakAddr     = -1;
+    resetSpeed();
+    resetTStatesAdapters();
+  }
+
+
+  public void saveState( DataOutput out ) throws IOException
+  {
+    out.writeByte( STATE_VERSION );
+    out.writeByte( this.regA );
+    out.writeByte( this.regF );
+    out.writeByte( this.regB );
+    out.writeByte( this.regC );
+    out.writeByte( this.regD );
+    out.writeByte( this.regE );
+    out.writeByte( this.regH );
+    out.writeByte( this.regL );
+    out.writeByte( this.regA2 );
+    out.writeByte( this.regF2 );
+    out.writeByte( this.regB2 );
+    out.writeByte( this.regC2 );
+    out.writeByte( this.regD2 );
+    out.writeByte( this.regE2 );
+    out.writeByte( this.regH2 );
+    out.writeByte( this.regL2 );
+    out.writeShort( this.regIX );
+    out.writeShort( this.regIY );
+    out.writeShort( this.regSP );
+    out.writeShort( this.regPC );
+    out.writeByte( this.interruptReg );
+    out.writeByte( getRegR() );
+    out.writeBoolean( this.iff1 );
+    out.writeBoolean( this.iff2 );
+    out.writeByte( this.interruptMode );
+    out.writeBoolean( this.lastInstWasEIorDI );
+    out.writeShort( this.instBegPC );
+    out.writeShort( this.preCode );
+    out.writeInt( this.haltPC != null ? this.haltPC.intValue() : -1 );
   }
 
 
@@ -500,6 +978,40 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Anzahl aller seit dem Erzeugen der CPU verarbeiteten Taktzyklen
+   *
+   * Im Gegensatz zu getProcessedTStates() wird dieser Wert
+   * beim Zuruecksetzen der Geschwindigkeitsmessung nicht auf Null gesetzt
+   * und eignet sich deshalb zur Kennzeichnung einer Position
+   * im Programmablauf.
+   * Die Methode sollte nur im Emulations-Thread oder bei angehaltener
+   * CPU-Emulation aufgerufen werden.
+   */
+  public long getTotalTStates()
+  {
+    return this.tStatesOffset + this.processedTStates;
+  }
+
+
+  /*
+   * Setzen der Taktzyklenzaehler beim Wiederherstellen
+   * eines im Speicher gehaltenen Zustands
+   *
+   * Die zeitgesteuerten Ereignisse beziehen sich auf
+   * processedTStates und sind deshalb ggf. mit
+   * getEventScheduler().copyFrom(...) passend dazu zu setzen.
+   * Die ueber einen Z80TStatesListenerAdapter angemeldeten Listener
+   * setzen ihre Zaehlung ab dem wiederhergestellten Zustand fort.
+   */
+  public void setTStates( long processedTStates, long totalTStates )
+  {
+    this.processedTStates = processedTStates;
+    this.tStatesOffset    = totalTStates - processedTStates;
+    resetTStatesAdapters();
+  }
+
+
   public double getCurrentSpeedKHz()
   {
     /*
@@ -525,6 +1037,32 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Messwerte der Geschwindigkeitsbremse, jeweils ueber eine Sekunde
+   * ermittelt (nur bei einem Intervall groesser 0):
+   *   Anzahl der Schlafphasen je Sekunde,
+   *   mittlere Ueberschreitung des Zielzeitpunktes in Mikrosekunden
+   *   und Anzahl der Intervalle, bei denen die Emulation
+   *   hinter dem Zeitplan lag
+   */
+  public int getSpeedBrakeSleepsPerSecond()
+  {
+    return this.speedBrakeSleepsPerSec;
+  }
+
+
+  public int getSpeedBrakeOversleepMicros()
+  {
+    return this.speedBrakeOversleepMicros;
+  }
+
+
+  public int getSpeedBrakeFramesBehind()
+  {
+    return this.speedBrakeFramesBehind;
+  }
+
+
   public int getInterruptMode()
   {
     return this.interruptMode;
@@ -564,12 +1102,14 @@ public class Z80CPU implements Runnable
   public void setSpeedUnlimitedFor( long unlimitedSpeedTStates )
   {
     this.speedUnlimitedTill = this.speedTStates + unlimitedSpeedTStates;
+    controlChanged();
   }
 
 
   public void setWaitMode( boolean state )
   {
     this.waitMode = state;
+    controlChanged();
   }
 
 
@@ -578,6 +1118,7 @@ public class Z80CPU implements Runnable
   public void fireExit()
   {
     this.active = false;
+    controlChanged();
     wakeUp();
     updStatusListeners( null, null );
   }
@@ -589,6 +1130,7 @@ public class Z80CPU implements Runnable
   public void fireNMI()
   {
     this.nmiFired = true;
+    controlChanged();
   }
 
 
@@ -600,14 +1142,14 @@ public class Z80CPU implements Runnable
       writer.print( "AF=" );
       writer.printf( "%04X", getRegAF() );
       writer.print( " [" );
-      writer.print( this.flagSign	? "S" : "." );
-      writer.print( this.flagZero	? "Z" : "." );
-      writer.write( this.flag5	? "1" : "." );
-      writer.write( this.flagHalf	? "H" : "." );
-      writer.print( this.flag3	? "1" : "." );
-      writer.print( this.flagPV	? "P" : "." );
-      writer.print( this.flagN	? "N" : "." );
-      writer.print( this.flagCarry	? "C" : "." );
+      writer.print( ((this.regF & FLAG_S) != 0)	? "S" : "." );
+      writer.print( ((this.regF & FLAG_Z) != 0)	? "Z" : "." );
+      writer.write( ((this.regF & FLAG_5) != 0)	? "1" : "." );
+      writer.write( ((this.regF & FLAG_H) != 0)	? "H" : "." );
+      writer.print( ((this.regF & FLAG_3) != 0)	? "1" : "." );
+      writer.print( ((this.regF & FLAG_PV) != 0)	? "P" : "." );
+      writer.print( ((this.regF & FLAG_N) != 0)	? "N" : "." );
+      writer.print( ((this.regF & FLAG_C) != 0)	? "C" : "." );
       writer.print( "] BC=" );
       writer.printf( "%04X", getRegBC() );
       writer.print( " DE=" );
@@ -703,6 +1245,7 @@ public class Z80CPU implements Runnable
 				|| (this.action == Action.DEBUG_STEP_OVER)
 				|| (this.action == Action.DEBUG_STEP_INTO)
 				|| (this.action == Action.DEBUG_STEP_TO_RET));
+    controlChanged();
 
     if( (this.action != Action.PAUSE) && (this.action != Action.DEBUG_STOP) ) {
       wakeUp();
@@ -721,9 +1264,96 @@ public class Z80CPU implements Runnable
   }
 
 
-  public void setBreakpoints( Z80Breakpoint[] breakpoints )
+  /*
+   * Haltepunkte, die das Interface Z80PCBreakpoint implementieren,
+   * werden nach ihrer Programmadresse abgelegt und nur dann geprueft,
+   * wenn der Programmzaehler auf diese Adresse zeigt.
+   * Alle anderen Haltepunkte werden vor jedem Befehl geprueft.
+   */
+  public synchronized void setBreakpoints( Z80Breakpoint[] breakpoints )
+  {
+    List<Z80Breakpoint>          list  = null;
+    Map<Integer,Z80Breakpoint[]> pcMap = null;
+    if( breakpoints != null ) {
+      for( Z80Breakpoint bp : breakpoints ) {
+	if( bp instanceof Z80PCBreakpoint ) {
+	  if( pcMap == null ) {
+	    pcMap = new HashMap<>();
+	  }
+	  Integer         pc  = ((Z80PCBreakpoint) bp).getBreakPC() & 0xFFFF;
+	  Z80Breakpoint[] bps = pcMap.get( pc );
+	  if( bps != null ) {
+	    bps = Arrays.copyOf( bps, bps.length + 1 );
+	  } else {
+	    bps = new Z80Breakpoint[ 1 ];
+	  }
+	  bps[ bps.length - 1 ] = bp;
+	  pcMap.put( pc, bps );
+	} else {
+	  if( list == null ) {
+	    list = new ArrayList<>();
+	  }
+	  list.add( bp );
+	}
+      }
+    }
+    this.breakpoints   = (list != null ?
+		list.toArray( new Z80Breakpoint[ list.size() ] )
+		: null);
+    this.pcBreakpoints = pcMap;
+    updPCFlags();
+    controlChanged();
+  }
+
+
+  /*
+   * Speicherzugriffe, die der zuletzt ausgefuehrte Befehl
+   * (einschliesslich einer ggf. davor erfolgten Interrupt-Annahme)
+   * auf ueberwachte Adressen getaetigt hat
+   *
+   * Die Methoden sind fuer die Haltepunkte gedacht,
+   * d.h., sie duerfen nur im Emulations-Thread aufgerufen werden.
+   */
+  public int getMemWatchHitCount()
+  {
+    return this.memWatchHitCnt;
+  }
+
+
+  public int getMemWatchHitAddr( int idx )
+  {
+    return this.memWatchHits[ idx ] & 0xFFFF;
+  }
+
+
+  public int getMemWatchHitValue( int idx )
+  {
+    return (this.memWatchHits[ idx ] >> 16) & 0xFF;
+  }
+
+
+  public boolean isMemWatchHitWrite( int idx )
+  {
+    return (this.memWatchHits[ idx ] & MEM_WATCH_HIT_WRITE) != 0;
+  }
+
+
+  /*
+   * Setzen der zu ueberwachenden Speicheradressen
+   *
+   * Jedes Bit der beiden Bitmaps (MEM_WATCH_BITMAP_SIZE Eintraege)
+   * steht fuer eine Speicheradresse.
+   * Die Zugriffe werden nur bei eingeschaltetem Debugger
+   * direkt in den Speicherzugriffsmethoden geprueft
+   * und anschliessend an der naechsten Befehlsgrenze
+   * den Haltepunkten zur Verfuegung gestellt.
+   * Mit null wird die jeweilige Ueberwachung abgeschaltet.
+   */
+  public void setMemWatchBitmaps( long[] readBits, long[] writeBits )
   {
-    this.breakpoints = breakpoints;
+    this.memWatchReadBits  = readBits;
+    this.memWatchWriteBits = writeBits;
+    controlChanged();
   }
 
 
@@ -733,6 +1363,64 @@ public class Z80CPU implements Runnable
   }
 
 
+  public Z80Profiler getProfiler()
+  {
+    return this.profiler;
+  }
+
+
+  /*
+   * Anmelden bzw. Abmelden (null) der Zaehler fuer eine Laufzeitanalyse
+   *
+   * Solange die Zaehler angemeldet sind, werden keine uebersetzten
+   * Programmbloecke verwendet und LDIR/LDDR nicht am Stueck ausgefuehrt,
+   * damit jeder Befehl und jeder Speicherzugriff gezaehlt wird.
+   */
+  public void setProfiler( Z80Profiler profiler )
+  {
+    this.profiler = profiler;
+    controlChanged();
+  }
+
+
+  public Z80TraceBuffer getTraceBuffer()
+  {
+    return this.traceBuffer;
+  }
+
+
+  /*
+   * Anmelden bzw. Abmelden (null) eines Puffers
+   * fuer die binaere Befehlsaufzeichnung
+   *
+   * Der Puffer sollte erst gelesen werden, nachdem er abgemeldet wurde.
+   * Solange er angemeldet ist, werden keine uebersetzten Programmbloecke
+   * verwendet und Blockbefehle nicht ohne Umweg
+   * ueber die Hauptschleife wiederholt,
+   * damit jeder Befehl aufgezeichnet wird.
+   */
+  public void setTraceBuffer( Z80TraceBuffer traceBuffer )
+  {
+    this.traceBuffer = traceBuffer;
+    controlChanged();
+  }
+
+
+  /*
+   * Anmelden bzw. Abmelden (null) eines Listeners,
+   * der an jeder Befehlsgrenze aufgerufen wird
+   *
+   * Wie bei der binaeren Befehlsaufzeichnung werden solange
+   * keine uebersetzten Programmbloecke verwendet und Blockbefehle
+   * nicht ohne Umweg ueber die Hauptschleife wiederholt.
+   */
+  public void setInstrBoundaryListener( Z80InstrBoundaryListener listener )
+  {
+    this.instrBoundaryListener = listener;
+    controlChanged();
+  }
+
+
 	/* --- Operationen mit dem Hauptspeicher --- */
 
   public int doPop()
@@ -766,37 +1454,37 @@ public class Z80CPU implements Runnable
 
   public boolean getFlagSign()
   {
-    return this.flagSign;
+    return (this.regF & FLAG_S) != 0;
   }
 
 
   public boolean getFlagZero()
   {
-    return this.flagZero;
+    return (this.regF & FLAG_Z) != 0;
   }
 
 
   public boolean getFlagHalf()
   {
-    return this.flagHalf;
+    return (this.regF & FLAG_H) != 0;
   }
 
 
   public boolean getFlagPV()
   {
-    return this.flagPV;
+    return (this.regF & FLAG_PV) != 0;
   }
 
 
   public boolean getFlagN()
   {
-    return this.flagN;
+    return (this.regF & FLAG_N) != 0;
   }
 
 
   public boolean getFlagCarry()
   {
-    return this.flagCarry;
+    return (this.regF & FLAG_C) != 0;
   }
 
 
@@ -814,37 +1502,61 @@ public class Z80CPU implements Runnable
 
   public void setFlagSign( boolean state )
   {
-    this.flagSign = state;
+    if( state ) {
+      this.regF |= FLAG_S;
+    } else {
+      this.regF &= ~FLAG_S;
+    }
   }
 
 
   public void setFlagZero( boolean state )
   {
-    this.flagZero = state;
+    if( state ) {
+      this.regF |= FLAG_Z;
+    } else {
+      this.regF &= ~FLAG_Z;
+    }
   }
 
 
   public void setFlagHalf( boolean state )
   {
-    this.flagHalf = state;
+    if( state ) {
+      this.regF |= FLAG_H;
+    } else {
+      this.regF &= ~FLAG_H;
+    }
   }
 
 
   public void setFlagPV( boolean state )
   {
-    this.flagPV = state;
+    if( state ) {
+      this.regF |= FLAG_PV;
+    } else {
+      this.regF &= ~FLAG_PV;
+    }
   }
 
 
   public void setFlagN( boolean state )
   {
-    this.flagN = state;
+    if( state ) {
+      this.regF |= FLAG_N;
+    } else {
+      this.regF &= ~FLAG_N;
+    }
   }
 
 
   public void setFlagCarry( boolean state )
   {
-    this.flagCarry = state;
+    if( state ) {
+      this.regF |= FLAG_C;
+    } else {
+      this.regF &= ~FLAG_C;
+    }
   }
 
 
@@ -906,14 +1618,7 @@ public class Z80CPU implements Runnable
 
   public int getRegF()
   {
-    return (this.flagSign ? BIT7 : 0)
-		| (this.flagZero  ? BIT6 : 0)
-		| (this.flag5     ? BIT5 : 0)
-		| (this.flagHalf  ? BIT4 : 0)
-		| (this.flag3     ? BIT3 : 0)
-		| (this.flagPV    ? BIT2 : 0)
-		| (this.flagN     ? BIT1 : 0)
-		| (this.flagCarry ? BIT0 : 0);
+    return this.regF;
   }
 
 
@@ -961,14 +1666,7 @@ public class Z80CPU implements Runnable
 
   public void setRegF( int value )
   {
-    this.flagSign  = (value & BIT7) != 0;
-    this.flagZero  = (value & BIT6) != 0;
-    this.flag5     = (value & BIT5) != 0;
-    this.flagHalf  = (value & BIT4) != 0;
-    this.flag3     = (value & BIT3) != 0;
-    this.flagPV    = (value & BIT2) != 0;
-    this.flagN     = (value & BIT1) != 0;
-    this.flagCarry = (value & BIT0) != 0;
+    this.regF = value & 0xFF;
   }
 
 
@@ -1168,36 +1866,35 @@ public class Z80CPU implements Runnable
   @Override
   public void run()
   {
-    int opCode = 0;
     resetSpeed();
 
     this.active = true;
     this.thread = Thread.currentThread();
+    refreshControl();
     updStatusListeners( null, null );
 
     try {
-      while( this.active ) {
+      for(;;) {
+	if( this.controlEpoch != this.seenControlEpoch ) {
+	  refreshControl();
+	}
+	if( !this.curActive ) {
+	  break;
+	}
 	this.instTStates = 0;
 	if( this.preCode < 0 ) {
 	  this.instBegPC = this.regPC;
 
 	  // WAIT-Mode
-	  if( this.waitMode ) {
-	    Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
-	    if( tStatesListeners != null ) {
-	      while( this.active && this.waitMode ) {
-		this.processedTStates++;
-		this.speedTStates++;
-		for( int i = 0; i < tStatesListeners.length; i++ ) {
-		  tStatesListeners[ i ].z80TStatesProcessed( this, 1 );
-		}
-	      }
-	    }
+	  if( this.curWaitMode ) {
+	    processWaitMode( true );
 	  }
 
 	  // Zaehler fuer die Taktzyklen darf nicht ueberlaufen
 	  if( this.processedTStates >= tStatesWrap ) {
+	    this.eventScheduler.rebase( tStatesWrap );
 	    this.processedTStates -= tStatesWrap;
+	    this.tStatesOffset    += tStatesWrap;
 	  }
 
 	  /*
@@ -1206,9 +1903,11 @@ public class Z80CPU implements Runnable
 	  if( this.speedTStates >= tStatesWrap ) {
 
 	    // Zaehler fuer die Taktzyklen darf nicht ueberlaufen
-	    this.speedUnlimitedTill = 0L;
+	    this.speedUnlimitedTill    = 0L;
+	    this.curSpeedUnlimitedTill = 0L;
 	    this.speedNanosBeg      = System.nanoTime();
 	    this.speedNanosEnd      = -1L;
+	    this.paceNextTStates    = 0L;
 	    this.speedTStates -= tStatesWrap;
 
 	  } else {
@@ -1220,96 +1919,35 @@ public class Z80CPU implements Runnable
 	     * benoetigt wird.
 	     */
 	    checkSpeedBrake();
-	  }
-
-
-	  /*
-	   * Interrupt-Verwaltung
-	   *
-	   * Unmittelbar nach einem EI- und DI-Befehl darf kein
-	   * maskierbarer Interrupt auftreten.
-	   */
-	  boolean            nmiAccepted     = false;
-	  Z80InterruptSource interruptSource = null;
-	  Z80Breakpoint      breakpoint      = null;
-	  if( this.nmiFired ) {
-	    this.nmiFired = false;
-	    this.iff2     = this.iff1;
-	    this.iff1     = false;
-	    incRegR();
-	    doPush( this.regPC );
-	    this.haltPC = null;
-	    this.regPC  = 0x0066;
-	    nmiAccepted = true;
-	    this.processedTStates += 11;
-	    this.speedTStates     += 11;
-	  } else {
-	    if( this.lastInstWasEIorDI ) {
-	      this.lastInstWasEIorDI = false;
-	    } else {
-	      if( this.iff1 ) {
-		Z80InterruptSource[] iSources = this.interruptSources;
-		if( iSources != null ) {
-		  for( int i = 0; i < iSources.length; i++ ) {
-		    Z80InterruptSource iSource = iSources[ i ];
-		    if( iSource.isInterruptAccepted() ) {
-		      break;
-		    }
-		    if( iSource.isInterruptRequested() ) {
-		      this.haltPC = null;
-		      this.iff1   = false;
-		      this.iff2   = false;
-		      int iVector = iSource.interruptAccept() & 0xFF;
-		      incRegR();
-
-		      switch( this.interruptMode ) {
-			case 1:
-			  doPush( this.regPC );
-			  this.regPC = 0x0038;
-			  this.instTStates += 13;
-			  break;
-
-			case 2:
-			  {
-			    int m = (this.interruptReg << 8) | iVector;
-			    doPush( this.regPC );
-			    this.regPC = readMemWord( m );
-			    this.instTStates += 19;
-			  }
-			  break;
-
-			default:			// IM 0
-			  this.instBegPC = this.regPC;
-			  this.preCode   = -1;
-			  execInst( iVector );
-			  // insgesamt 13 bei RST-Befehl
-			  this.instTStates += 2;
-		      }
-		      this.processedTStates += this.instTStates;
-		      this.speedTStates     += this.instTStates;
-		      this.instTStates  = 0;
-		      interruptSource   = iSource;
-		    }
-		  }
-		}
-	      }
-	    }
-	  }
-	  if( !nmiAccepted
-	      && (interruptSource == null)
-	      && (this.haltPC != null) )
-	  {
-	    this.regPC  = this.haltPC.intValue();
-	    this.haltPC = null;
-	  } else {
-	    setHaltState( false );
+	  }
+
+	  // Interrupt-Verwaltung
+	  Z80InterruptSource interruptSource = processInterrupts();
+	  boolean            nmiAccepted     = this.nmiAccepted;
+	  Z80Breakpoint      breakpoint      = null;
+
+	  // binaere Befehlsaufzeichnung
+	  if( this.curTraceBuffer != null ) {
+	    doBinaryTrace( nmiAccepted, interruptSource );
+	  }
+
+	  // Listener fuer die Befehlsgrenze
+	  Z80InstrBoundaryListener boundaryListener =
+					this.curInstrBoundaryListener;
+	  if( boundaryListener != null ) {
+	    boundaryListener.z80InstrBoundary(
+				this,
+				nmiAccepted || (interruptSource != null) );
 	  }
 
 
 	  /*
 	   * Debugger- und Pausesteuerung
 	   */
-	  if( (this.action == Action.PAUSE) || this.debugEnabled ) {
+	  if( this.curDebugOrPause ) {
+	    if( this.boundaryWaiters > 0 ) {
+	      holdAtInstrBoundary();
+	    }
 	    if( this.debugEnabled && (this.debugTracer != null) ) {
 	      doDebugTrace( nmiAccepted, interruptSource );
 	    }
@@ -1317,16 +1955,22 @@ public class Z80CPU implements Runnable
 	    /*
 	     * Pruefen, ob der Debugger anhalten soll
 	     */
-	    boolean         pause       = false;
-	    Z80Breakpoint[] breakpoints = this.breakpoints;
-	    if( breakpoints != null ) {
-	      for( int i = 0; i < breakpoints.length; i++ ) {
-		if( breakpoints[ i ].matches( this, interruptSource ) ) {
-		  breakpoint = breakpoints[ i ];
-		  break;
-		}
+	    boolean pause   = false;
+	    byte[]  pcFlags = this.curPCFlags;
+	    if( pcFlags != null ) {
+	      if( ((pcFlags[ this.regPC ] & PC_FLAG_BREAKPOINT) != 0)
+		  && (this.curPCBreakpoints != null) )
+	      {
+		breakpoint = findMatchingBreakpoint(
+			this.curPCBreakpoints.get( this.regPC ),
+			interruptSource );
 	      }
 	    }
+	    if( breakpoint == null ) {
+	      breakpoint = findMatchingBreakpoint(
+					this.curBreakpoints,
+					interruptSource );
+	    }
 	    if( (breakpoint == null)
 		&& ((this.action == Action.PAUSE)
 			|| (this.action == Action.DEBUG_STOP)
@@ -1359,143 +2003,1022 @@ public class Z80CPU implements Runnable
 		break;
 	    }
 	  }
+	  this.memWatchHitCnt = 0;
 	  this.lastInstWasRET = false;
 
 	  // ggf. in PCListener springen
-	  PCListenerItem pcListener = this.pcListener;
-	  if( pcListener != null ) {
-	    for( int i = 0; i < pcListener.pc.length; i++ ) {
-	      if( pcListener.pc[ i ] == this.regPC ) {
-		pcListener.listener.z80PCChanged( this, this.regPC );
-	      }
-	    }
-	  }
+	  callPCListener();
+
+	  this.blockRepeatTStatesEnd = this.processedTStates
+						+ BLOCK_REPEAT_MAX_TSTATES;
 	}
+	execNextInst();
+      }
+    }
+    finally {
+      this.active = false;
+      updStatusListeners( null, null );
+    }
+  }
 
-	// BefehlsOpCode lesen und PC weitersetzen
-	opCode     = readMemByteM1( this.regPC );
-	this.regPC = (this.regPC + 1) & 0xFFFF;
-	execInst( opCode );
 
-	Z80InstrTStatesMngr tStatesMngr = this.instTStatesMngr;
-	if( tStatesMngr != null ) {
-	  this.instTStates = tStatesMngr.z80IntructionProcessed(
-							this,
-							this.instBegPC,
-							this.instTStates );
-	}
+	/* --- begrenzte Programmausfuehrung ohne Bedienoberflaeche --- */
+
+  /*
+   * Die folgenden Methoden fuehren Programmcode im aktuellen Thread aus,
+   * bis eine Abbruchbedingung erreicht ist.
+   * Sie sind fuer die Verwendung ohne Bedienoberflaeche gedacht
+   * (z.B. Entpacken von Dateien oder Stapelverarbeitung).
+   *
+   * Im Gegensatz zu run() wird weder die Geschwindigkeit gebremst
+   * noch der Debugger beruecksichtigt,
+   * und es werden keine Status-Listener benachrichtigt.
+   * Angemeldete Listener, Interruptquellen und Ereignisse
+   * werden aber wie gewohnt bedient.
+   *
+   * Die Abbruchbedingungen werden nur zwischen zwei Befehlen geprueft.
+   * Dadurch kann die Anzahl der verarbeiteten Taktzyklen
+   * die Vorgabe um die Laenge eines Befehls ueberschreiten.
+   *
+   * Das zurueckgelieferte Objekt gehoert der CPU
+   * und wird beim naechsten Aufruf wiederverwendet.
+   */
+  public Z80RunResult runFor( long maxTStates )
+  {
+    return runBounded( maxTStates, -1, false, null, false );
+  }
 
-	this.instTStates      += this.waitStates.getAndSet( 0 );
-	this.processedTStates += this.instTStates;
-	this.speedTStates     += this.instTStates;
 
-	// verbrauchte Anzahl Taktzyklen melden
-	Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
-	if( tStatesListeners != null ) {
-	  for( int i = 0; i < tStatesListeners.length; i++ ) {
-	    tStatesListeners[ i ].z80TStatesProcessed(
-						this,
-						this.instTStates );
-	  }
+  public Z80RunResult runUntil( int stopPC, long maxTStates )
+  {
+    return runBounded( maxTStates, stopPC & 0xFFFF, false, null, false );
+  }
+
+
+  /*
+   * Die Bedingung wird vor jedem Befehl abgefragt,
+   * bei einem gerade angenommenen Interrupt
+   * wird die Interruptquelle uebergeben.
+   */
+  public Z80RunResult runUntil( Z80Breakpoint condition, long maxTStates )
+  {
+    return runBounded( maxTStates, -1, false, condition, false );
+  }
+
+
+  public Z80RunResult runUntilHalt( long maxTStates )
+  {
+    return runBounded( maxTStates, -1, true, null, false );
+  }
+
+
+	/* --- Methoden fuer Z80TStatesListenerAdapter --- */
+
+  synchronized void addTStatesAdapter( Z80TStatesListenerAdapter adapter )
+  {
+    Z80TStatesListenerAdapter[] adapters = this.tStatesAdapters;
+    if( adapters != null ) {
+      adapters = Arrays.copyOf( adapters, adapters.length + 1 );
+    } else {
+      adapters = new Z80TStatesListenerAdapter[ 1 ];
+    }
+    adapters[ adapters.length - 1 ] = adapter;
+    this.tStatesAdapters = adapters;
+  }
+
+
+  /*
+   * Summe der Taktzyklen, die den Listenern bisher gemeldet wurden
+   *
+   * Im Gegensatz zu getProcessedTStates() sind die Taktzyklen
+   * fuer die Annahme von Interrupts nicht enthalten,
+   * da sie auch den nach jedem Befehl aufgerufenen Listenern
+   * nicht gemeldet werden.
+   */
+  long getListenerTStates()
+  {
+    return this.listenerTStates;
+  }
+
+
+  synchronized void removeTStatesAdapter( Z80TStatesListenerAdapter adapter )
+  {
+    Z80TStatesListenerAdapter[] adapters = this.tStatesAdapters;
+    if( adapters != null ) {
+      Collection<Z80TStatesListenerAdapter> c
+				= new ArrayList<>( adapters.length );
+      for( int i = 0; i < adapters.length; i++ ) {
+	if( adapters[ i ] != adapter ) {
+	  c.add( adapters[ i ] );
 	}
       }
+      this.tStatesAdapters = (c.isEmpty() ?
+		null
+		: c.toArray( new Z80TStatesListenerAdapter[ c.size() ] ));
     }
-    finally {
-      this.active = false;
-      updStatusListeners( null, null );
+  }
+
+
+  /*
+   * Abgleich aller ueber einen Adapter angemeldeten Listener
+   * am Ende eines Befehls
+   *
+   * Zuerst erhalten alle Listener die Taktzyklen vor dem Befehl,
+   * die fuer keinen von ihnen ein Ereignis enthalten,
+   * danach alle Listener die Taktzyklen des Befehls selbst.
+   * Das entspricht der Reihenfolge bei Listenern,
+   * die nach jedem Befehl aufgerufen werden.
+   * Anschliessend meldet jeder Adapter sein naechstes Ereignis an.
+   */
+  void syncTStatesAdapters()
+  {
+    Z80TStatesListenerAdapter[] adapters = this.tStatesAdapters;
+    if( adapters != null ) {
+      long instBegTStates = this.listenerTStates - this.lastListenerTStates;
+      for( int i = 0; i < adapters.length; i++ ) {
+	adapters[ i ].update( this, instBegTStates );
+      }
+      for( int i = 0; i < adapters.length; i++ ) {
+	adapters[ i ].update( this, this.listenerTStates );
+      }
+      for( int i = 0; i < adapters.length; i++ ) {
+	adapters[ i ].schedule( this );
+      }
     }
+    this.tStatesAdaptersDirty = false;
   }
 
 
 	/* --- private Methoden --- */
 
-  private void checkSpeedBrake()
+  /*
+   * Festhalten des Emulations-Threads an der aktuellen Befehlsgrenze,
+   * solange ein anderer Thread eine Aufgabe
+   * mit execAtInstrBoundary(...) ausfuehrt
+   */
+  private void holdAtInstrBoundary()
+  {
+    synchronized( this.waitMonitor ) {
+      if( this.boundaryWaiters > 0 ) {
+	this.boundaryHeld = true;
+	this.waitMonitor.notifyAll();
+	try {
+	  while( this.boundaryHeld ) {
+	    this.waitMonitor.wait();
+	  }
+	}
+	catch( InterruptedException ex ) {
+	  this.boundaryHeld = false;
+	}
+      }
+    }
+  }
+
+
+  private void callPCListener()
+  {
+    byte[] pcFlags = this.curPCFlags;
+    if( pcFlags != null ) {
+      if( (pcFlags[ this.regPC ] & PC_FLAG_LISTENER) != 0 ) {
+	PCListenerItem pcListener = this.curPCListener;
+	if( pcListener != null ) {
+	  pcListener.listener.z80PCChanged( this, this.regPC );
+	}
+      }
+    }
+  }
+
+
+  /*
+   * Lesen und Ausfuehren des naechsten Befehlsbytes
+   * sowie Melden der verbrauchten Taktzyklen
+   */
+  private void execNextInst()
   {
-    if( this.brakeEnabled
-	&& (this.speedUnlimitedTill < this.speedTStates) )
+    fetchAndExecInst();
+
+    // wiederholten Blockbefehl ggf. gleich fortsetzen
+    if( this.blockRepeat
+	&& (this.processedTStates < this.blockRepeatTStatesEnd) )
     {
-      if( this.speedBrakeTStates < 200 ) {
-	this.speedBrakeTStates++;
+      repeatBlockInst();
+    }
+  }
+
+
+  private void fetchAndExecInst()
+  {
+    this.blockRepeat = false;
+
+    int opCode = readMemByteM1( this.regPC );
+    this.regPC = (this.regPC + 1) & 0xFFFF;
+    execInst( opCode );
+
+    Z80InstrTStatesMngr tStatesMngr = this.curInstTStatesMngr;
+    if( tStatesMngr != null ) {
+      this.instTStates = tStatesMngr.z80IntructionProcessed(
+							this,
+							this.instBegPC,
+							this.instTStates );
+    }
+
+    this.instTStates      += this.waitStates;
+    this.waitStates        = 0;
+    this.processedTStates += this.instTStates;
+    this.speedTStates     += this.instTStates;
+
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      if( this.preCode < 0 ) {
+	profiler.instExecuted( this.instBegPC, this.instTStates );
       } else {
-	this.speedBrakeTStates = 0;
-
-	if( this.maxSpeedKHz > 0 ) {
-	  long nanosToUse = (long) ((float) this.speedTStates
-						/ (float) this.maxSpeedKHz )
-						* 1000000L;
-	  long usedNanos  = (this.speedNanosEnd > 0L) ?
-			(this.speedNanosEnd - this.speedNanosBeg)
-			: (System.nanoTime() - this.speedNanosBeg);
-
-	  if( nanosToUse > usedNanos ) {
-	    long diffNanos  = nanosToUse - usedNanos;
-	    long millis = diffNanos / 1000000L;
-	    int  nanos  = (int) (diffNanos % 1000000L);
-	    try {
-	      Thread.sleep( millis, nanos );
-	    }
-	    catch( InterruptedException ex ) {}
-	  }
+	profiler.preCodeExecuted( this.instBegPC, this.instTStates );
+      }
+    }
+
+    // verbrauchte Anzahl Taktzyklen melden
+    tStatesProcessed( this.instTStates );
+  }
+
+
+  /*
+   * Melden der Taktzyklen eines Befehls an die Listener
+   * und Ausloesen der faelligen Ereignisse
+   *
+   * Wurden die ueber einen Adapter angemeldeten Listener waehrend
+   * des Befehls abgeglichen (z.B. bei einem Ein-/Ausgabebefehl),
+   * erhalten sie jetzt die Taktzyklen des Befehls
+   * und melden ihr naechstes Ereignis neu an.
+   */
+  private void tStatesProcessed( int tStates )
+  {
+    Z80TStatesListener[] tStatesListeners = this.curTStatesListeners;
+    if( tStatesListeners != null ) {
+      for( int i = 0; i < tStatesListeners.length; i++ ) {
+	tStatesListeners[ i ].z80TStatesProcessed( this, tStates );
+      }
+    }
+    this.listenerTStates    += tStates;
+    this.lastListenerTStates = tStates;
+    if( this.tStatesAdaptersDirty ) {
+      syncTStatesAdapters();
+    }
+    if( this.processedTStates >= this.eventScheduler.getNextEventTStates() ) {
+      this.eventScheduler.fireDueEvents( this, this.processedTStates );
+    }
+  }
+
+
+  /*
+   * Pruefen, ob ein wiederholter Blockbefehl ohne Umweg
+   * ueber die Hauptschleife fortgesetzt werden kann,
+   * d.h., ob die Hauptschleife vor dem naechsten Durchlauf
+   * nichts weiter zu tun haette.
+   */
+  private boolean canRepeatBlockInst( int pc )
+  {
+    if( (this.controlEpoch != this.seenControlEpoch)
+	|| !this.curActive
+	|| this.curWaitMode
+	|| this.curNMIPending
+	|| this.lastInstWasEIorDI
+	|| this.curDebugOrPause
+	|| (this.curTraceBuffer != null)
+	|| (this.curInstrBoundaryListener != null)
+	|| (this.preCode >= 0)
+	|| (this.regPC != pc)
+	|| (this.processedTStates >= this.blockRepeatTStatesEnd)
+	|| (this.processedTStates >= tStatesWrap)
+	|| (this.speedTStates >= tStatesWrap) )
+    {
+      return false;
+    }
+    if( this.iff1 && isInterruptLineActive() ) {
+      return false;
+    }
+    byte[] pcFlags = this.curPCFlags;
+    if( pcFlags != null ) {
+      if( (pcFlags[ pc ] & PC_FLAG_LISTENER) != 0 ) {
+	return false;
+      }
+    }
+    return true;
+  }
+
+
+  /*
+   * Wiederholung eines Blockbefehls (LDIR, LDDR, CPIR, CPDR,
+   * INIR, INDR, OTIR und OTDR) ohne Umweg ueber die Hauptschleife
+   *
+   * Die einzelnen Durchlaeufe werden weiterhin wie eigenstaendige
+   * Befehle geholt und ausgefuehrt sowie den Listenern gemeldet.
+   * Es entfallen lediglich Interrupt-Verwaltung, Geschwindigkeitsbremse
+   * und Debugger-Pruefungen, solange diese nichts zu tun haetten.
+   * Die Geschwindigkeitsbremse gleicht die Zeit anschliessend
+   * in der Hauptschleife aus.
+   *
+   * Unterstuetzt der Arbeitsspeicher das Interface Z80BulkMemory
+   * und koennen alle Listener ihr naechstes Ereignis angeben,
+   * werden bei LDIR und LDDR die Durchlaeufe bis auf den letzten
+   * am Stueck erledigt.
+   */
+  private void repeatBlockInst()
+  {
+    int pc = this.instBegPC;
+    while( canRepeatBlockInst( pc ) ) {
+      this.instTStates = 0;
+      if( !repeatBlockLDBulk( pc ) ) {
+	fetchAndExecInst();
+	if( !this.blockRepeat ) {
+	  break;
 	}
       }
     }
   }
 
 
-  public void execInst( int opCode )
+  /*
+   * Durchlaeufe von LDIR bzw. LDDR mit Z80BulkMemory am Stueck ausfuehren
+   *
+   * Der letzte Durchlauf sowie solche, die den Blockbefehl selbst
+   * ueberschreiben wuerden, werden nicht am Stueck ausgefuehrt.
+   * Ausserdem wird vor dem naechsten faelligen Ereignis
+   * und dem Ende der zulaessigen Taktzyklen angehalten.
+   * Nach jedem Befehl aufgerufene Listener erhalten die Taktzyklen
+   * der Durchlaeufe vor dem letzten mit einem einzigen Aufruf.
+   * Das ist nur moeglich, wenn alle Listener Z80TStatesSkipListener
+   * implementieren, und auch dann nur bis vor ihr naechstes Ereignis.
+   *
+   * Rueckgabewert:
+   *   true: mindestens ein Durchlauf wurde ausgefuehrt
+   */
+  private boolean repeatBlockLDBulk( int pc )
   {
-    incRegR();
-    if( (opCode == 0xDD) || (opCode == 0xFD) ) {
-      this.preCode = opCode;
-      this.instTStates += 4;
+    if( !(this.memory instanceof Z80BulkMemory)
+	|| (this.curAddrListener != null)
+	|| (this.curInstTStatesMngr != null)
+	|| (this.curProfiler != null)
+	|| (this.memory.getMemByte( pc, true ) != 0xED) )
+    {
+      return false;
+    }
+    int addValue = 0;
+    switch( this.memory.getMemByte( (pc + 1) & 0xFFFF, true ) ) {
+      case 0xB0:					// LDIR
+	addValue = 1;
+	break;
+      case 0xB8:					// LDDR
+	addValue = -1;
+	break;
+      default:
+	return false;
+    }
+    int regBC = getRegBC();
+    int regDE = getRegDE();
+    int regHL = getRegHL();
+
+    // letzten Durchlauf regulaer ausfuehren
+    long n = (regBC != 0 ? regBC : 0x10000) - 1;
+
+    // Blockbefehl selbst darf nicht ueberschrieben werden
+    n = Math.min( n, ((pc - regDE) * addValue) & 0xFFFF );
+    n = Math.min( n, ((pc + 1 - regDE) * addValue) & 0xFFFF );
+
+    // Ereignisse und Ende der zulaessigen Taktzyklen beachten
+    long remainTStates = Math.min(
+		this.blockRepeatTStatesEnd,
+		this.eventScheduler.getNextEventTStates() )
+					- this.processedTStates;
+    Z80TStatesListener[] tStatesListeners = this.curTStatesListeners;
+    if( tStatesListeners != null ) {
+      for( int i = 0; i < tStatesListeners.length; i++ ) {
+	if( !(tStatesListeners[ i ] instanceof Z80TStatesSkipListener) ) {
+	  return false;
+	}
+	remainTStates = Math.min(
+			remainTStates,
+			((Z80TStatesSkipListener) tStatesListeners[ i ])
+						.getTStatesToNextEvent() );
+      }
+    }
+    if( remainTStates < 1 ) {
+      return false;
+    }
+    n = Math.min( n, ((remainTStates - 1) / 21) + 1 );
+    if( n < 1 ) {
+      return false;
+    }
+    int b = ((Z80BulkMemory) this.memory).copyMemBytes(
+						regHL,
+						regDE,
+						(int) n,
+						addValue );
+    if( b < 0 ) {
+      return false;
+    }
+    int len = (int) n;
+    setRegDE( regDE + (len * addValue) );
+    setRegHL( regHL + (len * addValue) );
+    setRegBC( regBC - len );
+
+    // Flags wie nach dem letzten Durchlauf
+    b += this.regA;
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_C))
+			| FLAG_PV
+			| ((b & BIT1) << 4)
+			| (b & BIT3);
+
+    // je Durchlauf zwei Befehlsholezyklen und 21 Taktzyklen
+    this.regR_bits0to6 = (this.regR_bits0to6 + (2 * len)) & 0x7F;
+    this.processedTStates += (21L * n);
+    this.speedTStates     += (21L * n);
+
+    /*
+     * Nur der letzte Durchlauf kann ein Ereignis erreichen
+     * und wird deshalb wie ein eigenstaendiger Befehl gemeldet.
+     */
+    int tStates = (int) (21L * (n - 1));
+    if( (tStatesListeners != null) && (tStates > 0) ) {
+      for( int i = 0; i < tStatesListeners.length; i++ ) {
+	tStatesListeners[ i ].z80TStatesProcessed( this, tStates );
+      }
+    }
+    this.listenerTStates += tStates;
+    tStatesProcessed( 21 );
+    return true;
+  }
+
+
+  /*
+   * Interrupt-Verwaltung
+   *
+   * Unmittelbar nach einem EI- und DI-Befehl darf kein
+   * maskierbarer Interrupt auftreten.
+   * Zurueckgeliefert wird die Interruptquelle eines gerade
+   * angenommenen maskierbaren Interrupts.
+   * Ob ein NMI angenommen wurde, steht anschliessend im Attribut
+   * "nmiAccepted".
+   */
+  private Z80InterruptSource processInterrupts()
+  {
+    Z80InterruptSource interruptSource = null;
+    this.nmiAccepted                   = false;
+    if( this.curNMIPending ) {
+      this.curNMIPending = false;
+      this.iff2          = this.iff1;
+      this.iff1     = false;
+      incRegR();
+      doPush( this.regPC );
+      this.haltPC      = null;
+      this.regPC       = 0x0066;
+      this.nmiAccepted = true;
+      this.processedTStates += 11;
+      this.speedTStates     += 11;
     } else {
-      if( opCode < 0x80 ) {
-	if( opCode < 0x40 ) {
-	  if( opCode < 0x20 ) {
-	    if( opCode < 0x10 ) {
-	      exec00to0F( opCode );
-	    } else {
-	      exec10to1F( opCode );
-	    }
-	  } else {
-	    if( opCode < 0x30 ) {
-	      exec20to2F( opCode );
-	    } else {
-	      exec30to3F( opCode );
+      if( this.lastInstWasEIorDI ) {
+	this.lastInstWasEIorDI = false;
+      } else {
+	if( this.iff1 && isInterruptLineActive() ) {
+	  Z80InterruptSource[] iSources = this.curInterruptSources;
+	  if( iSources != null ) {
+	    for( int i = 0; i < iSources.length; i++ ) {
+	      Z80InterruptSource iSource = iSources[ i ];
+	      if( iSource.isInterruptAccepted() ) {
+		break;
+	      }
+	      if( iSource.isInterruptRequested() ) {
+		this.haltPC = null;
+		this.iff1   = false;
+		this.iff2   = false;
+		flushTStatesListeners();
+		int iVector = iSource.interruptAccept() & 0xFF;
+		incRegR();
+
+		switch( this.interruptMode ) {
+		  case 1:
+		    doPush( this.regPC );
+		    this.regPC = 0x0038;
+		    this.instTStates += 13;
+		    break;
+
+		  case 2:
+		    {
+		      int m = (this.interruptReg << 8) | iVector;
+		      doPush( this.regPC );
+		      this.regPC = readMemWord( m );
+		      this.instTStates += 19;
+		    }
+		    break;
+
+		  default:			// IM 0
+		    this.instBegPC = this.regPC;
+		    this.preCode   = -1;
+		    execInst( iVector );
+		    // insgesamt 13 bei RST-Befehl
+		    this.instTStates += 2;
+		}
+		this.processedTStates += this.instTStates;
+		this.speedTStates     += this.instTStates;
+		this.instTStates  = 0;
+		interruptSource   = iSource;
+		break;
+	      }
 	    }
 	  }
-	} else {
-	  exec40to7F( opCode );
 	}
-      } else {
-	if( opCode < 0xC0 ) {
-	  exec80toBF( opCode );
+      }
+    }
+    if( !this.nmiAccepted
+	&& (interruptSource == null)
+	&& (this.haltPC != null) )
+    {
+      this.regPC  = this.haltPC.intValue();
+      this.haltPC = null;
+    } else {
+      setHaltState( false );
+    }
+    return interruptSource;
+  }
+
+
+  /*
+   * Solange der WAIT-Mode aktiv ist, werden nur Taktzyklen gezaehlt
+   * und den Listenern gemeldet.
+   *
+   * Die Taktzyklen werden nicht einzeln, sondern in Bloecken
+   * bis zum naechsten absehbaren Ereignis verarbeitet.
+   * Ein Block endet spaetestens beim naechsten angemeldeten Ereignis
+   * und bei dem Taktzyklus, den ein Z80TStatesSkipListener
+   * als sein naechstes Ereignis angibt.
+   * Listener ohne diese Angabe erzwingen einzelne Taktzyklen.
+   * Ist kein Ereignis absehbar, wird hoechstens eine Millisekunde
+   * emulierte Zeit (bei unbegrenzter Geschwindigkeit WAIT_MAX_TSTATES)
+   * am Stueck verarbeitet und danach ggf. die Geschwindigkeitsbremse
+   * aufgerufen (speedBrake), so dass der Thread schlaeft,
+   * anstatt einen Prozessorkern auszulasten.
+   * Die gezaehlten Taktzyklen sind dieselben wie bei
+   * einzeln gemeldeten Taktzyklen.
+   */
+  private void processWaitMode( boolean speedBrake )
+  {
+    Z80TStatesListener[] tStatesListeners = this.curTStatesListeners;
+    if( (tStatesListeners != null) || this.eventScheduler.hasEvents() ) {
+      while( this.curActive && this.curWaitMode ) {
+	int  maxSpeedKHz      = this.maxSpeedKHz;
+	long nextEventTStates = this.eventScheduler.getNextEventTStates();
+	long tStates          = WAIT_MAX_TSTATES;
+	if( maxSpeedKHz > 0 ) {
+	  tStates = maxSpeedKHz;
+	}
+	if( nextEventTStates > this.processedTStates ) {
+	  tStates = Math.min(
+			tStates,
+			nextEventTStates - this.processedTStates );
 	} else {
-	  if( opCode < 0xE0 ) {
-	    if( opCode < 0xD0 ) {
-	      execC0toCF( opCode );
-	    } else {
-	      execD0toDF( opCode );
-	    }
-	  } else {
-	    if( opCode < 0xF0 ) {
-	      execE0toEF( opCode );
+	  tStates = 1;
+	}
+	if( tStatesListeners != null ) {
+	  for( int i = 0; (i < tStatesListeners.length) && (tStates > 1); i++ )
+	  {
+	    if( tStatesListeners[ i ] instanceof Z80TStatesSkipListener ) {
+	      tStates = Math.min(
+			tStates,
+			((Z80TStatesSkipListener) tStatesListeners[ i ])
+						.getTStatesToNextEvent() );
 	    } else {
-	      execF0toFF( opCode );
+	      tStates = 1;
 	    }
 	  }
 	}
+	if( tStates < 1 ) {
+	  tStates = 1;
+	}
+	this.processedTStates += tStates;
+	this.speedTStates     += tStates;
+	tStatesProcessed( (int) tStates );
+	if( speedBrake && (tStates > 1) ) {
+	  checkSpeedBrake();
+	}
+	if( this.controlEpoch != this.seenControlEpoch ) {
+	  refreshControl();
+	}
       }
-      this.preCode = -1;
     }
   }
 
 
-	/* --- private Methode zur Emulation der Codes 00-FF --- */
-
   /*
-   * Bei Befehlen mit den Vorbytes 0xDD und 0xFD (IX- und IY-Register)
-   * werden die Taktzyklen um 4 weniger hochgezaehlt,
+   * resume: Die CPU steht bereits an einer Befehlsgrenze
+   *         nach der Interruptannahme,
+   *         d.h., vor dem ersten Befehl werden keine Interrupts
+   *         verarbeitet.
+   */
+  private Z80RunResult runBounded(
+			long          maxTStates,
+			int           stopPC,
+			boolean       stopOnHalt,
+			Z80Breakpoint condition,
+			boolean       resume )
+  {
+    Z80RunResult.StopReason stopReason = Z80RunResult.StopReason.EXIT;
+    long                    usedTStates = 0L;
+
+    /*
+     * Wurde der PC nach einem HALT-Befehl von aussen veraendert,
+     * wird der HALT-Zustand verlassen.
+     */
+    if( (this.haltPC != null)
+	&& (this.regPC != ((this.haltPC.intValue() + 1) & 0xFFFF)) )
+    {
+      this.haltPC = null;
+      setHaltState( false );
+    }
+
+    this.active = true;
+    this.thread = Thread.currentThread();
+    refreshControl();
+    try {
+      for(;;) {
+	if( this.controlEpoch != this.seenControlEpoch ) {
+	  refreshControl();
+	}
+	if( !this.curActive ) {
+	  break;
+	}
+	this.instTStates = 0;
+	long tStates0    = this.processedTStates;
+	if( this.preCode < 0 ) {
+	  if( usedTStates >= maxTStates ) {
+	    stopReason = Z80RunResult.StopReason.TSTATES_ELAPSED;
+	    break;
+	  }
+	  Z80InterruptSource interruptSource   = null;
+	  boolean            interruptAccepted = false;
+	  if( resume ) {
+	    resume = false;
+	  } else {
+	    this.instBegPC = this.regPC;
+	    if( this.curWaitMode ) {
+	      processWaitMode( false );
+	    }
+	    if( this.processedTStates >= tStatesWrap ) {
+	      this.eventScheduler.rebase( tStatesWrap );
+	      this.processedTStates -= tStatesWrap;
+	      this.tStatesOffset    += tStatesWrap;
+	      tStates0 -= tStatesWrap;
+	    }
+	    interruptSource   = processInterrupts();
+	    interruptAccepted = (this.nmiAccepted || (interruptSource != null));
+	    if( this.curTraceBuffer != null ) {
+	      doBinaryTrace( this.nmiAccepted, interruptSource );
+	    }
+	  }
+	  Z80InstrBoundaryListener boundaryListener =
+					this.curInstrBoundaryListener;
+	  if( boundaryListener != null ) {
+	    boundaryListener.z80InstrBoundary( this, interruptAccepted );
+	  }
+	  if( this.regPC == stopPC ) {
+	    stopReason = Z80RunResult.StopReason.PC_REACHED;
+	    break;
+	  }
+	  if( condition != null ) {
+	    if( condition.matches( this, interruptSource ) ) {
+	      stopReason = Z80RunResult.StopReason.CONDITION_MATCHED;
+	      break;
+	    }
+	  }
+	  this.memWatchHitCnt = 0;
+	  this.lastInstWasRET = false;
+	  callPCListener();
+
+	  /*
+	   * Ein Blockbefehl darf nur wiederholt werden,
+	   * solange keine Abbruchbedingung vor einem Befehl
+	   * erfuellt sein kann.
+	   */
+	  this.blockRepeatTStatesEnd = 0L;
+	  if( (condition == null) && (stopPC != this.regPC) ) {
+	    this.blockRepeatTStatesEnd = tStates0 + Math.min(
+						maxTStates - usedTStates,
+						BLOCK_REPEAT_MAX_TSTATES );
+	  }
+	}
+	execNextInst();
+
+	/*
+	 * Wurde der Taktzyklenzaehler zwischenzeitlich zurueckgesetzt,
+	 * wird der Befehl nicht mitgezaehlt.
+	 */
+	long diffTStates = this.processedTStates - tStates0;
+	if( diffTStates > 0 ) {
+	  usedTStates += diffTStates;
+	}
+	if( stopOnHalt && this.haltState ) {
+	  stopReason = Z80RunResult.StopReason.HALT_REACHED;
+	  break;
+	}
+      }
+    }
+    finally {
+      this.active = false;
+    }
+    this.runResult.set( stopReason, usedTStates, this.regPC );
+    return this.runResult;
+  }
+
+
+  /*
+   * Signalisieren einer Aenderung der Steuerdaten an den Emulations-Thread
+   *
+   * Die Methode ist synchronisiert, damit bei gleichzeitigen Aenderungen
+   * aus mehreren Threads keine Erhoehung des Zaehlers verloren geht.
+   */
+  private synchronized void controlChanged()
+  {
+    this.controlEpoch++;
+  }
+
+
+  /*
+   * Uebernehmen der Steuerdaten in die Kopien des Emulations-Threads
+   *
+   * Der Zaehler wird vor den Steuerdaten gelesen,
+   * damit eine zwischenzeitliche Aenderung beim naechsten Befehl
+   * erneut erkannt wird.
+   * Ein ausgeloester NMI wird dabei gleich als anstehend uebernommen.
+   */
+  private void refreshControl()
+  {
+    this.seenControlEpoch = this.controlEpoch;
+    if( this.nmiFired ) {
+      this.nmiFired      = false;
+      this.curNMIPending = true;
+    }
+    this.curActive             = this.active;
+    this.curWaitMode           = this.waitMode;
+    this.curDebugEnabled       = this.debugEnabled;
+    this.curDebugOrPause       = (this.curDebugEnabled
+				|| (this.action == Action.PAUSE)
+				|| (this.boundaryWaiters > 0));
+    this.curTableDispatch      = this.tableDispatch;
+
+    /*
+     * Beim Ein- und Ausschalten der Bremse
+     * die Geschwindigkeitsmessung neu beginnen
+     */
+    boolean brakeEnabled = (this.brakeEnabled && !this.speedUnlimited);
+    if( brakeEnabled != this.curBrakeEnabled ) {
+      this.speedNanosBeg             = System.nanoTime();
+      this.speedNanosEnd             = -1L;
+      this.speedTStates              = 0L;
+      this.paceNextTStates           = 0L;
+      this.speedBrakeSleepsPerSec    = 0;
+      this.speedBrakeOversleepMicros = 0;
+      this.speedBrakeFramesBehind    = 0;
+      this.curBrakeEnabled           = brakeEnabled;
+    }
+    this.curSpeedUnlimitedTill = this.speedUnlimitedTill;
+    this.curPCListener         = this.pcListener;
+    this.curPCFlags            = this.pcFlags;
+    this.curBreakpoints        = this.breakpoints;
+    this.curPCBreakpoints      = this.pcBreakpoints;
+    this.curAddrListener       = this.addrListener;
+    this.curTStatesListeners   = this.tStatesListeners;
+    this.curInterruptSources   = this.interruptSources;
+    this.curPolledInterruptSources = this.polledInterruptSources;
+    this.curInterruptLine      = this.interruptLine;
+    this.curInstTStatesMngr    = this.instTStatesMngr;
+    this.curProfiler           = (this.replaying ? null : this.profiler);
+    this.curTraceBuffer        = (this.replaying ? null : this.traceBuffer);
+    this.curInstrBoundaryListener = this.instrBoundaryListener;
+    this.curMemWatchReadBits   = (this.curDebugEnabled ?
+					this.memWatchReadBits : null);
+    this.curMemWatchWriteBits  = (this.curDebugEnabled ?
+					this.memWatchWriteBits : null);
+  }
+
+
+  /*
+   * Nach dem Wiederherstellen eines Zustands zaehlen die ueber
+   * einen Adapter angemeldeten Listener ab dem aktuellen Stand weiter.
+   * Bereits vorher aufgelaufene Taktzyklen gehoeren
+   * zum verworfenen Zustand und werden nicht mehr gemeldet.
+   */
+  private void resetTStatesAdapters()
+  {
+    Z80TStatesListenerAdapter[] adapters = this.tStatesAdapters;
+    if( adapters != null ) {
+      for( int i = 0; i < adapters.length; i++ ) {
+	adapters[ i ].reset( this.listenerTStates );
+      }
+      this.tStatesAdaptersDirty = true;
+    }
+  }
+
+
+  /*
+   * Pruefen, ob die Speicheradresse ueberwacht wird,
+   * und wenn ja, den Zugriff fuer die Haltepunkte merken
+   */
+  private void checkMemWatch( long[] bits, int addr, int value, int flags )
+  {
+    addr &= 0xFFFF;
+    if( (bits[ addr >> 6 ] & (1L << addr)) != 0 ) {
+      if( this.memWatchHitCnt < this.memWatchHits.length ) {
+	this.memWatchHits[ this.memWatchHitCnt++ ] =
+				flags | ((value & 0xFF) << 16) | addr;
+      }
+    }
+  }
+
+
+  private void checkSpeedBrake()
+  {
+    if( this.curBrakeEnabled
+	&& (this.curSpeedUnlimitedTill < this.speedTStates) )
+    {
+      if( this.speedTStates >= this.paceNextTStates ) {
+	paceSpeed();
+      }
+    } else {
+      // nach Ende der unbegrenzten Geschwindigkeit neu beginnen
+      this.paceNextTStates = 0L;
+    }
+  }
+
+
+  /*
+   * Geschwindigkeitsbremse mit festem Intervall
+   *
+   * Der Zielzeitpunkt wird aus den seit dem letzten Intervall
+   * verarbeiteten Taktzyklen ganzzahlig fortgeschrieben.
+   * Da er nicht von der tatsaechlichen Aufwachzeit abhaengt,
+   * wird zu langes Schlafen im naechsten Intervall ausgeglichen.
+   */
+  private void paceSpeed()
+  {
+    long tStates     = this.speedTStates;
+    int  maxSpeedKHz = this.maxSpeedKHz;
+    if( maxSpeedKHz <= 0 ) {
+      // setMaxSpeedKHz(...) ruft resetSpeed() auf
+      this.paceNextTStates = tStatesWrap;
+      return;
+    }
+    long nowNanos = System.nanoTime();
+    if( this.paceNextTStates == 0L ) {
+      this.paceTargetNanos   = nowNanos;
+      this.paceRemainder     = 0L;
+      this.paceParkOversleep = 0L;
+      this.paceStatBegNanos  = nowNanos;
+      this.paceStatSleeps    = 0;
+      this.paceStatBehind    = 0;
+      this.paceStatOversleep = 0L;
+    } else {
+      long n = ((tStates - this.paceTStates) * 1000000L) + this.paceRemainder;
+      this.paceTargetNanos += (n / maxSpeedKHz);
+      this.paceRemainder   = n % maxSpeedKHz;
+
+      long waitNanos = this.paceTargetNanos - nowNanos;
+      if( waitNanos > 0L ) {
+	sleepUntil( this.paceTargetNanos );
+	nowNanos = System.nanoTime();
+	this.paceStatSleeps++;
+	this.paceStatOversleep += Math.max(
+				nowNanos - this.paceTargetNanos,
+				0L );
+      } else {
+	this.paceStatBehind++;
+	if( waitNanos < -SPEED_BRAKE_MAX_LAG_NANOS ) {
+	  this.paceTargetNanos = nowNanos;
+	  this.paceRemainder   = 0L;
+	}
+      }
+
+      // Messwerte einmal je Sekunde veroeffentlichen
+      long statNanos = nowNanos - this.paceStatBegNanos;
+      if( statNanos >= 1000000000L ) {
+	this.speedBrakeSleepsPerSec = (int) Math.round(
+			(double) this.paceStatSleeps * 1.0E9 / statNanos );
+	this.speedBrakeOversleepMicros = (this.paceStatSleeps > 0 ?
+		(int) (this.paceStatOversleep / this.paceStatSleeps / 1000L)
+		: 0);
+	this.speedBrakeFramesBehind = this.paceStatBehind;
+	this.paceStatBegNanos  = nowNanos;
+	this.paceStatSleeps    = 0;
+	this.paceStatBehind    = 0;
+	this.paceStatOversleep = 0L;
+      }
+    }
+    this.paceTStates     = tStates;
+    this.paceNextTStates = tStates
+		+ Math.max( (long) maxSpeedKHz * SPEED_BRAKE_MILLIS, 1L );
+  }
+
+
+  /*
+   * Schlafen bis zum angegebenen Zeitpunkt
+   *
+   * Es wird mit LockSupport.parkNanos(...) geschlafen
+   * und die letzten Mikrosekunden aktiv gewartet.
+   * Die beobachtete Ueberschreitung von parkNanos(...) wird
+   * als gleitender Mittelwert mitgefuehrt und beim naechsten Mal
+   * von der Schlafzeit abgezogen.
+   * Der Mittelwert ist auf SPEED_BRAKE_MAX_OVERSLEEP_NANOS begrenzt
+   * und wird bei jedem Neubeginn des Zeitplans zurueckgesetzt.
+   */
+  private void sleepUntil( long targetNanos )
+  {
+    for(;;) {
+      long remainNanos = targetNanos - System.nanoTime();
+      if( remainNanos <= 0L ) {
+	break;
+      }
+      long parkNanos = remainNanos
+			- SPEED_BRAKE_SPIN_NANOS
+			- this.paceParkOversleep;
+      if( parkNanos > 0L ) {
+	long begNanos = System.nanoTime();
+	LockSupport.parkNanos( parkNanos );
+
+	// Unterbrechung wie bisher bei Thread.sleep(...) ignorieren
+	Thread.interrupted();
+
+	/*
+	 * Auch puenktliches Aufwachen geht in den Mittelwert ein,
+	 * damit er nach einem einzelnen Ausreisser wieder sinkt.
+	 */
+	long overNanos = System.nanoTime() - begNanos - parkNanos;
+	overNanos = Math.max(
+			Math.min( overNanos, SPEED_BRAKE_MAX_OVERSLEEP_NANOS ),
+			0L );
+	this.paceParkOversleep += ((overNanos - this.paceParkOversleep) / 8);
+      }
+    }
+  }
+
+
+  public void execInst( int opCode )
+  {
+    incRegR();
+    if( (opCode == 0xDD) || (opCode == 0xFD) ) {
+      this.preCode = opCode;
+      this.instTStates += 4;
+    } else if( this.curTableDispatch ) {
+      if( this.preCode < 0 ) {
+	execMainByTable( opCode );
+      } else {
+	execIXYByTable( opCode );
+      }
+      this.preCode = -1;
+    } else {
+      if( opCode < 0x80 ) {
+	if( opCode < 0x40 ) {
+	  if( opCode < 0x20 ) {
+	    if( opCode < 0x10 ) {
+	      exec00to0F( opCode );
+	    } else {
+	      exec10to1F( opCode );
+	    }
+	  } else {
+	    if( opCode < 0x30 ) {
+	      exec20to2F( opCode );
+	    } else {
+	      exec30to3F( opCode );
+	    }
+	  }
+	} else {
+	  exec40to7F( opCode );
+	}
+      } else {
+	if( opCode < 0xC0 ) {
+	  exec80toBF( opCode );
+	} else {
+	  if( opCode < 0xE0 ) {
+	    if( opCode < 0xD0 ) {
+	      execC0toCF( opCode );
+	    } else {
+	      execD0toDF( opCode );
+	    }
+	  } else {
+	    if( opCode < 0xF0 ) {
+	      execE0toEF( opCode );
+	    } else {
+	      execF0toFF( opCode );
+	    }
+	  }
+	}
+      }
+      this.preCode = -1;
+    }
+  }
+
+
+	/* --- private Methode zur Emulation der Codes 00-FF --- */
+
+  /*
+   * Bei Befehlen mit den Vorbytes 0xDD und 0xFD (IX- und IY-Register)
+   * werden die Taktzyklen um 4 weniger hochgezaehlt,
    * da bereits bei den Vorbytes selbst die 4 Taktzyklen gezaehlt werden.
    */
   private void exec00to0F( int opCode )
@@ -1529,29 +3052,12 @@ public class Z80CPU implements Runnable
 	this.instTStates += 7;
 	break;
       case 0x07:				// RLCA
-	if( (this.regA & BIT7) != 0 ) {
-	  this.regA = ((this.regA << 1) | BIT0) & 0xFF;
-	  this.flagCarry = true;
-	} else {
-	  this.regA = (this.regA << 1) & 0xFF;
-	  this.flagCarry = false;
-	}
-	this.flagHalf = false;
-	this.flagN    = false;
-	this.flag5    = ((this.regA & BIT5) != 0);
-	this.flag3    = ((this.regA & BIT3) != 0);
+	doInstRLCA();
 	this.instTStates += 4;
 	break;
       case 0x08:				// EX AF,AF'
-	{
-	  int b      = this.regA;
-	  this.regA  = this.regA2;
-	  this.regA2 = b;
-	  b          = getRegF();
-	  setRegF( this.regF2 );
-	  this.regF2 = b;
-	  this.instTStates += 4;
-	}
+	doInstEXAF();
+	this.instTStates += 4;
 	break;
       case 0x09:
 	if( this.preCode == 0xDD ) {		// ADD IX,BC
@@ -1584,17 +3090,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 7;
 	break;
       case 0x0F:				// RRCA
-	if( (this.regA & BIT0) != 0 ) {
-	  this.regA = (this.regA >> 1) | BIT7;
-	  this.flagCarry = true;
-	} else {
-	  this.regA >>= 1;
-	  this.flagCarry = false;
-	}
-	this.flagHalf = false;
-	this.flagN    = false;
-	this.flag5    = ((this.regA & BIT5) != 0);
-	this.flag3    = ((this.regA & BIT3) != 0);
+	doInstRRCA();
 	this.instTStates += 4;
 	break;
       default:
@@ -1607,20 +3103,8 @@ public class Z80CPU implements Runnable
   {
     switch( opCode ) {
       case 0x10:				// DJNZ n
-	{
-	  int d = nextByte();
-	  if( d == 0xFE ) {			// leere Schleife
-	    setStepOverBreakAddr();
-	    setWalkBreakAddr();
-	  }
-	  this.regB = (this.regB - 1) & 0xFF;
-	  if( this.regB != 0 ) {
-	    doJmpRel( d );
-	    this.instTStates += 13;
-	  } else {
-	    this.instTStates += 8;
-	  }
-	}
+	doInstDJNZ();
+	this.instTStates += 8;
 	break;
       case 0x11:				// LD DE,nn
 	setRegDE( nextWord() );
@@ -1647,16 +3131,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 7;
 	break;
       case 0x17:				// RLA
-	this.regA <<= 1;
-	if( this.flagCarry ) {
-	  this.regA |= BIT0;
-	}
-	this.flagCarry = ((this.regA & 0x100) != 0);
-	this.regA      &= 0xFF;
-	this.flagHalf  = false;
-	this.flagN     = false;
-	this.flag5     = ((this.regA & BIT5) != 0);
-	this.flag3     = ((this.regA & BIT3) != 0);
+	doInstRLA();
 	this.instTStates += 4;
 	break;
       case 0x18:				// JR n
@@ -1694,16 +3169,8 @@ public class Z80CPU implements Runnable
 	this.instTStates += 7;
 	break;
       case 0x1F:				// RRA
-	{
-	  int b          = this.flagCarry ? BIT7 : 0;
-	  this.flagCarry = ((this.regA & BIT0) != 0);
-	  this.regA      = (this.regA >> 1) | b;
-	  this.flagHalf  = false;
-	  this.flagN     = false;
-	  this.flag5     = ((this.regA & BIT5) != 0);
-	  this.flag3     = ((this.regA & BIT3) != 0);
-	  this.instTStates += 4;
-	}
+	doInstRRA();
+	this.instTStates += 4;
 	break;
       default:
 	throwIllegalState( opCode );
@@ -1717,7 +3184,7 @@ public class Z80CPU implements Runnable
       case 0x20:				// JR NZ,n
 	{
 	  int d = nextByte();
-	  if( !this.flagZero ) {
+	  if( (this.regF & FLAG_Z) == 0 ) {
 	    this.instTStates += 12;
 	    doJmpRel( d );
 	  } else {
@@ -1792,7 +3259,7 @@ public class Z80CPU implements Runnable
       case 0x28:				// JR Z,n
 	{
 	  int n = nextByte();
-	  if( this.flagZero ) {
+	  if( (this.regF & FLAG_Z) != 0 ) {
 	    this.instTStates += 12;
 	    doJmpRel( n );
 	  } else {
@@ -1861,11 +3328,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 7;
 	break;
       case 0x2F:				// CPL
-	this.regA     = (~this.regA) & 0xFF;
-	this.flag5    = ((this.regA & BIT5) != 0);
-	this.flagHalf = true;
-	this.flag3    = ((this.regA & BIT3) != 0);
-	this.flagN    = true;
+	doInstCPL();
 	this.instTStates += 4;
 	break;
       default:
@@ -1880,7 +3343,7 @@ public class Z80CPU implements Runnable
       case 0x30:				// JR NC,n
 	{
 	  int d = nextByte();
-	  if( !this.flagCarry ) {
+	  if( (this.regF & FLAG_C) == 0 ) {
 	    this.instTStates += 12;
 	    doJmpRel( d );
 	  } else {
@@ -1948,17 +3411,13 @@ public class Z80CPU implements Runnable
 	}
 	break;
       case 0x37:				// SCF
-	this.flagCarry = true;
-	this.flagHalf  = false;
-	this.flagN     = false;
-	this.flag5     = ((this.regA & BIT5) != 0);
-	this.flag3     = ((this.regA & BIT3) != 0);
+	doInstSCF();
 	this.instTStates += 4;
 	break;
       case 0x38:				// JR C,n
 	{
 	  int d = nextByte();
-	  if( this.flagCarry ) {
+	  if( (this.regF & FLAG_C) != 0 ) {
 	    doJmpRel( d );
 	    this.instTStates += 12;
 	  } else {
@@ -1997,11 +3456,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 7;
 	break;
       case 0x3F:				// CCF
-	this.flagHalf  = this.flagCarry;
-	this.flagCarry = !this.flagCarry;
-	this.flagN     = false;
-	this.flag5     = ((this.regA & BIT5) != 0);
-	this.flag3     = ((this.regA & BIT3) != 0);
+	doInstCCF();
 	this.instTStates += 4;
 	break;
       default:
@@ -2126,13 +3581,13 @@ public class Z80CPU implements Runnable
 	doInstADD8( value, 0 );
 	break;
       case 0x08:
-	doInstADD8( value, this.flagCarry ? 1 : 0 );
+	doInstADD8( value, this.regF & FLAG_C );
 	break;
       case 0x10:
 	doInstSUB8( value, 0 );
 	break;
       case 0x18:
-	doInstSUB8( value, this.flagCarry ? 1 : 0 );
+	doInstSUB8( value, this.regF & FLAG_C );
 	break;
       case 0x20:
 	doInstAND( value );
@@ -2165,7 +3620,7 @@ public class Z80CPU implements Runnable
   {
     switch( opCode ) {
       case 0xC0:				// RET NZ
-	if( !this.flagZero ) {
+	if( (this.regF & FLAG_Z) == 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2183,7 +3638,7 @@ public class Z80CPU implements Runnable
       case 0xC2:				// JP NZ,nn
 	{
 	  int nn = nextWord();
-	  if( !this.flagZero ) {
+	  if( (this.regF & FLAG_Z) == 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2197,7 +3652,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( !this.flagZero ) {
+	  if( (this.regF & FLAG_Z) == 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2224,7 +3679,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 11;
 	break;
       case 0xC8:				// RET Z
-	if( this.flagZero ) {
+	if( (this.regF & FLAG_Z) != 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2240,7 +3695,7 @@ public class Z80CPU implements Runnable
       case 0xCA:				// JP Z,nn
 	{
 	  int nn = nextWord();
-	  if( this.flagZero ) {
+	  if( (this.regF & FLAG_Z) != 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2260,7 +3715,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( this.flagZero ) {
+	  if( (this.regF & FLAG_Z) != 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2279,7 +3734,7 @@ public class Z80CPU implements Runnable
 	}
 	break;
       case 0xCE:				// ADC n
-	doInstADD8( nextByte(), this.flagCarry ? 1 : 0 );
+	doInstADD8( nextByte(), this.regF & FLAG_C );
 	this.instTStates += 7;
 	break;
       case 0xCF:				// RST 08
@@ -2298,7 +3753,7 @@ public class Z80CPU implements Runnable
   {
     switch( opCode ) {
       case 0xD0:				// RET NC
-	if( !this.flagCarry ) {
+	if( (this.regF & FLAG_C) == 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2316,7 +3771,7 @@ public class Z80CPU implements Runnable
       case 0xD2:				// JP NC,nn
 	{
 	  int nn = nextWord();
-	  if( !this.flagCarry ) {
+	  if( (this.regF & FLAG_C) == 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2324,7 +3779,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xD3:				// OUT (n),A
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regA << 8) | nextByte(),
 			this.regA,
 			11 );
@@ -2335,7 +3790,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( !this.flagCarry ) {
+	  if( (this.regF & FLAG_C) == 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2362,7 +3817,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 11;
 	break;
       case 0xD8:				// RET C
-	if( this.flagCarry ) {
+	if( (this.regF & FLAG_C) != 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2371,32 +3826,13 @@ public class Z80CPU implements Runnable
 	}
 	break;
       case 0xD9:				// EXX
-	{
-	  int b      = this.regB;
-	  this.regB  = this.regB2;
-	  this.regB2 = b;
-	  b          = this.regC;
-	  this.regC  = this.regC2;
-	  this.regC2 = b;
-	  b          = this.regD;
-	  this.regD  = this.regD2;
-	  this.regD2 = b;
-	  b          = this.regE;
-	  this.regE  = this.regE2;
-	  this.regE2 = b;
-	  b          = this.regH;
-	  this.regH  = this.regH2;
-	  this.regH2 = b;
-	  b          = this.regL;
-	  this.regL  = this.regL2;
-	  this.regL2 = b;
-	  this.instTStates += 4;
-	}
+	doInstEXX();
+	this.instTStates += 4;
 	break;
       case 0xDA:				// JP C,nn
 	{
 	  int nn = nextWord();
-	  if( this.flagCarry ) {
+	  if( (this.regF & FLAG_C) != 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2406,7 +3842,7 @@ public class Z80CPU implements Runnable
 	{
 	  int v = 0xFF;
 	  if( this.ioSys != null ) {
-	    v = this.ioSys.readIOByte( (this.regA << 8) | nextByte(), 11 );
+	    v = readIOByte( (this.regA << 8) | nextByte(), 11 );
 	  }
 	  this.regA        = v & 0xFF;
 	  this.instTStates += 11;
@@ -2416,7 +3852,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( this.flagCarry ) {
+	  if( (this.regF & FLAG_C) != 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2427,7 +3863,7 @@ public class Z80CPU implements Runnable
 	break;
       // 0xDD wird bereits in execInst(opCode) ausgewertet
       case 0xDE:				// SBC n
-	doInstSUB8( nextByte(), this.flagCarry ? 1 : 0 );
+	doInstSUB8( nextByte(), this.regF & FLAG_C );
 	this.instTStates += 7;
 	break;
       case 0xDF:				// RST 18
@@ -2446,7 +3882,7 @@ public class Z80CPU implements Runnable
   {
     switch( opCode ) {
       case 0xE0:				// RET PO
-	if( !this.flagPV ) {
+	if( (this.regF & FLAG_PV) == 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2467,42 +3903,27 @@ public class Z80CPU implements Runnable
       case 0xE2:				// JP PO,nn
 	{
 	  int nn = nextWord();
-	  if( !this.flagPV ) {
+	  if( (this.regF & FLAG_PV) == 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
 	}
 	break;
       case 0xE3:
-	{
-	  int tmpSP = readMemWord( this.regSP );
-	  int tmpHL = -1;
-	  if( this.preCode == 0xDD ) {		// EX (SP),IX
-	    tmpHL      = this.regIX;
-	    this.regIX = tmpSP;
-	  }
-	  else if( this.preCode == 0xFD ) {	// EX (SP),IY
-	    tmpHL      = this.regIY;
-	    this.regIY = tmpSP;
-	  } else {				// EX (SP),HL
-	    tmpHL = getRegHL();
-	    setRegHL( tmpSP );
-	  }
-	  writeMemWord( this.regSP, tmpHL );
-	  if( this.debugEnabled
-	      && (this.action == Action.DEBUG_STEP_OVER)
-	      && (this.stepOverBreakAddr == tmpSP) )
-	  {
-	    this.stepOverBreakAddr = tmpHL;
-	  }
-	  this.instTStates += 19;
+	if( this.preCode == 0xDD ) {		// EX (SP),IX
+	  this.regIX = doInstEXSP( this.regIX );
+	} else if( this.preCode == 0xFD ) {	// EX (SP),IY
+	  this.regIY = doInstEXSP( this.regIY );
+	} else {				// EX (SP),HL
+	  setRegHL( doInstEXSP( getRegHL() ) );
 	}
+	this.instTStates += 19;
 	break;
       case 0xE4:				// CALL PO,nn
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( !this.flagPV ) {
+	  if( (this.regF & FLAG_PV) == 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2532,7 +3953,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 11;
 	break;
       case 0xE8:				// RET PE
-	if( this.flagPV ) {
+	if( (this.regF & FLAG_PV) != 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2553,7 +3974,7 @@ public class Z80CPU implements Runnable
       case 0xEA:				// JP PE,nn
 	{
 	  int nn = nextWord();
-	  if( this.flagPV ) {
+	  if( (this.regF & FLAG_PV) != 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2571,7 +3992,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( this.flagPV ) {
+	  if( (this.regF & FLAG_PV) != 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2604,7 +4025,7 @@ public class Z80CPU implements Runnable
   {
     switch( opCode ) {
       case 0xF0:				// RET P
-	if( !this.flagSign ) {
+	if( (this.regF & FLAG_S) == 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2622,7 +4043,7 @@ public class Z80CPU implements Runnable
       case 0xF2:				// JP P,nn
 	{
 	  int nn = nextWord();
-	  if( !this.flagSign ) {
+	  if( (this.regF & FLAG_S) == 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2638,7 +4059,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( !this.flagSign ) {
+	  if( (this.regF & FLAG_S) == 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -2665,7 +4086,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 11;
 	break;
       case 0xF8:				// RET M
-	if( this.flagSign ) {
+	if( (this.regF & FLAG_S) != 0 ) {
 	  this.regPC          = doPop();
 	  this.lastInstWasRET = true;
 	  this.instTStates += 11;
@@ -2686,7 +4107,7 @@ public class Z80CPU implements Runnable
       case 0xFA:				// JP M,nn
 	{
 	  int nn = nextWord();
-	  if( this.flagSign ) {
+	  if( (this.regF & FLAG_S) != 0 ) {
 	    this.regPC = nn;
 	  }
 	  this.instTStates += 10;
@@ -2702,7 +4123,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  if( this.flagSign ) {
+	  if( (this.regF & FLAG_S) != 0 ) {
 	    doPush( this.regPC );
 	    this.regPC = nn;
 	    this.instTStates += 17;
@@ -3195,7 +4616,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x41:				// OUT (C),B
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regB,
 			12 );
@@ -3232,7 +4653,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x49:				// OUT (C),C
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regC,
 			12 );
@@ -3252,16 +4673,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 8;
 	break;
       case 0x4D:				// RETI
-	doInstRETN();
-	Z80InterruptSource[] iSources = this.interruptSources;
-	if( iSources != null ) {
-	  for( int i = 0; i < iSources.length; i++ ) {
-	    if( iSources[ i ].isInterruptAccepted() ) {
-	      iSources[ i ].interruptFinish();
-	      break;
-	    }
-	  }
-	}
+	doInstRETI();
 	this.instTStates += 14;
 	break;
       case 0x4E:				// *IM ?
@@ -3287,7 +4699,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x51:				// OUT (C),D
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regD,
 			12 );
@@ -3315,14 +4727,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 8;
 	break;
       case 0x57:				// LD A,I
-	this.regA     = this.interruptReg;
-	this.flagSign = ((this.regA & BIT7) != 0);
-	this.flagZero = (this.regA == 0);
-	this.flagPV   = this.iff2;
-	this.flagHalf = false;
-	this.flagN    = false;
-	this.flag5    = ((this.regA & BIT5) != 0);
-	this.flag3    = ((this.regA & BIT3) != 0);
+	doInstLDAIR( this.interruptReg );
 	this.instTStates += 9;
 	break;
       case 0x58:				// IN E,(C)
@@ -3331,7 +4736,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x59:				// OUT (C),E
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regE,
 			12 );
@@ -3359,14 +4764,7 @@ public class Z80CPU implements Runnable
 	this.instTStates += 8;
 	break;
       case 0x5F:				// LD A,R
-	this.regA     = getRegR();
-	this.flagSign = ((this.regA & BIT7) != 0);
-	this.flagZero = (this.regA == 0);
-	this.flagPV   = this.iff2;
-	this.flagHalf = false;
-	this.flagN    = false;
-	this.flag5    = ((this.regA & BIT5) != 0);
-	this.flag3    = ((this.regA & BIT3) != 0);
+	doInstLDAIR( getRegR() );
 	this.instTStates += 9;
 	break;
       default:
@@ -3384,7 +4782,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x61:				// OUT (C),H
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regH,
 			12 );
@@ -3412,21 +4810,8 @@ public class Z80CPU implements Runnable
 	this.instTStates += 8;
 	break;
       case 0x67:				// RRD
-	{
-	  int a = getRegHL();
-	  int m = readMemByte( a );
-	  int r = this.regA;
-	  this.regA = (this.regA & 0xF0) | (m & 0x0F);
-	  writeMemByte( a, ((m >> 4) & 0x0F) | ((r << 4) & 0xF0) );
-	  this.flagSign = ((this.regA & BIT7) != 0);
-	  this.flagZero = (this.regA == 0);
-	  this.flagHalf = false;
-	  this.flagN    = false;
-	  this.flag5    = ((this.regA & BIT5) != 0);
-	  this.flag3    = ((this.regA & BIT3) != 0);
-	  updParityFlag( this.regA );
-	  this.instTStates += 18;
-	}
+	doInstRRD();
+	this.instTStates += 18;
 	break;
       case 0x68:				// IN L,(C)
 	this.regL = doInstIN();
@@ -3434,7 +4819,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x69:				// OUT (C),L
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regL,
 			12 );
@@ -3462,21 +4847,8 @@ public class Z80CPU implements Runnable
 	this.instTStates += 8;
 	break;
       case 0x6F:				// RLD
-	{
-	  int a = getRegHL();
-	  int m = readMemByte( a );
-	  int r = this.regA;
-	  this.regA = (this.regA & 0xF0) | ((m >> 4) & 0x0F);
-	  writeMemByte( a, ((m << 4) & 0xF0) | (r & 0x0F) );
-	  this.flagSign = ((this.regA & BIT7) != 0);
-	  this.flagZero = (this.regA == 0);
-	  this.flagHalf = false;
-	  this.flagN    = false;
-	  this.flag5    = ((this.regA & BIT5) != 0);
-	  this.flag3    = ((this.regA & BIT3) != 0);
-	  updParityFlag( this.regA );
-	  this.instTStates += 18;
-	}
+	doInstRLD();
+	this.instTStates += 18;
 	break;
       default:
 	throwIllegalState( opCode );
@@ -3493,7 +4865,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x71:				// *OUT (C),0
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte( (this.regB << 8) | this.regC, 0, 12 );
+	  writeIOByte( (this.regB << 8) | this.regC, 0, 12 );
 	}
 	this.instTStates += 12;
 	break;
@@ -3523,7 +4895,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x79:				// OUT (C),A
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regA,
 			12 );
@@ -3595,7 +4967,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockLD( 1 );
-	if( !this.flagPV ) {
+	if( (this.regF & FLAG_PV) == 0 ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3606,7 +4978,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockCP( 1 );
-	if( this.flagZero || !this.flagPV ) {
+	if( ((this.regF & FLAG_Z) != 0) || ((this.regF & FLAG_PV) == 0) ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3617,7 +4989,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockIN( 1, true );
-	if( this.flagZero ) {
+	if( (this.regF & FLAG_Z) != 0 ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3628,7 +5000,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockOUT( 1, true );
-	if( this.flagZero ) {
+	if( (this.regF & FLAG_Z) != 0 ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3639,7 +5011,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockLD( -1 );
-	if( !this.flagPV ) {
+	if( (this.regF & FLAG_PV) == 0 ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3650,7 +5022,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockCP( -1 );
-	if( this.flagZero || !this.flagPV ) {
+	if( ((this.regF & FLAG_Z) != 0) || ((this.regF & FLAG_PV) == 0) ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3661,7 +5033,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockIN( -1, true );
-	if( this.flagZero ) {
+	if( (this.regF & FLAG_Z) != 0 ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3672,7 +5044,7 @@ public class Z80CPU implements Runnable
 	setStepOverBreakAddr();
 	setWalkBreakAddr();
 	doInstBlockOUT( -1, true );
-	if( this.flagZero ) {
+	if( (this.regF & FLAG_Z) != 0 ) {
 	  this.instTStates += 16;
 	} else {
 	  setPCRel( -2 );
@@ -3685,501 +5057,2541 @@ public class Z80CPU implements Runnable
   }
 
 
-	/* --- Emulation der Befehle mit Vorbyte DD oder FD --- */
+	/* --- Emulation der Befehle mit Vorbyte DD oder FD --- */
+
+  private int execIXY_CB( int regIXY )
+  {
+    int addr   = computeRelAddr( regIXY, nextByte() );
+    int value  = readMemByte( addr );
+    int opCode = nextByte();
+    if( opCode < 0x80 ) {
+      if( opCode < 0x40 ) {
+        switch( opCode & 0x38 ) {
+          case 0x00:
+            value = doInstRLC( value );
+            break;
+          case 0x08:
+            value = doInstRRC( value );
+            break;
+          case 0x10:
+            value = doInstRL( value );
+            break;
+          case 0x18:
+            value = doInstRR( value );
+            break;
+          case 0x20:
+            value = doInstSLA( value );
+            break;
+          case 0x28:
+            value = doInstSRA( value );
+            break;
+          case 0x30:
+            value = doInstSLL( value );
+            break;
+          case 0x38:
+            value = doInstSRL( value );
+            break;
+          default:
+            throwIllegalState( opCode );
+        }
+        writeMemByte( addr, value );
+	execIXY_setUndoc( opCode, value );
+	this.instTStates += 19;				// insgesamt 23
+
+      } else {
+
+	// 0x40-0x7F: BIT n,(IXY+d)
+	doInstBIT( opCode, value );
+	this.instTStates += 16;				// insgesamt 20
+      }
+
+    } else {
+
+      if( opCode < 0xC0 ) {
+        // IXY CB 80-BF: RES (IXY+d)
+	value &= ~getBitMask( opCode );
+      } else {
+        // IXY CB 80-BF: SET (IXY+d)
+	value |= getBitMask( opCode );
+      }
+      writeMemByte( addr, value );
+      execIXY_setUndoc( opCode, value );
+      this.instTStates += 19;				// insgesamt 23
+    }
+    return regIXY;
+  }
+
+
+  /*
+   * Bei vielen undokumentierten Rotations- und Schiebebefehlen
+   * mit den Indexregistern wird das Ergebnis zusaetzlich
+   * in ein Register geschrieben.
+   * Das erledigt diese Methode.
+   */
+  private void execIXY_setUndoc( int opCode, int value )
+  {
+    switch( opCode & 0x07 ) {
+      case 0:
+	this.regB = value;
+	break;
+      case 1:
+	this.regC = value;
+	break;
+      case 2:
+	this.regD = value;
+	break;
+      case 3:
+	this.regE = value;
+	break;
+      case 4:
+	this.regH = value;
+	break;
+      case 5:
+	this.regL = value;
+	break;
+      case 7:
+	this.regA = value;
+	break;
+    }
+  }
+
+
+	/* --- tabellengesteuerte Befehlsausfuehrung --- */
+
+  /*
+   * Tabellengesteuerte Befehlsausfuehrung fuer Befehle ohne Vorbyte
+   *
+   * Alle 256 Codes einer Befehlsseite werden in einem einzigen
+   * switch-Statement abgearbeitet, woraus der Java-Compiler
+   * eine Sprungtabelle (tableswitch) erzeugt.
+   * Die einzelnen Zweige sind bewusst kurz gehalten,
+   * damit die Methode klein genug fuer den JIT-Compiler bleibt.
+   */
+  private void execMainByTable( int opCode )
+  {
+    switch( opCode ) {
+      case 0x00:				// NOP
+	break;
+      case 0x01:				// LD BC,nn
+	setRegBC( nextWord() );
+	break;
+      case 0x02:				// LD (BC),A
+	writeMemByte( getRegBC(), this.regA );
+	break;
+      case 0x03:				// INC BC
+	setRegBC( getRegBC() + 1 );
+	break;
+      case 0x04:				// INC B
+	this.regB = doInstINC8( this.regB );
+	break;
+      case 0x05:				// DEC B
+	this.regB = doInstDEC8( this.regB );
+	break;
+      case 0x06:				// LD B,n
+	this.regB = nextByte();
+	break;
+      case 0x07:				// RLCA
+	doInstRLCA();
+	break;
+      case 0x08:				// EX AF,AF'
+	doInstEXAF();
+	break;
+      case 0x09:				// ADD HL,BC
+	setRegHL( doInstADD16( getRegHL(), getRegBC() ) );
+	break;
+      case 0x0A:				// LD A,(BC)
+	this.regA = readMemByte( getRegBC() );
+	break;
+      case 0x0B:				// DEC BC
+	setRegBC( getRegBC() - 1 );
+	break;
+      case 0x0C:				// INC C
+	this.regC = doInstINC8( this.regC );
+	break;
+      case 0x0D:				// DEC C
+	this.regC = doInstDEC8( this.regC );
+	break;
+      case 0x0E:				// LD C,n
+	this.regC = nextByte();
+	break;
+      case 0x0F:				// RRCA
+	doInstRRCA();
+	break;
+      case 0x10:				// DJNZ n
+	doInstDJNZ();
+	break;
+      case 0x11:				// LD DE,nn
+	setRegDE( nextWord() );
+	break;
+      case 0x12:				// LD (DE),A
+	writeMemByte( getRegDE(), this.regA );
+	break;
+      case 0x13:				// INC DE
+	setRegDE( getRegDE() + 1 );
+	break;
+      case 0x14:				// INC D
+	this.regD = doInstINC8( this.regD );
+	break;
+      case 0x15:				// DEC D
+	this.regD = doInstDEC8( this.regD );
+	break;
+      case 0x16:				// LD D,n
+	this.regD = nextByte();
+	break;
+      case 0x17:				// RLA
+	doInstRLA();
+	break;
+      case 0x18:				// JR n
+	doJmpRel( nextByte() );
+	break;
+      case 0x19:				// ADD HL,DE
+	setRegHL( doInstADD16( getRegHL(), getRegDE() ) );
+	break;
+      case 0x1A:				// LD A,(DE)
+	this.regA = readMemByte( getRegDE() );
+	break;
+      case 0x1B:				// DEC DE
+	setRegDE( getRegDE() - 1 );
+	break;
+      case 0x1C:				// INC E
+	this.regE = doInstINC8( this.regE );
+	break;
+      case 0x1D:				// DEC E
+	this.regE = doInstDEC8( this.regE );
+	break;
+      case 0x1E:				// LD E,n
+	this.regE = nextByte();
+	break;
+      case 0x1F:				// RRA
+	doInstRRA();
+	break;
+      case 0x20:				// JR NZ,n
+	doInstJRcc( (this.regF & FLAG_Z) == 0 );
+	break;
+      case 0x21:				// LD HL,nn
+	setRegHL( nextWord() );
+	break;
+      case 0x22:				// LD (nn),HL
+	writeMemWord( nextWord(), getRegHL() );
+	break;
+      case 0x23:				// INC HL
+	setRegHL( getRegHL() + 1 );
+	break;
+      case 0x24:				// INC H
+	this.regH = doInstINC8( this.regH );
+	break;
+      case 0x25:				// DEC H
+	this.regH = doInstDEC8( this.regH );
+	break;
+      case 0x26:				// LD H,n
+	this.regH = nextByte();
+	break;
+      case 0x27:				// DAA
+	doInstDAA();
+	break;
+      case 0x28:				// JR Z,n
+	doInstJRcc( (this.regF & FLAG_Z) != 0 );
+	break;
+      case 0x29:				// ADD HL,HL
+	setRegHL( doInstADD16( getRegHL(), getRegHL() ) );
+	break;
+      case 0x2A:				// LD HL,(nn)
+	setRegHL( readMemWord( nextWord() ) );
+	break;
+      case 0x2B:				// DEC HL
+	setRegHL( getRegHL() - 1 );
+	break;
+      case 0x2C:				// INC L
+	this.regL = doInstINC8( this.regL );
+	break;
+      case 0x2D:				// DEC L
+	this.regL = doInstDEC8( this.regL );
+	break;
+      case 0x2E:				// LD L,n
+	this.regL = nextByte();
+	break;
+      case 0x2F:				// CPL
+	doInstCPL();
+	break;
+      case 0x30:				// JR NC,n
+	doInstJRcc( (this.regF & FLAG_C) == 0 );
+	break;
+      case 0x31:				// LD SP,nn
+	this.regSP = nextWord();
+	break;
+      case 0x32:				// LD (nn),A
+	writeMemByte( nextWord(), this.regA );
+	break;
+      case 0x33:				// INC SP
+	this.regSP = (this.regSP + 1) & 0xFFFF;
+	break;
+      case 0x34:				// INC (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstINC8( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x35:				// DEC (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstDEC8( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x36:				// LD (HL),n
+	writeMemByte( getRegHL(), nextByte() );
+	break;
+      case 0x37:				// SCF
+	doInstSCF();
+	break;
+      case 0x38:				// JR C,n
+	doInstJRcc( (this.regF & FLAG_C) != 0 );
+	break;
+      case 0x39:				// ADD HL,SP
+	setRegHL( doInstADD16( getRegHL(), this.regSP ) );
+	break;
+      case 0x3A:				// LD A,(nn)
+	this.regA = readMemByte( nextWord() );
+	break;
+      case 0x3B:				// DEC SP
+	this.regSP = (this.regSP - 1) & 0xFFFF;
+	break;
+      case 0x3C:				// INC A
+	this.regA = doInstINC8( this.regA );
+	break;
+      case 0x3D:				// DEC A
+	this.regA = doInstDEC8( this.regA );
+	break;
+      case 0x3E:				// LD A,n
+	this.regA = nextByte();
+	break;
+      case 0x3F:				// CCF
+	doInstCCF();
+	break;
+      case 0x40:				// LD B,B
+	break;
+      case 0x41:				// LD B,C
+	this.regB = this.regC;
+	break;
+      case 0x42:				// LD B,D
+	this.regB = this.regD;
+	break;
+      case 0x43:				// LD B,E
+	this.regB = this.regE;
+	break;
+      case 0x44:				// LD B,H
+	this.regB = this.regH;
+	break;
+      case 0x45:				// LD B,L
+	this.regB = this.regL;
+	break;
+      case 0x46:				// LD B,(HL)
+	this.regB = readMemByte( getRegHL() );
+	break;
+      case 0x47:				// LD B,A
+	this.regB = this.regA;
+	break;
+      case 0x48:				// LD C,B
+	this.regC = this.regB;
+	break;
+      case 0x49:				// LD C,C
+	break;
+      case 0x4A:				// LD C,D
+	this.regC = this.regD;
+	break;
+      case 0x4B:				// LD C,E
+	this.regC = this.regE;
+	break;
+      case 0x4C:				// LD C,H
+	this.regC = this.regH;
+	break;
+      case 0x4D:				// LD C,L
+	this.regC = this.regL;
+	break;
+      case 0x4E:				// LD C,(HL)
+	this.regC = readMemByte( getRegHL() );
+	break;
+      case 0x4F:				// LD C,A
+	this.regC = this.regA;
+	break;
+      case 0x50:				// LD D,B
+	this.regD = this.regB;
+	break;
+      case 0x51:				// LD D,C
+	this.regD = this.regC;
+	break;
+      case 0x52:				// LD D,D
+	break;
+      case 0x53:				// LD D,E
+	this.regD = this.regE;
+	break;
+      case 0x54:				// LD D,H
+	this.regD = this.regH;
+	break;
+      case 0x55:				// LD D,L
+	this.regD = this.regL;
+	break;
+      case 0x56:				// LD D,(HL)
+	this.regD = readMemByte( getRegHL() );
+	break;
+      case 0x57:				// LD D,A
+	this.regD = this.regA;
+	break;
+      case 0x58:				// LD E,B
+	this.regE = this.regB;
+	break;
+      case 0x59:				// LD E,C
+	this.regE = this.regC;
+	break;
+      case 0x5A:				// LD E,D
+	this.regE = this.regD;
+	break;
+      case 0x5B:				// LD E,E
+	break;
+      case 0x5C:				// LD E,H
+	this.regE = this.regH;
+	break;
+      case 0x5D:				// LD E,L
+	this.regE = this.regL;
+	break;
+      case 0x5E:				// LD E,(HL)
+	this.regE = readMemByte( getRegHL() );
+	break;
+      case 0x5F:				// LD E,A
+	this.regE = this.regA;
+	break;
+      case 0x60:				// LD H,B
+	this.regH = this.regB;
+	break;
+      case 0x61:				// LD H,C
+	this.regH = this.regC;
+	break;
+      case 0x62:				// LD H,D
+	this.regH = this.regD;
+	break;
+      case 0x63:				// LD H,E
+	this.regH = this.regE;
+	break;
+      case 0x64:				// LD H,H
+	break;
+      case 0x65:				// LD H,L
+	this.regH = this.regL;
+	break;
+      case 0x66:				// LD H,(HL)
+	this.regH = readMemByte( getRegHL() );
+	break;
+      case 0x67:				// LD H,A
+	this.regH = this.regA;
+	break;
+      case 0x68:				// LD L,B
+	this.regL = this.regB;
+	break;
+      case 0x69:				// LD L,C
+	this.regL = this.regC;
+	break;
+      case 0x6A:				// LD L,D
+	this.regL = this.regD;
+	break;
+      case 0x6B:				// LD L,E
+	this.regL = this.regE;
+	break;
+      case 0x6C:				// LD L,H
+	this.regL = this.regH;
+	break;
+      case 0x6D:				// LD L,L
+	break;
+      case 0x6E:				// LD L,(HL)
+	this.regL = readMemByte( getRegHL() );
+	break;
+      case 0x6F:				// LD L,A
+	this.regL = this.regA;
+	break;
+      case 0x70:				// LD (HL),B
+	writeMemByte( getRegHL(), this.regB );
+	break;
+      case 0x71:				// LD (HL),C
+	writeMemByte( getRegHL(), this.regC );
+	break;
+      case 0x72:				// LD (HL),D
+	writeMemByte( getRegHL(), this.regD );
+	break;
+      case 0x73:				// LD (HL),E
+	writeMemByte( getRegHL(), this.regE );
+	break;
+      case 0x74:				// LD (HL),H
+	writeMemByte( getRegHL(), this.regH );
+	break;
+      case 0x75:				// LD (HL),L
+	writeMemByte( getRegHL(), this.regL );
+	break;
+      case 0x76:				// HALT
+	this.haltPC = this.instBegPC;
+	setHaltState( true );
+	break;
+      case 0x77:				// LD (HL),A
+	writeMemByte( getRegHL(), this.regA );
+	break;
+      case 0x78:				// LD A,B
+	this.regA = this.regB;
+	break;
+      case 0x79:				// LD A,C
+	this.regA = this.regC;
+	break;
+      case 0x7A:				// LD A,D
+	this.regA = this.regD;
+	break;
+      case 0x7B:				// LD A,E
+	this.regA = this.regE;
+	break;
+      case 0x7C:				// LD A,H
+	this.regA = this.regH;
+	break;
+      case 0x7D:				// LD A,L
+	this.regA = this.regL;
+	break;
+      case 0x7E:				// LD A,(HL)
+	this.regA = readMemByte( getRegHL() );
+	break;
+      case 0x7F:				// LD A,A
+	break;
+      case 0x80:				// ADD B
+	doInstADD8( this.regB, 0 );
+	break;
+      case 0x81:				// ADD C
+	doInstADD8( this.regC, 0 );
+	break;
+      case 0x82:				// ADD D
+	doInstADD8( this.regD, 0 );
+	break;
+      case 0x83:				// ADD E
+	doInstADD8( this.regE, 0 );
+	break;
+      case 0x84:				// ADD H
+	doInstADD8( this.regH, 0 );
+	break;
+      case 0x85:				// ADD L
+	doInstADD8( this.regL, 0 );
+	break;
+      case 0x86:				// ADD (HL)
+	doInstADD8( readMemByte( getRegHL() ), 0 );
+	break;
+      case 0x87:				// ADD A
+	doInstADD8( this.regA, 0 );
+	break;
+      case 0x88:				// ADC B
+	doInstADD8( this.regB, this.regF & FLAG_C );
+	break;
+      case 0x89:				// ADC C
+	doInstADD8( this.regC, this.regF & FLAG_C );
+	break;
+      case 0x8A:				// ADC D
+	doInstADD8( this.regD, this.regF & FLAG_C );
+	break;
+      case 0x8B:				// ADC E
+	doInstADD8( this.regE, this.regF & FLAG_C );
+	break;
+      case 0x8C:				// ADC H
+	doInstADD8( this.regH, this.regF & FLAG_C );
+	break;
+      case 0x8D:				// ADC L
+	doInstADD8( this.regL, this.regF & FLAG_C );
+	break;
+      case 0x8E:				// ADC (HL)
+	doInstADD8( readMemByte( getRegHL() ), this.regF & FLAG_C );
+	break;
+      case 0x8F:				// ADC A
+	doInstADD8( this.regA, this.regF & FLAG_C );
+	break;
+      case 0x90:				// SUB B
+	doInstSUB8( this.regB, 0 );
+	break;
+      case 0x91:				// SUB C
+	doInstSUB8( this.regC, 0 );
+	break;
+      case 0x92:				// SUB D
+	doInstSUB8( this.regD, 0 );
+	break;
+      case 0x93:				// SUB E
+	doInstSUB8( this.regE, 0 );
+	break;
+      case 0x94:				// SUB H
+	doInstSUB8( this.regH, 0 );
+	break;
+      case 0x95:				// SUB L
+	doInstSUB8( this.regL, 0 );
+	break;
+      case 0x96:				// SUB (HL)
+	doInstSUB8( readMemByte( getRegHL() ), 0 );
+	break;
+      case 0x97:				// SUB A
+	doInstSUB8( this.regA, 0 );
+	break;
+      case 0x98:				// SBC B
+	doInstSUB8( this.regB, this.regF & FLAG_C );
+	break;
+      case 0x99:				// SBC C
+	doInstSUB8( this.regC, this.regF & FLAG_C );
+	break;
+      case 0x9A:				// SBC D
+	doInstSUB8( this.regD, this.regF & FLAG_C );
+	break;
+      case 0x9B:				// SBC E
+	doInstSUB8( this.regE, this.regF & FLAG_C );
+	break;
+      case 0x9C:				// SBC H
+	doInstSUB8( this.regH, this.regF & FLAG_C );
+	break;
+      case 0x9D:				// SBC L
+	doInstSUB8( this.regL, this.regF & FLAG_C );
+	break;
+      case 0x9E:				// SBC (HL)
+	doInstSUB8( readMemByte( getRegHL() ), this.regF & FLAG_C );
+	break;
+      case 0x9F:				// SBC A
+	doInstSUB8( this.regA, this.regF & FLAG_C );
+	break;
+      case 0xA0:				// AND B
+	doInstAND( this.regB );
+	break;
+      case 0xA1:				// AND C
+	doInstAND( this.regC );
+	break;
+      case 0xA2:				// AND D
+	doInstAND( this.regD );
+	break;
+      case 0xA3:				// AND E
+	doInstAND( this.regE );
+	break;
+      case 0xA4:				// AND H
+	doInstAND( this.regH );
+	break;
+      case 0xA5:				// AND L
+	doInstAND( this.regL );
+	break;
+      case 0xA6:				// AND (HL)
+	doInstAND( readMemByte( getRegHL() ) );
+	break;
+      case 0xA7:				// AND A
+	doInstAND( this.regA );
+	break;
+      case 0xA8:				// XOR B
+	doInstXOR( this.regB );
+	break;
+      case 0xA9:				// XOR C
+	doInstXOR( this.regC );
+	break;
+      case 0xAA:				// XOR D
+	doInstXOR( this.regD );
+	break;
+      case 0xAB:				// XOR E
+	doInstXOR( this.regE );
+	break;
+      case 0xAC:				// XOR H
+	doInstXOR( this.regH );
+	break;
+      case 0xAD:				// XOR L
+	doInstXOR( this.regL );
+	break;
+      case 0xAE:				// XOR (HL)
+	doInstXOR( readMemByte( getRegHL() ) );
+	break;
+      case 0xAF:				// XOR A
+	doInstXOR( this.regA );
+	break;
+      case 0xB0:				// OR B
+	doInstOR( this.regB );
+	break;
+      case 0xB1:				// OR C
+	doInstOR( this.regC );
+	break;
+      case 0xB2:				// OR D
+	doInstOR( this.regD );
+	break;
+      case 0xB3:				// OR E
+	doInstOR( this.regE );
+	break;
+      case 0xB4:				// OR H
+	doInstOR( this.regH );
+	break;
+      case 0xB5:				// OR L
+	doInstOR( this.regL );
+	break;
+      case 0xB6:				// OR (HL)
+	doInstOR( readMemByte( getRegHL() ) );
+	break;
+      case 0xB7:				// OR A
+	doInstOR( this.regA );
+	break;
+      case 0xB8:				// CP B
+	doInstCP( this.regB );
+	break;
+      case 0xB9:				// CP C
+	doInstCP( this.regC );
+	break;
+      case 0xBA:				// CP D
+	doInstCP( this.regD );
+	break;
+      case 0xBB:				// CP E
+	doInstCP( this.regE );
+	break;
+      case 0xBC:				// CP H
+	doInstCP( this.regH );
+	break;
+      case 0xBD:				// CP L
+	doInstCP( this.regL );
+	break;
+      case 0xBE:				// CP (HL)
+	doInstCP( readMemByte( getRegHL() ) );
+	break;
+      case 0xBF:				// CP A
+	doInstCP( this.regA );
+	break;
+      case 0xC0:				// RET NZ
+	doInstRETcc( (this.regF & FLAG_Z) == 0 );
+	break;
+      case 0xC1:				// POP BC
+	setRegBC( popWord() );
+	break;
+      case 0xC2:				// JP NZ,nn
+	doInstJPcc( (this.regF & FLAG_Z) == 0 );
+	break;
+      case 0xC3:				// JP nn
+	this.regPC = nextWord();
+	break;
+      case 0xC4:				// CALL NZ,nn
+	doInstCALLcc( (this.regF & FLAG_Z) == 0 );
+	break;
+      case 0xC5:				// PUSH BC
+	pushWord( getRegBC() );
+	break;
+      case 0xC6:				// ADD n
+	doInstADD8( nextByte(), 0 );
+	break;
+      case 0xC7:				// RST 00
+	doInstRST( 0x0000 );
+	break;
+      case 0xC8:				// RET Z
+	doInstRETcc( (this.regF & FLAG_Z) != 0 );
+	break;
+      case 0xC9:				// RET
+	this.regPC          = doPop();
+	this.lastInstWasRET = true;
+	break;
+      case 0xCA:				// JP Z,nn
+	doInstJPcc( (this.regF & FLAG_Z) != 0 );
+	break;
+      case 0xCB:				// Befehle mit Vorbyte CB
+	incRegR();
+	execCBByTable();
+	break;
+      case 0xCC:				// CALL Z,nn
+	doInstCALLcc( (this.regF & FLAG_Z) != 0 );
+	break;
+      case 0xCD:				// CALL nn
+	doInstCALL();
+	break;
+      case 0xCE:				// ADC n
+	doInstADD8( nextByte(), this.regF & FLAG_C );
+	break;
+      case 0xCF:				// RST 08
+	doInstRST( 0x0008 );
+	break;
+      case 0xD0:				// RET NC
+	doInstRETcc( (this.regF & FLAG_C) == 0 );
+	break;
+      case 0xD1:				// POP DE
+	setRegDE( popWord() );
+	break;
+      case 0xD2:				// JP NC,nn
+	doInstJPcc( (this.regF & FLAG_C) == 0 );
+	break;
+      case 0xD3:				// OUT (n),A
+	doInstOUTnA();
+	break;
+      case 0xD4:				// CALL NC,nn
+	doInstCALLcc( (this.regF & FLAG_C) == 0 );
+	break;
+      case 0xD5:				// PUSH DE
+	pushWord( getRegDE() );
+	break;
+      case 0xD6:				// SUB n
+	doInstSUB8( nextByte(), 0 );
+	break;
+      case 0xD7:				// RST 10
+	doInstRST( 0x0010 );
+	break;
+      case 0xD8:				// RET C
+	doInstRETcc( (this.regF & FLAG_C) != 0 );
+	break;
+      case 0xD9:				// EXX
+	doInstEXX();
+	break;
+      case 0xDA:				// JP C,nn
+	doInstJPcc( (this.regF & FLAG_C) != 0 );
+	break;
+      case 0xDB:				// IN A,(n)
+	doInstINAn();
+	break;
+      case 0xDC:				// CALL C,nn
+	doInstCALLcc( (this.regF & FLAG_C) != 0 );
+	break;
+      case 0xDE:				// SBC n
+	doInstSUB8( nextByte(), this.regF & FLAG_C );
+	break;
+      case 0xDF:				// RST 18
+	doInstRST( 0x0018 );
+	break;
+      case 0xE0:				// RET PO
+	doInstRETcc( (this.regF & FLAG_PV) == 0 );
+	break;
+      case 0xE1:				// POP HL
+	setRegHL( doPop() );
+	break;
+      case 0xE2:				// JP PO,nn
+	doInstJPcc( (this.regF & FLAG_PV) == 0 );
+	break;
+      case 0xE3:				// EX (SP),HL
+	setRegHL( doInstEXSP( getRegHL() ) );
+	break;
+      case 0xE4:				// CALL PO,nn
+	doInstCALLcc( (this.regF & FLAG_PV) == 0 );
+	break;
+      case 0xE5:				// PUSH HL
+	doPush( getRegHL() );
+	break;
+      case 0xE6:				// AND n
+	doInstAND( nextByte() );
+	break;
+      case 0xE7:				// RST 20
+	doInstRST( 0x0020 );
+	break;
+      case 0xE8:				// RET PE
+	doInstRETcc( (this.regF & FLAG_PV) != 0 );
+	break;
+      case 0xE9:				// JP (HL)
+	this.regPC = getRegHL();
+	break;
+      case 0xEA:				// JP PE,nn
+	doInstJPcc( (this.regF & FLAG_PV) != 0 );
+	break;
+      case 0xEB:				// EX DE,HL
+	{
+	  int m = getRegDE();
+	  setRegDE( getRegHL() );
+	  setRegHL( m );
+	}
+	break;
+      case 0xEC:				// CALL PE,nn
+	doInstCALLcc( (this.regF & FLAG_PV) != 0 );
+	break;
+      case 0xED:				// Befehle mit Vorbyte ED
+	incRegR();
+	execEDByTable();
+	break;
+      case 0xEE:				// XOR n
+	doInstXOR( nextByte() );
+	break;
+      case 0xEF:				// RST 28
+	doInstRST( 0x0028 );
+	break;
+      case 0xF0:				// RET P
+	doInstRETcc( (this.regF & FLAG_S) == 0 );
+	break;
+      case 0xF1:				// POP AF
+	setRegAF( popWord() );
+	break;
+      case 0xF2:				// JP P,nn
+	doInstJPcc( (this.regF & FLAG_S) == 0 );
+	break;
+      case 0xF3:				// DI
+	this.iff1              = false;
+	this.iff2              = false;
+	this.lastInstWasEIorDI = true;
+	break;
+      case 0xF4:				// CALL P,nn
+	doInstCALLcc( (this.regF & FLAG_S) == 0 );
+	break;
+      case 0xF5:				// PUSH AF
+	pushWord( getRegAF() );
+	break;
+      case 0xF6:				// OR n
+	doInstOR( nextByte() );
+	break;
+      case 0xF7:				// RST 30
+	doInstRST( 0x0030 );
+	break;
+      case 0xF8:				// RET M
+	doInstRETcc( (this.regF & FLAG_S) != 0 );
+	break;
+      case 0xF9:				// LD SP,HL
+	this.regSP = getRegHL();
+	break;
+      case 0xFA:				// JP M,nn
+	doInstJPcc( (this.regF & FLAG_S) != 0 );
+	break;
+      case 0xFB:				// EI
+	this.iff1              = true;
+	this.iff2              = true;
+	this.lastInstWasEIorDI = true;
+	break;
+      case 0xFC:				// CALL M,nn
+	doInstCALLcc( (this.regF & FLAG_S) != 0 );
+	break;
+      case 0xFE:				// CP n
+	doInstCP( nextByte() );
+	break;
+      case 0xFF:				// RST 38
+	doInstRST( 0x0038 );
+	break;
+      default:
+	throwIllegalState( opCode );
+    }
+    this.instTStates += Z80InstrTables.TSTATES_MAIN[ opCode ];
+  }
+
+
+  private void execCBByTable()
+  {
+    int opCode = nextByteM1();
+    switch( opCode ) {
+      case 0x00:				// RLC B
+	this.regB = doInstRLC( this.regB );
+	break;
+      case 0x01:				// RLC C
+	this.regC = doInstRLC( this.regC );
+	break;
+      case 0x02:				// RLC D
+	this.regD = doInstRLC( this.regD );
+	break;
+      case 0x03:				// RLC E
+	this.regE = doInstRLC( this.regE );
+	break;
+      case 0x04:				// RLC H
+	this.regH = doInstRLC( this.regH );
+	break;
+      case 0x05:				// RLC L
+	this.regL = doInstRLC( this.regL );
+	break;
+      case 0x06:				// RLC (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstRLC( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x07:				// RLC A
+	this.regA = doInstRLC( this.regA );
+	break;
+      case 0x08:				// RRC B
+	this.regB = doInstRRC( this.regB );
+	break;
+      case 0x09:				// RRC C
+	this.regC = doInstRRC( this.regC );
+	break;
+      case 0x0A:				// RRC D
+	this.regD = doInstRRC( this.regD );
+	break;
+      case 0x0B:				// RRC E
+	this.regE = doInstRRC( this.regE );
+	break;
+      case 0x0C:				// RRC H
+	this.regH = doInstRRC( this.regH );
+	break;
+      case 0x0D:				// RRC L
+	this.regL = doInstRRC( this.regL );
+	break;
+      case 0x0E:				// RRC (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstRRC( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x0F:				// RRC A
+	this.regA = doInstRRC( this.regA );
+	break;
+      case 0x10:				// RL B
+	this.regB = doInstRL( this.regB );
+	break;
+      case 0x11:				// RL C
+	this.regC = doInstRL( this.regC );
+	break;
+      case 0x12:				// RL D
+	this.regD = doInstRL( this.regD );
+	break;
+      case 0x13:				// RL E
+	this.regE = doInstRL( this.regE );
+	break;
+      case 0x14:				// RL H
+	this.regH = doInstRL( this.regH );
+	break;
+      case 0x15:				// RL L
+	this.regL = doInstRL( this.regL );
+	break;
+      case 0x16:				// RL (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstRL( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x17:				// RL A
+	this.regA = doInstRL( this.regA );
+	break;
+      case 0x18:				// RR B
+	this.regB = doInstRR( this.regB );
+	break;
+      case 0x19:				// RR C
+	this.regC = doInstRR( this.regC );
+	break;
+      case 0x1A:				// RR D
+	this.regD = doInstRR( this.regD );
+	break;
+      case 0x1B:				// RR E
+	this.regE = doInstRR( this.regE );
+	break;
+      case 0x1C:				// RR H
+	this.regH = doInstRR( this.regH );
+	break;
+      case 0x1D:				// RR L
+	this.regL = doInstRR( this.regL );
+	break;
+      case 0x1E:				// RR (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstRR( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x1F:				// RR A
+	this.regA = doInstRR( this.regA );
+	break;
+      case 0x20:				// SLA B
+	this.regB = doInstSLA( this.regB );
+	break;
+      case 0x21:				// SLA C
+	this.regC = doInstSLA( this.regC );
+	break;
+      case 0x22:				// SLA D
+	this.regD = doInstSLA( this.regD );
+	break;
+      case 0x23:				// SLA E
+	this.regE = doInstSLA( this.regE );
+	break;
+      case 0x24:				// SLA H
+	this.regH = doInstSLA( this.regH );
+	break;
+      case 0x25:				// SLA L
+	this.regL = doInstSLA( this.regL );
+	break;
+      case 0x26:				// SLA (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstSLA( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x27:				// SLA A
+	this.regA = doInstSLA( this.regA );
+	break;
+      case 0x28:				// SRA B
+	this.regB = doInstSRA( this.regB );
+	break;
+      case 0x29:				// SRA C
+	this.regC = doInstSRA( this.regC );
+	break;
+      case 0x2A:				// SRA D
+	this.regD = doInstSRA( this.regD );
+	break;
+      case 0x2B:				// SRA E
+	this.regE = doInstSRA( this.regE );
+	break;
+      case 0x2C:				// SRA H
+	this.regH = doInstSRA( this.regH );
+	break;
+      case 0x2D:				// SRA L
+	this.regL = doInstSRA( this.regL );
+	break;
+      case 0x2E:				// SRA (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstSRA( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x2F:				// SRA A
+	this.regA = doInstSRA( this.regA );
+	break;
+      case 0x30:				// *SLL B
+	this.regB = doInstSLL( this.regB );
+	break;
+      case 0x31:				// *SLL C
+	this.regC = doInstSLL( this.regC );
+	break;
+      case 0x32:				// *SLL D
+	this.regD = doInstSLL( this.regD );
+	break;
+      case 0x33:				// *SLL E
+	this.regE = doInstSLL( this.regE );
+	break;
+      case 0x34:				// *SLL H
+	this.regH = doInstSLL( this.regH );
+	break;
+      case 0x35:				// *SLL L
+	this.regL = doInstSLL( this.regL );
+	break;
+      case 0x36:				// *SLL (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstSLL( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x37:				// *SLL A
+	this.regA = doInstSLL( this.regA );
+	break;
+      case 0x38:				// SRL B
+	this.regB = doInstSRL( this.regB );
+	break;
+      case 0x39:				// SRL C
+	this.regC = doInstSRL( this.regC );
+	break;
+      case 0x3A:				// SRL D
+	this.regD = doInstSRL( this.regD );
+	break;
+      case 0x3B:				// SRL E
+	this.regE = doInstSRL( this.regE );
+	break;
+      case 0x3C:				// SRL H
+	this.regH = doInstSRL( this.regH );
+	break;
+      case 0x3D:				// SRL L
+	this.regL = doInstSRL( this.regL );
+	break;
+      case 0x3E:				// SRL (HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, doInstSRL( readMemByte( regHL ) ) );
+	}
+	break;
+      case 0x3F:				// SRL A
+	this.regA = doInstSRL( this.regA );
+	break;
+      case 0x40:
+      case 0x48:
+      case 0x50:
+      case 0x58:
+      case 0x60:
+      case 0x68:
+      case 0x70:
+      case 0x78:				// BIT n,B
+	doInstBIT( opCode, this.regB );
+	break;
+      case 0x41:
+      case 0x49:
+      case 0x51:
+      case 0x59:
+      case 0x61:
+      case 0x69:
+      case 0x71:
+      case 0x79:				// BIT n,C
+	doInstBIT( opCode, this.regC );
+	break;
+      case 0x42:
+      case 0x4A:
+      case 0x52:
+      case 0x5A:
+      case 0x62:
+      case 0x6A:
+      case 0x72:
+      case 0x7A:				// BIT n,D
+	doInstBIT( opCode, this.regD );
+	break;
+      case 0x43:
+      case 0x4B:
+      case 0x53:
+      case 0x5B:
+      case 0x63:
+      case 0x6B:
+      case 0x73:
+      case 0x7B:				// BIT n,E
+	doInstBIT( opCode, this.regE );
+	break;
+      case 0x44:
+      case 0x4C:
+      case 0x54:
+      case 0x5C:
+      case 0x64:
+      case 0x6C:
+      case 0x74:
+      case 0x7C:				// BIT n,H
+	doInstBIT( opCode, this.regH );
+	break;
+      case 0x45:
+      case 0x4D:
+      case 0x55:
+      case 0x5D:
+      case 0x65:
+      case 0x6D:
+      case 0x75:
+      case 0x7D:				// BIT n,L
+	doInstBIT( opCode, this.regL );
+	break;
+      case 0x46:
+      case 0x4E:
+      case 0x56:
+      case 0x5E:
+      case 0x66:
+      case 0x6E:
+      case 0x76:
+      case 0x7E:				// BIT n,(HL)
+	doInstBIT( opCode, readMemByte( getRegHL() ) );
+	break;
+      case 0x47:
+      case 0x4F:
+      case 0x57:
+      case 0x5F:
+      case 0x67:
+      case 0x6F:
+      case 0x77:
+      case 0x7F:				// BIT n,A
+	doInstBIT( opCode, this.regA );
+	break;
+      case 0x80:
+      case 0x88:
+      case 0x90:
+      case 0x98:
+      case 0xA0:
+      case 0xA8:
+      case 0xB0:
+      case 0xB8:				// RES n,B
+	this.regB &= ~getBitMask( opCode );
+	break;
+      case 0x81:
+      case 0x89:
+      case 0x91:
+      case 0x99:
+      case 0xA1:
+      case 0xA9:
+      case 0xB1:
+      case 0xB9:				// RES n,C
+	this.regC &= ~getBitMask( opCode );
+	break;
+      case 0x82:
+      case 0x8A:
+      case 0x92:
+      case 0x9A:
+      case 0xA2:
+      case 0xAA:
+      case 0xB2:
+      case 0xBA:				// RES n,D
+	this.regD &= ~getBitMask( opCode );
+	break;
+      case 0x83:
+      case 0x8B:
+      case 0x93:
+      case 0x9B:
+      case 0xA3:
+      case 0xAB:
+      case 0xB3:
+      case 0xBB:				// RES n,E
+	this.regE &= ~getBitMask( opCode );
+	break;
+      case 0x84:
+      case 0x8C:
+      case 0x94:
+      case 0x9C:
+      case 0xA4:
+      case 0xAC:
+      case 0xB4:
+      case 0xBC:				// RES n,H
+	this.regH &= ~getBitMask( opCode );
+	break;
+      case 0x85:
+      case 0x8D:
+      case 0x95:
+      case 0x9D:
+      case 0xA5:
+      case 0xAD:
+      case 0xB5:
+      case 0xBD:				// RES n,L
+	this.regL &= ~getBitMask( opCode );
+	break;
+      case 0x86:
+      case 0x8E:
+      case 0x96:
+      case 0x9E:
+      case 0xA6:
+      case 0xAE:
+      case 0xB6:
+      case 0xBE:				// RES n,(HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, readMemByte( regHL ) & ~getBitMask( opCode ) );
+	}
+	break;
+      case 0x87:
+      case 0x8F:
+      case 0x97:
+      case 0x9F:
+      case 0xA7:
+      case 0xAF:
+      case 0xB7:
+      case 0xBF:				// RES n,A
+	this.regA &= ~getBitMask( opCode );
+	break;
+      case 0xC0:
+      case 0xC8:
+      case 0xD0:
+      case 0xD8:
+      case 0xE0:
+      case 0xE8:
+      case 0xF0:
+      case 0xF8:				// SET n,B
+	this.regB |= getBitMask( opCode );
+	break;
+      case 0xC1:
+      case 0xC9:
+      case 0xD1:
+      case 0xD9:
+      case 0xE1:
+      case 0xE9:
+      case 0xF1:
+      case 0xF9:				// SET n,C
+	this.regC |= getBitMask( opCode );
+	break;
+      case 0xC2:
+      case 0xCA:
+      case 0xD2:
+      case 0xDA:
+      case 0xE2:
+      case 0xEA:
+      case 0xF2:
+      case 0xFA:				// SET n,D
+	this.regD |= getBitMask( opCode );
+	break;
+      case 0xC3:
+      case 0xCB:
+      case 0xD3:
+      case 0xDB:
+      case 0xE3:
+      case 0xEB:
+      case 0xF3:
+      case 0xFB:				// SET n,E
+	this.regE |= getBitMask( opCode );
+	break;
+      case 0xC4:
+      case 0xCC:
+      case 0xD4:
+      case 0xDC:
+      case 0xE4:
+      case 0xEC:
+      case 0xF4:
+      case 0xFC:				// SET n,H
+	this.regH |= getBitMask( opCode );
+	break;
+      case 0xC5:
+      case 0xCD:
+      case 0xD5:
+      case 0xDD:
+      case 0xE5:
+      case 0xED:
+      case 0xF5:
+      case 0xFD:				// SET n,L
+	this.regL |= getBitMask( opCode );
+	break;
+      case 0xC6:
+      case 0xCE:
+      case 0xD6:
+      case 0xDE:
+      case 0xE6:
+      case 0xEE:
+      case 0xF6:
+      case 0xFE:				// SET n,(HL)
+	{
+	  int regHL = getRegHL();
+	  writeMemByte( regHL, readMemByte( regHL ) | getBitMask( opCode ) );
+	}
+	break;
+      case 0xC7:
+      case 0xCF:
+      case 0xD7:
+      case 0xDF:
+      case 0xE7:
+      case 0xEF:
+      case 0xF7:
+      case 0xFF:				// SET n,A
+	this.regA |= getBitMask( opCode );
+	break;
+    }
+    this.instTStates += Z80InstrTables.TSTATES_CB[ opCode ];
+  }
+
+
+  private void execEDByTable()
+  {
+    int opCode = nextByteM1();
+    switch( opCode ) {
+      case 0x40:				// IN B,(C)
+	this.regB = doInstIN();
+	break;
+      case 0x41:				// OUT (C),B
+	doInstOUTC( this.regB );
+	break;
+      case 0x42:				// SBC HL,BC
+	doInstSBC16( getRegBC() );
+	break;
+      case 0x43:				// LD (nn),BC
+	writeMemWord( nextWord(), getRegBC() );
+	break;
+      case 0x44:				// NEG
+	doInstNEG();
+	break;
+      case 0x45:				// RETN
+	doInstRETN();
+	break;
+      case 0x46:				// IM 0
+	this.interruptMode = 0;
+	break;
+      case 0x47:				// LD I,A
+	this.interruptReg = this.regA;
+	break;
+      case 0x48:				// IN C,(C)
+	this.regC = doInstIN();
+	break;
+      case 0x49:				// OUT (C),C
+	doInstOUTC( this.regC );
+	break;
+      case 0x4A:				// ADC HL,BC
+	doInstADC16( getRegBC() );
+	break;
+      case 0x4B:				// LD BC,(nn)
+	setRegBC( readMemWord( nextWord() ) );
+	break;
+      case 0x4C:				// *NEG
+	doInstNEG();
+	break;
+      case 0x4D:				// RETI
+	doInstRETI();
+	break;
+      case 0x4E:				// *IM ?
+	this.interruptMode = 0;
+	break;
+      case 0x4F:				// LD R,A
+	setRegR( this.regA );
+	break;
+      case 0x50:				// IN D,(C)
+	this.regD = doInstIN();
+	break;
+      case 0x51:				// OUT (C),D
+	doInstOUTC( this.regD );
+	break;
+      case 0x52:				// SBC HL,DE
+	doInstSBC16( getRegDE() );
+	break;
+      case 0x53:				// LD (nn),DE
+	writeMemWord( nextWord(), getRegDE() );
+	break;
+      case 0x54:				// *NEG
+	doInstNEG();
+	break;
+      case 0x55:				// *RETN
+	doInstRETN();
+	break;
+      case 0x56:				// IM 1
+	this.interruptMode = 1;
+	break;
+      case 0x57:				// LD A,I
+	doInstLDAIR( this.interruptReg );
+	break;
+      case 0x58:				// IN E,(C)
+	this.regE = doInstIN();
+	break;
+      case 0x59:				// OUT (C),E
+	doInstOUTC( this.regE );
+	break;
+      case 0x5A:				// ADC HL,DE
+	doInstADC16( getRegDE() );
+	break;
+      case 0x5B:				// LD DE,(nn)
+	setRegDE( readMemWord( nextWord() ) );
+	break;
+      case 0x5C:				// *NEG
+	doInstNEG();
+	break;
+      case 0x5D:				// *RETN
+	doInstRETN();
+	break;
+      case 0x5E:				// IM 2
+	this.interruptMode = 2;
+	break;
+      case 0x5F:				// LD A,R
+	doInstLDAIR( getRegR() );
+	break;
+      case 0x60:				// IN H,(C)
+	this.regH = doInstIN();
+	break;
+      case 0x61:				// OUT (C),H
+	doInstOUTC( this.regH );
+	break;
+      case 0x62:				// SBC HL,HL
+	doInstSBC16( getRegHL() );
+	break;
+      case 0x63:				// *LD (nn),HL
+	writeMemWord( nextWord(), getRegHL() );
+	break;
+      case 0x64:				// *NEG
+	doInstNEG();
+	break;
+      case 0x65:				// *RETN
+	doInstRETN();
+	break;
+      case 0x66:				// *IM 0
+	this.interruptMode = 0;
+	break;
+      case 0x67:				// RRD
+	doInstRRD();
+	break;
+      case 0x68:				// IN L,(C)
+	this.regL = doInstIN();
+	break;
+      case 0x69:				// OUT (C),L
+	doInstOUTC( this.regL );
+	break;
+      case 0x6A:				// ADC HL,HL
+	doInstADC16( getRegHL() );
+	break;
+      case 0x6B:				// *LD HL,(nn)
+	setRegHL( readMemWord( nextWord() ) );
+	break;
+      case 0x6C:				// *NEG
+	doInstNEG();
+	break;
+      case 0x6D:				// *RETN
+	doInstRETN();
+	break;
+      case 0x6E:				// *IM ?
+	this.interruptMode = 0;
+	break;
+      case 0x6F:				// RLD
+	doInstRLD();
+	break;
+      case 0x70:				// *IN F,(C)
+	doInstIN();
+	break;
+      case 0x71:				// *OUT (C),0
+	doInstOUTC( 0 );
+	break;
+      case 0x72:				// SBC HL,SP
+	doInstSBC16( this.regSP );
+	break;
+      case 0x73:				// LD (nn),SP
+	writeMemWord( nextWord(), this.regSP );
+	break;
+      case 0x74:				// *NEG
+	doInstNEG();
+	break;
+      case 0x75:				// *RETN
+	doInstRETN();
+	break;
+      case 0x76:				// *IM 1
+	this.interruptMode = 1;
+	break;
+      case 0x78:				// IN A,(C)
+	this.regA = doInstIN();
+	break;
+      case 0x79:				// OUT (C),A
+	doInstOUTC( this.regA );
+	break;
+      case 0x7A:				// ADC HL,SP
+	doInstADC16( this.regSP );
+	break;
+      case 0x7B:				// LD SP,(nn)
+	this.regSP = readMemWord( nextWord() );
+	break;
+      case 0x7C:				// *NEG
+	doInstNEG();
+	break;
+      case 0x7D:				// *RETN
+	doInstRETN();
+	break;
+      case 0x7E:				// *IM 2
+	this.interruptMode = 2;
+	break;
+      case 0xA0:				// LDI
+	doInstBlockLD( 1 );
+	break;
+      case 0xA1:				// CPI
+	doInstBlockCP( 1 );
+	break;
+      case 0xA2:				// INI
+	doInstBlockIN( 1, false );
+	break;
+      case 0xA3:				// OUTI
+	doInstBlockOUT( 1, false );
+	break;
+      case 0xA8:				// LDD
+	doInstBlockLD( -1 );
+	break;
+      case 0xA9:				// CPD
+	doInstBlockCP( -1 );
+	break;
+      case 0xAA:				// IND
+	doInstBlockIN( -1, false );
+	break;
+      case 0xAB:				// OUTD
+	doInstBlockOUT( -1, false );
+	break;
+      case 0xB0:				// LDIR
+	doInstLDxR( 1 );
+	break;
+      case 0xB1:				// CPIR
+	doInstCPxR( 1 );
+	break;
+      case 0xB2:				// INIR
+	doInstINxR( 1 );
+	break;
+      case 0xB3:				// OTIR
+	doInstOTxR( 1 );
+	break;
+      case 0xB8:				// LDDR
+	doInstLDxR( -1 );
+	break;
+      case 0xB9:				// CPDR
+	doInstCPxR( -1 );
+	break;
+      case 0xBA:				// INDR
+	doInstINxR( -1 );
+	break;
+      case 0xBB:				// OTDR
+	doInstOTxR( -1 );
+	break;
+      // alle anderen Codes: *NOP
+    }
+    this.instTStates += Z80InstrTables.TSTATES_ED[ opCode ];
+  }
+
+
+  /*
+   * Tabellengesteuerte Befehlsausfuehrung fuer Befehle
+   * mit Vorbyte DD oder FD
+   *
+   * Befehle, die das HL-Register nicht verwenden,
+   * werden genauso wie ohne Vorbyte ausgefuehrt.
+   */
+  private void execIXYByTable( int opCode )
+  {
+    switch( opCode ) {
+      case 0x09:				// ADD IXY,BC
+	setRegIXY( doInstADD16( getRegIXY(), getRegBC() ) );
+	break;
+      case 0x19:				// ADD IXY,DE
+	setRegIXY( doInstADD16( getRegIXY(), getRegDE() ) );
+	break;
+      case 0x21:				// LD IXY,nn
+	setRegIXY( nextWord() );
+	break;
+      case 0x22:				// LD (nn),IXY
+	writeMemWord( nextWord(), getRegIXY() );
+	break;
+      case 0x23:				// INC IXY
+	setRegIXY( getRegIXY() + 1 );
+	break;
+      case 0x24:				// *INC IXYH
+	setRegIXYH( doInstINC8( getRegIXYH() ) );
+	break;
+      case 0x25:				// *DEC IXYH
+	setRegIXYH( doInstDEC8( getRegIXYH() ) );
+	break;
+      case 0x26:				// *LD IXYH,n
+	setRegIXYH( nextByte() );
+	break;
+      case 0x29:				// ADD IXY,IXY
+	setRegIXY( doInstADD16( getRegIXY(), getRegIXY() ) );
+	break;
+      case 0x2A:				// LD IXY,(nn)
+	setRegIXY( readMemWord( nextWord() ) );
+	break;
+      case 0x2B:				// DEC IXY
+	setRegIXY( getRegIXY() - 1 );
+	break;
+      case 0x2C:				// *INC IXYL
+	setRegIXYL( doInstINC8( getRegIXYL() ) );
+	break;
+      case 0x2D:				// *DEC IXYL
+	setRegIXYL( doInstDEC8( getRegIXYL() ) );
+	break;
+      case 0x2E:				// *LD IXYL,n
+	setRegIXYL( nextByte() );
+	break;
+      case 0x34:				// INC (IXY+d)
+	{
+	  int m = getAddrIXYd();
+	  writeMemByte( m, doInstINC8( readMemByte( m ) ) );
+	}
+	break;
+      case 0x35:				// DEC (IXY+d)
+	{
+	  int m = getAddrIXYd();
+	  writeMemByte( m, doInstDEC8( readMemByte( m ) ) );
+	}
+	break;
+      case 0x36:				// LD (IXY+d),n
+	{
+	  int m = getAddrIXYd();
+	  writeMemByte( m, nextByte() );
+	}
+	break;
+      case 0x39:				// ADD IXY,SP
+	setRegIXY( doInstADD16( getRegIXY(), this.regSP ) );
+	break;
+      case 0x44:				// *LD B,IXYH
+	this.regB = getRegIXYH();
+	break;
+      case 0x45:				// *LD B,IXYL
+	this.regB = getRegIXYL();
+	break;
+      case 0x46:				// LD B,(IXY+d)
+	this.regB = readMemByte( getAddrIXYd() );
+	break;
+      case 0x4C:				// *LD C,IXYH
+	this.regC = getRegIXYH();
+	break;
+      case 0x4D:				// *LD C,IXYL
+	this.regC = getRegIXYL();
+	break;
+      case 0x4E:				// LD C,(IXY+d)
+	this.regC = readMemByte( getAddrIXYd() );
+	break;
+      case 0x54:				// *LD D,IXYH
+	this.regD = getRegIXYH();
+	break;
+      case 0x55:				// *LD D,IXYL
+	this.regD = getRegIXYL();
+	break;
+      case 0x56:				// LD D,(IXY+d)
+	this.regD = readMemByte( getAddrIXYd() );
+	break;
+      case 0x5C:				// *LD E,IXYH
+	this.regE = getRegIXYH();
+	break;
+      case 0x5D:				// *LD E,IXYL
+	this.regE = getRegIXYL();
+	break;
+      case 0x5E:				// LD E,(IXY+d)
+	this.regE = readMemByte( getAddrIXYd() );
+	break;
+      case 0x60:				// *LD IXYH,B
+	setRegIXYH( this.regB );
+	break;
+      case 0x61:				// *LD IXYH,C
+	setRegIXYH( this.regC );
+	break;
+      case 0x62:				// *LD IXYH,D
+	setRegIXYH( this.regD );
+	break;
+      case 0x63:				// *LD IXYH,E
+	setRegIXYH( this.regE );
+	break;
+      case 0x64:				// *LD IXYH,IXYH
+	setRegIXYH( getRegIXYH() );
+	break;
+      case 0x65:				// *LD IXYH,IXYL
+	setRegIXYH( getRegIXYL() );
+	break;
+      case 0x66:				// LD H,(IXY+d)
+	this.regH = readMemByte( getAddrIXYd() );
+	break;
+      case 0x67:				// *LD IXYH,A
+	setRegIXYH( this.regA );
+	break;
+      case 0x68:				// *LD IXYL,B
+	setRegIXYL( this.regB );
+	break;
+      case 0x69:				// *LD IXYL,C
+	setRegIXYL( this.regC );
+	break;
+      case 0x6A:				// *LD IXYL,D
+	setRegIXYL( this.regD );
+	break;
+      case 0x6B:				// *LD IXYL,E
+	setRegIXYL( this.regE );
+	break;
+      case 0x6C:				// *LD IXYL,IXYH
+	setRegIXYL( getRegIXYH() );
+	break;
+      case 0x6D:				// *LD IXYL,IXYL
+	setRegIXYL( getRegIXYL() );
+	break;
+      case 0x6E:				// LD L,(IXY+d)
+	this.regL = readMemByte( getAddrIXYd() );
+	break;
+      case 0x6F:				// *LD IXYL,A
+	setRegIXYL( this.regA );
+	break;
+      case 0x70:				// LD (IXY+d),B
+	writeMemByte( getAddrIXYd(), this.regB );
+	break;
+      case 0x71:				// LD (IXY+d),C
+	writeMemByte( getAddrIXYd(), this.regC );
+	break;
+      case 0x72:				// LD (IXY+d),D
+	writeMemByte( getAddrIXYd(), this.regD );
+	break;
+      case 0x73:				// LD (IXY+d),E
+	writeMemByte( getAddrIXYd(), this.regE );
+	break;
+      case 0x74:				// LD (IXY+d),H
+	writeMemByte( getAddrIXYd(), this.regH );
+	break;
+      case 0x75:				// LD (IXY+d),L
+	writeMemByte( getAddrIXYd(), this.regL );
+	break;
+      case 0x77:				// LD (IXY+d),A
+	writeMemByte( getAddrIXYd(), this.regA );
+	break;
+      case 0x7C:				// *LD A,IXYH
+	this.regA = getRegIXYH();
+	break;
+      case 0x7D:				// *LD A,IXYL
+	this.regA = getRegIXYL();
+	break;
+      case 0x7E:				// LD A,(IXY+d)
+	this.regA = readMemByte( getAddrIXYd() );
+	break;
+      case 0x84:				// *ADD IXYH
+	doInstADD8( getRegIXYH(), 0 );
+	break;
+      case 0x85:				// *ADD IXYL
+	doInstADD8( getRegIXYL(), 0 );
+	break;
+      case 0x86:				// ADD (IXY+d)
+	doInstADD8( readMemByte( getAddrIXYd() ), 0 );
+	break;
+      case 0x8C:				// *ADC IXYH
+	doInstADD8( getRegIXYH(), this.regF & FLAG_C );
+	break;
+      case 0x8D:				// *ADC IXYL
+	doInstADD8( getRegIXYL(), this.regF & FLAG_C );
+	break;
+      case 0x8E:				// ADC (IXY+d)
+	doInstADD8( readMemByte( getAddrIXYd() ), this.regF & FLAG_C );
+	break;
+      case 0x94:				// *SUB IXYH
+	doInstSUB8( getRegIXYH(), 0 );
+	break;
+      case 0x95:				// *SUB IXYL
+	doInstSUB8( getRegIXYL(), 0 );
+	break;
+      case 0x96:				// SUB (IXY+d)
+	doInstSUB8( readMemByte( getAddrIXYd() ), 0 );
+	break;
+      case 0x9C:				// *SBC IXYH
+	doInstSUB8( getRegIXYH(), this.regF & FLAG_C );
+	break;
+      case 0x9D:				// *SBC IXYL
+	doInstSUB8( getRegIXYL(), this.regF & FLAG_C );
+	break;
+      case 0x9E:				// SBC (IXY+d)
+	doInstSUB8( readMemByte( getAddrIXYd() ), this.regF & FLAG_C );
+	break;
+      case 0xA4:				// *AND IXYH
+	doInstAND( getRegIXYH() );
+	break;
+      case 0xA5:				// *AND IXYL
+	doInstAND( getRegIXYL() );
+	break;
+      case 0xA6:				// AND (IXY+d)
+	doInstAND( readMemByte( getAddrIXYd() ) );
+	break;
+      case 0xAC:				// *XOR IXYH
+	doInstXOR( getRegIXYH() );
+	break;
+      case 0xAD:				// *XOR IXYL
+	doInstXOR( getRegIXYL() );
+	break;
+      case 0xAE:				// XOR (IXY+d)
+	doInstXOR( readMemByte( getAddrIXYd() ) );
+	break;
+      case 0xB4:				// *OR IXYH
+	doInstOR( getRegIXYH() );
+	break;
+      case 0xB5:				// *OR IXYL
+	doInstOR( getRegIXYL() );
+	break;
+      case 0xB6:				// OR (IXY+d)
+	doInstOR( readMemByte( getAddrIXYd() ) );
+	break;
+      case 0xBC:				// *CP IXYH
+	doInstCP( getRegIXYH() );
+	break;
+      case 0xBD:				// *CP IXYL
+	doInstCP( getRegIXYL() );
+	break;
+      case 0xBE:				// CP (IXY+d)
+	doInstCP( readMemByte( getAddrIXYd() ) );
+	break;
+      case 0xCB:				// Befehle mit Vorbytes DDCB bzw. FDCB
+	execIXYCBByTable();
+	break;
+      case 0xE1:				// POP IXY
+	setRegIXY( doPop() );
+	break;
+      case 0xE3:				// EX (SP),IXY
+	setRegIXY( doInstEXSP( getRegIXY() ) );
+	break;
+      case 0xE5:				// PUSH IXY
+	doPush( getRegIXY() );
+	break;
+      case 0xE9:				// JP (IXY)
+	this.regPC = getRegIXY();
+	break;
+      case 0xF9:				// LD SP,IXY
+	this.regSP = getRegIXY();
+	break;
+      default:
+	execMainByTable( opCode );
+	return;
+    }
+    this.instTStates += Z80InstrTables.TSTATES_IXY[ opCode ];
+  }
+
+
+  /*
+   * Bei den Befehlen mit den Vorbytes DDCB und FDCB
+   * wird ueber die Bits 3 bis 7 des Operationscodes verzweigt,
+   * da die Bits 0 bis 2 nur das Register fuer die undokumentierte
+   * Kopie des Ergebnisses festlegen.
+   */
+  private void execIXYCBByTable()
+  {
+    int addr   = getAddrIXYd();
+    int value  = readMemByte( addr );
+    int opCode = nextByte();
+    switch( opCode >> 3 ) {
+      case 0x00:				// RLC (IXY+d)
+	value = doInstRLC( value );
+	break;
+      case 0x01:				// RRC (IXY+d)
+	value = doInstRRC( value );
+	break;
+      case 0x02:				// RL (IXY+d)
+	value = doInstRL( value );
+	break;
+      case 0x03:				// RR (IXY+d)
+	value = doInstRR( value );
+	break;
+      case 0x04:				// SLA (IXY+d)
+	value = doInstSLA( value );
+	break;
+      case 0x05:				// SRA (IXY+d)
+	value = doInstSRA( value );
+	break;
+      case 0x06:				// *SLL (IXY+d)
+	value = doInstSLL( value );
+	break;
+      case 0x07:				// SRL (IXY+d)
+	value = doInstSRL( value );
+	break;
+      case 0x08:
+      case 0x09:
+      case 0x0A:
+      case 0x0B:
+      case 0x0C:
+      case 0x0D:
+      case 0x0E:
+      case 0x0F:				// BIT n,(IXY+d)
+	doInstBIT( opCode, value );
+	this.instTStates += Z80InstrTables.TSTATES_IXY_CB[ opCode ];
+	return;
+      case 0x10:
+      case 0x11:
+      case 0x12:
+      case 0x13:
+      case 0x14:
+      case 0x15:
+      case 0x16:
+      case 0x17:				// RES n,(IXY+d)
+	value &= ~getBitMask( opCode );
+	break;
+      default:					// SET n,(IXY+d)
+	value |= getBitMask( opCode );
+    }
+    writeMemByte( addr, value );
+    execIXY_setUndoc( opCode, value );
+    this.instTStates += Z80InstrTables.TSTATES_IXY_CB[ opCode ];
+  }
+
+
+	/* --- Hilfsmethoden fuer einzelne Befehle --- */
+
+  private void doInstRLCA()
+  {
+    int c     = (this.regA >> 7) & FLAG_C;
+    this.regA = ((this.regA << 1) | c) & 0xFF;
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| c;
+  }
+
+
+  private void doInstRRCA()
+  {
+    int c     = this.regA & FLAG_C;
+    this.regA = (this.regA >> 1) | (c << 7);
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| c;
+  }
+
+
+  private void doInstRLA()
+  {
+    int c     = (this.regA >> 7) & FLAG_C;
+    this.regA = ((this.regA << 1) | (this.regF & FLAG_C)) & 0xFF;
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| c;
+  }
+
+
+  private void doInstRRA()
+  {
+    int c     = this.regA & FLAG_C;
+    this.regA = (this.regA >> 1) | ((this.regF & FLAG_C) << 7);
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| c;
+  }
+
+
+  private void doInstCPL()
+  {
+    this.regA = (~this.regA) & 0xFF;
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV | FLAG_C))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| FLAG_H | FLAG_N;
+  }
+
+
+  private void doInstSCF()
+  {
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| FLAG_C;
+  }
+
+
+  private void doInstCCF()
+  {
+    int c     = this.regF & FLAG_C;
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_PV))
+			| (this.regA & (FLAG_5 | FLAG_3))
+			| (c << 4)
+			| (c ^ FLAG_C);
+  }
+
+
+  /*
+   * DJNZ n
+   * Bei einem Sprung werden die zusaetzlichen 5 Taktzyklen addiert.
+   */
+  private void doInstDJNZ()
+  {
+    int d = nextByte();
+    if( d == 0xFE ) {			// leere Schleife
+      setStepOverBreakAddr();
+      setWalkBreakAddr();
+    }
+    this.regB = (this.regB - 1) & 0xFF;
+    if( this.regB != 0 ) {
+      doJmpRel( d );
+      this.instTStates += 5;
+    }
+  }
+
+  /*
+   * Bedingte Befehle fuer die tabellengesteuerte Befehlsausfuehrung
+   *
+   * Die Tabellen enthalten die Taktzyklen fuer den Fall,
+   * dass die Bedingung nicht erfuellt ist.
+   * Die zusaetzlichen Taktzyklen werden hier addiert.
+   */
+  private void doInstJRcc( boolean cond )
+  {
+    int d = nextByte();
+    if( cond ) {
+      doJmpRel( d );
+      this.instTStates += 5;
+    }
+  }
+
+
+  private void doInstJPcc( boolean cond )
+  {
+    int nn = nextWord();
+    if( cond ) {
+      this.regPC = nn;
+    }
+  }
+
+
+  private void doInstCALL()
+  {
+    int nn = nextWord();
+    setStepOverBreakAddrAndSP();
+    doPush( this.regPC );
+    this.regPC = nn;
+  }
+
+
+  private void doInstCALLcc( boolean cond )
+  {
+    int nn = nextWord();
+    setStepOverBreakAddrAndSP();
+    if( cond ) {
+      doPush( this.regPC );
+      this.regPC = nn;
+      this.instTStates += 7;
+    }
+  }
+
+
+  private void doInstRETcc( boolean cond )
+  {
+    if( cond ) {
+      this.regPC          = doPop();
+      this.lastInstWasRET = true;
+      this.instTStates += 6;
+    }
+  }
+
+
+  private void doInstRST( int addr )
+  {
+    setStepOverBreakAddrAndSP();
+    doPush( this.regPC );
+    this.regPC = addr;
+  }
+
+
+  private void doInstINAn()
+  {
+    int v = 0xFF;
+    if( this.ioSys != null ) {
+      v = readIOByte( (this.regA << 8) | nextByte(), 11 );
+    }
+    this.regA = v & 0xFF;
+  }
+
+
+  private void doInstOUTnA()
+  {
+    if( this.ioSys != null ) {
+      writeIOByte( (this.regA << 8) | nextByte(), this.regA, 11 );
+    }
+  }
+
+
+  private void doInstOUTC( int value )
+  {
+    if( this.ioSys != null ) {
+      writeIOByte( (this.regB << 8) | this.regC, value, 12 );
+    }
+  }
+
+
+  /*
+   * Blockbefehle mit Wiederholung
+   * Bei einer Wiederholung werden die zusaetzlichen 5 Taktzyklen addiert.
+   */
+  private void doInstLDxR( int addValue )
+  {
+    setStepOverBreakAddr();
+    setWalkBreakAddr();
+    doInstBlockLD( addValue );
+    if( (this.regF & FLAG_PV) != 0 ) {
+      setPCRel( -2 );
+      this.instTStates += 5;
+      this.blockRepeat = true;
+    }
+  }
+
+
+  private void doInstCPxR( int addValue )
+  {
+    setStepOverBreakAddr();
+    setWalkBreakAddr();
+    doInstBlockCP( addValue );
+    if( ((this.regF & FLAG_Z) == 0) && ((this.regF & FLAG_PV) != 0) ) {
+      setPCRel( -2 );
+      this.instTStates += 5;
+      this.blockRepeat = true;
+    }
+  }
+
+
+  private void doInstINxR( int addValue )
+  {
+    setStepOverBreakAddr();
+    setWalkBreakAddr();
+    doInstBlockIN( addValue, true );
+    if( (this.regF & FLAG_Z) == 0 ) {
+      setPCRel( -2 );
+      this.instTStates += 5;
+      this.blockRepeat = true;
+    }
+  }
+
+
+  private void doInstOTxR( int addValue )
+  {
+    setStepOverBreakAddr();
+    setWalkBreakAddr();
+    doInstBlockOUT( addValue, true );
+    if( (this.regF & FLAG_Z) == 0 ) {
+      setPCRel( -2 );
+      this.instTStates += 5;
+      this.blockRepeat = true;
+    }
+  }
+
+
+
+  private void doInstEXAF()
+  {
+    int b      = this.regA;
+    this.regA  = this.regA2;
+    this.regA2 = b;
+    b          = getRegF();
+    setRegF( this.regF2 );
+    this.regF2 = b;
+  }
+
+
+  private void doInstEXX()
+  {
+    int b      = this.regB;
+    this.regB  = this.regB2;
+    this.regB2 = b;
+    b          = this.regC;
+    this.regC  = this.regC2;
+    this.regC2 = b;
+    b          = this.regD;
+    this.regD  = this.regD2;
+    this.regD2 = b;
+    b          = this.regE;
+    this.regE  = this.regE2;
+    this.regE2 = b;
+    b          = this.regH;
+    this.regH  = this.regH2;
+    this.regH2 = b;
+    b          = this.regL;
+    this.regL  = this.regL2;
+    this.regL2 = b;
+  }
+
+
+  /*
+   * EX (SP),HL, EX (SP),IX und EX (SP),IY
+   * Die Methode liefert den neuen Wert fuer das Register zurueck.
+   */
+  private int doInstEXSP( int value )
+  {
+    int tmpSP = readMemWord( this.regSP );
+    writeMemWord( this.regSP, value );
+    if( this.curDebugEnabled
+	&& (this.action == Action.DEBUG_STEP_OVER)
+	&& (this.stepOverBreakAddr == tmpSP) )
+    {
+      this.stepOverBreakAddr = value;
+    }
+    return tmpSP;
+  }
 
-  private int execIXY_CB( int regIXY )
+
+  /*
+   * LD A,I und LD A,R
+   */
+  private void doInstLDAIR( int value )
   {
-    int addr   = computeRelAddr( regIXY, nextByte() );
-    int value  = readMemByte( addr );
-    int opCode = nextByte();
-    if( opCode < 0x80 ) {
-      if( opCode < 0x40 ) {
-        switch( opCode & 0x38 ) {
-          case 0x00:
-            value = doInstRLC( value );
-            break;
-          case 0x08:
-            value = doInstRRC( value );
-            break;
-          case 0x10:
-            value = doInstRL( value );
-            break;
-          case 0x18:
-            value = doInstRR( value );
-            break;
-          case 0x20:
-            value = doInstSLA( value );
-            break;
-          case 0x28:
-            value = doInstSRA( value );
-            break;
-          case 0x30:
-            value = doInstSLL( value );
-            break;
-          case 0x38:
-            value = doInstSRL( value );
-            break;
-          default:
-            throwIllegalState( opCode );
-        }
-        writeMemByte( addr, value );
-	execIXY_setUndoc( opCode, value );
-	this.instTStates += 19;				// insgesamt 23
+    this.regA = value;
+    this.regF = (this.regF & FLAG_C)
+			| Z80FlagTables.SZ[ value ]
+			| (this.iff2 ? FLAG_PV : 0);
+  }
 
-      } else {
 
-	// 0x40-0x7F: BIT n,(IXY+d)
-	doInstBIT( opCode, value );
-	this.instTStates += 16;				// insgesamt 20
-      }
+  private void doInstRLD()
+  {
+    int a = getRegHL();
+    int m = readMemByte( a );
+    int r = this.regA;
+    this.regA = (this.regA & 0xF0) | ((m >> 4) & 0x0F);
+    writeMemByte( a, ((m << 4) & 0xF0) | (r & 0x0F) );
+    this.regF = (this.regF & FLAG_C) | Z80FlagTables.SZP[ this.regA ];
+  }
 
-    } else {
 
-      if( opCode < 0xC0 ) {
-        // IXY CB 80-BF: RES (IXY+d)
-	value &= ~getBitMask( opCode );
-      } else {
-        // IXY CB 80-BF: SET (IXY+d)
-	value |= getBitMask( opCode );
-      }
-      writeMemByte( addr, value );
-      execIXY_setUndoc( opCode, value );
-      this.instTStates += 19;				// insgesamt 23
-    }
-    return regIXY;
+  private void doInstRRD()
+  {
+    int a = getRegHL();
+    int m = readMemByte( a );
+    int r = this.regA;
+    this.regA = (this.regA & 0xF0) | (m & 0x0F);
+    writeMemByte( a, ((m >> 4) & 0x0F) | ((r << 4) & 0xF0) );
+    this.regF = (this.regF & FLAG_C) | Z80FlagTables.SZP[ this.regA ];
   }
 
 
-  /*
-   * Bei vielen undokumentierten Rotations- und Schiebebefehlen
-   * mit den Indexregistern wird das Ergebnis zusaetzlich
-   * in ein Register geschrieben.
-   * Das erledigt diese Methode.
-   */
-  private void execIXY_setUndoc( int opCode, int value )
+  private void doInstRETI()
   {
-    switch( opCode & 0x07 ) {
-      case 0:
-	this.regB = value;
-	break;
-      case 1:
-	this.regC = value;
-	break;
-      case 2:
-	this.regD = value;
-	break;
-      case 3:
-	this.regE = value;
-	break;
-      case 4:
-	this.regH = value;
-	break;
-      case 5:
-	this.regL = value;
-	break;
-      case 7:
-	this.regA = value;
-	break;
+    doInstRETN();
+    Z80InterruptSource[] iSources = this.curInterruptSources;
+    if( iSources != null ) {
+      for( int i = 0; i < iSources.length; i++ ) {
+	if( iSources[ i ].isInterruptAccepted() ) {
+	  iSources[ i ].interruptFinish();
+	  break;
+	}
+      }
     }
   }
 
 
-	/* --- Hilfsmethoden fuer einzelne Befehle --- */
-
   private void doInstADD8( int op2, int op3 )
   {
-    int result = this.regA + op2 + op3;
-    int m      = this.regA ^ op2 ^ result;
-
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = ((result & 0xFF) == 0);
-    this.flag5     = ((result & BIT5) != 0);
-    this.flagHalf  = ((m & 0x10) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    this.flagPV    = ((((m >> 1) ^ m) & 0x80) != 0);
-    this.flagN     = false;
-    this.flagCarry = ((m & 0x100) != 0);
-    this.regA      = result & 0xFF;
+    this.regF = Z80FlagTables.ADD[ (op3 << 16) | (this.regA << 8) | op2 ]
+									& 0xFF;
+    this.regA = (this.regA + op2 + op3) & 0xFF;
   }
 
 
   private void doInstSUB8( int op2, int op3 )
   {
-    int result = this.regA - op2 - op3;
-    int m      = this.regA ^ op2 ^ result;
-
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = ((result & 0xFF) == 0);
-    this.flag5     = ((result & BIT5) != 0);
-    this.flagHalf  = ((m & 0x10) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    this.flagPV    = ((((m >> 1) ^ m) & 0x80) != 0);
-    this.flagN     = true;
-    this.flagCarry = ((m & 0x100) != 0);
-    this.regA      = result & 0xFF;
+    this.regF = Z80FlagTables.SUB[ (op3 << 16) | (this.regA << 8) | op2 ]
+									& 0xFF;
+    this.regA = (this.regA - op2 - op3) & 0xFF;
   }
 
 
+  /*
+   * Die undokumentierten Flags 3 und 5 kommen beim Vergleich
+   * vom Operanden und nicht vom Ergebnis.
+   */
   private void doInstCP( int op2 )
   {
-    int result = this.regA - op2;
-    int m      = this.regA ^ op2 ^ result;
-
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = ((result & 0xFF) == 0);
-    this.flag5     = ((op2 & BIT5) != 0);
-    this.flagHalf  = ((m & 0x10) != 0);
-    this.flag3     = ((op2 & BIT3) != 0);
-    this.flagPV    = ((((m >> 1) ^ m) & 0x80) != 0);
-    this.flagN     = true;
-    this.flagCarry = ((m & 0x100) != 0);
+    this.regF = (Z80FlagTables.SUB[ (this.regA << 8) | op2 ]
+					& ~(FLAG_5 | FLAG_3) & 0xFF)
+			| (op2 & (FLAG_5 | FLAG_3));
   }
 
 
   private int doInstINC8( int value )
   {
-    // Half-Carry-Flag ermitteln
-    int result    = (value & 0x0F) + 1;
-    this.flagHalf = ((result & 0xFFFFFFF0) != 0);
-
-    // eigentliche Berechnung
-    result        = ((int) ((byte) value)) + 1;
-    this.flagSign = ((result & BIT7) != 0);
-    this.flagZero = (result == 0);
-    this.flagPV   = (result != (int) ((byte) result));
-    this.flagN    = false;
-    this.flag5    = ((result & BIT5) != 0);
-    this.flag3    = ((result & BIT3) != 0);
-    return result & 0xFF;
+    this.regF = (this.regF & FLAG_C) | Z80FlagTables.INC[ value ];
+    return (value + 1) & 0xFF;
   }
 
 
   private int doInstDEC8( int value )
   {
-    // Half-Carry-Flag ermitteln
-    int result    = (value & 0x0F) - 1;
-    this.flagHalf = ((result & 0xFFFFFFF0) != 0);
-
-    // eigentliche Berechnung
-    result        = ((int) ((byte) value)) - 1;
-    this.flagSign = ((result & BIT7) != 0);
-    this.flagZero = (result == 0);
-    this.flagPV   = (result != (int) ((byte) result));
-    this.flagN    = true;
-    this.flag5    = ((result & BIT5) != 0);
-    this.flag3    = ((result & BIT3) != 0);
-    return result & 0xFF;
+    this.regF = (this.regF & FLAG_C) | Z80FlagTables.DEC[ value ];
+    return (value - 1) & 0xFF;
   }
 
 
   private void doInstAND( int op2 )
   {
-    this.regA      = (this.regA & op2) & 0xFF;
-    this.flagSign  = ((this.regA & BIT7) != 0);
-    this.flagZero  = (this.regA == 0);
-    this.flagHalf  = true;
-    this.flagN     = false;
-    this.flagCarry = false;
-    this.flag5     = ((this.regA & BIT5) != 0);
-    this.flag3     = ((this.regA & BIT3) != 0);
-    updParityFlag( this.regA );
+    this.regA = (this.regA & op2) & 0xFF;
+    this.regF = Z80FlagTables.SZP[ this.regA ] | FLAG_H;
   }
 
 
   private void doInstOR( int op2 )
   {
-    this.regA      = (this.regA | op2) & 0xFF;
-    this.flagSign  = ((this.regA & BIT7) != 0);
-    this.flagZero  = (this.regA == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flagCarry = false;
-    this.flag5     = ((this.regA & BIT5) != 0);
-    this.flag3     = ((this.regA & BIT3) != 0);
-    updParityFlag( this.regA );
+    this.regA = (this.regA | op2) & 0xFF;
+    this.regF = Z80FlagTables.SZP[ this.regA ];
   }
 
 
   private void doInstXOR( int op2 )
   {
-    this.regA      = (this.regA ^ op2) & 0xFF;
-    this.flagSign  = ((this.regA & BIT7) != 0);
-    this.flagZero  = (this.regA == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flagCarry = false;
-    this.flag5     = ((this.regA & BIT5) != 0);
-    this.flag3     = ((this.regA & BIT3) != 0);
-    updParityFlag( this.regA );
+    this.regA = (this.regA ^ op2) & 0xFF;
+    this.regF = Z80FlagTables.SZP[ this.regA ];
   }
 
 
   private void doInstDAA()
   {
-    int a = this.regA;
-    int h = this.regA & 0x0F;
-
-    if( this.flagN ) {
-      if( this.flagHalf || (h > 0x09) ) {
-	if( h > 0x05 ) {
-	  this.flagHalf = false;
-	}
-	a = (a - 0x06) & 0xFF;
-      }
-      if( this.flagCarry || (this.regA > 0x99) ) {
-	a -= 0x160;
-      }
-    } else {
-      if( this.flagHalf || (h > 0x09) ) {
-	this.flagHalf = (h > 0x09);
-	a += 0x06;
-      }
-      if( this.flagCarry || ((a & 0x1F0) > 0x90) ) {
-	a += 0x60;
-      }
-    }
-    if( (a & 0x100) != 0 ) {
-      this.flagCarry = true;
-    }
-    this.regA     = a & 0xFF;
-    this.flagSign = ((this.regA & BIT7) != 0);
-    this.flagZero = (this.regA == 0);
-    this.flag5    = ((this.regA & BIT5) != 0);
-    this.flag3    = ((this.regA & BIT3) != 0);
-    updParityFlag( this.regA );
+    int v = Z80FlagTables.DAA[ ((this.regF & FLAG_C) << 10)
+				| ((this.regF & FLAG_N) << 8)
+				| ((this.regF & FLAG_H) << 4)
+				| this.regA ];
+    this.regA = v >> 8;
+    this.regF = v & 0xFF;
   }
 
 
   private void doInstNEG()
   {
-    int result     = (-this.regA) & 0xFF;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flag5     = ((result & BIT5) != 0);
-    this.flagHalf  = ((this.regA & 0x0F) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    this.flagPV    = (this.regA == 0x80);
-    this.flagN     = true;
-    this.flagCarry = (this.regA != 0);
-    this.regA      = result;
+    this.regF = Z80FlagTables.SUB[ this.regA ] & 0xFF;
+    this.regA = (-this.regA) & 0xFF;
   }
 
 
+  /*
+   * Beim Test einer Speicherzelle werden die Flags 3 und 5 geloescht,
+   * beim Test eines Registers kommen sie vom Registerinhalt.
+   */
   private void doInstBIT( int opCode, int value )
   {
-    int mask      = getBitMask( opCode );
-    this.flagZero = ((value & mask) == 0);
-    this.flagSign = (mask == BIT7) && !this.flagZero;
-    this.flagHalf = true;
-    this.flagPV   = this.flagZero;
-    this.flagN    = false;
-
-    if( (opCode & 0x07) == 0x06 ) {
-      // bei Test einer Speicherzelle
-      this.flag5 = false;
-      this.flag3 = false;
-    } else {
-      // bei Test eines Registers
-      this.flag5 = ((value & BIT5) != 0);
-      this.flag3 = ((value & BIT3) != 0);
+    int f = (this.regF & FLAG_C)
+		| FLAG_H
+		| (Z80FlagTables.SZP[ value & getBitMask( opCode ) ]
+					& (FLAG_S | FLAG_Z | FLAG_PV));
+    if( (opCode & 0x07) != 0x06 ) {
+      f |= (value & (FLAG_5 | FLAG_3));
     }
+    this.regF = f;
   }
 
 
   private int doInstRL( int value )
   {
-    int b          = this.flagCarry ? BIT0 : 0;
-    this.flagCarry = ((value & BIT7) != 0);
-    int result     = ((value << 1) | b) & 0xFF;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flag5     = ((result & BIT5) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = ((value << 1) | (this.regF & FLAG_C)) & 0xFF;
+    this.regF  = Z80FlagTables.SZP[ result ] | ((value >> 7) & FLAG_C);
     return result;
   }
 
 
   private int doInstRLC( int value )
   {
-    this.flagCarry = ((value & BIT7) != 0);
-    int result     = (value << 1) & 0xFF;
-    if( this.flagCarry ) {
-      result |= BIT0;
-    }
-    this.flagSign = ((result & BIT7) != 0);
-    this.flagZero = (result == 0);
-    this.flagHalf = false;
-    this.flagN    = false;
-    this.flag5    = ((result & BIT5) != 0);
-    this.flag3    = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = ((value << 1) | (value >> 7)) & 0xFF;
+    this.regF  = Z80FlagTables.SZP[ result ] | ((value >> 7) & FLAG_C);
     return result;
   }
 
 
   private int doInstRR( int value )
   {
-    int b          = this.flagCarry ? BIT7 : 0;
-    this.flagCarry = ((value & BIT0) != 0);
-    int result     = (value >> 1) | b;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flag5     = ((result & BIT5) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = (value >> 1) | ((this.regF & FLAG_C) << 7);
+    this.regF  = Z80FlagTables.SZP[ result ] | (value & FLAG_C);
     return result;
   }
 
 
   private int doInstRRC( int value )
   {
-    this.flagCarry = ((value & BIT0) != 0);
-    int result     = value >> 1;
-    if( this.flagCarry ) {
-      result |= BIT7;
-    }
-    this.flagSign = ((result & BIT7) != 0);
-    this.flagZero = (result == 0);
-    this.flagHalf = false;
-    this.flagN    = false;
-    this.flag5    = ((result & BIT5) != 0);
-    this.flag3    = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = (value >> 1) | ((value & BIT0) << 7);
+    this.regF  = Z80FlagTables.SZP[ result ] | (value & FLAG_C);
     return result;
   }
 
 
   private int doInstSLA( int value )
   {
-    this.flagCarry = ((value & BIT7) != 0);
-    int result     = (value << 1) & 0xFF;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flag5     = ((result & BIT5) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = (value << 1) & 0xFF;
+    this.regF  = Z80FlagTables.SZP[ result ] | ((value >> 7) & FLAG_C);
     return result;
   }
 
 
   private int doInstSLL( int value )
   {
-    this.flagCarry = ((value & BIT7) != 0);
-    int result     = ((value << 1) | BIT0) & 0xFF;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flag5     = ((result & BIT5) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = ((value << 1) | BIT0) & 0xFF;
+    this.regF  = Z80FlagTables.SZP[ result ] | ((value >> 7) & FLAG_C);
     return result;
   }
 
 
   private int doInstSRA( int value )
   {
-    this.flagCarry = ((value & BIT0) != 0);
-    int b          = value & BIT7;
-    int result     = (value >> 1) | b;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flag5     = ((result & BIT5) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = (value >> 1) | (value & BIT7);
+    this.regF  = Z80FlagTables.SZP[ result ] | (value & FLAG_C);
     return result;
   }
 
 
   private int doInstSRL( int value )
   {
-    this.flagCarry = ((value & BIT0) != 0);
-    int result     = value >> 1;
-    this.flagSign  = ((result & BIT7) != 0);
-    this.flagZero  = (result == 0);
-    this.flagHalf  = false;
-    this.flagN     = false;
-    this.flag5     = ((result & BIT5) != 0);
-    this.flag3     = ((result & BIT3) != 0);
-    updParityFlag( result );
+    int result = value >> 1;
+    this.regF  = Z80FlagTables.SZP[ result ] | (value & FLAG_C);
     return result;
   }
 
 
   private int doInstADD16( int op1, int op2 )
   {
+    int f = this.regF & (FLAG_S | FLAG_Z | FLAG_PV);
+
     // Carry-Flag ermitteln
-    int result     = (op1 & 0xFFFF) + (op2 & 0xFFFF);
-    this.flagCarry = ((result & 0xFFFF0000) != 0);
+    int result = (op1 & 0xFFFF) + (op2 & 0xFFFF);
+    if( (result & 0xFFFF0000) != 0 ) {
+      f |= FLAG_C;
+    }
 
     // Half-Carry-Flag ermitteln
-    result        = (op1 & 0x0FFF) + (op2 & 0x0FFF);
-    this.flagHalf = ((result & 0xFFFFF000) != 0);
+    if( (((op1 & 0x0FFF) + (op2 & 0x0FFF)) & 0xFFFFF000) != 0 ) {
+      f |= FLAG_H;
+    }
 
-    // eigentliche Berechnung
-    result     = (int) ((short) op1) + (int) ((short) op2);
-    this.flagN = false;
-    this.flag5 = ((result & 0x2000) != 0);
-    this.flag3 = ((result & 0x0800) != 0);
+    // undokumentierte Flags aus dem hoeherwertigen Byte
+    this.regF = f | ((result >> 8) & (FLAG_5 | FLAG_3));
     return result & 0xFFFF;
   }
 
 
   private void doInstADC16( int op2 )
   {
-    int op3   = this.flagCarry ? 1 : 0;
+    int op3   = this.regF & FLAG_C;
     int regHL = getRegHL();
+    int f     = 0;
 
     // Carry-Flag ermitteln
-    int result     = (regHL & 0xFFFF) + (op2 & 0xFFFF) + op3;
-    this.flagCarry = ((result & 0xFFFF0000) != 0);
+    int result = (regHL & 0xFFFF) + (op2 & 0xFFFF) + op3;
+    if( (result & 0xFFFF0000) != 0 ) {
+      f |= FLAG_C;
+    }
 
     // Half-Carry-Flag ermitteln
-    result        = (regHL & 0x0FFF) + (op2 & 0x0FFF) + op3;
-    this.flagHalf = ((result & 0xFFFFF000) != 0);
+    result = (regHL & 0x0FFF) + (op2 & 0x0FFF) + op3;
+    if( (result & 0xFFFFF000) != 0 ) {
+      f |= FLAG_H;
+    }
 
     // eigentliche Berechnung
-    result        = (int) ((short) regHL) + (int) ((short) op2) + op3;
-    this.flagSign = ((result & 0x8000) != 0);
-    this.flagZero = (result == 0);
-    this.flagPV   = (result != (int) ((short) result));
-    this.flagN    = false;
-    this.flag5    = ((result & 0x2000) != 0);
-    this.flag3    = ((result & 0x0800) != 0);
+    result = (int) ((short) regHL) + (int) ((short) op2) + op3;
+    if( result == 0 ) {
+      f |= FLAG_Z;
+    }
+    if( result != (int) ((short) result) ) {
+      f |= FLAG_PV;
+    }
+    this.regF = f | ((result >> 8) & (FLAG_S | FLAG_5 | FLAG_3));
     setRegHL( result );
   }
 
 
   private void doInstSBC16( int op2 )
   {
-    int op3   = this.flagCarry ? 1 : 0;
+    int op3   = this.regF & FLAG_C;
     int regHL = getRegHL();
+    int f     = FLAG_N;
 
     // Carry-Flag ermitteln
-    int result     = (regHL & 0xFFFF) - (op2 & 0xFFFF) - op3;
-    this.flagCarry = ((result & 0xFFFF0000) != 0);
+    int result = (regHL & 0xFFFF) - (op2 & 0xFFFF) - op3;
+    if( (result & 0xFFFF0000) != 0 ) {
+      f |= FLAG_C;
+    }
 
     // Half-Carry-Flag ermitteln
-    result        = (regHL & 0x0FFF) - (op2 & 0x0FFF) - op3;
-    this.flagHalf = ((result & 0xFFFFF000) != 0);
+    result = (regHL & 0x0FFF) - (op2 & 0x0FFF) - op3;
+    if( (result & 0xFFFFF000) != 0 ) {
+      f |= FLAG_H;
+    }
 
     // eigentliche Berechnung
-    result        = (int) ((short) regHL) - (int) ((short) op2) - op3;
-    this.flagSign = ((result & 0x8000) != 0);
-    this.flagZero = (result == 0);
-    this.flagPV   = (result != (int) ((short) result));
-    this.flagN    = true;
-    this.flag5    = ((result & 0x2000) != 0);
-    this.flag3    = ((result & 0x0800) != 0);
+    result = (int) ((short) regHL) - (int) ((short) op2) - op3;
+    if( result == 0 ) {
+      f |= FLAG_Z;
+    }
+    if( result != (int) ((short) result) ) {
+      f |= FLAG_PV;
+    }
+    this.regF = f | ((result >> 8) & (FLAG_S | FLAG_5 | FLAG_3));
     setRegHL( result );
   }
 
@@ -4201,14 +7613,13 @@ public class Z80CPU implements Runnable
     setRegHL( regHL + addValue );
     --regBC;
     setRegBC( regBC );
-    this.flagPV   = (regBC != 0);
-    this.flagHalf = false;
-    this.flagN    = false;
 
     // undokumentierte Flagbeeinflussung
     b += this.regA;
-    this.flag5 = ((b & BIT1) != 0);
-    this.flag3 = ((b & BIT3) != 0);
+    this.regF = (this.regF & (FLAG_S | FLAG_Z | FLAG_C))
+			| (regBC != 0 ? FLAG_PV : 0)
+			| ((b & BIT1) << 4)
+			| (b & BIT3);
   }
 
 
@@ -4221,29 +7632,34 @@ public class Z80CPU implements Runnable
     int regBC = getRegBC();
     int regHL = getRegHL();
     int m     = readMemByte( regHL );
+    int f     = (this.regF & FLAG_C) | FLAG_N;
 
     // Half-Carry-Flag ermitteln
-    int result    = (this.regA & 0x0F) - (m & 0x0F);
-    this.flagHalf = ((result & 0xFFFFFFF0) != 0);
+    int result = (this.regA & 0x0F) - (m & 0x0F);
+    if( (result & 0xFFFFFFF0) != 0 ) {
+      f |= FLAG_H;
+    }
 
     // eigentlicher Vergleich
-    result        = (int) ((byte) this.regA) - (int) ((byte) m);
-    this.flagSign = ((result & BIT7) != 0);
-    this.flagZero = (result == 0);
-    this.flagN    = true;
+    result = (int) ((byte) this.regA) - (int) ((byte) m);
+    f |= (result & FLAG_S);
+    if( result == 0 ) {
+      f |= FLAG_Z;
+    }
 
     // sonstiges
     setRegHL( regHL + addValue );
     --regBC;
     setRegBC( regBC );
-    this.flagPV = (regBC != 0);
+    if( regBC != 0 ) {
+      f |= FLAG_PV;
+    }
 
     // undokumentierte Flagbeeinflussung
-    if( this.flagHalf ) {
+    if( (f & FLAG_H) != 0 ) {
       --result;
     }
-    this.flag5 = ((result & BIT1) != 0);
-    this.flag3 = ((result & BIT3) != 0);
+    this.regF = f | ((result & BIT1) << 4) | (result & BIT3);
   }
 
 
@@ -4260,18 +7676,16 @@ public class Z80CPU implements Runnable
     int value = 0xFF;
     int newB  = (this.regB - 1) & 0xFF;
     if( this.ioSys != null ) {
-      value = this.ioSys.readIOByte(
+      value = readIOByte(
 			(this.regB << 8) | this.regC,
 			forRepeat && (newB == 1) ? 21 : 16 ) & 0xFF;
     }
     writeMemByte( regHL, value );
     setRegHL( regHL + addValue );
-    this.regB     = newB;
-    this.flagSign = ((this.regB & BIT7) != 0);
-    this.flagZero = (this.regB == 0);
-    this.flagN    = true;
-    this.flag5    = ((this.regB & BIT5) != 0);
-    this.flag3    = ((this.regB & BIT3) != 0);
+    this.regB = newB;
+    this.regF = (this.regF & (FLAG_H | FLAG_PV | FLAG_C))
+			| Z80FlagTables.SZ[ this.regB ]
+			| FLAG_N;
   }
 
 
@@ -4284,16 +7698,14 @@ public class Z80CPU implements Runnable
    */
   private void doInstBlockOUT( int addValue, boolean forRepeat )
   {
-    this.regB     = (this.regB - 1) & 0xFF;
-    this.flagSign = ((this.regB & BIT7) != 0);
-    this.flagZero = (this.regB == 0);
-    this.flagN    = true;
-    this.flag5    = ((this.regB & BIT5) != 0);
-    this.flag3    = ((this.regB & BIT3) != 0);
+    this.regB = (this.regB - 1) & 0xFF;
+    this.regF = (this.regF & (FLAG_H | FLAG_PV | FLAG_C))
+			| Z80FlagTables.SZ[ this.regB ]
+			| FLAG_N;
 
     int regHL = getRegHL();
     if( this.ioSys != null ) {
-      this.ioSys.writeIOByte(
+      writeIOByte(
 		(this.regB << 8) | this.regC,
 		readMemByte( regHL ),
 		forRepeat && (this.regB == 0) ? 21 : 16 );
@@ -4306,15 +7718,9 @@ public class Z80CPU implements Runnable
   {
     int value = 0xFF;
     if( this.ioSys != null ) {
-      value = this.ioSys.readIOByte( (this.regB << 8) | this.regC, 12 ) & 0xFF;
-    }
-    this.flagSign = ((value & BIT7) != 0);
-    this.flagZero = (value == 0);
-    this.flagHalf = false;
-    this.flagN    = false;
-    this.flag5    = ((value & BIT5) != 0);
-    this.flag3    = ((value & BIT3) != 0);
-    updParityFlag( value );
+      value = readIOByte( (this.regB << 8) | this.regC, 12 ) & 0xFF;
+    }
+    this.regF = (this.regF & FLAG_C) | Z80FlagTables.SZP[ value ];
     return value;
   }
 
@@ -4346,6 +7752,79 @@ public class Z80CPU implements Runnable
     this.regPC = computeRelAddr( this.regPC, d );
   }
 
+  /*
+   * Zugriff auf das durch das Vorbyte (DD oder FD)
+   * ausgewaehlte Indexregister
+   */
+  private int getAddrIXYd()
+  {
+    return computeRelAddr( getRegIXY(), nextByte() );
+  }
+
+
+  private int getRegIXY()
+  {
+    return this.preCode == 0xDD ? this.regIX : this.regIY;
+  }
+
+
+  private int getRegIXYH()
+  {
+    return (getRegIXY() >> 8) & 0xFF;
+  }
+
+
+  private int getRegIXYL()
+  {
+    return getRegIXY() & 0xFF;
+  }
+
+
+  private void setRegIXY( int value )
+  {
+    if( this.preCode == 0xDD ) {
+      this.regIX = value & 0xFFFF;
+    } else {
+      this.regIY = value & 0xFFFF;
+    }
+  }
+
+
+  private void setRegIXYH( int value )
+  {
+    setRegIXY( ((value << 8) & 0xFF00) | (getRegIXY() & 0x00FF) );
+  }
+
+
+  private void setRegIXYL( int value )
+  {
+    setRegIXY( (getRegIXY() & 0xFF00) | (value & 0x00FF) );
+  }
+
+
+  private int popWord()
+  {
+    int rv     = readMemByte( this.regSP );
+    this.regSP = (this.regSP + 1) & 0xFFFF;
+    rv |= (readMemByte( this.regSP ) << 8);
+    this.regSP = (this.regSP + 1) & 0xFFFF;
+    return rv;
+  }
+
+
+  /*
+   * Im Gegensatz zu doPush(...) wird hier
+   * die Aufruftiefe fuer den Debugger nicht veraendert.
+   */
+  private void pushWord( int value )
+  {
+    this.regSP = (this.regSP - 1) & 0xFFFF;
+    writeMemByte( this.regSP, value >> 8 );
+    this.regSP = (this.regSP - 1) & 0xFFFF;
+    writeMemByte( this.regSP, value & 0xFF );
+  }
+
+
 
   private int getBitMask( int opCode )
   {
@@ -4416,6 +7895,29 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Rueckgabewert:
+   *   true: mindestens eine Interrupt-Quelle meldet
+   *         moeglicherweise eine Anforderung
+   */
+  private boolean isInterruptLineActive()
+  {
+    boolean rv = this.curInterruptLine.isActive();
+    if( !rv ) {
+      Z80InterruptSource[] iSources = this.curPolledInterruptSources;
+      if( iSources != null ) {
+	for( int i = 0; i < iSources.length; i++ ) {
+	  if( iSources[ i ].isInterruptRequested() ) {
+	    rv = true;
+	    break;
+	  }
+	}
+      }
+    }
+    return rv;
+  }
+
+
   private int nextByte()
   {
     int rv     = readMemByte( this.regPC );
@@ -4440,25 +7942,19 @@ public class Z80CPU implements Runnable
   }
 
 
-  private void updParityFlag( int value )
-  {
-    this.flagPV = this.parity[ value & 0xFF ];
-  }
-
-
   private boolean debugMatchesRETX()
   {
     boolean rv     = false;
     int     opCode = this.memory.getMemByte( this.regPC, true );
     if( (opCode == 0xC9)				// RET
-	|| ((opCode == 0xC0) && !this.flagZero)		// RET NZ
-	|| ((opCode == 0xC8) && this.flagZero)		// RET Z
-	|| ((opCode == 0xD0) && !this.flagCarry)	// RET NC
-	|| ((opCode == 0xD8) && this.flagCarry)		// RET C
-	|| ((opCode == 0xE0) && !this.flagPV)		// RET PO
-	|| ((opCode == 0xE8) && this.flagPV)		// RET PE
-	|| ((opCode == 0xF0) && !this.flagSign)		// RET P
-	|| ((opCode == 0xF8) && this.flagSign) )	// RET M
+	|| ((opCode == 0xC0) && ((this.regF & FLAG_Z) == 0))		// RET NZ
+	|| ((opCode == 0xC8) && ((this.regF & FLAG_Z) != 0))		// RET Z
+	|| ((opCode == 0xD0) && ((this.regF & FLAG_C) == 0))	// RET NC
+	|| ((opCode == 0xD8) && ((this.regF & FLAG_C) != 0))		// RET C
+	|| ((opCode == 0xE0) && ((this.regF & FLAG_PV) == 0))		// RET PO
+	|| ((opCode == 0xE8) && ((this.regF & FLAG_PV) != 0))		// RET PE
+	|| ((opCode == 0xF0) && ((this.regF & FLAG_S) == 0))		// RET P
+	|| ((opCode == 0xF8) && ((this.regF & FLAG_S) != 0)) )	// RET M
     {
       rv = true;
     }
@@ -4480,6 +7976,21 @@ public class Z80CPU implements Runnable
   }
 
 
+  private void doBinaryTrace( boolean nmi, Z80InterruptSource iSource )
+  {
+    Z80TraceBuffer traceBuffer = this.curTraceBuffer;
+    if( traceBuffer != null ) {
+      int marker = Z80TraceRecord.MARKER_NONE;
+      if( nmi ) {
+	marker = Z80TraceRecord.MARKER_NMI;
+      } else if( iSource != null ) {
+	marker = Z80TraceRecord.MARKER_INTERRUPT;
+      }
+      traceBuffer.write( this, marker );
+    }
+  }
+
+
   private void doDebugTrace( boolean nmi, Z80InterruptSource iSource )
   {
     PrintWriter tracer = this.debugTracer;
@@ -4497,19 +8008,54 @@ public class Z80CPU implements Runnable
   }
 
 
+  private Z80Breakpoint findMatchingBreakpoint(
+				Z80Breakpoint[]    breakpoints,
+				Z80InterruptSource iSource )
+  {
+    Z80Breakpoint rv = null;
+    if( breakpoints != null ) {
+      for( int i = 0; i < breakpoints.length; i++ ) {
+	if( breakpoints[ i ].matches( this, iSource ) ) {
+	  rv = breakpoints[ i ];
+	  break;
+	}
+      }
+    }
+    return rv;
+  }
+
+
   private void fireAddressChanged( int addr )
   {
     // wegen Thread-Sicherheit in lokale Variable laden
-    Z80AddressListener addrListener = this.addrListener;
+    Z80AddressListener addrListener = this.curAddrListener;
     if( addrListener != null )
       addrListener.z80AddressChanged( addr );
   }
 
 
+  private int readIOByte( int port, int tStates )
+  {
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      profiler.ioRead( port );
+    }
+    flushTStatesListeners();
+    return this.ioSys.readIOByte( port, tStates );
+  }
+
+
   private int readMemByte( int addr )
   {
     int value = this.memory.readMemByte( addr, false );
     fireAddressChanged( addr );
+    if( this.curMemWatchReadBits != null ) {
+      checkMemWatch( this.curMemWatchReadBits, addr, value, 0 );
+    }
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      profiler.memRead( addr );
+    }
     return value;
   }
 
@@ -4518,6 +8064,9 @@ public class Z80CPU implements Runnable
   {
     int value = this.memory.readMemByte( addr, true );
     fireAddressChanged( addr );
+    if( this.curMemWatchReadBits != null ) {
+      checkMemWatch( this.curMemWatchReadBits, addr, value, 0 );
+    }
     return value;
   }
 
@@ -4527,14 +8076,45 @@ public class Z80CPU implements Runnable
     int value = (this.memory.readMemByte( addr + 1, false ) << 8)
 				| this.memory.readMemByte( addr, false );
     fireAddressChanged( addr );
+    if( this.curMemWatchReadBits != null ) {
+      checkMemWatch( this.curMemWatchReadBits, addr, value, 0 );
+      checkMemWatch( this.curMemWatchReadBits, addr + 1, value >> 8, 0 );
+    }
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      profiler.memRead( addr );
+      profiler.memRead( addr + 1 );
+    }
     return value;
   }
 
 
+  private void writeIOByte( int port, int value, int tStates )
+  {
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      profiler.ioWritten( port );
+    }
+    flushTStatesListeners();
+    this.ioSys.writeIOByte( port, value, tStates );
+  }
+
+
   private void writeMemByte( int addr, int value )
   {
     this.memory.writeMemByte( addr, value );
     fireAddressChanged( addr );
+    if( this.curMemWatchWriteBits != null ) {
+      checkMemWatch(
+		this.curMemWatchWriteBits,
+		addr,
+		value,
+		MEM_WATCH_HIT_WRITE );
+    }
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      profiler.memWritten( addr );
+    }
   }
 
 
@@ -4543,6 +8123,23 @@ public class Z80CPU implements Runnable
     this.memory.writeMemByte( addr, value & 0xFF );
     this.memory.writeMemByte( addr + 1, value >> 8 );
     fireAddressChanged( addr );
+    if( this.curMemWatchWriteBits != null ) {
+      checkMemWatch(
+		this.curMemWatchWriteBits,
+		addr,
+		value,
+		MEM_WATCH_HIT_WRITE );
+      checkMemWatch(
+		this.curMemWatchWriteBits,
+		addr + 1,
+		value >> 8,
+		MEM_WATCH_HIT_WRITE );
+    }
+    Z80Profiler profiler = this.curProfiler;
+    if( profiler != null ) {
+      profiler.memWritten( addr );
+      profiler.memWritten( addr + 1 );
+    }
   }
 
 
@@ -4561,7 +8158,7 @@ public class Z80CPU implements Runnable
 
   private void setStepOverBreakAddr()
   {
-    if( this.debugEnabled
+    if( this.curDebugEnabled
 	&& (this.action == Action.DEBUG_STEP_OVER)
 	&& (this.stepOverBreakAddr < 0) )
     {
@@ -4572,7 +8169,7 @@ public class Z80CPU implements Runnable
 
   private void setStepOverBreakAddrAndSP()
   {
-    if( this.debugEnabled && (this.action == Action.DEBUG_STEP_OVER) ) {
+    if( this.curDebugEnabled && (this.action == Action.DEBUG_STEP_OVER) ) {
       if( this.stepOverBreakAddr < 0 ) {
 	this.stepOverBreakAddr = this.regPC;
       }
@@ -4585,7 +8182,7 @@ public class Z80CPU implements Runnable
 
   private void setWalkBreakAddr()
   {
-    if( this.debugEnabled
+    if( this.curDebugEnabled
 	&& (this.action == Action.DEBUG_WALK)
 	&& (this.walkBreakAddr < 0) )
     {
@@ -4605,6 +8202,38 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Neuaufbau der Tabelle, die fuer jede Programmadresse angibt,
+   * ob dort der PCListener aufzurufen ist
+   * bzw. Haltepunkte zu pruefen sind
+   *
+   * Ist nichts zu tun, entfaellt die Tabelle komplett.
+   */
+  private synchronized void updPCFlags()
+  {
+    byte[]         flags      = null;
+    PCListenerItem pcListener = this.pcListener;
+    if( pcListener != null ) {
+      if( pcListener.pc != null ) {
+	flags = new byte[ 0x10000 ];
+	for( int pc : pcListener.pc ) {
+	  flags[ pc & 0xFFFF ] |= PC_FLAG_LISTENER;
+	}
+      }
+    }
+    Map<Integer,Z80Breakpoint[]> pcBreakpoints = this.pcBreakpoints;
+    if( pcBreakpoints != null ) {
+      if( flags == null ) {
+	flags = new byte[ 0x10000 ];
+      }
+      for( Integer pc : pcBreakpoints.keySet() ) {
+	flags[ pc.intValue() ] |= PC_FLAG_BREAKPOINT;
+      }
+    }
+    this.pcFlags = flags;
+  }
+
+
   private void updStatusListeners(
 			Z80Breakpoint      breakpoint,
 			Z80InterruptSource iSource )
@@ -4,30 +4,63 @@
  * Z80-Emulator
  *
  * Emulation der Z80 CTC
+ *
+ * Die Kanaele werden nicht nach jedem Befehl weitergezaehlt.
+ * Die CTC fuehrt nur einen eigenen Taktzyklenstand mit
+ * und bringt die Kanaele erst dann auf diesen Stand,
+ * wenn auf die CTC zugegriffen wird oder der Zeitpunkt
+ * des naechsten Ereignisses (Nulldurchgang, Uebernahme
+ * eines Zaehlerwertes) erreicht ist.
+ * Der Befehl, mit dem das Ereignis erreicht wird, wird wie
+ * bei der Auswertung nach jedem Befehl als Ganzes verarbeitet,
+ * d.h. erst alle Taktzyklen von Kanal 0, dann von Kanal 1 usw.
+ * Damit wirkt ein Impuls ueber setTimerConnection(...)
+ * genauso wie bisher.
+ * Der Taktzyklenstand wird nur vom Emulations-Thread geschrieben,
+ * so dass z80TStatesProcessed(...) bis zum naechsten Ereignis
+ * ohne Sperre auskommt.
  */
 
 package z80emu;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.ArrayList;
 import java.util.Collection;
 
 
-public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
+public class Z80CTC implements Z80InterruptLineSource, Z80TStatesSkipListener
 {
+  // Version des mit saveState(...) geschriebenen Zustands
+  private static final int STATE_VERSION = 1;
+
   private String                     title;
   private Collection<Z80CTCListener> listeners;
   private int                        interruptVector;
   private int                        tStatesToIgnore;
+  private volatile long              tStatesNow;
+  private long                       evalTStates;
+  private boolean                    evalRunning;
+  private volatile long              nextEventTStates;
   private Timer[]                    timer;
+  private Z80InterruptLine           interruptLine;
+  private boolean                    interruptLineState;
 
 
   public Z80CTC( String title )
   {
-    this.title           = title;
-    this.listeners       = null;
-    this.interruptVector = 0;
-    this.timer           = new Timer[ 4 ];
+    this.title              = title;
+    this.listeners          = null;
+    this.interruptVector    = 0;
+    this.interruptLine      = null;
+    this.interruptLineState = false;
+    this.tStatesNow         = 0L;
+    this.evalTStates        = 0L;
+    this.evalRunning        = false;
+    this.nextEventTStates   = Long.MAX_VALUE;
+    this.timer              = new Timer[ 4 ];
     for( int i = 0; i < this.timer.length; i++ ) {
       this.timer[ i ] = new Timer( i );
     }
@@ -52,22 +85,73 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
 
   public synchronized int externalUpdate( int timerNum, boolean state )
   {
-    return (timerNum >= 0) && (timerNum < this.timer.length) ?
-			this.timer[ timerNum ].externalUpdate( state ) : 0;
+    int rv = 0;
+    if( (timerNum >= 0) && (timerNum < this.timer.length) ) {
+      evalTimers();
+      rv = this.timer[ timerNum ].externalUpdate( state );
+      updNextEventTStates();
+    }
+    return rv;
   }
 
 
   public synchronized int externalUpdate( int timerNum, int pulses )
   {
-    return (timerNum >= 0) && (timerNum < this.timer.length) ?
-			this.timer[ timerNum ].externalUpdate( pulses ) : 0;
+    int rv = 0;
+    if( (timerNum >= 0) && (timerNum < this.timer.length) ) {
+      evalTimers();
+      rv = this.timer[ timerNum ].externalUpdate( pulses );
+      updNextEventTStates();
+    }
+    return rv;
+  }
+
+
+  /*
+   * Rueckgabewert:
+   *   Anzahl der externen Impulse, die der Kanal mit einem Aufruf
+   *   von externalUpdate(...) verarbeiten kann, ohne dass
+   *   ein Nulldurchgang oder ein Start durch Trigger uebersprungen wird,
+   *   Integer.MAX_VALUE, wenn die Impulse keine Wirkung haben
+   */
+  public synchronized int getPulsesToNextEvent( int timerNum )
+  {
+    int rv = Integer.MAX_VALUE;
+    if( (timerNum >= 0) && (timerNum < this.timer.length) ) {
+      evalTimers();
+      rv = this.timer[ timerNum ].getPulsesToNextEvent();
+    }
+    return rv;
+  }
+
+
+  /*
+   * Wiederherstellen des mit saveState(...) gespeicherten Zustands
+   *
+   * Die Verbindungen zwischen den Kanaelen (setTimerConnection(...))
+   * gehoeren zur Hardware-Konfiguration und werden nicht gespeichert.
+   */
+  public synchronized void loadState( DataInput in ) throws IOException
+  {
+    if( in.readUnsignedByte() != STATE_VERSION ) {
+      throw new IOException( this.title
+			+ ": Version des Zustands nicht unterst\u00FCtzt" );
+    }
+    this.interruptVector = in.readUnsignedByte();
+    this.tStatesToIgnore = in.readInt();
+    for( int i = 0; i < this.timer.length; i++ ) {
+      this.timer[ i ].loadState( in );
+    }
+    this.evalTStates = this.tStatesNow;
+    updNextEventTStates();
+    updInterruptLine();
   }
 
 
   public synchronized int read( int timerNum, int tStates )
   {
     // zuerst Taktzyklen des IO-Befehls verarbeiten
-    processTStates( tStates );
+    processInstTStates( tStates );
     this.tStatesToIgnore += tStates;
 
     return (timerNum >= 0) && (timerNum < this.timer.length) ?
@@ -75,6 +159,18 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
   }
 
 
+  public synchronized void saveState( DataOutput out ) throws IOException
+  {
+    evalTimers();
+    out.writeByte( STATE_VERSION );
+    out.writeByte( this.interruptVector );
+    out.writeInt( this.tStatesToIgnore );
+    for( int i = 0; i < this.timer.length; i++ ) {
+      this.timer[ i ].saveState( out );
+    }
+  }
+
+
   /*
    * Diese Methode stellt eine Verbindung
    * vom Ausgang fromTimerNum zum Eingang toTimerNum her.
@@ -91,7 +187,7 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
   public synchronized void write( int timerNum, int value, int tStates )
   {
     // zuerst Taktzyklen des IO-Befehls verarbeiten
-    processTStates( tStates );
+    processInstTStates( tStates );
     this.tStatesToIgnore += tStates;
 
     boolean done = false;
@@ -107,17 +203,36 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
       } else {
 	if( (timerNum >= 0) && (timerNum < this.timer.length) ) {
 	  this.timer[ timerNum ].writeControl( value );
+	  updInterruptLine();
 	}
       }
     }
+    updNextEventTStates();
+  }
+
+
+	/* --- Z80InterruptLineSource --- */
+
+  @Override
+  public synchronized void setInterruptLine( Z80InterruptLine line )
+  {
+    if( this.interruptLineState && (this.interruptLine != null) ) {
+      this.interruptLine.setRequest( false );
+    }
+    this.interruptLine = line;
+    if( this.interruptLineState && (line != null) ) {
+      line.setRequest( true );
+    }
   }
 
 
 	/* --- Z80InterruptSource --- */
 
   @Override
-  public void appendInterruptStatusHTMLTo( StringBuilder buf )
+  public synchronized void appendInterruptStatusHTMLTo( StringBuilder buf )
   {
+    evalTimers();
+
     boolean showISR = false;
     buf.append( "<table border=\"1\">\n"
 	+ "<tr><th></th><th>Kanal&nbsp;0</th><th>Kanal&nbsp;1</th>"
@@ -220,6 +335,7 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
 	break;
       }
     }
+    updInterruptLine();
     return rv;
   }
 
@@ -275,26 +391,66 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
       this.timer[ i ].reset();
     }
     this.tStatesToIgnore = 0;
+    this.evalTStates     = this.tStatesNow;
+    updNextEventTStates();
+    updInterruptLine();
   }
 
 
 	/* --- Z80TStatesListener --- */
 
+  /*
+   * Die Methode wird nach jedem Befehl aufgerufen
+   * und erhoeht im Normalfall nur den Taktzyklenstand.
+   * Erst wenn der Befehl das naechste Ereignis erreicht,
+   * werden die Kanaele unter der Sperre ausgewertet.
+   */
   @Override
-  public synchronized void z80TStatesProcessed( Z80CPU cpu, int tStates )
+  public void z80TStatesProcessed( Z80CPU cpu, int tStates )
   {
-    if( tStates < this.tStatesToIgnore ) {
-      this.tStatesToIgnore -= tStates;
-    } else {
-      tStates -= this.tStatesToIgnore;
-      this.tStatesToIgnore = 0;
-      if( tStates > 0 ) {
-	processTStates( tStates );
+    int tStatesToIgnore = this.tStatesToIgnore;
+    if( tStatesToIgnore > 0 ) {
+      if( tStates < tStatesToIgnore ) {
+	this.tStatesToIgnore = tStatesToIgnore - tStates;
+	tStates              = 0;
+      } else {
+	this.tStatesToIgnore = 0;
+	tStates -= tStatesToIgnore;
+      }
+    }
+    if( tStates > 0 ) {
+      long tStatesNow = this.tStatesNow + tStates;
+      if( tStatesNow >= this.nextEventTStates ) {
+	synchronized( this ) {
+	  processInstTStates( tStates );
+	}
+      } else {
+	this.tStatesNow = tStatesNow;
       }
     }
   }
 
 
+	/* --- Z80TStatesSkipListener --- */
+
+  /*
+   * Naechstes Ereignis ist der naechste Nulldurchgang eines Zaehlers
+   * im Zeitgebermodus bzw. die Uebernahme eines neuen Zaehlerwertes.
+   * Zaehler im Zaehlermodus werden nur ueber externe Impulse
+   * oder den Nulldurchgang eines anderen Zaehlers weitergeschaltet
+   * und haben deshalb kein eigenes Ereignis.
+   */
+  @Override
+  public int getTStatesToNextEvent()
+  {
+    long rv = this.nextEventTStates;
+    if( rv < Long.MAX_VALUE ) {
+      rv = Math.max( rv - this.tStatesNow, 1L ) + this.tStatesToIgnore;
+    }
+    return (int) Math.min( rv, Integer.MAX_VALUE );
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -383,6 +539,62 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
     }
 
 
+    private int getPulsesToNextEvent()
+    {
+      int     rv          = Integer.MAX_VALUE;
+      Integer counterInit = this.counterInit;
+      if( counterInit != null ) {
+	if( this.extMode ) {
+	  if( this.running ) {
+	    rv = this.counter;
+	  }
+	} else if( this.waitForTrigger
+		   && (this.counterLoadValue == null)
+		   && !this.running )
+	{
+	  rv = 1;
+	}
+      }
+      return rv;
+    }
+
+
+    private long getTStatesToNextEvent()
+    {
+      long rv = Integer.MAX_VALUE;
+      if( this.counterLoadValue != null ) {
+	rv = 1;
+      } else if( !this.extMode && this.running ) {
+	int preCounterInit = (this.pre256 ? 256 : 16);
+	rv = (this.preCounter > 0 ? this.preCounter : preCounterInit)
+			+ ((long) (this.counter - 1) * preCounterInit);
+      }
+      return rv;
+    }
+
+
+    private void loadState( DataInput in ) throws IOException
+    {
+      this.counterLoadValue   = readOptInt( in );
+      this.counterInit        = readOptInt( in );
+      this.counter            = in.readUnsignedShort();
+      this.preCounter         = in.readUnsignedShort();
+      this.pre256             = in.readBoolean();
+      this.extMode            = in.readBoolean();
+      this.slope              = in.readBoolean();
+      this.waitForTrigger     = in.readBoolean();
+      this.interruptEnabled   = in.readBoolean();
+      this.interruptAccepted  = in.readBoolean();
+      this.interruptRequested = in.readBoolean();
+      this.nextIsCounterInit  = in.readBoolean();
+      this.running            = in.readBoolean();
+      int lastInSlope         = in.readByte();
+      this.lastInSlope        = (lastInSlope < 0 ?
+					null
+					: Boolean.valueOf( lastInSlope != 0 ));
+    }
+
+
     private void processTStates( int pulses )
     {
       // Ein neuer Zaehlerwert wird erst nach einem Taktzyklus uebernommen.
@@ -428,6 +640,28 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
     }
 
 
+    private void saveState( DataOutput out ) throws IOException
+    {
+      writeOptInt( out, this.counterLoadValue );
+      writeOptInt( out, this.counterInit );
+      out.writeShort( this.counter );
+      out.writeShort( this.preCounter );
+      out.writeBoolean( this.pre256 );
+      out.writeBoolean( this.extMode );
+      out.writeBoolean( this.slope );
+      out.writeBoolean( this.waitForTrigger );
+      out.writeBoolean( this.interruptEnabled );
+      out.writeBoolean( this.interruptAccepted );
+      out.writeBoolean( this.interruptRequested );
+      out.writeBoolean( this.nextIsCounterInit );
+      out.writeBoolean( this.running );
+      Boolean lastInSlope = this.lastInSlope;
+      out.writeByte( lastInSlope != null ?
+				(lastInSlope.booleanValue() ? 1 : 0)
+				: -1 );
+    }
+
+
     private boolean start()
     {
       boolean rv          = false;
@@ -480,8 +714,9 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
 	    pulses -= this.counter;
 	    this.counter = counterInit.intValue();
 	    rv++;
-	    if( this.interruptEnabled ) {
+	    if( this.interruptEnabled && !this.interruptRequested ) {
 	      this.interruptRequested = true;
+	      updInterruptLine();
 	    }
 	    if( this.toTimer != null ) {
 	      this.toTimer.externalUpdate( 1 );
@@ -517,6 +752,42 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
 
 	/* --- private Methoden --- */
 
+  /*
+   * Auswerten der Kanaele bis zum aktuellen Taktzyklenstand
+   *
+   * Die Taktzyklen werden in Abschnitten bis zum jeweils naechsten
+   * Ereignis verarbeitet, damit ein Ereignis, das einen anderen
+   * Kanal beeinflusst (z.B. Triggern ueber setTimerConnection(...)),
+   * genau zum Zeitpunkt des Nulldurchgangs wirkt.
+   * Greift ein CTC-Listener waehrend der Auswertung erneut
+   * auf die CTC zu, wirkt der Zugriff wie bisher
+   * zum gerade ausgewerteten Zeitpunkt.
+   */
+  private void evalTimers()
+  {
+    if( !this.evalRunning ) {
+      this.evalRunning = true;
+      try {
+	long tStatesNow = this.tStatesNow;
+	while( this.evalTStates < tStatesNow ) {
+	  long tStates          = tStatesNow - this.evalTStates;
+	  long nextEventTStates = this.nextEventTStates;
+	  if( nextEventTStates > this.evalTStates ) {
+	    tStates = Math.min( tStates, nextEventTStates - this.evalTStates );
+	  }
+	  tStates = Math.min( tStates, Integer.MAX_VALUE );
+	  processTStates( (int) tStates );
+	  this.evalTStates += tStates;
+	  updNextEventTStates();
+	}
+      }
+      finally {
+	this.evalRunning = false;
+      }
+    }
+  }
+
+
   private void informListeners( int timerNum )
   {
     Collection<Z80CTCListener> listeners = this.listeners;
@@ -528,10 +799,92 @@ public class Z80CTC implements Z80InterruptSource, Z80TStatesListener
   }
 
 
+  /*
+   * Verarbeiten der Taktzyklen eines Befehls
+   *
+   * Die vorher aufgelaufenen Taktzyklen enthalten kein Ereignis
+   * und werden mit evalTimers() nachgeholt.
+   * Die Taktzyklen des Befehls selbst werden dagegen
+   * wie bei der Auswertung nach jedem Befehl am Stueck
+   * durch alle Kanaele nacheinander gezaehlt.
+   */
+  private void processInstTStates( int tStates )
+  {
+    evalTimers();
+    if( tStates > 0 ) {
+      boolean evalRunning = this.evalRunning;
+      this.evalRunning    = true;
+      try {
+	processTStates( tStates );
+      }
+      finally {
+	this.evalRunning = evalRunning;
+      }
+      this.evalTStates += tStates;
+      this.tStatesNow += tStates;
+    }
+    updNextEventTStates();
+  }
+
+
   private void processTStates( int tStates )
   {
     for( int i = 0; i < this.timer.length; i++ ) {
       this.timer[ i ].processTStates( tStates );
     }
   }
+
+
+  private static Integer readOptInt( DataInput in ) throws IOException
+  {
+    int v = in.readInt();
+    return v >= 0 ? v : null;
+  }
+
+
+  /*
+   * Melden einer geaenderten Interrupt-Anforderung an die Leitung
+   */
+  private void updInterruptLine()
+  {
+    boolean state = false;
+    for( int i = 0; i < this.timer.length; i++ ) {
+      if( this.timer[ i ].interruptEnabled
+	  && this.timer[ i ].interruptRequested )
+      {
+	state = true;
+	break;
+      }
+    }
+    if( state != this.interruptLineState ) {
+      this.interruptLineState = state;
+      Z80InterruptLine line   = this.interruptLine;
+      if( line != null ) {
+	line.setRequest( state );
+      }
+    }
+  }
+
+
+  /*
+   * Berechnen des Taktzyklenstandes des naechsten Ereignisses
+   */
+  private void updNextEventTStates()
+  {
+    long tStates = Integer.MAX_VALUE;
+    for( int i = 0; i < this.timer.length; i++ ) {
+      tStates = Math.min( tStates, this.timer[ i ].getTStatesToNextEvent() );
+    }
+    this.nextEventTStates = (tStates < Integer.MAX_VALUE ?
+					this.evalTStates + tStates
+					: Long.MAX_VALUE);
+  }
+
+
+  private static void writeOptInt(
+				DataOutput out,
+				Integer    value ) throws IOException
+  {
+    out.writeInt( value != null ? value.intValue() : -1 );
+  }
 }
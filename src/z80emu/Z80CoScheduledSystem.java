@@ -0,0 +1,34 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Interface fuer ein Prozessorsystem mit eigener CPU,
+ * das mit Z80CoScheduler im Thread einer anderen CPU
+ * abschnittsweise emuliert wird
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public interface Z80CoScheduledSystem
+{
+  /*
+   * Rueckgabewert:
+   *   CPU des Systems, deren Taktfrequenz das Verhaeltnis
+   *   zur fuehrenden CPU bestimmt
+   */
+  public Z80CPU getZ80CPU();
+
+  /*
+   * Ausfuehren eines Zeitabschnitts,
+   * z.B. mit Z80CPU.runFor(...)
+   *
+   * Rueckgabewert:
+   *   tatsaechlich verarbeitete Taktzyklen,
+   *   die Vorgabe darf um die Laenge eines Befehls ueberschritten werden
+   */
+  public long runCoScheduled( long tStates );
+}
@@ -0,0 +1,156 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Verschraenkte Emulation mehrerer Prozessorsysteme
+ * in einem gemeinsamen Thread
+ *
+ * Die angemeldeten Systeme werden ueber den Ereignis-Scheduler
+ * der fuehrenden CPU nach jeweils einer festen Anzahl
+ * von deren Taktzyklen (Zeitscheibe) abwechselnd ausgefuehrt.
+ * Die Anzahl der Taktzyklen je System ergibt sich
+ * aus dem Verhaeltnis der Taktfrequenzen.
+ * Rundungsreste und Ueberschreitungen werden auf die naechste
+ * Zeitscheibe uebertragen, sodass die Systeme im Mittel
+ * exakt im Gleichlauf bleiben.
+ * Da die Verschraenkung nur von den Taktzyklen abhaengt,
+ * ist der Ablauf reproduzierbar.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80CoScheduler implements Z80EventListener
+{
+  private static class Member
+  {
+    private Z80CoScheduledSystem system;
+    private long                 remainder;
+    private long                 balance;
+
+    private Member( Z80CoScheduledSystem system )
+    {
+      this.system    = system;
+      this.remainder = 0L;
+      this.balance   = 0L;
+    }
+  }
+
+
+  private Z80CPU            cpu;
+  private int               quantumTStates;
+  private volatile Member[] members;
+
+
+  public Z80CoScheduler( Z80CPU cpu, int quantumTStates )
+  {
+    this.cpu            = cpu;
+    this.quantumTStates = Math.max( quantumTStates, 1 );
+    this.members        = new Member[ 0 ];
+  }
+
+
+  public synchronized void add( Z80CoScheduledSystem system )
+  {
+    if( indexOf( system ) < 0 ) {
+      Member[] members = this.members;
+      Member[] a       = new Member[ members.length + 1 ];
+      System.arraycopy( members, 0, a, 0, members.length );
+      a[ members.length ] = new Member( system );
+      this.members        = a;
+      if( members.length == 0 ) {
+	this.cpu.scheduleEvent( this, this.quantumTStates );
+      }
+    }
+  }
+
+
+  public boolean contains( Z80CoScheduledSystem system )
+  {
+    return indexOf( system ) >= 0;
+  }
+
+
+  public synchronized void remove( Z80CoScheduledSystem system )
+  {
+    int idx = indexOf( system );
+    if( idx >= 0 ) {
+      Member[] members = this.members;
+      Member[] a       = new Member[ members.length - 1 ];
+      System.arraycopy( members, 0, a, 0, idx );
+      System.arraycopy(
+		members,
+		idx + 1,
+		a,
+		idx,
+		members.length - idx - 1 );
+      this.members = a;
+      if( a.length == 0 ) {
+	this.cpu.cancelEvent( this );
+      }
+    }
+  }
+
+
+	/* --- Z80EventListener --- */
+
+  @Override
+  public void z80EventDue( Z80CPU cpu, long dueTStates )
+  {
+    Member[] members = this.members;
+    if( members.length > 0 ) {
+      int cpuKHz = cpu.getMaxSpeedKHz();
+      for( Member member : members ) {
+	long tStates = this.quantumTStates;
+	int  kHz     = member.system.getZ80CPU().getMaxSpeedKHz();
+	if( (cpuKHz > 0) && (kHz > 0) ) {
+	  long n           = (tStates * kHz) + member.remainder;
+	  tStates          = n / cpuKHz;
+	  member.remainder = n % cpuKHz;
+	}
+	member.balance += tStates;
+	if( member.balance > 0 ) {
+	  long usedTStates = member.system.runCoScheduled( member.balance );
+	  if( usedTStates > 0 ) {
+	    member.balance -= usedTStates;
+	  } else {
+	    // System ruht, keine Taktzyklen ansammeln
+	    member.balance = 0L;
+	  }
+	}
+      }
+      /*
+       * Die naechste Zeitscheibe bezieht sich auf den angemeldeten
+       * und nicht auf den tatsaechlich erreichten Taktzyklenstand,
+       * damit sich die Ueberschreitung durch den letzten Befehl
+       * nicht aufsummiert.
+       */
+      synchronized( this ) {
+	if( this.members.length > 0 ) {
+	  cpu.getEventScheduler().schedule(
+				this,
+				dueTStates + this.quantumTStates );
+	}
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private int indexOf( Z80CoScheduledSystem system )
+  {
+    int      rv      = -1;
+    Member[] members = this.members;
+    for( int i = 0; i < members.length; i++ ) {
+      if( members[ i ].system == system ) {
+	rv = i;
+	break;
+      }
+    }
+    return rv;
+  }
+}
@@ -0,0 +1,24 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Interface fuer das Empfangen eines zeitgesteuerten Ereignisses
+ *
+ * Das Ereignis wird mit Hilfe des Z80EventSchedulers
+ * fuer einen bestimmten Taktzyklenstand angemeldet
+ * und nach dem Befehl ausgeloest, in dem dieser Stand erreicht wurde.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public interface Z80EventListener
+{
+  /*
+   * dueTStates: Taktzyklenstand, fuer den das Ereignis angemeldet war
+   */
+  public void z80EventDue( Z80CPU cpu, long dueTStates );
+}
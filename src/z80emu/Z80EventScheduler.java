@@ -0,0 +1,272 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Verwaltung zeitgesteuerter Ereignisse
+ *
+ * Die Ereignisse werden in einem Min-Heap verwaltet,
+ * der auf zwei einfachen Arrays basiert.
+ * Die CPU-Emulation muss nach jedem Befehl nur noch pruefen,
+ * ob der Taktzyklenstand des naechsten Ereignisses erreicht ist.
+ * Jeder Listener kann hoechstens ein Ereignis angemeldet haben.
+ * Eine erneute Anmeldung ersetzt die vorherige.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80EventScheduler
+{
+  private Z80EventListener[] listeners;
+  private long[]             dueTStates;
+  private int                size;
+  private volatile long      nextEventTStates;
+
+
+  public Z80EventScheduler()
+  {
+    this.listeners        = new Z80EventListener[ 16 ];
+    this.dueTStates       = new long[ 16 ];
+    this.size             = 0;
+    this.nextEventTStates = Long.MAX_VALUE;
+  }
+
+
+  public synchronized void cancel( Z80EventListener listener )
+  {
+    int idx = indexOf( listener );
+    if( idx >= 0 ) {
+      removeAt( idx );
+      updNextEventTStates();
+    }
+  }
+
+
+  public synchronized void clear()
+  {
+    for( int i = 0; i < this.size; i++ ) {
+      this.listeners[ i ] = null;
+    }
+    this.size             = 0;
+    this.nextEventTStates = Long.MAX_VALUE;
+  }
+
+
+  /*
+   * Uebernehmen aller Ereignisse eines anderen Objekts
+   *
+   * Die Methode dient dem Sichern und Wiederherstellen
+   * der angemeldeten Ereignisse zusammen mit dem Zustand der CPU.
+   */
+  public void copyFrom( Z80EventScheduler src )
+  {
+    Z80EventListener[] listeners  = null;
+    long[]             dueTStates = null;
+    int                size       = 0;
+    synchronized( src ) {
+      size       = src.size;
+      listeners  = new Z80EventListener[ Math.max( size, 16 ) ];
+      dueTStates = new long[ listeners.length ];
+      System.arraycopy( src.listeners, 0, listeners, 0, size );
+      System.arraycopy( src.dueTStates, 0, dueTStates, 0, size );
+    }
+    synchronized( this ) {
+      this.listeners  = listeners;
+      this.dueTStates = dueTStates;
+      this.size       = size;
+      updNextEventTStates();
+    }
+  }
+
+
+  /*
+   * Taktzyklenstand des naechsten Ereignisses,
+   * Long.MAX_VALUE, wenn kein Ereignis angemeldet ist
+   */
+  public long getNextEventTStates()
+  {
+    return this.nextEventTStates;
+  }
+
+
+  public boolean hasEvents()
+  {
+    return this.nextEventTStates != Long.MAX_VALUE;
+  }
+
+
+  public synchronized boolean isScheduled( Z80EventListener listener )
+  {
+    return indexOf( listener ) >= 0;
+  }
+
+
+  /*
+   * Anmelden eines Ereignisses fuer einen absoluten Taktzyklenstand,
+   * der sich auf Z80CPU.getProcessedTStates() bezieht
+   */
+  public synchronized void schedule(
+				Z80EventListener listener,
+				long             dueTStates )
+  {
+    int idx = indexOf( listener );
+    if( idx >= 0 ) {
+      long oldTStates = this.dueTStates[ idx ];
+      this.dueTStates[ idx ] = dueTStates;
+      if( dueTStates < oldTStates ) {
+	siftUp( idx );
+      } else {
+	siftDown( idx );
+      }
+    } else {
+      if( this.size >= this.listeners.length ) {
+	int                n = this.listeners.length * 2;
+	Z80EventListener[] a = new Z80EventListener[ n ];
+	long[]             t = new long[ n ];
+	System.arraycopy( this.listeners, 0, a, 0, this.size );
+	System.arraycopy( this.dueTStates, 0, t, 0, this.size );
+	this.listeners  = a;
+	this.dueTStates = t;
+      }
+      idx = this.size++;
+      this.listeners[ idx ]  = listener;
+      this.dueTStates[ idx ] = dueTStates;
+      siftUp( idx );
+    }
+    updNextEventTStates();
+  }
+
+
+	/* --- Methoden fuer die CPU-Emulation --- */
+
+  /*
+   * Ausloesen aller Ereignisse, deren Taktzyklenstand erreicht ist
+   *
+   * Die Listener werden ausserhalb der Synchronisation aufgerufen,
+   * damit sie sich ohne Gefahr einer Verklemmung neu anmelden koennen.
+   */
+  void fireDueEvents( Z80CPU cpu, long tStates )
+  {
+    for(;;) {
+      Z80EventListener listener   = null;
+      long             dueTStates = 0L;
+      synchronized( this ) {
+	if( (this.size == 0) || (this.dueTStates[ 0 ] > tStates) ) {
+	  break;
+	}
+	listener   = this.listeners[ 0 ];
+	dueTStates = this.dueTStates[ 0 ];
+	removeAt( 0 );
+	updNextEventTStates();
+      }
+      listener.z80EventDue( cpu, dueTStates );
+    }
+  }
+
+
+  /*
+   * Verschieben aller Ereignisse,
+   * wenn der Taktzyklenzaehler der CPU zurueckgesetzt wird
+   */
+  synchronized void rebase( long tStates )
+  {
+    if( tStates != 0 ) {
+      for( int i = 0; i < this.size; i++ ) {
+	this.dueTStates[ i ] -= tStates;
+      }
+      updNextEventTStates();
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Es sind nur wenige Ereignisse gleichzeitig angemeldet,
+   * weshalb eine lineare Suche ausreicht.
+   */
+  private int indexOf( Z80EventListener listener )
+  {
+    for( int i = 0; i < this.size; i++ ) {
+      if( this.listeners[ i ] == listener ) {
+	return i;
+      }
+    }
+    return -1;
+  }
+
+
+  private void removeAt( int idx )
+  {
+    int  last       = --this.size;
+    long oldTStates = this.dueTStates[ idx ];
+    if( idx < last ) {
+      this.listeners[ idx ]  = this.listeners[ last ];
+      this.dueTStates[ idx ] = this.dueTStates[ last ];
+    }
+    this.listeners[ last ] = null;
+    if( idx < last ) {
+      if( this.dueTStates[ idx ] < oldTStates ) {
+	siftUp( idx );
+      } else {
+	siftDown( idx );
+      }
+    }
+  }
+
+
+  private void siftDown( int idx )
+  {
+    for(;;) {
+      int m = idx;
+      int l = (2 * idx) + 1;
+      int r = l + 1;
+      if( (l < this.size) && (this.dueTStates[ l ] < this.dueTStates[ m ]) ) {
+	m = l;
+      }
+      if( (r < this.size) && (this.dueTStates[ r ] < this.dueTStates[ m ]) ) {
+	m = r;
+      }
+      if( m == idx ) {
+	break;
+      }
+      swap( idx, m );
+      idx = m;
+    }
+  }
+
+
+  private void siftUp( int idx )
+  {
+    while( idx > 0 ) {
+      int p = (idx - 1) / 2;
+      if( this.dueTStates[ p ] <= this.dueTStates[ idx ] ) {
+	break;
+      }
+      swap( idx, p );
+      idx = p;
+    }
+  }
+
+
+  private void swap( int i1, int i2 )
+  {
+    Z80EventListener l = this.listeners[ i1 ];
+    long             t = this.dueTStates[ i1 ];
+    this.listeners[ i1 ]  = this.listeners[ i2 ];
+    this.dueTStates[ i1 ] = this.dueTStates[ i2 ];
+    this.listeners[ i2 ]  = l;
+    this.dueTStates[ i2 ] = t;
+  }
+
+
+  private void updNextEventTStates()
+  {
+    this.nextEventTStates = (this.size > 0 ?
+					this.dueTStates[ 0 ]
+					: Long.MAX_VALUE);
+  }
+}
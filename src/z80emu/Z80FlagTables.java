@@ -0,0 +1,149 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Vorberechnete Tabellen fuer die Flags der 8-Bit-Befehle
+ *
+ * Die Tabellen enthalten das komplette F-Register
+ * einschliesslich der undokumentierten Bits 3 und 5
+ * in der gleichen Bitanordnung wie Z80CPU.getRegF().
+ * Bei den Tabellen fuer INC und DEC ist das Carry-Flag nicht enthalten,
+ * da es von diesen Befehlen nicht veraendert wird.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80FlagTables
+{
+  static final int FLAG_S  = 0x80;
+  static final int FLAG_Z  = 0x40;
+  static final int FLAG_5  = 0x20;
+  static final int FLAG_H  = 0x10;
+  static final int FLAG_3  = 0x08;
+  static final int FLAG_PV = 0x04;
+  static final int FLAG_N  = 0x02;
+  static final int FLAG_C  = 0x01;
+
+  // S, Z, 5 und 3 entsprechend dem Wert
+  static final int[] SZ = new int[ 0x100 ];
+
+  // wie SZ, zusaetzlich P/V als Paritaet
+  static final int[] SZP = new int[ 0x100 ];
+
+  // Flags (ohne Carry) nach INC bzw. DEC, Index: Operand
+  static final int[] INC = new int[ 0x100 ];
+  static final int[] DEC = new int[ 0x100 ];
+
+  /*
+   * Flags nach ADD/ADC bzw. SUB/SBC,
+   * Index: (Carry << 16) | (A << 8) | Operand
+   */
+  static final byte[] ADD = new byte[ 0x20000 ];
+  static final byte[] SUB = new byte[ 0x20000 ];
+
+  /*
+   * Ergebnis von DAA als (A << 8) | F,
+   * Index: (C << 10) | (N << 9) | (H << 8) | A
+   */
+  static final int[] DAA = new int[ 0x800 ];
+
+
+  static {
+    for( int v = 0; v < 0x100; v++ ) {
+      int f = (v & (FLAG_S | FLAG_5 | FLAG_3));
+      if( v == 0 ) {
+	f |= FLAG_Z;
+      }
+      SZ[ v ] = f;
+
+      boolean p = true;
+      for( int i = 0; i < 8; i++ ) {
+	if( (v & (1 << i)) != 0 ) {
+	  p = !p;
+	}
+      }
+      SZP[ v ] = p ? (f | FLAG_PV) : f;
+    }
+    for( int v = 0; v < 0x100; v++ ) {
+      int r    = (v + 1) & 0xFF;
+      INC[ v ] = SZ[ r ]
+			| ((v & 0x0F) == 0x0F ? FLAG_H : 0)
+			| (v == 0x7F ? FLAG_PV : 0);
+      r        = (v - 1) & 0xFF;
+      DEC[ v ] = SZ[ r ]
+			| ((v & 0x0F) == 0x00 ? FLAG_H : 0)
+			| (v == 0x80 ? FLAG_PV : 0)
+			| FLAG_N;
+    }
+    for( int c = 0; c < 2; c++ ) {
+      for( int a = 0; a < 0x100; a++ ) {
+	for( int op = 0; op < 0x100; op++ ) {
+	  int idx = (c << 16) | (a << 8) | op;
+
+	  int r = a + op + c;
+	  int m = a ^ op ^ r;
+	  ADD[ idx ] = (byte) (SZ[ r & 0xFF ]
+				| (m & FLAG_H)
+				| ((((m >> 1) ^ m) & 0x80) != 0 ? FLAG_PV : 0)
+				| ((m & 0x100) != 0 ? FLAG_C : 0));
+
+	  r = a - op - c;
+	  m = a ^ op ^ r;
+	  SUB[ idx ] = (byte) (SZ[ r & 0xFF ]
+				| (m & FLAG_H)
+				| ((((m >> 1) ^ m) & 0x80) != 0 ? FLAG_PV : 0)
+				| FLAG_N
+				| ((m & 0x100) != 0 ? FLAG_C : 0));
+	}
+      }
+    }
+    for( int idx = 0; idx < DAA.length; idx++ ) {
+      int     a     = idx & 0xFF;
+      int     h     = a & 0x0F;
+      boolean fHalf = ((idx & 0x100) != 0);
+      boolean fN    = ((idx & 0x200) != 0);
+      boolean fC    = ((idx & 0x400) != 0);
+      int     r     = a;
+      if( fN ) {
+	if( fHalf || (h > 0x09) ) {
+	  if( h > 0x05 ) {
+	    fHalf = false;
+	  }
+	  r = (r - 0x06) & 0xFF;
+	}
+	if( fC || (a > 0x99) ) {
+	  r -= 0x160;
+	}
+      } else {
+	if( fHalf || (h > 0x09) ) {
+	  fHalf = (h > 0x09);
+	  r += 0x06;
+	}
+	if( fC || ((r & 0x1F0) > 0x90) ) {
+	  r += 0x60;
+	}
+      }
+      if( (r & 0x100) != 0 ) {
+	fC = true;
+      }
+      r &= 0xFF;
+      DAA[ idx ] = (r << 8)
+			| SZP[ r ]
+			| (fHalf ? FLAG_H : 0)
+			| (fN ? FLAG_N : 0)
+			| (fC ? FLAG_C : 0);
+    }
+  }
+
+
+	/* --- privater Konstruktor --- */
+
+  private Z80FlagTables()
+  {
+    // Klasse nicht instanziierbar
+  }
+}
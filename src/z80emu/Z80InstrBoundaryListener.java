@@ -0,0 +1,25 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Interface fuer das Empfangen von Ereignissen an jeder Befehlsgrenze
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public interface Z80InstrBoundaryListener
+{
+  /*
+   * Die Methode wird vor Ausfuehrung eines jeden Befehls aufgerufen,
+   * nachdem ein ggf. anstehender Interrupt bereits angenommen wurde,
+   * d.h. an der Stelle, an der auch die Haltepunkte geprueft werden.
+   *
+   * interruptAccepted besagt, ob an dieser Befehlsgrenze gerade
+   * ein Interrupt oder NMI angenommen wurde.
+   */
+  public void z80InstrBoundary( Z80CPU cpu, boolean interruptAccepted );
+}
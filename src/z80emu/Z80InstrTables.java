@@ -0,0 +1,229 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Tabellen mit den Taktzyklen und Laengen der einzelnen Befehle
+ *
+ * Fuer jede Befehlsseite (ohne Vorbyte, CB, ED, DD/FD und DDCB/FDCB)
+ * gibt es eine Tabelle mit 256 Eintraegen.
+ * Bei bedingten Befehlen (JR cc, DJNZ, CALL cc, RET cc und
+ * den repetierenden Blockbefehlen) enthaelt die Tabelle
+ * die Taktzyklen fuer den Fall, dass die Bedingung nicht erfuellt ist.
+ * Die zusaetzlichen Taktzyklen bei erfuellter Bedingung
+ * addiert die CPU-Emulation selbst.
+ *
+ * Die Taktzyklen der Seiten DD/FD und DDCB/FDCB enthalten
+ * nicht die 4 Taktzyklen des Vorbytes DD bzw. FD,
+ * da diese bereits bei der Verarbeitung des Vorbytes gezaehlt werden.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80InstrTables
+{
+  // Befehle ohne Vorbyte
+  static final int[] TSTATES_MAIN = {
+	 4, 10,  7,  6,  4,  4,  7,  4,  4, 11,  7,  6,  4,  4,  7,  4,	// 00
+	 8, 10,  7,  6,  4,  4,  7,  4, 12, 11,  7,  6,  4,  4,  7,  4,	// 10
+	 7, 10, 16,  6,  4,  4,  7,  4,  7, 11, 16,  6,  4,  4,  7,  4,	// 20
+	 7, 10, 13,  6, 11, 11, 10,  4,  7, 11, 13,  6,  4,  4,  7,  4,	// 30
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// 40
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// 50
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// 60
+	 7,  7,  7,  7,  7,  7,  4,  7,  4,  4,  4,  4,  4,  4,  7,  4,	// 70
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// 80
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// 90
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// A0
+	 4,  4,  4,  4,  4,  4,  7,  4,  4,  4,  4,  4,  4,  4,  7,  4,	// B0
+	 5, 10, 10, 10, 10, 11,  7, 11,  5, 10, 10,  0, 10, 17,  7, 11,	// C0
+	 5, 10, 10, 11, 10, 11,  7, 11,  5,  4, 10, 11, 10,  4,  7, 11,	// D0
+	 5, 10, 10, 19, 10, 11,  7, 11,  5,  4, 10,  4, 10,  0,  7, 11,	// E0
+	 5, 10, 10,  4, 10, 11,  7, 11,  5,  6, 10,  4, 10,  4,  7, 11 };	// F0
+
+  // Befehle mit Vorbyte CB
+  static final int[] TSTATES_CB = {
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// 00
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// 10
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// 20
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// 30
+	 8,  8,  8,  8,  8,  8, 12,  8,  8,  8,  8,  8,  8,  8, 12,  8,	// 40
+	 8,  8,  8,  8,  8,  8, 12,  8,  8,  8,  8,  8,  8,  8, 12,  8,	// 50
+	 8,  8,  8,  8,  8,  8, 12,  8,  8,  8,  8,  8,  8,  8, 12,  8,	// 60
+	 8,  8,  8,  8,  8,  8, 12,  8,  8,  8,  8,  8,  8,  8, 12,  8,	// 70
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// 80
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// 90
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// A0
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// B0
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// C0
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// D0
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8,	// E0
+	 8,  8,  8,  8,  8,  8, 15,  8,  8,  8,  8,  8,  8,  8, 15,  8 };	// F0
+
+  // Befehle mit Vorbyte ED
+  static final int[] TSTATES_ED = {
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// 00
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// 10
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// 20
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// 30
+	12, 12, 15, 20,  8, 14,  8,  9, 12, 12, 15, 20,  8, 14,  8,  9,	// 40
+	12, 12, 15, 20,  8, 14,  8,  9, 12, 12, 15, 20,  8, 14,  8,  9,	// 50
+	12, 12, 15, 20,  8, 14,  8, 18, 12, 12, 15, 20,  8, 14,  8, 18,	// 60
+	12, 12, 15, 20,  8, 14,  8,  8, 12, 12, 15, 20,  8, 14,  8,  8,	// 70
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// 80
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// 90
+	16, 16, 16, 16,  8,  8,  8,  8, 16, 16, 16, 16,  8,  8,  8,  8,	// A0
+	16, 16, 16, 16,  8,  8,  8,  8, 16, 16, 16, 16,  8,  8,  8,  8,	// B0
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// C0
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// D0
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,	// E0
+	 8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8,  8 };	// F0
+
+  // Befehle mit Vorbyte DD oder FD (ohne die 4 Taktzyklen des Vorbytes)
+  static final int[] TSTATES_IXY = {
+	 4, 10,  7,  6,  4,  4,  7,  4,  4, 11,  7,  6,  4,  4,  7,  4,	// 00
+	 8, 10,  7,  6,  4,  4,  7,  4, 12, 11,  7,  6,  4,  4,  7,  4,	// 10
+	 7, 10, 16,  6,  4,  4,  7,  4,  7, 11, 16,  6,  4,  4,  7,  4,	// 20
+	 7, 10, 13,  6, 19, 19, 15,  4,  7, 11, 13,  6,  4,  4,  7,  4,	// 30
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// 40
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// 50
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// 60
+	15, 15, 15, 15, 15, 15,  4, 15,  4,  4,  4,  4,  4,  4, 15,  4,	// 70
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// 80
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// 90
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// A0
+	 4,  4,  4,  4,  4,  4, 15,  4,  4,  4,  4,  4,  4,  4, 15,  4,	// B0
+	 5, 10, 10, 10, 10, 11,  7, 11,  5, 10, 10,  0, 10, 17,  7, 11,	// C0
+	 5, 10, 10, 11, 10, 11,  7, 11,  5,  4, 10, 11, 10,  4,  7, 11,	// D0
+	 5, 10, 10, 19, 10, 11,  7, 11,  5,  4, 10,  4, 10,  0,  7, 11,	// E0
+	 5, 10, 10,  4, 10, 11,  7, 11,  5,  6, 10,  4, 10,  4,  7, 11 };	// F0
+
+  // Befehle mit Vorbytes DDCB bzw. FDCB (ohne das Vorbyte DD/FD)
+  static final int[] TSTATES_IXY_CB = {
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// 00
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// 10
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// 20
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// 30
+	16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16,	// 40
+	16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16,	// 50
+	16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16,	// 60
+	16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16, 16,	// 70
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// 80
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// 90
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// A0
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// B0
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// C0
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// D0
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,	// E0
+	19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19 };	// F0
+
+  /*
+   * Befehlslaengen einschliesslich aller Vorbytes
+   *
+   * Bei den Vorbytes CB, DD, ED und FD steht in der Tabelle
+   * fuer Befehle ohne Vorbyte eine 0,
+   * d.h., die Laenge ergibt sich aus der Tabelle der jeweiligen Seite.
+   */
+  static final int[] LENGTH_MAIN = {
+	1, 3, 1, 1, 1, 1, 2, 1, 1, 1, 1, 1, 1, 1, 2, 1,		// 00
+	2, 3, 1, 1, 1, 1, 2, 1, 2, 1, 1, 1, 1, 1, 2, 1,		// 10
+	2, 3, 3, 1, 1, 1, 2, 1, 2, 1, 3, 1, 1, 1, 2, 1,		// 20
+	2, 3, 3, 1, 1, 1, 2, 1, 2, 1, 3, 1, 1, 1, 2, 1,		// 30
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// 40
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// 50
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// 60
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// 70
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// 80
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// 90
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// A0
+	1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,		// B0
+	1, 1, 3, 3, 3, 1, 2, 1, 1, 1, 3, 0, 3, 3, 2, 1,		// C0
+	1, 1, 3, 2, 3, 1, 2, 1, 1, 1, 3, 2, 3, 0, 2, 1,		// D0
+	1, 1, 3, 1, 3, 1, 2, 1, 1, 1, 3, 1, 3, 0, 2, 1,		// E0
+	1, 1, 3, 1, 3, 1, 2, 1, 1, 1, 3, 1, 3, 0, 2, 1 };	// F0
+
+  static final int[] LENGTH_ED = {
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// 00
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// 10
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// 20
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// 30
+	2, 2, 2, 4, 2, 2, 2, 2, 2, 2, 2, 4, 2, 2, 2, 2,		// 40
+	2, 2, 2, 4, 2, 2, 2, 2, 2, 2, 2, 4, 2, 2, 2, 2,		// 50
+	2, 2, 2, 4, 2, 2, 2, 2, 2, 2, 2, 4, 2, 2, 2, 2,		// 60
+	2, 2, 2, 4, 2, 2, 2, 2, 2, 2, 2, 4, 2, 2, 2, 2,		// 70
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// 80
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// 90
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// A0
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// B0
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// C0
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// D0
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,		// E0
+	2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2 };	// F0
+
+  /*
+   * Bei den Seiten CB und DDCB/FDCB haben alle Befehle die gleiche
+   * Laenge (2 bzw. 4 Bytes).
+   * Bei Befehlen mit Vorbyte DD oder FD ist ein Befehl,
+   * der das HL-Register nicht verwendet, um das Vorbyte laenger.
+   */
+  static final int[] LENGTH_IXY = {
+	2, 4, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// 00
+	3, 4, 2, 2, 2, 2, 3, 2, 3, 2, 2, 2, 2, 2, 3, 2,		// 10
+	3, 4, 4, 2, 2, 2, 3, 2, 3, 2, 4, 2, 2, 2, 3, 2,		// 20
+	3, 4, 4, 2, 3, 3, 4, 2, 3, 2, 4, 2, 2, 2, 3, 2,		// 30
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// 40
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// 50
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// 60
+	3, 3, 3, 3, 3, 3, 2, 3, 2, 2, 2, 2, 2, 2, 3, 2,		// 70
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// 80
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// 90
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// A0
+	2, 2, 2, 2, 2, 2, 3, 2, 2, 2, 2, 2, 2, 2, 3, 2,		// B0
+	2, 2, 4, 4, 4, 2, 3, 2, 2, 2, 4, 4, 4, 4, 3, 2,		// C0
+	2, 2, 4, 3, 4, 2, 3, 2, 2, 2, 4, 3, 4, 0, 3, 2,		// D0
+	2, 2, 4, 2, 4, 2, 3, 2, 2, 2, 4, 2, 4, 0, 3, 2,		// E0
+	2, 2, 4, 2, 4, 2, 3, 2, 2, 2, 4, 2, 4, 0, 3, 2 };	// F0
+
+
+  /*
+   * Die Methode ermittelt die Laenge des Befehls,
+   * der an der uebergebenen Adresse beginnt.
+   * Eine Folge von Vorbytes DD bzw. FD wird dabei so behandelt,
+   * wie es auch die CPU-Emulation macht,
+   * d.h., jedes einzelne Vorbyte zaehlt als ein Byte
+   * und nur das letzte wirkt sich auf den Befehl aus.
+   */
+  public static int getInstrLength( Z80MemView memory, int addr )
+  {
+    int     len    = 0;
+    boolean ixy    = false;
+    int     opCode = memory.getMemByte( addr, true );
+    while( (opCode == 0xDD) || (opCode == 0xFD) ) {
+      len++;
+      ixy    = true;
+      addr   = (addr + 1) & 0xFFFF;
+      opCode = memory.getMemByte( addr, true );
+    }
+    if( opCode == 0xED ) {
+      len += LENGTH_ED[ memory.getMemByte( (addr + 1) & 0xFFFF, true ) ];
+    } else if( ixy ) {
+      len += (LENGTH_IXY[ opCode ] - 1);
+    } else if( opCode == 0xCB ) {
+      len += 2;
+    } else {
+      len += LENGTH_MAIN[ opCode ];
+    }
+    return len;
+  }
+
+
+	/* --- privater Konstruktor --- */
+
+  private Z80InstrTables()
+  {
+    // Klasse nicht instanziierbar
+  }
+}
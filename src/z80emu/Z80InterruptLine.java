@@ -0,0 +1,54 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Gemeinsame Interrupt-Anforderungsleitung (/INT)
+ *
+ * Wie bei der realen Hardware ziehen alle Interrupt-Quellen
+ * an einer gemeinsamen Leitung (Wired-OR).
+ * Die CPU-Emulation muss die einzelnen Quellen dadurch nur dann
+ * nach der Prioritaetskette abfragen, wenn die Leitung aktiv ist.
+ *
+ * Jede Quelle merkt sich ihren zuletzt gemeldeten Zustand selbst
+ * und meldet nur dessen Aenderungen.
+ * Die Leitung zaehlt die Quellen, die gerade eine Anforderung melden.
+ */
+
+package z80emu;
+
+import java.lang.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class Z80InterruptLine
+{
+  private AtomicInteger requestCnt;
+
+
+  public Z80InterruptLine()
+  {
+    this.requestCnt = new AtomicInteger( 0 );
+  }
+
+
+  public boolean isActive()
+  {
+    return this.requestCnt.get() > 0;
+  }
+
+
+  /*
+   * Eine Quelle zieht die Leitung (true) bzw. gibt sie frei (false).
+   * Die Methode darf nur bei einer Zustandsaenderung
+   * der jeweiligen Quelle aufgerufen werden.
+   */
+  public void setRequest( boolean state )
+  {
+    if( state ) {
+      this.requestCnt.incrementAndGet();
+    } else {
+      this.requestCnt.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Interface fuer eine Interrupt-Quelle,
+ * die ihre Anforderungen ueber eine Z80InterruptLine meldet
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public interface Z80InterruptLineSource extends Z80InterruptSource
+{
+  /*
+   * Die Methode wird von der CPU-Emulation beim Setzen
+   * der Interrupt-Quellen aufgerufen.
+   * Die Quelle muss der neuen Leitung ihren aktuellen Zustand
+   * melden und diesen bei einer alten Leitung zuruecknehmen.
+   *
+   * Der an der Leitung gemeldete Zustand darf nie false sein,
+   * wenn isInterruptRequested() true liefern wuerde.
+   * Umgekehrt ist es aber zulaessig, z.B. wenn in der Quelle
+   * gerade ein anderer Interrupt angenommen ist.
+   */
+  public void setInterruptLine( Z80InterruptLine line );
+}
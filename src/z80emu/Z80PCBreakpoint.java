@@ -0,0 +1,20 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Interface fuer Haltepunkte, die nur an einer bestimmten
+ * Programmadresse ausloesen koennen
+ */
+
+package z80emu;
+
+
+public interface Z80PCBreakpoint extends Z80Breakpoint
+{
+  /*
+   * Die CPU-Emulation ruft matches(...) nur dann auf,
+   * wenn der Programmzaehler auf die hier gelieferte Adresse zeigt.
+   */
+  public int getBreakPC();
+}
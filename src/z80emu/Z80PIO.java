@@ -12,11 +12,14 @@
 
 package z80emu;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.*;
 
 
-public class Z80PIO implements Z80InterruptSource
+public class Z80PIO implements Z80InterruptLineSource
 {
   public enum PortInfo { A, B };
 
@@ -36,16 +39,23 @@ public class Z80PIO implements Z80InterruptSource
 
   private enum Ctrl { NONE, IO_MASK, INTERRUPT_MASK };
 
-  private String      title;
-  private Z80PIO.Port portA;
-  private Z80PIO.Port portB;
+  // Version des mit saveState(...) geschriebenen Zustands
+  private static final int STATE_VERSION = 1;
+
+  private String           title;
+  private Z80PIO.Port      portA;
+  private Z80PIO.Port      portB;
+  private Z80InterruptLine interruptLine;
+  private boolean          interruptLineState;
 
 
   public Z80PIO( String title )
   {
-    this.title = title;
-    this.portA = new Z80PIO.Port( PortInfo.A );
-    this.portB = new Z80PIO.Port( PortInfo.B );
+    this.title              = title;
+    this.portA              = new Z80PIO.Port( PortInfo.A );
+    this.portB              = new Z80PIO.Port( PortInfo.B );
+    this.interruptLine      = null;
+    this.interruptLineState = false;
   }
 
 
@@ -244,6 +254,51 @@ public class Z80PIO implements Z80InterruptSource
   }
 
 
+  /*
+   * Speichern und Wiederherstellen des Zustands (Snapshot)
+   *
+   * Nach dem Wiederherstellen werden die an den Toren angemeldeten
+   * Listener ueber eine moegliche Aenderung der Betriebsart informiert.
+   */
+  public void loadState( DataInput in ) throws IOException
+  {
+    synchronized( this ) {
+      if( in.readUnsignedByte() != STATE_VERSION ) {
+	throw new IOException( this.title
+			+ ": Version des Zustands nicht unterst\u00FCtzt" );
+      }
+      loadState( this.portA, in );
+      loadState( this.portB, in );
+      updInterruptLine();
+    }
+    informListeners( this.portA, Status.MODE_CHANGED );
+    informListeners( this.portB, Status.MODE_CHANGED );
+  }
+
+
+  public synchronized void saveState( DataOutput out ) throws IOException
+  {
+    out.writeByte( STATE_VERSION );
+    saveState( this.portA, out );
+    saveState( this.portB, out );
+  }
+
+
+	/* --- Methoden fuer Z80InterruptLineSource --- */
+
+  @Override
+  public synchronized void setInterruptLine( Z80InterruptLine line )
+  {
+    if( this.interruptLineState && (this.interruptLine != null) ) {
+      this.interruptLine.setRequest( false );
+    }
+    this.interruptLine = line;
+    if( this.interruptLineState && (line != null) ) {
+      line.setRequest( true );
+    }
+  }
+
+
 	/* --- Methoden fuer Z80InterruptSource --- */
 
   @Override
@@ -372,6 +427,7 @@ public class Z80PIO implements Z80InterruptSource
       this.portB.interruptRequested = false;
       rv = this.portB.interruptVector;
     }
+    updInterruptLine();
     return rv;
   }
 
@@ -414,6 +470,7 @@ public class Z80PIO implements Z80InterruptSource
   {
     this.portA.reset( powerOn );
     this.portB.reset( powerOn );
+    updInterruptLine();
   }
 
 
@@ -505,10 +562,63 @@ public class Z80PIO implements Z80InterruptSource
   }
 
 
+  private static void loadState(
+			Z80PIO.Port port,
+			DataInput   in ) throws IOException
+  {
+    port.inValue               = in.readUnsignedByte();
+    port.outValue              = in.readUnsignedByte();
+    port.ready                 = in.readBoolean();
+    port.mode                  = readEnum( in, Mode.values() );
+    port.nextCtrl              = readEnum( in, Ctrl.values() );
+    port.ioMask                = in.readUnsignedByte();
+    port.interruptVector       = in.readUnsignedByte();
+    port.interruptMask         = in.readUnsignedByte();
+    port.interruptFireAtH      = in.readBoolean();
+    port.interruptBitsAnd      = in.readBoolean();
+    port.interruptEnabled      = in.readBoolean();
+    port.interruptAccepted     = in.readBoolean();
+    port.interruptRequested    = in.readBoolean();
+    port.interruptCondRealized = in.readBoolean();
+  }
+
+
+  private static <T> T readEnum( DataInput in, T[] values ) throws IOException
+  {
+    int idx = in.readUnsignedByte();
+    if( idx >= values.length ) {
+      throw new IOException( "PIO-Zustand ung\u00FCltig" );
+    }
+    return values[ idx ];
+  }
+
+
+  private static void saveState(
+			Z80PIO.Port port,
+			DataOutput  out ) throws IOException
+  {
+    out.writeByte( port.inValue );
+    out.writeByte( port.outValue );
+    out.writeBoolean( port.ready );
+    out.writeByte( port.mode.ordinal() );
+    out.writeByte( port.nextCtrl.ordinal() );
+    out.writeByte( port.ioMask );
+    out.writeByte( port.interruptVector );
+    out.writeByte( port.interruptMask );
+    out.writeBoolean( port.interruptFireAtH );
+    out.writeBoolean( port.interruptBitsAnd );
+    out.writeBoolean( port.interruptEnabled );
+    out.writeBoolean( port.interruptAccepted );
+    out.writeBoolean( port.interruptRequested );
+    out.writeBoolean( port.interruptCondRealized );
+  }
+
+
   private void tryInterrupt( Z80PIO.Port port )
   {
     if( port.interruptEnabled ) {
       port.interruptRequested = true;
+      updInterruptLine();
     }
   }
 
@@ -779,11 +889,30 @@ public class Z80PIO implements Z80InterruptSource
   {
     boolean oldState = port.interruptEnabled;
     port.interruptEnabled = state;
+    updInterruptLine();
     if( state != oldState ) {
       informListeners(
 	port,
 	state ? Status.INTERRUPT_ENABLED : Status.INTERRUPT_DISABLED );
     }
   }
-}
 
+
+  /*
+   * Melden einer geaenderten Interrupt-Anforderung an die Leitung
+   */
+  private synchronized void updInterruptLine()
+  {
+    boolean state = (this.portA.interruptEnabled
+				&& this.portA.interruptRequested)
+			|| (this.portB.interruptEnabled
+				&& this.portB.interruptRequested);
+    if( state != this.interruptLineState ) {
+      this.interruptLineState = state;
+      Z80InterruptLine line   = this.interruptLine;
+      if( line != null ) {
+	line.setRequest( state );
+      }
+    }
+  }
+}
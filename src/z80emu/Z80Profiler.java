@@ -0,0 +1,354 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Zaehler fuer eine Laufzeitanalyse
+ *
+ * Solange ein Objekt dieser Klasse bei der CPU angemeldet ist,
+ * zaehlt diese je Befehlsadresse die Ausfuehrungen
+ * und die verbrauchten Taktzyklen,
+ * je Speicheradresse die Lese- und Schreibzugriffe
+ * sowie je E/A-Adresse (untere 8 Bit) die Ein- und Ausgaben.
+ * Befehlsholezyklen zaehlen dabei nicht als Lesezugriffe.
+ *
+ * Die Zaehler werden vom Emulations-Thread ohne Synchronisation
+ * und ohne Speicherallokation erhoeht.
+ * Werden sie waehrenddessen von einem anderen Thread gelesen,
+ * koennen die Werte deshalb geringfuegig veraltet sein.
+ */
+
+package z80emu;
+
+import java.io.PrintWriter;
+import java.lang.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+
+public class Z80Profiler
+{
+  private static class RoutineItem
+  {
+    private String name;
+    private long   execCount;
+    private long   tStates;
+
+    private RoutineItem( String name )
+    {
+      this.name      = name;
+      this.execCount = 0L;
+      this.tStates   = 0L;
+    }
+  }
+
+
+  private long[] execCounts;
+  private long[] tStates;
+  private long[] memReads;
+  private long[] memWrites;
+  private long[] ioInCounts;
+  private long[] ioOutCounts;
+
+
+  public Z80Profiler()
+  {
+    this.execCounts  = new long[ 0x10000 ];
+    this.tStates     = new long[ 0x10000 ];
+    this.memReads    = new long[ 0x10000 ];
+    this.memWrites   = new long[ 0x10000 ];
+    this.ioInCounts  = new long[ 0x100 ];
+    this.ioOutCounts = new long[ 0x100 ];
+  }
+
+
+  public void clear()
+  {
+    clear( this.execCounts );
+    clear( this.tStates );
+    clear( this.memReads );
+    clear( this.memWrites );
+    clear( this.ioInCounts );
+    clear( this.ioOutCounts );
+  }
+
+
+  public long getExecCount( int addr )
+  {
+    return this.execCounts[ addr & 0xFFFF ];
+  }
+
+
+  public long getIOInCount( int port )
+  {
+    return this.ioInCounts[ port & 0xFF ];
+  }
+
+
+  public long getIOOutCount( int port )
+  {
+    return this.ioOutCounts[ port & 0xFF ];
+  }
+
+
+  public long getMemReadCount( int addr )
+  {
+    return this.memReads[ addr & 0xFFFF ];
+  }
+
+
+  public long getMemWriteCount( int addr )
+  {
+    return this.memWrites[ addr & 0xFFFF ];
+  }
+
+
+  public long getTStates( int addr )
+  {
+    return this.tStates[ addr & 0xFFFF ];
+  }
+
+
+  /*
+   * Ausgabe eines flachen Profils, absteigend nach Taktzyklen sortiert
+   *
+   * Die Befehlsadressen werden der jeweils naechstliegenden Marke
+   * mit gleicher oder kleinerer Adresse zugeordnet.
+   * Dadurch entsteht zuerst eine Liste je Routine,
+   * gefolgt von einer Liste je Befehlsadresse.
+   * Anschliessend folgen die Speicher- und E/A-Zugriffe.
+   *
+   * Parameter:
+   *   labels: Marken (Adresse -> Name), kann null sein
+   */
+  public void writeFlatProfile(
+			PrintWriter         out,
+			Map<Integer,String> labels )
+  {
+    NavigableMap<Integer,String> labelMap = new TreeMap<>();
+    if( labels != null ) {
+      for( Map.Entry<Integer,String> e : labels.entrySet() ) {
+	Integer addr = e.getKey();
+	String  name = e.getValue();
+	if( (addr != null) && (name != null) ) {
+	  labelMap.put( addr.intValue() & 0xFFFF, name );
+	}
+      }
+    }
+
+    // Summen und Routinen ermitteln
+    long                    totalExec    = 0L;
+    long                    totalTStates = 0L;
+    List<Integer>           addrs        = new ArrayList<>();
+    Map<String,RoutineItem> routineMap   = new TreeMap<>();
+    for( int addr = 0; addr < this.execCounts.length; addr++ ) {
+      long n = this.execCounts[ addr ];
+      if( n > 0 ) {
+	totalExec    += n;
+	totalTStates += this.tStates[ addr ];
+	addrs.add( addr );
+
+	String      name = getRoutineName( labelMap, addr );
+	RoutineItem item = routineMap.get( name );
+	if( item == null ) {
+	  item = new RoutineItem( name );
+	  routineMap.put( name, item );
+	}
+	item.execCount += n;
+	item.tStates   += this.tStates[ addr ];
+      }
+    }
+    out.printf(
+	"Ausgef\u00FChrte Befehle: %d, Taktzyklen: %d%n",
+	totalExec,
+	totalTStates );
+
+    // Routinen
+    List<RoutineItem> routines = new ArrayList<>( routineMap.values() );
+    Collections.sort(
+		routines,
+		new Comparator<RoutineItem>()
+		{
+		  @Override
+		  public int compare( RoutineItem i1, RoutineItem i2 )
+		  {
+		    return Long.compare( i2.tStates, i1.tStates );
+		  }
+		} );
+    out.println();
+    out.println( "Routine                    Taktzyklen  Anteil"
+				+ "          Befehle" );
+    for( RoutineItem item : routines ) {
+      out.printf(
+		"%-20s %16d %6.2f%% %16d%n",
+		item.name,
+		item.tStates,
+		getPercent( item.tStates, totalTStates ),
+		item.execCount );
+    }
+
+    // Befehlsadressen
+    final long[] tStates = this.tStates;
+    Collections.sort(
+		addrs,
+		new Comparator<Integer>()
+		{
+		  @Override
+		  public int compare( Integer a1, Integer a2 )
+		  {
+		    return Long.compare( tStates[ a2 ], tStates[ a1 ] );
+		  }
+		} );
+    out.println();
+    out.println( "Adresse  Routine                    Taktzyklen"
+				+ "  Anteil          Befehle" );
+    for( Integer addr : addrs ) {
+      int a = addr.intValue();
+      out.printf(
+		"%04X     %-20s %16d %6.2f%% %16d%n",
+		a,
+		getLabelText( labelMap, a ),
+		tStates[ a ],
+		getPercent( tStates[ a ], totalTStates ),
+		this.execCounts[ a ] );
+    }
+
+    // Speicherzugriffe
+    final long[] memReads  = this.memReads;
+    final long[] memWrites = this.memWrites;
+    addrs.clear();
+    for( int addr = 0; addr < memReads.length; addr++ ) {
+      if( (memReads[ addr ] > 0) || (memWrites[ addr ] > 0) ) {
+	addrs.add( addr );
+      }
+    }
+    Collections.sort(
+		addrs,
+		new Comparator<Integer>()
+		{
+		  @Override
+		  public int compare( Integer a1, Integer a2 )
+		  {
+		    return Long.compare(
+				memReads[ a2 ] + memWrites[ a2 ],
+				memReads[ a1 ] + memWrites[ a1 ] );
+		  }
+		} );
+    out.println();
+    out.println( "Adresse  Marke                    Lesezugriffe"
+				+ "  Schreibzugriffe" );
+    for( Integer addr : addrs ) {
+      int a = addr.intValue();
+      out.printf(
+		"%04X     %-20s %16d %16d%n",
+		a,
+		getLabelText( labelMap, a ),
+		memReads[ a ],
+		memWrites[ a ] );
+    }
+
+    // E/A-Zugriffe
+    out.println();
+    out.println( "E/A-Adresse          Eingaben         Ausgaben" );
+    for( int port = 0; port < this.ioInCounts.length; port++ ) {
+      if( (this.ioInCounts[ port ] > 0) || (this.ioOutCounts[ port ] > 0) ) {
+	out.printf(
+		"%02X           %16d %16d%n",
+		port,
+		this.ioInCounts[ port ],
+		this.ioOutCounts[ port ] );
+      }
+    }
+  }
+
+
+	/* --- Methoden fuer die CPU --- */
+
+  void instExecuted( int addr, int tStates )
+  {
+    this.execCounts[ addr ]++;
+    this.tStates[ addr ] += tStates;
+  }
+
+
+  /*
+   * Vorbyte (0xDD oder 0xFD) ausgefuehrt,
+   * der Befehl selbst ist noch nicht abgeschlossen
+   */
+  void preCodeExecuted( int addr, int tStates )
+  {
+    this.tStates[ addr ] += tStates;
+  }
+
+
+  void ioRead( int port )
+  {
+    this.ioInCounts[ port & 0xFF ]++;
+  }
+
+
+  void ioWritten( int port )
+  {
+    this.ioOutCounts[ port & 0xFF ]++;
+  }
+
+
+  void memRead( int addr )
+  {
+    this.memReads[ addr & 0xFFFF ]++;
+  }
+
+
+  void memWritten( int addr )
+  {
+    this.memWrites[ addr & 0xFFFF ]++;
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static void clear( long[] a )
+  {
+    for( int i = 0; i < a.length; i++ ) {
+      a[ i ] = 0L;
+    }
+  }
+
+
+  private static String getLabelText(
+				NavigableMap<Integer,String> labelMap,
+				int                          addr )
+  {
+    String                    rv    = "";
+    Map.Entry<Integer,String> entry = labelMap.floorEntry( addr );
+    if( entry != null ) {
+      int offs = addr - entry.getKey().intValue();
+      if( offs == 0 ) {
+	rv = entry.getValue();
+      } else {
+	rv = String.format( "%s+%04X", entry.getValue(), offs );
+      }
+    }
+    return rv;
+  }
+
+
+  private static double getPercent( long value, long total )
+  {
+    return total > 0 ? ((double) value * 100.0 / (double) total) : 0.0;
+  }
+
+
+  private static String getRoutineName(
+				NavigableMap<Integer,String> labelMap,
+				int                          addr )
+  {
+    Map.Entry<Integer,String> entry = labelMap.floorEntry( addr );
+    return entry != null ? entry.getValue() : "(ohne Marke)";
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Ergebnis einer begrenzten Programmausfuehrung
+ * mit Z80CPU.runFor(...), Z80CPU.runUntil(...)
+ * oder Z80CPU.runUntilHalt(...)
+ *
+ * Das Objekt gehoert der CPU und wird bei jedem Aufruf
+ * wiederverwendet, damit keine Objekte erzeugt werden muessen.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80RunResult
+{
+  public enum StopReason {
+			TSTATES_ELAPSED,
+			PC_REACHED,
+			HALT_REACHED,
+			CONDITION_MATCHED,
+			EXIT };
+
+  private StopReason stopReason;
+  private long       usedTStates;
+  private int        stopPC;
+
+
+  Z80RunResult()
+  {
+    this.stopReason  = StopReason.EXIT;
+    this.usedTStates = 0L;
+    this.stopPC      = 0;
+  }
+
+
+  public StopReason getStopReason()
+  {
+    return this.stopReason;
+  }
+
+
+  public int getStopPC()
+  {
+    return this.stopPC;
+  }
+
+
+  public long getUsedTStates()
+  {
+    return this.usedTStates;
+  }
+
+
+  void set( StopReason stopReason, long usedTStates, int stopPC )
+  {
+    this.stopReason  = stopReason;
+    this.usedTStates = usedTStates;
+    this.stopPC      = stopPC;
+  }
+
+
+	/* --- ueberschriebene Methoden --- */
+
+  @Override
+  public String toString()
+  {
+    return String.format(
+		"%s: %d Taktzyklen, PC=%04X",
+		this.stopReason,
+		this.usedTStates,
+		this.stopPC );
+  }
+}
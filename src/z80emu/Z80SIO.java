@@ -10,13 +10,16 @@
 
 package z80emu;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
 
-public class Z80SIO implements Z80InterruptSource
+public class Z80SIO implements Z80InterruptLineSource
 {
   private static final int RECEIVER_INTERRUPT = 0x01;
   private static final int SENDER_INTERRUPT   = 0x02;
@@ -48,15 +51,20 @@ public class Z80SIO implements Z80InterruptSource
   private static final int WR4_PARITY_ENABLED             = 0x01;
   private static final int WR5_TX_ENABLED                 = 0x08;
 
+  // Version des mit saveState(...) geschriebenen Zustands
+  private static final int STATE_VERSION = 1;
+
   private static final String TEXT_NOT_INITIALIZED  = "nicht initialisiert";
   private static final String TEXT_SENDER_INTERRUPT = "Sender-Interrupt";
   private static final String TEXT_EXTERNAL_INTERRUPT
 					= "Externer Status-Interrupt";
 
-  private String    title;
-  private Channel   a;
-  private Channel   b;
-  private Channel[] channels;
+  private String           title;
+  private Channel          a;
+  private Channel          b;
+  private Channel[]        channels;
+  private Z80InterruptLine interruptLine;
+  private boolean          interruptLineState;
 
 
   public Z80SIO( String title )
@@ -65,6 +73,9 @@ public class Z80SIO implements Z80InterruptSource
     this.a        = new Channel( 0 );
     this.b        = new Channel( 1 );
     this.channels = new Channel[] { this.a, this.b };
+
+    this.interruptLine      = null;
+    this.interruptLineState = false;
   }
 
 
@@ -109,24 +120,28 @@ public class Z80SIO implements Z80InterruptSource
   public void clockPulseReceiverA()
   {
     this.a.clockPulseReceiver();
+    updInterruptLine();
   }
 
 
   public void clockPulseReceiverB()
   {
     this.b.clockPulseReceiver();
+    updInterruptLine();
   }
 
 
   public void clockPulseSenderA()
   {
     this.a.clockPulseSender();
+    updInterruptLine();
   }
 
 
   public void clockPulseSenderB()
   {
     this.b.clockPulseSender();
+    updInterruptLine();
   }
 
 
@@ -182,48 +197,82 @@ public class Z80SIO implements Z80InterruptSource
   public void setClearToSendA( boolean state )
   {
     this.a.setCTS( state );
+    updInterruptLine();
   }
 
 
   public void setClearToSendB( boolean state )
   {
     this.b.setCTS( state );
+    updInterruptLine();
   }
 
 
   public void setDataCarrierDetectA( boolean state )
   {
     this.a.setDCD( state );
+    updInterruptLine();
   }
 
 
   public void setDataCarrierDetectB( boolean state )
   {
     this.b.setDCD( state );
+    updInterruptLine();
   }
 
 
   public void writeControlA( int value )
   {
     this.a.writeControl( value );
+    updInterruptLine();
   }
 
 
   public void writeControlB( int value )
   {
     this.b.writeControl( value );
+    updInterruptLine();
   }
 
 
   public void writeDataA( int value )
   {
     this.a.writeData( value );
+    updInterruptLine();
   }
 
 
   public void writeDataB( int value )
   {
     this.b.writeData( value );
+    updInterruptLine();
+  }
+
+
+  /*
+   * Speichern und Wiederherstellen des Zustands (Snapshot)
+   *
+   * Die Pegel der Eingaenge CTS und DCD werden von der angeschlossenen
+   * Peripherie bestimmt und deshalb nicht gespeichert.
+   */
+  public void loadState( DataInput in ) throws IOException
+  {
+    if( in.readUnsignedByte() != STATE_VERSION ) {
+      throw new IOException( this.title
+			+ ": Version des Zustands nicht unterst\u00FCtzt" );
+    }
+    this.a.loadState( in );
+    this.b.loadState( in );
+    updInterruptLine();
+  }
+
+
+  public void saveState( DataOutput out ) throws IOException
+  {
+    out.writeByte( STATE_VERSION );
+    this.a.saveState( out );
+    this.b.saveState( out );
   }
 
 
@@ -437,6 +486,7 @@ public class Z80SIO implements Z80InterruptSource
       this.b.interruptAccepted |= EXTERNAL_INTERRUPT;
       this.b.interruptRequest &= ~EXTERNAL_INTERRUPT;
     }
+    updInterruptLine();
     return rv;
   }
 
@@ -498,6 +548,22 @@ public class Z80SIO implements Z80InterruptSource
   {
     this.a.reset( powerOn );
     this.b.reset( powerOn );
+    updInterruptLine();
+  }
+
+
+	/* --- Methoden fuer Z80InterruptLineSource --- */
+
+  @Override
+  public synchronized void setInterruptLine( Z80InterruptLine line )
+  {
+    if( this.interruptLineState && (this.interruptLine != null) ) {
+      this.interruptLine.setRequest( false );
+    }
+    this.interruptLine = line;
+    if( this.interruptLineState && (line != null) ) {
+      line.setRequest( true );
+    }
   }
 
 
@@ -792,6 +858,33 @@ public class Z80SIO implements Z80InterruptSource
     }
 
 
+    private synchronized void loadState( DataInput in ) throws IOException
+    {
+      this.interruptAccepted        = in.readInt();
+      this.interruptRequest         = in.readInt();
+      this.recvNextInterruptEnabled = in.readBoolean();
+      this.recvBuf                  = in.readInt();
+      this.recvClockDiv             = in.readInt();
+      this.recvClocksRemain         = in.readInt();
+      this.recvFifoLen              = in.readInt();
+      if( (this.recvFifoLen < 0) || (this.recvFifoLen > this.recvFifo.length) ) {
+	throw new IOException( "SIO-Zustand ung\u00FCltig" );
+      }
+      for( int i = 0; i < this.recvFifo.length; i++ ) {
+	this.recvFifo[ i ] = in.readInt();
+      }
+      this.sendBuf          = in.readInt();
+      this.sendClockDiv     = in.readInt();
+      this.sendClocksRemain = in.readInt();
+      for( int i = 0; i < this.rr.length; i++ ) {
+	this.rr[ i ] = in.readInt();
+      }
+      for( int i = 0; i < this.wr.length; i++ ) {
+	this.wr[ i ] = in.readInt();
+      }
+    }
+
+
     private synchronized int readControl()
     {
       int rv     = 0;
@@ -871,6 +964,30 @@ public class Z80SIO implements Z80InterruptSource
     }
 
 
+    private synchronized void saveState( DataOutput out ) throws IOException
+    {
+      out.writeInt( this.interruptAccepted );
+      out.writeInt( this.interruptRequest );
+      out.writeBoolean( this.recvNextInterruptEnabled );
+      out.writeInt( this.recvBuf );
+      out.writeInt( this.recvClockDiv );
+      out.writeInt( this.recvClocksRemain );
+      out.writeInt( this.recvFifoLen );
+      for( int i = 0; i < this.recvFifo.length; i++ ) {
+	out.writeInt( this.recvFifo[ i ] );
+      }
+      out.writeInt( this.sendBuf );
+      out.writeInt( this.sendClockDiv );
+      out.writeInt( this.sendClocksRemain );
+      for( int i = 0; i < this.rr.length; i++ ) {
+	out.writeInt( this.rr[ i ] );
+      }
+      for( int i = 0; i < this.wr.length; i++ ) {
+	out.writeInt( this.wr[ i ] );
+      }
+    }
+
+
     private void resetSenderInterrupt()
     {
       this.interruptRequest &= ~SENDER_INTERRUPT;
@@ -1000,4 +1117,22 @@ public class Z80SIO implements Z80InterruptSource
   {
     this.a.rr[ 0 ] |= RR0_INTERRUPT_PENDING;
   }
+
+
+  /*
+   * Die Methode wird nach jeder Aenderung an einem Kanal aufgerufen,
+   * jedoch ausserhalb der Sperre des Kanals,
+   * damit die Sperren immer in der Reihenfolge Kanal -> SIO
+   * angefordert werden.
+   */
+  private synchronized void updInterruptLine()
+  {
+    boolean state = isInterruptRequested();
+    if( state != this.interruptLineState ) {
+      this.interruptLineState = state;
+      if( this.interruptLine != null ) {
+	this.interruptLine.setRequest( state );
+      }
+    }
+  }
 }
@@ -0,0 +1,128 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Adapter, der einen Z80TStatesListener ueber den Z80EventScheduler
+ * anstatt nach jedem Befehl aufruft
+ *
+ * Der Listener bekommt die aufgelaufenen Taktzyklen gemeldet:
+ *   - zum Zeitpunkt seines naechsten Ereignisses,
+ *   - vor jedem Ein-/Ausgabebefehl und jeder Interrupt-Annahme
+ *   - sowie bei Aufruf von Z80CPU.flushTStatesListeners().
+ * Der Befehl, mit dem das Ereignis erreicht wird, und Ein-/Ausgabebefehle
+ * werden dabei getrennt gemeldet, so dass der Listener die Taktzyklen
+ * in den gleichen Abschnitten erhaelt wie nach jedem Befehl.
+ *
+ * Implementiert der Listener Z80TStatesSkipListener, wird das naechste
+ * Ereignis ueber getTStatesToNextEvent() ermittelt, jedoch hoechstens
+ * um die beim Anlegen angegebene Periode verschoben, damit Aenderungen
+ * aus anderen Threads rechtzeitig wirksam werden.
+ * Andere Listener werden in dieser festen Periode aufgerufen
+ * und duerfen nicht darauf angewiesen sein,
+ * nach jedem Befehl aufgerufen zu werden.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80TStatesListenerAdapter implements Z80EventListener
+{
+  private Z80TStatesListener listener;
+  private int                period;
+  private long               reportedTStates;
+  private volatile boolean   installed;
+
+
+  public Z80TStatesListenerAdapter( Z80TStatesListener listener, int period )
+  {
+    this.listener        = listener;
+    this.period          = Math.max( period, 1 );
+    this.reportedTStates = -1L;
+    this.installed       = false;
+  }
+
+
+  public Z80TStatesListener getTStatesListener()
+  {
+    return this.listener;
+  }
+
+
+  /*
+   * Die Zaehlung beginnt mit dem ersten Abgleich nach der Anmeldung,
+   * da die Methode auch ausserhalb des Emulations-Threads
+   * aufgerufen werden kann.
+   */
+  public void install( Z80CPU cpu )
+  {
+    this.reportedTStates = -1L;
+    this.installed       = true;
+    cpu.addTStatesAdapter( this );
+    cpu.scheduleEvent( this, 1 );
+  }
+
+
+  public void uninstall( Z80CPU cpu )
+  {
+    this.installed = false;
+    cpu.removeTStatesAdapter( this );
+    cpu.cancelEvent( this );
+  }
+
+
+	/* --- Z80EventListener --- */
+
+  @Override
+  public void z80EventDue( Z80CPU cpu, long dueTStates )
+  {
+    if( this.installed ) {
+      cpu.syncTStatesAdapters();
+    }
+  }
+
+
+	/* --- Methoden fuer die CPU-Emulation --- */
+
+  void reset( long listenerTStates )
+  {
+    this.reportedTStates = listenerTStates;
+  }
+
+
+  void schedule( Z80CPU cpu )
+  {
+    if( this.installed ) {
+      long tStates = this.period;
+      if( this.listener instanceof Z80TStatesSkipListener ) {
+	Z80TStatesSkipListener skipListener
+			= (Z80TStatesSkipListener) this.listener;
+	tStates = Math.min( tStates, skipListener.getTStatesToNextEvent() );
+      }
+      cpu.scheduleEvent( this, Math.max( tStates, 1 ) );
+    }
+  }
+
+
+  /*
+   * Melden der Taktzyklen bis zum angegebenen Stand
+   * von Z80CPU.getListenerTStates()
+   */
+  void update( Z80CPU cpu, long listenerTStates )
+  {
+    if( this.reportedTStates < 0 ) {
+      this.reportedTStates = listenerTStates;
+    }
+    long tStates = listenerTStates - this.reportedTStates;
+    if( tStates > 0 ) {
+      this.reportedTStates = listenerTStates;
+      while( tStates > 0 ) {
+	int n = (int) Math.min( tStates, Integer.MAX_VALUE );
+	this.listener.z80TStatesProcessed( cpu, n );
+	tStates -= n;
+      }
+    }
+  }
+}
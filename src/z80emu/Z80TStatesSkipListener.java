@@ -0,0 +1,31 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Interface fuer Taktzyklen-Listener,
+ * die ihr naechstes Ereignis im Voraus angeben koennen
+ *
+ * Waehrend des WAIT-Zustands meldet die CPU die Taktzyklen
+ * nicht mehr einzeln, sondern in Bloecken bis zum naechsten Ereignis.
+ * Listener, die dieses Interface nicht implementieren,
+ * erhalten die Taktzyklen weiterhin einzeln.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public interface Z80TStatesSkipListener extends Z80TStatesListener
+{
+  /*
+   * Rueckgabewert:
+   *   Anzahl der Taktzyklen, die dem Listener mit einem einzigen
+   *   Aufruf von z80TStatesProcessed(...) gemeldet werden koennen,
+   *   ohne dass sich gegenueber einzeln gemeldeten Taktzyklen
+   *   ein Unterschied ergibt (mindestens 1),
+   *   Integer.MAX_VALUE, wenn kein Ereignis ansteht
+   */
+  public int getTStatesToNextEvent();
+}
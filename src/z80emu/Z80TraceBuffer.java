@@ -0,0 +1,328 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Binaere Befehlsaufzeichnung in einem Ringpuffer
+ *
+ * Solange ein Objekt dieser Klasse bei der CPU angemeldet ist,
+ * wird vor jedem Befehl ein Eintrag fester Laenge geschrieben.
+ * Ist der Puffer voll, werden die aeltesten Eintraege ueberschrieben,
+ * d.h., es stehen immer die letzten Befehle zur Verfuegung.
+ * Im Gegensatz zur Textaufzeichnung mit Z80CPU.setDebugTracer(...)
+ * wird dabei weder formatiert noch Speicher alloziert.
+ *
+ * Der Puffer liegt entweder im Arbeitsspeicher
+ * oder als Memory-Mapped-Datei vor.
+ * Im letzteren Fall ist die Aufzeichnung auch dann noch vorhanden,
+ * wenn der Emulator abstuerzt.
+ *
+ * Aufbau (alle Werte Big-Endian):
+ *   Kopf (32 Bytes):
+ *      0: Kennung "JKTR"
+ *      4: Version (2 Bytes)
+ *      6: Laenge eines Eintrags (2 Bytes)
+ *      8: Kapazitaet in Eintraegen (4 Bytes)
+ *     12: reserviert (4 Bytes)
+ *     16: Anzahl der insgesamt geschriebenen Eintraege (8 Bytes)
+ *     24: reserviert (8 Bytes)
+ *   Eintrag (32 Bytes):
+ *      0: Stand des Taktzyklenzaehlers (8 Bytes)
+ *      8: PC, AF, BC, DE, HL, IX, IY, SP (je 2 Bytes)
+ *     24: die ersten 4 Bytes ab PC
+ *     28: Register I
+ *     29: Register R
+ *     30: Markierung fuer NMI bzw. Interrupt (siehe Z80TraceRecord)
+ *     31: Bit 0: IFF1, Bit 1: IFF2, Bit 2-3: Interrupt-Modus
+ */
+
+package z80emu;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+public class Z80TraceBuffer implements Closeable
+{
+  public static final int HEADER_SIZE  = 32;
+  public static final int RECORD_SIZE  = 32;
+  public static final int INST_BYTES   = 4;
+  public static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE)
+							/ RECORD_SIZE;
+
+  private static final int MAGIC            = 0x4A4B5452;	// JKTR
+  private static final int VERSION          = 1;
+  private static final int POS_CAPACITY     = 8;
+  private static final int POS_RECORD_COUNT = 16;
+
+  private ByteBuffer       buf;
+  private RandomAccessFile raf;
+  private int              capacity;
+  private long             recordCount;
+  private int              writePos;
+
+
+  /*
+   * Anlegen eines Ringpuffers im Arbeitsspeicher
+   */
+  public Z80TraceBuffer( int capacity )
+  {
+    checkCapacity( capacity );
+    this.buf = ByteBuffer.allocate( HEADER_SIZE + (capacity * RECORD_SIZE) );
+    this.raf = null;
+    init( capacity );
+  }
+
+
+  /*
+   * Anlegen eines Ringpuffers als Memory-Mapped-Datei,
+   * eine vorhandene Datei wird ueberschrieben.
+   */
+  public static Z80TraceBuffer createFile(
+				File file,
+				int  capacity ) throws IOException
+  {
+    checkCapacity( capacity );
+    RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+    try {
+      long size = HEADER_SIZE + ((long) capacity * RECORD_SIZE);
+      raf.setLength( size );
+      MappedByteBuffer buf = raf.getChannel().map(
+					FileChannel.MapMode.READ_WRITE,
+					0,
+					size );
+      Z80TraceBuffer traceBuf = new Z80TraceBuffer( buf, raf );
+      traceBuf.init( capacity );
+      raf = null;
+      return traceBuf;
+    }
+    finally {
+      if( raf != null ) {
+	raf.close();
+      }
+    }
+  }
+
+
+  /*
+   * Oeffnen einer Aufzeichnungsdatei zum Lesen
+   */
+  public static Z80TraceBuffer openFile( File file ) throws IOException
+  {
+    RandomAccessFile raf = new RandomAccessFile( file, "r" );
+    try {
+      long size = raf.length();
+      if( (size < HEADER_SIZE) || (size > Integer.MAX_VALUE) ) {
+	throw new IOException( "Datei ist keine Befehlsaufzeichnung." );
+      }
+      MappedByteBuffer buf = raf.getChannel().map(
+					FileChannel.MapMode.READ_ONLY,
+					0,
+					size );
+      if( (buf.getInt( 0 ) != MAGIC)
+	  || (buf.getShort( 6 ) != RECORD_SIZE) )
+      {
+	throw new IOException( "Datei ist keine Befehlsaufzeichnung." );
+      }
+      if( buf.getShort( 4 ) != VERSION ) {
+	throw new IOException( "Version der Befehlsaufzeichnung"
+					+ " nicht unterst\u00FCtzt" );
+      }
+      int  capacity    = buf.getInt( POS_CAPACITY );
+      long recordCount = buf.getLong( POS_RECORD_COUNT );
+      if( (capacity < 1)
+	  || (recordCount < 0)
+	  || (size < (HEADER_SIZE + ((long) capacity * RECORD_SIZE))) )
+      {
+	throw new IOException( "Befehlsaufzeichnung ist besch\u00E4digt." );
+      }
+      Z80TraceBuffer traceBuf = new Z80TraceBuffer( buf, raf );
+      traceBuf.capacity    = capacity;
+      traceBuf.recordCount = recordCount;
+      traceBuf.writePos    = HEADER_SIZE
+				+ (int) (recordCount % capacity) * RECORD_SIZE;
+      raf = null;
+      return traceBuf;
+    }
+    finally {
+      if( raf != null ) {
+	raf.close();
+      }
+    }
+  }
+
+
+  /*
+   * Anzahl der lesbaren Eintraege
+   */
+  public int getAvailableCount()
+  {
+    return (int) Math.min( this.recordCount, this.capacity );
+  }
+
+
+  public int getCapacity()
+  {
+    return this.capacity;
+  }
+
+
+  /*
+   * Anzahl der seit Beginn insgesamt geschriebenen Eintraege
+   */
+  public long getRecordCount()
+  {
+    return this.recordCount;
+  }
+
+
+  /*
+   * Lesen eines Eintrags
+   *
+   * Parameter:
+   *   idx: 0 fuer den aeltesten noch vorhandenen Eintrag
+   *        bis getAvailableCount() - 1 fuer den juengsten
+   */
+  public void readRecord( int idx, Z80TraceRecord rec )
+  {
+    int available = getAvailableCount();
+    if( (idx < 0) || (idx >= available) ) {
+      throw new IndexOutOfBoundsException();
+    }
+    long seqNum = this.recordCount - available + idx;
+    int  pos    = HEADER_SIZE + (int) (seqNum % this.capacity) * RECORD_SIZE;
+    ByteBuffer buf = this.buf;
+    rec.seqNum   = seqNum;
+    rec.tStates  = buf.getLong( pos );
+    rec.pc       = buf.getChar( pos + 8 );
+    rec.af       = buf.getChar( pos + 10 );
+    rec.bc       = buf.getChar( pos + 12 );
+    rec.de       = buf.getChar( pos + 14 );
+    rec.hl       = buf.getChar( pos + 16 );
+    rec.ix       = buf.getChar( pos + 18 );
+    rec.iy       = buf.getChar( pos + 20 );
+    rec.sp       = buf.getChar( pos + 22 );
+    for( int i = 0; i < INST_BYTES; i++ ) {
+      rec.instBytes[ i ] = buf.get( pos + 24 + i );
+    }
+    rec.regI     = (int) buf.get( pos + 28 ) & 0xFF;
+    rec.regR     = (int) buf.get( pos + 29 ) & 0xFF;
+    rec.marker   = (int) buf.get( pos + 30 ) & 0xFF;
+    rec.intFlags = (int) buf.get( pos + 31 ) & 0xFF;
+  }
+
+
+  /*
+   * Speichern des Puffers in eine Datei,
+   * die mit openFile(...) gelesen werden kann
+   */
+  public void saveAs( File file ) throws IOException
+  {
+    RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+    try {
+      ByteBuffer buf = this.buf.duplicate();
+      buf.clear();
+      raf.setLength( 0 );
+      FileChannel channel = raf.getChannel();
+      while( buf.hasRemaining() ) {
+	channel.write( buf );
+      }
+    }
+    finally {
+      raf.close();
+    }
+  }
+
+
+	/* --- Closeable --- */
+
+  @Override
+  public void close() throws IOException
+  {
+    if( this.raf != null ) {
+      if( (this.buf instanceof MappedByteBuffer) && !this.buf.isReadOnly() ) {
+	((MappedByteBuffer) this.buf).force();
+      }
+      this.raf.close();
+    }
+  }
+
+
+	/* --- Methode fuer die CPU --- */
+
+  void write( Z80CPU cpu, int marker )
+  {
+    ByteBuffer buf = this.buf;
+    int        pos = this.writePos;
+    int        pc  = cpu.getRegPC();
+    buf.putLong( pos, cpu.getProcessedTStates() );
+    buf.putChar( pos + 8, (char) pc );
+    buf.putChar( pos + 10, (char) cpu.getRegAF() );
+    buf.putChar( pos + 12, (char) cpu.getRegBC() );
+    buf.putChar( pos + 14, (char) cpu.getRegDE() );
+    buf.putChar( pos + 16, (char) cpu.getRegHL() );
+    buf.putChar( pos + 18, (char) cpu.getRegIX() );
+    buf.putChar( pos + 20, (char) cpu.getRegIY() );
+    buf.putChar( pos + 22, (char) cpu.getRegSP() );
+    for( int i = 0; i < INST_BYTES; i++ ) {
+      buf.put(
+	pos + 24 + i,
+	(byte) cpu.getMemByte( (pc + i) & 0xFFFF, i == 0 ) );
+    }
+    buf.put( pos + 28, (byte) cpu.getRegI() );
+    buf.put( pos + 29, (byte) cpu.getRegR() );
+    buf.put( pos + 30, (byte) marker );
+    buf.put(
+	pos + 31,
+	(byte) ((cpu.getIFF1() ? 0x01 : 0)
+			| (cpu.getIFF2() ? 0x02 : 0)
+			| ((cpu.getInterruptMode() & 0x03) << 2)) );
+
+    pos += RECORD_SIZE;
+    if( pos >= buf.capacity() ) {
+      pos = HEADER_SIZE;
+    }
+    this.writePos = pos;
+    this.recordCount++;
+    buf.putLong( POS_RECORD_COUNT, this.recordCount );
+  }
+
+
+	/* --- private Konstruktor und Methoden --- */
+
+  private Z80TraceBuffer( ByteBuffer buf, RandomAccessFile raf )
+  {
+    this.buf = buf;
+    this.raf = raf;
+  }
+
+
+  private static void checkCapacity( int capacity )
+  {
+    if( (capacity < 1) || (capacity > MAX_CAPACITY) ) {
+      throw new IllegalArgumentException(
+		"Kapazit\u00E4t der Befehlsaufzeichnung ung\u00FCltig" );
+    }
+  }
+
+
+  private void init( int capacity )
+  {
+    this.capacity    = capacity;
+    this.recordCount = 0L;
+    this.writePos    = HEADER_SIZE;
+    this.buf.putInt( 0, MAGIC );
+    this.buf.putShort( 4, (short) VERSION );
+    this.buf.putShort( 6, (short) RECORD_SIZE );
+    this.buf.putInt( POS_CAPACITY, capacity );
+    this.buf.putInt( 12, 0 );
+    this.buf.putLong( POS_RECORD_COUNT, 0L );
+    this.buf.putLong( 24, 0L );
+  }
+}
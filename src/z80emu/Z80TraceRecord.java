@@ -0,0 +1,184 @@
+/*
+ * (c) 2017 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Ein aus Z80TraceBuffer gelesener Eintrag der binaeren Befehlsaufzeichnung
+ *
+ * Ein Objekt dieser Klasse kann fuer mehrere Eintraege
+ * nacheinander verwendet werden.
+ * Da es die Befehlsbytes als Speicherinhalt ab der Befehlsadresse
+ * zur Verfuegung stellt, kann der Befehl mit
+ * Z80Reassembler.reassInstruction( record, record.getPC() )
+ * reassembliert werden.
+ */
+
+package z80emu;
+
+import java.lang.*;
+
+
+public class Z80TraceRecord implements Z80MemView
+{
+  public static final int MARKER_NONE      = 0;
+  public static final int MARKER_NMI       = 1;
+  public static final int MARKER_INTERRUPT = 2;
+
+  long   seqNum;
+  long   tStates;
+  int    pc;
+  int    af;
+  int    bc;
+  int    de;
+  int    hl;
+  int    ix;
+  int    iy;
+  int    sp;
+  int    regI;
+  int    regR;
+  int    marker;
+  int    intFlags;
+  byte[] instBytes;
+
+
+  public Z80TraceRecord()
+  {
+    this.instBytes = new byte[ Z80TraceBuffer.INST_BYTES ];
+  }
+
+
+  public int getInstByte( int idx )
+  {
+    return (int) this.instBytes[ idx ] & 0xFF;
+  }
+
+
+  public int getInterruptMode()
+  {
+    return (this.intFlags >> 2) & 0x03;
+  }
+
+
+  public boolean getIFF1()
+  {
+    return (this.intFlags & 0x01) != 0;
+  }
+
+
+  public boolean getIFF2()
+  {
+    return (this.intFlags & 0x02) != 0;
+  }
+
+
+  /*
+   * Rueckgabewert:
+   *   MARKER_NMI:       Vor dem Befehl wurde ein NMI angenommen.
+   *   MARKER_INTERRUPT: Vor dem Befehl wurde ein maskierbarer
+   *                     Interrupt angenommen.
+   *   MARKER_NONE:      sonst
+   */
+  public int getMarker()
+  {
+    return this.marker;
+  }
+
+
+  public int getPC()
+  {
+    return this.pc;
+  }
+
+
+  public int getRegAF()
+  {
+    return this.af;
+  }
+
+
+  public int getRegBC()
+  {
+    return this.bc;
+  }
+
+
+  public int getRegDE()
+  {
+    return this.de;
+  }
+
+
+  public int getRegHL()
+  {
+    return this.hl;
+  }
+
+
+  public int getRegI()
+  {
+    return this.regI;
+  }
+
+
+  public int getRegIX()
+  {
+    return this.ix;
+  }
+
+
+  public int getRegIY()
+  {
+    return this.iy;
+  }
+
+
+  public int getRegR()
+  {
+    return this.regR;
+  }
+
+
+  public int getRegSP()
+  {
+    return this.sp;
+  }
+
+
+  /*
+   * laufende Nummer des Eintrags seit Beginn der Aufzeichnung
+   */
+  public long getSeqNum()
+  {
+    return this.seqNum;
+  }
+
+
+  /*
+   * Stand des Taktzyklenzaehlers der CPU vor dem Befehl
+   */
+  public long getTStates()
+  {
+    return this.tStates;
+  }
+
+
+	/* --- Z80MemView --- */
+
+  @Override
+  public int getMemByte( int addr, boolean m1 )
+  {
+    int rv  = 0;
+    int idx = (addr - this.pc) & 0xFFFF;
+    if( idx < this.instBytes.length ) {
+      rv = (int) this.instBytes[ idx ] & 0xFF;
+    }
+    return rv;
+  }
+
+
+  @Override
+  public int getMemWord( int addr )
+  {
+    return (getMemByte( addr + 1, false ) << 8) | getMemByte( addr, false );
+  }
+}